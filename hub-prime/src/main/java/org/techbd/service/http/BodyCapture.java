@@ -0,0 +1,324 @@
+package org.techbd.service.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Metrics;
+
+/**
+ * Bounded sink for a body teed off the servlet streams by
+ * {@link TeeRequestWrapper} and {@link TeeResponseWrapper}.
+ * <p>
+ * Bytes are kept in fixed-size chunks borrowed from a shared {@link Pool}
+ * until {@code memoryThresholdBytes}, then everything is moved to a temporary
+ * file. At most {@code maxBodyBytes} are kept: past that the
+ * {@link OversizePolicy} either keeps the prefix ({@code TRUNCATE}) or
+ * discards what was kept ({@code HASH}). Every byte goes into a SHA-256
+ * digest, so the hash and length always describe the whole body.
+ * <p>
+ * Capturing never fails the request: if the spool file cannot be created or
+ * written, what was kept is discarded and the capture goes on hashing and
+ * counting bytes like a {@code HASH} capture, so it reads back as incomplete.
+ * <p>
+ * Once writing is done the capture is a {@link CapturedBody}: readers get
+ * streams or read-only buffers over the kept chunks or file, never a copy.
+ * {@link #close()} returns the chunks to the pool and deletes the file.
+ * <p>
+ * Published meters: {@code techbd.interactions.capture.size} (tagged with
+ * {@code storage=memory|disk|none|failed}),
+ * {@code techbd.interactions.capture.oversize} (tagged with {@code policy})
+ * and {@code techbd.interactions.capture.failed}.
+ */
+public final class BodyCapture implements CapturedBody, AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BodyCapture.class);
+
+    public static final int DEFAULT_MEMORY_THRESHOLD_BYTES = 1024 * 1024;
+    public static final int DEFAULT_MAX_BODY_BYTES = 10 * 1024 * 1024;
+
+    public enum OversizePolicy {
+        TRUNCATE, HASH
+    }
+
+    /**
+     * Chunks shared by all captures. At most {@code maxPooledChunks} idle
+     * chunks are kept; a capture that needs more allocates them and the
+     * surplus is left to the garbage collector when returned.
+     */
+    public static final class Pool {
+
+        public static final int DEFAULT_CHUNK_SIZE = 16 * 1024;
+
+        private final int chunkSize;
+        private final ArrayBlockingQueue<byte[]> idle;
+
+        public Pool(final int chunkSize, final int maxPooledChunks) {
+            this.chunkSize = chunkSize > 0 ? chunkSize : DEFAULT_CHUNK_SIZE;
+            this.idle = new ArrayBlockingQueue<>(Math.max(1, maxPooledChunks));
+        }
+
+        byte[] acquire() {
+            final byte[] chunk = idle.poll();
+            return chunk != null ? chunk : new byte[chunkSize];
+        }
+
+        void release(final byte[] chunk) {
+            if (chunk.length == chunkSize) {
+                idle.offer(chunk);
+            }
+        }
+
+        public int idleChunks() {
+            return idle.size();
+        }
+    }
+
+    private final Pool pool;
+    private final int memoryThresholdBytes;
+    private final long maxBodyBytes;
+    private final OversizePolicy oversizePolicy;
+    private final Path spoolDirectory;
+    private final MessageDigest digest = CapturedBody.newSha256();
+    private final List<byte[]> chunks = new ArrayList<>();
+    private int lastChunkLength;
+    private Path file;
+    private OutputStream fileOut;
+    private long length;
+    private long retained;
+    private boolean discarded;
+    private boolean failed;
+    private String sha256;
+    private boolean closed;
+
+    public BodyCapture(final Pool pool, final int memoryThresholdBytes, final long maxBodyBytes,
+            final OversizePolicy oversizePolicy, final Path spoolDirectory) {
+        this.pool = pool;
+        this.memoryThresholdBytes = memoryThresholdBytes >= 0 ? memoryThresholdBytes
+                : DEFAULT_MEMORY_THRESHOLD_BYTES;
+        this.maxBodyBytes = maxBodyBytes >= 0 ? maxBodyBytes : DEFAULT_MAX_BODY_BYTES;
+        this.oversizePolicy = oversizePolicy != null ? oversizePolicy : OversizePolicy.TRUNCATE;
+        this.spoolDirectory = spoolDirectory;
+    }
+
+    public void write(final int b) {
+        write(new byte[] { (byte) b }, 0, 1);
+    }
+
+    public void write(final byte[] bytes, final int offset, final int count) {
+        if (count <= 0 || closed) {
+            return;
+        }
+        digest.update(bytes, offset, count);
+        length += count;
+        if (discarded) {
+            return;
+        }
+        if (length > maxBodyBytes && oversizePolicy == OversizePolicy.HASH) {
+            discard();
+            return;
+        }
+        final int keep = (int) Math.min(count, maxBodyBytes - retained);
+        if (keep <= 0) {
+            return;
+        }
+        try {
+            if (fileOut == null && retained + keep > memoryThresholdBytes) {
+                spill();
+            }
+            if (fileOut != null) {
+                fileOut.write(bytes, offset, keep);
+            } else {
+                copyToChunks(bytes, offset, keep);
+            }
+            retained += keep;
+        } catch (IOException | RuntimeException e) {
+            fail(e);
+        }
+    }
+
+    private void copyToChunks(final byte[] bytes, int offset, int count) {
+        while (count > 0) {
+            if (chunks.isEmpty() || lastChunkLength == chunks.get(chunks.size() - 1).length) {
+                chunks.add(pool.acquire());
+                lastChunkLength = 0;
+            }
+            final byte[] chunk = chunks.get(chunks.size() - 1);
+            final int n = Math.min(count, chunk.length - lastChunkLength);
+            System.arraycopy(bytes, offset, chunk, lastChunkLength, n);
+            lastChunkLength += n;
+            offset += n;
+            count -= n;
+        }
+    }
+
+    private void spill() throws IOException {
+        file = spoolDirectory == null
+                ? Files.createTempFile("techbd-capture-", ".spool")
+                : Files.createTempFile(Files.createDirectories(spoolDirectory), "techbd-capture-", ".spool");
+        fileOut = Files.newOutputStream(file);
+        for (int i = 0; i < chunks.size(); i++) {
+            fileOut.write(chunks.get(i), 0, i == chunks.size() - 1 ? lastChunkLength : chunks.get(i).length);
+        }
+        releaseChunks();
+    }
+
+    private void discard() {
+        discarded = true;
+        retained = 0;
+        releaseChunks();
+        deleteFile();
+    }
+
+    private void fail(final Exception e) {
+        LOG.warn("BodyCapture:: unable to spool captured body to {}; keeping only its length and hash",
+                spoolDirectory, e);
+        Counter.builder("techbd.interactions.capture.failed")
+                .description("Captured bodies discarded because the spool file could not be written")
+                .register(Metrics.globalRegistry)
+                .increment();
+        failed = true;
+        discard();
+    }
+
+    @Override
+    public long length() {
+        return length;
+    }
+
+    @Override
+    public long retainedLength() {
+        return retained;
+    }
+
+    public boolean isOnDisk() {
+        return file != null;
+    }
+
+    @Override
+    public String sha256() {
+        if (sha256 == null) {
+            sha256 = HexFormat.of().formatHex(digest.digest());
+        }
+        return sha256;
+    }
+
+    @Override
+    public InputStream openStream() throws IOException {
+        if (fileOut != null) {
+            fileOut.flush();
+            return Files.newInputStream(file);
+        }
+        final List<InputStream> streams = new ArrayList<>(chunks.size());
+        for (int i = 0; i < chunks.size(); i++) {
+            streams.add(new ByteArrayInputStream(chunks.get(i), 0,
+                    i == chunks.size() - 1 ? lastChunkLength : chunks.get(i).length));
+        }
+        return new SequenceInputStream(Collections.enumeration(streams));
+    }
+
+    /**
+     * Read-only buffers over the kept bytes in order: one per chunk, or a
+     * single mapping of the spool file.
+     */
+    public List<ByteBuffer> readOnlyBuffers() throws IOException {
+        if (fileOut != null) {
+            fileOut.flush();
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                return List.of(channel.map(FileChannel.MapMode.READ_ONLY, 0, retained));
+            }
+        }
+        final List<ByteBuffer> buffers = new ArrayList<>(chunks.size());
+        for (int i = 0; i < chunks.size(); i++) {
+            buffers.add(ByteBuffer.wrap(chunks.get(i), 0,
+                    i == chunks.size() - 1 ? lastChunkLength : chunks.get(i).length).asReadOnlyBuffer());
+        }
+        return buffers;
+    }
+
+    /**
+     * Forgets everything written so far, as when the response buffer was
+     * reset before anything reached the client.
+     */
+    public void reset() {
+        if (closed) {
+            return;
+        }
+        releaseChunks();
+        deleteFile();
+        digest.reset();
+        sha256 = null;
+        length = 0;
+        retained = 0;
+        discarded = false;
+        failed = false;
+    }
+
+    /**
+     * Returns the chunks to the pool and deletes the spool file. Streams and
+     * buffers obtained earlier must not be used afterwards.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        DistributionSummary.builder("techbd.interactions.capture.size")
+                .description("Bodies captured by the tee capture mode")
+                .baseUnit("bytes")
+                .tag("storage", failed ? "failed" : discarded ? "none" : file != null ? "disk" : "memory")
+                .register(Metrics.globalRegistry)
+                .record(length);
+        if (length > maxBodyBytes) {
+            Counter.builder("techbd.interactions.capture.oversize")
+                    .description("Captured bodies larger than the capture limit")
+                    .tag("policy", oversizePolicy.name().toLowerCase(Locale.ROOT))
+                    .register(Metrics.globalRegistry)
+                    .increment();
+        }
+        releaseChunks();
+        deleteFile();
+    }
+
+    private void releaseChunks() {
+        chunks.forEach(pool::release);
+        chunks.clear();
+        lastChunkLength = 0;
+    }
+
+    private void deleteFile() {
+        if (file == null) {
+            return;
+        }
+        try {
+            if (fileOut != null) {
+                fileOut.close();
+            }
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            file.toFile().deleteOnExit();
+        }
+        fileOut = null;
+        file = null;
+    }
+}
@@ -0,0 +1,121 @@
+package org.techbd.service.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+import org.techbd.conf.Configuration;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+/**
+ * Read-only view of a request or response body captured by
+ * {@link InteractionsFilter}. Consumers read the bytes through
+ * {@link #openStream()} rather than receiving their own copy; a body captured
+ * with {@link BodyCapture} may hold only a prefix of the original (or nothing
+ * but its length and hash) when it was larger than the capture limit.
+ */
+public interface CapturedBody {
+
+    /** Length of the original body, including any bytes that were not kept. */
+    long length();
+
+    /** Number of bytes that can be read back through {@link #openStream()}. */
+    long retainedLength();
+
+    default boolean isComplete() {
+        return retainedLength() == length();
+    }
+
+    /** Hex SHA-256 of the whole original body. */
+    String sha256();
+
+    /** A new stream over the retained bytes; the caller closes it. */
+    InputStream openStream() throws IOException;
+
+    static CapturedBody of(final byte[] bytes) {
+        return bytes == null ? null : new HeapBody(bytes);
+    }
+
+    static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * A body already held in a byte array, e.g. by the content caching
+     * wrappers. The array is shared, not copied.
+     */
+    record HeapBody(byte[] bytes) implements CapturedBody {
+
+        @Override
+        public long length() {
+            return bytes.length;
+        }
+
+        @Override
+        public long retainedLength() {
+            return bytes.length;
+        }
+
+        @Override
+        public String sha256() {
+            return HexFormat.of().formatHex(newSha256().digest(bytes));
+        }
+
+        @Override
+        public InputStream openStream() {
+            return new ByteArrayInputStream(bytes);
+        }
+    }
+
+    /**
+     * Writes a complete body as JSON when it parses as JSON and as a string
+     * otherwise, like {@code ByteArrayToStringOrJsonSerializer}. A body that
+     * was not kept in full is written as an object with its length, hash and,
+     * when a prefix was kept, that prefix as {@code content}.
+     */
+    class Serializer extends StdSerializer<CapturedBody> {
+
+        public Serializer() {
+            super(CapturedBody.class);
+        }
+
+        @Override
+        public void serialize(final CapturedBody value, final JsonGenerator gen, final SerializerProvider provider)
+                throws IOException {
+            if (!value.isComplete()) {
+                gen.writeStartObject();
+                gen.writeBooleanField("truncated", true);
+                gen.writeNumberField("length", value.length());
+                gen.writeStringField("sha256", value.sha256());
+                if (value.retainedLength() > 0) {
+                    gen.writeStringField("content", text(value));
+                }
+                gen.writeEndObject();
+                return;
+            }
+            try (InputStream in = value.openStream()) {
+                gen.writeTree(Configuration.objectMapper.readTree(in));
+            } catch (JsonParseException e) {
+                gen.writeString(text(value));
+            }
+        }
+
+        private static String text(final CapturedBody value) throws IOException {
+            try (InputStream in = value.openStream()) {
+                return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package org.techbd.service.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+
+import org.techbd.service.http.Interactions.RequestResponseEncountered;
+import org.techbd.service.http.Interactions.Tenant;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+
+/**
+ * Fixed-capacity, lock-free history of the most recent interactions.
+ * <p>
+ * Each interaction is reduced to a {@link Summary} whose bodies are kept
+ * deflated, read from the {@link CapturedBody} view without copying it first;
+ * a body longer than {@code maxBodyBytes}, or one the capture did not keep in
+ * full, is dropped and only its length is remembered. Summaries are written into a ring of
+ * {@code capacity} slots claimed with an atomic sequence, so the newest entry
+ * overwrites the oldest one without any lock, and an index by interaction ID
+ * gives O(1) lookups. A slot is only ever replaced by a newer summary: a
+ * writer that finds a newer one already in its slot counts its own summary as
+ * evicted instead. An overwritten summary is removed from the index only if
+ * the index still points to it.
+ * <p>
+ * Meters are registered on the given {@link MeterRegistry}, by default
+ * {@link Metrics#globalRegistry}. Published meters:
+ * {@code techbd.interactions.history.size},
+ * {@code techbd.interactions.history.body.bytes} (deflated bytes retained),
+ * {@code techbd.interactions.history.evicted} and
+ * {@code techbd.interactions.history.body.dropped}.
+ */
+public final class InteractionHistory {
+
+    public static final int DEFAULT_CAPACITY = 50;
+    public static final int DEFAULT_MAX_BODY_BYTES = 64 * 1024;
+
+    private final int capacity;
+    private final int maxBodyBytes;
+    private final AtomicReferenceArray<Summary> slots;
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<UUID, Summary> byInteractionId = new ConcurrentHashMap<>();
+    private final AtomicLong bodyBytes = new AtomicLong();
+    private final Counter evicted;
+    private final Counter droppedBodies;
+
+    public InteractionHistory(final int capacity, final int maxBodyBytes) {
+        this(capacity, maxBodyBytes, Metrics.globalRegistry);
+    }
+
+    public InteractionHistory(final int capacity, final int maxBodyBytes, final MeterRegistry meterRegistry) {
+        this.capacity = capacity > 0 ? capacity : DEFAULT_CAPACITY;
+        this.maxBodyBytes = maxBodyBytes >= 0 ? maxBodyBytes : DEFAULT_MAX_BODY_BYTES;
+        this.slots = new AtomicReferenceArray<>(this.capacity);
+        Gauge.builder("techbd.interactions.history.size", this, InteractionHistory::size)
+                .description("Interactions held in the in-memory history")
+                .register(meterRegistry);
+        Gauge.builder("techbd.interactions.history.body.bytes", this, InteractionHistory::bodyBytes)
+                .description("Deflated request and response bytes held in the in-memory history")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.evicted = Counter.builder("techbd.interactions.history.evicted")
+                .description("Interactions overwritten by newer ones in the in-memory history")
+                .register(meterRegistry);
+        this.droppedBodies = Counter.builder("techbd.interactions.history.body.dropped")
+                .description("Bodies too large to keep in the in-memory history")
+                .register(meterRegistry);
+    }
+
+    public Summary add(final RequestResponseEncountered rre) {
+        final long position = sequence.getAndIncrement();
+        final Summary summary = Summary.of(position, rre, this::body);
+        byInteractionId.put(summary.interactionId(), summary);
+        final int slot = (int) (position % capacity);
+        Summary overwritten = slots.get(slot);
+        while (overwritten == null || overwritten.sequence() < position) {
+            if (slots.compareAndSet(slot, overwritten, summary)) {
+                bodyBytes.addAndGet(summary.retainedBytes());
+                if (overwritten != null) {
+                    byInteractionId.remove(overwritten.interactionId(), overwritten);
+                    bodyBytes.addAndGet(-overwritten.retainedBytes());
+                    evicted.increment();
+                }
+                return summary;
+            }
+            overwritten = slots.get(slot);
+        }
+        // a writer that claimed a later position already filled the slot
+        byInteractionId.remove(summary.interactionId(), summary);
+        evicted.increment();
+        return summary;
+    }
+
+    public Optional<Summary> find(final UUID interactionId) {
+        return interactionId == null ? Optional.empty() : Optional.ofNullable(byInteractionId.get(interactionId));
+    }
+
+    /** The summaries currently held, oldest first. */
+    public Map<UUID, Summary> snapshot() {
+        final List<Summary> summaries = new ArrayList<>(capacity);
+        for (int slot = 0; slot < capacity; slot++) {
+            final Summary summary = slots.get(slot);
+            if (summary != null) {
+                summaries.add(summary);
+            }
+        }
+        summaries.sort(Comparator.comparingLong(Summary::sequence));
+        final Map<UUID, Summary> history = new LinkedHashMap<>();
+        summaries.forEach(summary -> history.put(summary.interactionId(), summary));
+        return history;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public int size() {
+        return (int) Math.min(sequence.get(), capacity);
+    }
+
+    public long bodyBytes() {
+        return bodyBytes.get();
+    }
+
+    private Body body(final CapturedBody content) {
+        if (content == null) {
+            return null;
+        }
+        if (content.length() > maxBodyBytes || !content.isComplete()) {
+            droppedBodies.increment();
+            return new Body(content.length(), null);
+        }
+        return new Body(content.length(), deflate(content));
+    }
+
+    private static byte[] deflate(final CapturedBody content) {
+        final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream((int) Math.max(64, content.length() / 4));
+        try (InputStream in = content.openStream();
+                DeflaterOutputStream deflating = new DeflaterOutputStream(out, deflater, 8192)) {
+            in.transferTo(deflating);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read interaction body", e);
+        } finally {
+            deflater.end();
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * What the history keeps of one interaction: enough to list and find it,
+     * with the bodies deflated.
+     */
+    public record Summary(
+            long sequence,
+            UUID interactionId,
+            Tenant tenant,
+            String method,
+            String requestUri,
+            int status,
+            Instant requestedAt,
+            Instant respondedAt,
+            Body requestBody,
+            Body responseBody) {
+
+        static Summary of(final long sequence, final RequestResponseEncountered rre,
+                final Function<CapturedBody, Body> body) {
+            final var request = rre.request();
+            final var response = rre.response();
+            return new Summary(
+                    sequence,
+                    rre.interactionId(),
+                    rre.tenant(),
+                    request != null ? request.method() : null,
+                    request != null ? request.requestUri() : null,
+                    response != null ? response.status() : 0,
+                    request != null ? request.encounteredAt() : null,
+                    response != null ? response.encounteredAt() : null,
+                    request != null ? body.apply(request.requestBody()) : null,
+                    response != null ? body.apply(response.responseBody()) : null);
+        }
+
+        public long retainedBytes() {
+            return (requestBody != null ? requestBody.retainedBytes() : 0)
+                    + (responseBody != null ? responseBody.retainedBytes() : 0);
+        }
+    }
+
+    /**
+     * A deflated body, or only its length when it was too large to keep.
+     */
+    public record Body(long length, byte[] deflated) {
+
+        public boolean isDropped() {
+            return deflated == null;
+        }
+
+        public int retainedBytes() {
+            return deflated != null ? deflated.length : 0;
+        }
+
+        /** The original bytes, or empty when the body was dropped. */
+        public Optional<byte[]> content() {
+            if (deflated == null) {
+                return Optional.empty();
+            }
+            final Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(deflated);
+                final byte[] content = new byte[(int) length];
+                int read = 0;
+                while (read < length && !inflater.finished() && !inflater.needsInput()) {
+                    read += inflater.inflate(content, read, content.length - read);
+                }
+                return Optional.of(content);
+            } catch (DataFormatException e) {
+                throw new IllegalStateException("Corrupt interaction history body", e);
+            } finally {
+                inflater.end();
+            }
+        }
+    }
+}
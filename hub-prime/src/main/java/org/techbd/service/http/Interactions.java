@@ -4,7 +4,6 @@ import java.io.IOException;
 import java.time.Instant;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -12,12 +11,13 @@ import java.util.UUID;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Component;
 import org.techbd.conf.Configuration;
 import org.techbd.udi.auto.jooq.ingress.routines.RegisterUserInteraction;
-import org.techbd.util.JsonText.ByteArrayToStringOrJsonSerializer;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
@@ -47,23 +47,30 @@ public class Interactions {
         }
     }
 
-    private static final int MAX_IN_MEMORY_HISTORY = 50;
+    private final InteractionHistory history;
 
-    private final Map<UUID, RequestResponseEncountered> history = Collections
-            .synchronizedMap(new LinkedHashMap<>() {
-                @Override
-                protected boolean removeEldestEntry(Map.Entry<UUID, RequestResponseEncountered> eldest) {
-                    return size() > MAX_IN_MEMORY_HISTORY;
-                }
-            });
+    public Interactions() {
+        this(InteractionHistory.DEFAULT_CAPACITY, InteractionHistory.DEFAULT_MAX_BODY_BYTES);
+    }
+
+    @Autowired
+    public Interactions(
+            @Value("${org.techbd.service.http.interactions.history.capacity:50}") final int historyCapacity,
+            @Value("${org.techbd.service.http.interactions.history.maxBodyBytes:65536}") final int historyMaxBodyBytes) {
+        this.history = new InteractionHistory(historyCapacity, historyMaxBodyBytes);
+    }
+
+    public InteractionHistory.Summary addHistory(final @NotNull RequestResponseEncountered rre) {
+        return history.add(rre);
+    }
 
-    public RequestResponseEncountered addHistory(final @NotNull RequestResponseEncountered rre) {
-        history.put(rre.interactionId(), rre);
-        return rre;
+    public Optional<InteractionHistory.Summary> findHistory(final UUID interactionId) {
+        return history.find(interactionId);
     }
 
-    public Map<UUID, RequestResponseEncountered> getHistory() {
-        return Collections.unmodifiableMap(history);
+    /** The interactions currently remembered, oldest first. */
+    public Map<UUID, InteractionHistory.Summary> getHistory() {
+        return Collections.unmodifiableMap(history.snapshot());
     }
 
     public record Tenant(String tenantId, String name) {
@@ -97,7 +104,7 @@ public class Interactions {
             String protocol,
             @JsonIgnore HttpSession session,
             List<Cookie> cookies,
-            @JsonSerialize(using = ByteArrayToStringOrJsonSerializer.class) byte[] requestBody) {
+            @JsonSerialize(using = CapturedBody.Serializer.class) CapturedBody requestBody) {
 
         public RequestEncountered(HttpServletRequest request, byte[] body) throws IOException {
             this(
@@ -122,7 +129,7 @@ public class Interactions {
                     request.getProtocol(), // Protocol
                     request.getSession(false),
                     Arrays.asList(request.getCookies() != null ? request.getCookies() : new Cookie[0]),
-                    body // Request body
+                    CapturedBody.of(body) // Request body
             );
         }
 
@@ -149,11 +156,15 @@ public class Interactions {
                     request.getProtocol(), // Protocol
                     request.getSession(false),
                     Arrays.asList(request.getCookies() != null ? request.getCookies() : new Cookie[0]),
-                    body // Request body
+                    CapturedBody.of(body) // Request body
             );
         }
 
     public RequestEncountered withRequestBody(byte[] newRequestBody) {
+        return withRequestBody(CapturedBody.of(newRequestBody));
+    }
+
+    public RequestEncountered withRequestBody(CapturedBody newRequestBody) {
         return new RequestEncountered(
                 this.requestId,
                 this.tenant,
@@ -182,10 +193,15 @@ public class Interactions {
             int status,
             Instant encounteredAt,
             List<Header> headers,
-            @JsonSerialize(using = ByteArrayToStringOrJsonSerializer.class) byte[] responseBody) {
+            @JsonSerialize(using = CapturedBody.Serializer.class) CapturedBody responseBody) {
 
         public ResponseEncountered(HttpServletResponse response, RequestEncountered requestEncountered,
                 byte[] responseBody) {
+            this(response, requestEncountered, CapturedBody.of(responseBody));
+        }
+
+        public ResponseEncountered(HttpServletResponse response, RequestEncountered requestEncountered,
+                CapturedBody responseBody) {
             this(
                     requestEncountered.requestId(),
                     UUID.randomUUID(),
@@ -1,6 +1,7 @@
 package org.techbd.service.http;
 
 import java.io.IOException;
+import java.nio.file.Path;
 import java.time.OffsetDateTime;
 import java.util.Arrays;
 import java.util.List;
@@ -47,7 +48,6 @@ import jakarta.servlet.http.HttpServletResponse;
 public class InteractionsFilter extends OncePerRequestFilter {
 
     private static final Logger LOG = LoggerFactory.getLogger(InteractionsFilter.class.getName());
-    public static final Interactions interactions = new Interactions();
 
     @Value("${org.techbd.service.http.interactions.default-persist-strategy:#{null}}")
     private String defaultPersistStrategy;
@@ -67,10 +67,49 @@ public class InteractionsFilter extends OncePerRequestFilter {
     @Autowired
     private CoreAppConfig coreAppConfig;
 
+    @Autowired
+    private Interactions interactions;
+
+    @Autowired
+    private UserInteractionQueue userInteractionQueue;
+
+    @Value("${org.techbd.service.http.interactions.capture.mode:cached}")
+    private String captureMode;
+
+    @Value("${org.techbd.service.http.interactions.capture.memoryThresholdBytes:1048576}")
+    private int captureMemoryThresholdBytes;
+
+    @Value("${org.techbd.service.http.interactions.capture.maxBodyBytes:10485760}")
+    private long captureMaxBodyBytes;
+
+    @Value("${org.techbd.service.http.interactions.capture.oversizePolicy:TRUNCATE}")
+    private String captureOversizePolicy;
+
+    @Value("${org.techbd.service.http.interactions.capture.spoolDirectory:}")
+    private String captureSpoolDirectory;
+
+    @Value("${org.techbd.service.http.interactions.capture.poolSizeBytes:8388608}")
+    private int capturePoolSizeBytes;
+
+    private boolean teeCapture;
+    private BodyCapture.OversizePolicy oversizePolicy;
+    private Path spoolDirectory;
+    private BodyCapture.Pool capturePool;
+
     @PostConstruct
     private void init() {
         allowedHosts = Arrays.asList(allowedHostsString.split(","));
         LOG.info("Initialized allowed hosts: {}", allowedHosts);
+        teeCapture = "tee".equalsIgnoreCase(captureMode != null ? captureMode.trim() : null);
+        oversizePolicy = "HASH".equalsIgnoreCase(captureOversizePolicy != null ? captureOversizePolicy.trim() : null)
+                ? BodyCapture.OversizePolicy.HASH
+                : BodyCapture.OversizePolicy.TRUNCATE;
+        spoolDirectory = captureSpoolDirectory == null || captureSpoolDirectory.isBlank() ? null
+                : Path.of(captureSpoolDirectory);
+        capturePool = new BodyCapture.Pool(BodyCapture.Pool.DEFAULT_CHUNK_SIZE,
+                capturePoolSizeBytes / BodyCapture.Pool.DEFAULT_CHUNK_SIZE);
+        LOG.info("Interaction capture mode: {} (maxBodyBytes {}, oversizePolicy {})", teeCapture ? "tee" : "cached",
+                captureMaxBodyBytes, oversizePolicy);
     }
 
     // TODO: figure out why this is not being read from application.yml (NULL is
@@ -169,10 +208,14 @@ public class InteractionsFilter extends OncePerRequestFilter {
         // payloads
         final var requestURI = origRequest.getRequestURI();
         final var createdAt = OffsetDateTime.now();
-        final var mutatableReq = new ContentCachingRequestWrapper(origRequest);
         final var persistInteractionDB = iprDB.requestMatcher().matches(origRequest);
         final var persistReqPayloadDB = iprDB.persistReqPayloadMatcher().matches(origRequest);
         final var persistRespPayloadDB = iprDB.persistRespPayloadMatcher().matches(origRequest);
+        // in tee mode bodies are captured while they stream and only when their payload is persisted
+        final var requestCapture = teeCapture && persistReqPayloadDB ? newBodyCapture() : null;
+        final var responseCapture = teeCapture && persistRespPayloadDB ? newBodyCapture() : null;
+        final HttpServletRequest mutatableReq = teeCapture ? new TeeRequestWrapper(origRequest, requestCapture)
+                : new ContentCachingRequestWrapper(origRequest);
 
         LOG.info("InteractionsFilter Persist DB %s %s (req body %s, resp body %s)".formatted(requestURI,
                 persistInteractionDB, persistReqPayloadDB, persistRespPayloadDB));
@@ -183,7 +226,8 @@ public class InteractionsFilter extends OncePerRequestFilter {
         var requestEncountered = new Interactions.RequestEncountered(mutatableReq, null);
         setActiveRequestEnc(origRequest, requestEncountered);
 
-        final var mutatableResp = new ContentCachingResponseWrapper(origResponse);
+        final HttpServletResponse mutatableResp = teeCapture ? new TeeResponseWrapper(origResponse, responseCapture)
+                : new ContentCachingResponseWrapper(origResponse);
 
         // Check for the X-TechBD-HealthCheck header
         String healthCheckHeader = origRequest.getHeader(AppConfig.Servlet.HeaderName.Request.HEALTH_CHECK_HEADER);
@@ -193,90 +237,128 @@ public class InteractionsFilter extends OncePerRequestFilter {
             return;
         }
 
-        chain.doFilter(mutatableReq, mutatableResp);
-        if (mutatableResp.getStatus() >= 400 && mutatableResp.getStatus() < 500) {
-            LOG.error("Exception in InteractionFilter while processing request to URI : {} ",requestURI);
-            mutatableResp.copyBodyToResponse();
-            return;
-        } 
-        final var requestBody = persistReqPayloadDB ? mutatableReq.getContentAsByteArray()
-                : "persistPayloads = false".getBytes(StandardCharset.UTF_8);
-        requestEncountered = requestEncountered.withRequestBody(requestBody);
-        setActiveRequestEnc(origRequest, requestEncountered);
-        RequestResponseEncountered rre = null;
-        if (!persistRespPayloadDB) {
-            rre = new Interactions.RequestResponseEncountered(requestEncountered,
-                    new Interactions.ResponseEncountered(mutatableResp, requestEncountered,
-                            "persistPayloads = false".getBytes(StandardCharset.UTF_8)));
-        } else {
-            rre = new Interactions.RequestResponseEncountered(requestEncountered,
-                    new Interactions.ResponseEncountered(mutatableResp, requestEncountered,
-                            mutatableResp.getContentAsByteArray()));
-        }
+        try {
+            chain.doFilter(mutatableReq, mutatableResp);
+            if (mutatableResp.getStatus() >= 400 && mutatableResp.getStatus() < 500) {
+                LOG.error("Exception in InteractionFilter while processing request to URI : {} ",requestURI);
+                copyBodyToResponse(mutatableResp);
+                return;
+            } 
+            final var requestBody = persistReqPayloadDB ? capturedBody(mutatableReq, requestCapture)
+                    : CapturedBody.of("persistPayloads = false".getBytes(StandardCharset.UTF_8));
+            requestEncountered = requestEncountered.withRequestBody(requestBody);
+            setActiveRequestEnc(origRequest, requestEncountered);
+            RequestResponseEncountered rre = null;
+            if (!persistRespPayloadDB) {
+                rre = new Interactions.RequestResponseEncountered(requestEncountered,
+                        new Interactions.ResponseEncountered(mutatableResp, requestEncountered,
+                                "persistPayloads = false".getBytes(StandardCharset.UTF_8)));
+            } else {
+                rre = new Interactions.RequestResponseEncountered(requestEncountered,
+                        new Interactions.ResponseEncountered(mutatableResp, requestEncountered,
+                                capturedBody(mutatableResp, responseCapture)));
+            }
 
-        interactions.addHistory(rre);
-        setActiveInteraction(mutatableReq, rre);
-        final var provenance = "%s.doFilterInternal".formatted(InteractionsFilter.class.getName());
-
-        if (persistInteractionDB && !requestURI.startsWith("/Bundle") && !requestURI.startsWith("/Bundle/")
-        && !requestURI.equals("/Hl7/v2")  && !requestURI.equals("/Hl7/v2/")
-        && !requestURI.startsWith("/flatfile/csv")  && !requestURI.startsWith("/flatfile/csv/")
-        ) {
-            final var rihr = new RegisterUserInteraction();
-            try {
-                LOG.info("REGISTER State None : BEGIN for  interaction id : {} tenant id : {}",
-                rre.interactionId().toString(), rre.tenant());
-                final var tenant = rre.tenant();
-                final var dsl = udiPrimeJpaConfig.dsl();
-                rihr.setPInteractionId(rre.interactionId().toString());
-                rihr.setPNature((JsonNode)Configuration.objectMapper.valueToTree(
-                        Map.of("nature", RequestResponseEncountered.class.getName(), "tenant_id",
-                                tenant != null ? tenant.tenantId() != null ? tenant.tenantId() : "N/A" : "N/A")));
-                rihr.setPContentType(MimeTypeUtils.APPLICATION_JSON_VALUE);
-                rihr.setPInteractionKey(requestURI);
-                rihr.setPSourceType(SourceType.FHIR.name());
-                rihr.setPPayload((JsonNode) Configuration.objectMapper.valueToTree(rre));
-                rihr.setPCreatedAt(createdAt); // don't let DB set this, since it might be stored out of order
-                rihr.setPCreatedBy(InteractionsFilter.class.getName());
-                rihr.setPTechbdVersionNumber(coreAppConfig.getVersion());
-                rihr.setPProvenance(provenance);
-                // User details
-                if (saveUserDataToInteractions) {
-                    var curUserName = "API_USER";
-                    var gitHubLoginId = "N/A";
-                    final var sessionId = origRequest.getRequestedSessionId();
-                    var userRole = "API_ROLE";
-
-                    final var curUser = GitHubUserAuthorizationFilter.getAuthenticatedUser(origRequest);
-                    if (curUser.isPresent()) {
-                        final var ghUser = curUser.get().ghUser();
-                        if (null != ghUser) {
-                            curUserName = Optional.ofNullable(ghUser.name()).orElse("NO_DATA");
-                            gitHubLoginId = Optional.ofNullable(ghUser.gitHubId()).orElse("NO_DATA");
-                            userRole = curUser.get().principal().getAuthorities().stream()
-                                    .map(GrantedAuthority::getAuthority)
-                                    .collect(Collectors.joining(","));
-                            LOG.info("userRole: " + userRole);
-                            userRole = "DEFAULT_ROLE"; // TODO: Remove this when role is implemented as part of Auth
+            interactions.addHistory(rre);
+            setActiveInteraction(mutatableReq, rre);
+            final var provenance = "%s.doFilterInternal".formatted(InteractionsFilter.class.getName());
+
+            if (persistInteractionDB && !requestURI.startsWith("/Bundle") && !requestURI.startsWith("/Bundle/")
+            && !requestURI.equals("/Hl7/v2")  && !requestURI.equals("/Hl7/v2/")
+            && !requestURI.startsWith("/flatfile/csv")  && !requestURI.startsWith("/flatfile/csv/")
+            ) {
+                final var rihr = new RegisterUserInteraction();
+                try {
+                    LOG.info("REGISTER State None : BEGIN for  interaction id : {} tenant id : {}",
+                    rre.interactionId().toString(), rre.tenant());
+                    final var tenant = rre.tenant();
+                    final var dsl = udiPrimeJpaConfig.dsl();
+                    rihr.setPInteractionId(rre.interactionId().toString());
+                    rihr.setPNature((JsonNode)Configuration.objectMapper.valueToTree(
+                            Map.of("nature", RequestResponseEncountered.class.getName(), "tenant_id",
+                                    tenant != null ? tenant.tenantId() != null ? tenant.tenantId() : "N/A" : "N/A")));
+                    rihr.setPContentType(MimeTypeUtils.APPLICATION_JSON_VALUE);
+                    rihr.setPInteractionKey(requestURI);
+                    rihr.setPSourceType(SourceType.FHIR.name());
+                    rihr.setPPayload((JsonNode) Configuration.objectMapper.valueToTree(rre));
+                    rihr.setPCreatedAt(createdAt); // don't let DB set this, since it might be stored out of order
+                    rihr.setPCreatedBy(InteractionsFilter.class.getName());
+                    rihr.setPTechbdVersionNumber(coreAppConfig.getVersion());
+                    rihr.setPProvenance(provenance);
+                    // User details
+                    if (saveUserDataToInteractions) {
+                        var curUserName = "API_USER";
+                        var gitHubLoginId = "N/A";
+                        final var sessionId = origRequest.getRequestedSessionId();
+                        var userRole = "API_ROLE";
+
+                        final var curUser = GitHubUserAuthorizationFilter.getAuthenticatedUser(origRequest);
+                        if (curUser.isPresent()) {
+                            final var ghUser = curUser.get().ghUser();
+                            if (null != ghUser) {
+                                curUserName = Optional.ofNullable(ghUser.name()).orElse("NO_DATA");
+                                gitHubLoginId = Optional.ofNullable(ghUser.gitHubId()).orElse("NO_DATA");
+                                userRole = curUser.get().principal().getAuthorities().stream()
+                                        .map(GrantedAuthority::getAuthority)
+                                        .collect(Collectors.joining(","));
+                                LOG.info("userRole: " + userRole);
+                                userRole = "DEFAULT_ROLE"; // TODO: Remove this when role is implemented as part of Auth
+                            }
                         }
+                        rihr.setPUserName(curUserName);
+                        rihr.setPUserId(gitHubLoginId);
+                        rihr.setPUserSession(sessionId);
+                        rihr.setPUserRole(userRole);
+                    } else {
+                        LOG.info("User details are not saved with Interaction as saveUserDataToInteractions: "
+                                + saveUserDataToInteractions);
                     }
-                    rihr.setPUserName(curUserName);
-                    rihr.setPUserId(gitHubLoginId);
-                    rihr.setPUserSession(sessionId);
-                    rihr.setPUserRole(userRole);
-                } else {
-                    LOG.info("User details are not saved with Interaction as saveUserDataToInteractions: "
-                            + saveUserDataToInteractions);
-                }
 
-                rihr.execute(dsl.configuration());
-                LOG.info("REGISTER State None : END for  interaction id : {} tenant id : {}",
-                rre.interactionId().toString(), rre.tenant());
-            } catch (Exception e) {
-                LOG.error("ERROR:: REGISTER State None  for  interaction id : {} tenant id : {} : CALL " + rihr.getName() + " error",  rre.interactionId().toString(), rre.tenant(),e);
+                    if (userInteractionQueue.submit(dsl.configuration(), rre.interactionId().toString(), rihr)
+                            && userInteractionQueue.isAsync()) {
+                        LOG.info("REGISTER State None : queued for  interaction id : {} tenant id : {}",
+                                rre.interactionId().toString(), rre.tenant());
+                    }
+                } catch (Exception e) {
+                    LOG.error("ERROR:: REGISTER State None  for  interaction id : {} tenant id : {} : CALL " + rihr.getName() + " error",  rre.interactionId().toString(), rre.tenant(),e);
+                }
+            }
+            copyBodyToResponse(mutatableResp);
+        } finally {
+            if (requestCapture != null) {
+                requestCapture.close();
             }
+            if (responseCapture != null) {
+                responseCapture.close();
+            }
+        }
+    }
+
+    private BodyCapture newBodyCapture() {
+        return new BodyCapture(capturePool, captureMemoryThresholdBytes, captureMaxBodyBytes, oversizePolicy,
+                spoolDirectory);
+    }
+
+    private static CapturedBody capturedBody(final HttpServletRequest request, final BodyCapture capture) {
+        return request instanceof ContentCachingRequestWrapper cached
+                ? CapturedBody.of(cached.getContentAsByteArray())
+                : capture;
+    }
+
+    private static CapturedBody capturedBody(final HttpServletResponse response, final BodyCapture capture) {
+        if (response instanceof TeeResponseWrapper tee) {
+            tee.finish();
+            return capture;
+        }
+        return CapturedBody.of(((ContentCachingResponseWrapper) response).getContentAsByteArray());
+    }
+
+    private static void copyBodyToResponse(final HttpServletResponse response) throws IOException {
+        if (response instanceof ContentCachingResponseWrapper cached) {
+            cached.copyBodyToResponse();
+        } else if (response instanceof TeeResponseWrapper tee) {
+            tee.finish();
         }
-        mutatableResp.copyBodyToResponse();
     }
 
     public static class InteractionPersistRules {
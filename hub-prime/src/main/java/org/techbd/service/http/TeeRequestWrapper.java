@@ -0,0 +1,118 @@
+package org.techbd.service.http;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+
+/**
+ * Request wrapper that copies every byte the application reads from the body
+ * into a {@link BodyCapture}, instead of caching the whole body on the heap
+ * like {@code ContentCachingRequestWrapper}. Only what is actually read is
+ * captured; form parameters parsed by the container bypass the stream and
+ * are not. With a {@code null} capture the wrapper passes the body through
+ * untouched.
+ */
+public class TeeRequestWrapper extends HttpServletRequestWrapper {
+
+    private final BodyCapture capture;
+    private ServletInputStream inputStream;
+    private BufferedReader reader;
+
+    public TeeRequestWrapper(final HttpServletRequest request, final BodyCapture capture) {
+        super(request);
+        this.capture = capture;
+    }
+
+    public BodyCapture getCapture() {
+        return capture;
+    }
+
+    @Override
+    public ServletInputStream getInputStream() throws IOException {
+        if (inputStream == null) {
+            final ServletInputStream delegate = super.getInputStream();
+            inputStream = capture == null ? delegate : new TeeInputStream(delegate, capture);
+        }
+        return inputStream;
+    }
+
+    @Override
+    public BufferedReader getReader() throws IOException {
+        if (reader == null) {
+            final String encoding = getCharacterEncoding();
+            final Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.ISO_8859_1;
+            reader = new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+        return reader;
+    }
+
+    private static final class TeeInputStream extends ServletInputStream {
+
+        private final ServletInputStream delegate;
+        private final BodyCapture capture;
+
+        TeeInputStream(final ServletInputStream delegate, final BodyCapture capture) {
+            this.delegate = delegate;
+            this.capture = capture;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int b = delegate.read();
+            if (b != -1) {
+                capture.write(b);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            final int n = delegate.read(b, off, len);
+            if (n > 0) {
+                capture.write(b, off, n);
+            }
+            return n;
+        }
+
+        @Override
+        public int readLine(final byte[] b, final int off, final int len) throws IOException {
+            final int n = delegate.readLine(b, off, len);
+            if (n > 0) {
+                capture.write(b, off, n);
+            }
+            return n;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return delegate.available();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+
+        @Override
+        public boolean isFinished() {
+            return delegate.isFinished();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setReadListener(final ReadListener listener) {
+            delegate.setReadListener(listener);
+        }
+    }
+}
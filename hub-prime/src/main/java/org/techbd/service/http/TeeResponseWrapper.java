@@ -0,0 +1,130 @@
+package org.techbd.service.http;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * Response wrapper that writes the body straight through to the client and
+ * copies it into a {@link BodyCapture} on the way, instead of holding the
+ * whole response until {@code copyBodyToResponse()} like
+ * {@code ContentCachingResponseWrapper}. Resetting the response (or its
+ * buffer) also resets the capture and drops the cached writer, so the
+ * captured body stays what the client receives. With a {@code null} capture
+ * the wrapper passes the body through untouched.
+ */
+public class TeeResponseWrapper extends HttpServletResponseWrapper {
+
+    private final BodyCapture capture;
+    private ServletOutputStream outputStream;
+    private PrintWriter writer;
+
+    public TeeResponseWrapper(final HttpServletResponse response, final BodyCapture capture) {
+        super(response);
+        this.capture = capture;
+    }
+
+    public BodyCapture getCapture() {
+        return capture;
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        if (outputStream == null) {
+            final ServletOutputStream delegate = super.getOutputStream();
+            outputStream = capture == null ? delegate : new TeeOutputStream(delegate, capture);
+        }
+        return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (writer == null) {
+            writer = capture == null ? super.getWriter()
+                    : new PrintWriter(new OutputStreamWriter(getOutputStream(), getCharacterEncoding()));
+        }
+        return writer;
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+        super.flushBuffer();
+    }
+
+    @Override
+    public void resetBuffer() {
+        super.resetBuffer();
+        writer = null;
+        if (capture != null) {
+            capture.reset();
+        }
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        outputStream = null;
+        writer = null;
+        if (capture != null) {
+            capture.reset();
+        }
+    }
+
+    /** Pushes text still buffered in the writer through to the client and the capture. */
+    public void finish() {
+        if (writer != null) {
+            writer.flush();
+        }
+    }
+
+    private static final class TeeOutputStream extends ServletOutputStream {
+
+        private final ServletOutputStream delegate;
+        private final BodyCapture capture;
+
+        TeeOutputStream(final ServletOutputStream delegate, final BodyCapture capture) {
+            this.delegate = delegate;
+            this.capture = capture;
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            delegate.write(b);
+            capture.write(b);
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            delegate.write(b, off, len);
+            capture.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setWriteListener(final WriteListener listener) {
+            delegate.setWriteListener(listener);
+        }
+    }
+}
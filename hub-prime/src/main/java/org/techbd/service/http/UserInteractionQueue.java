@@ -0,0 +1,263 @@
+package org.techbd.service.http;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.impl.DSL;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.techbd.udi.auto.jooq.ingress.routines.RegisterUserInteraction;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Background writer for the {@link RegisterUserInteraction} calls made by
+ * {@link InteractionsFilter}, so that UI page loads and grid calls do not wait
+ * for the database.
+ * <p>
+ * With {@code async} enabled {@link #submit} places the call on a bounded
+ * queue and returns. A single writer thread takes up to {@code maxBatchSize}
+ * queued calls at a time and sends them as one {@code SELECT f(...), f(...)}
+ * statement; if that statement fails the calls are retried one by one. When
+ * the queue is full the {@link OverflowPolicy} decides: {@code BLOCK} waits up
+ * to {@code blockTimeoutMillis} for room, {@code DROP} gives up at once. Calls
+ * that find no room are dropped and counted. On shutdown the writer drains
+ * whatever is still queued; the Spring constructor takes the {@link DSLContext}
+ * so the connection pool outlives that final drain. With {@code async}
+ * disabled calls run on the request thread as before. Each interaction is
+ * logged as {@code END} only once its call has executed.
+ * <p>
+ * Meters are registered on the given {@link MeterRegistry}, by default
+ * {@link Metrics#globalRegistry}. Published meters:
+ * {@code techbd.interactions.persist.queue.depth},
+ * {@code techbd.interactions.persist.dropped},
+ * {@code techbd.interactions.persist.batch} (time per statement),
+ * {@code techbd.interactions.persist.batch.size} and
+ * {@code techbd.interactions.persist.fallback}.
+ */
+@Component
+public class UserInteractionQueue {
+
+    private static final Logger LOG = LoggerFactory.getLogger(UserInteractionQueue.class.getName());
+
+    public static final int DEFAULT_CAPACITY = 1000;
+    public static final int DEFAULT_MAX_BATCH_SIZE = 50;
+    public static final int DEFAULT_FLUSH_INTERVAL_MILLIS = 50;
+    public static final int DEFAULT_BLOCK_TIMEOUT_MILLIS = 1000;
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 30_000;
+
+    public enum OverflowPolicy {
+        BLOCK, DROP
+    }
+
+    private record Entry(org.jooq.Configuration jooqCfg, String interactionId, RegisterUserInteraction call) {
+    }
+
+    private final boolean async;
+    private final int maxBatchSize;
+    private final long flushIntervalMillis;
+    private final OverflowPolicy overflowPolicy;
+    private final long blockTimeoutMillis;
+    private final ArrayBlockingQueue<Entry> queue;
+    private final MeterRegistry meterRegistry;
+    private final Counter dropped;
+    private final Thread writer;
+    private volatile boolean running;
+
+    @Autowired
+    public UserInteractionQueue(
+            @Value("${org.techbd.service.http.interactions.persistQueue.async:true}") final boolean async,
+            @Value("${org.techbd.service.http.interactions.persistQueue.capacity:1000}") final int capacity,
+            @Value("${org.techbd.service.http.interactions.persistQueue.maxBatchSize:50}") final int maxBatchSize,
+            @Value("${org.techbd.service.http.interactions.persistQueue.flushIntervalMillis:50}") final int flushIntervalMillis,
+            @Value("${org.techbd.service.http.interactions.persistQueue.overflowPolicy:BLOCK}") final String overflowPolicy,
+            @Value("${org.techbd.service.http.interactions.persistQueue.blockTimeoutMillis:1000}") final int blockTimeoutMillis,
+            final DSLContext dsl) {
+        // dsl is not used directly: depending on it keeps the pool open until shutdown() has drained the queue
+        this(async, capacity, maxBatchSize, flushIntervalMillis, overflowPolicy, blockTimeoutMillis,
+                Metrics.globalRegistry);
+    }
+
+    public UserInteractionQueue(final boolean async, final int capacity, final int maxBatchSize,
+            final int flushIntervalMillis, final String overflowPolicy, final int blockTimeoutMillis,
+            final MeterRegistry meterRegistry) {
+        this.async = async;
+        this.meterRegistry = meterRegistry;
+        this.maxBatchSize = maxBatchSize > 0 ? maxBatchSize : DEFAULT_MAX_BATCH_SIZE;
+        this.flushIntervalMillis = flushIntervalMillis > 0 ? flushIntervalMillis : DEFAULT_FLUSH_INTERVAL_MILLIS;
+        this.overflowPolicy = overflowPolicy != null && overflowPolicy.trim().equalsIgnoreCase("DROP")
+                ? OverflowPolicy.DROP
+                : OverflowPolicy.BLOCK;
+        this.blockTimeoutMillis = blockTimeoutMillis >= 0 ? blockTimeoutMillis : DEFAULT_BLOCK_TIMEOUT_MILLIS;
+        this.queue = new ArrayBlockingQueue<>(capacity > 0 ? capacity : DEFAULT_CAPACITY);
+        Gauge.builder("techbd.interactions.persist.queue.depth", queue, ArrayBlockingQueue::size)
+                .description("User interactions waiting to be written")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("techbd.interactions.persist.dropped")
+                .description("User interactions dropped because the persistence queue was full")
+                .tag("policy", this.overflowPolicy.name().toLowerCase(Locale.ROOT))
+                .register(meterRegistry);
+        if (async) {
+            running = true;
+            writer = new Thread(this::drain, "user-interaction-writer");
+            writer.setDaemon(true);
+            writer.start();
+        } else {
+            writer = null;
+        }
+        LOG.info("UserInteractionQueue:: async :{} capacity :{} maxBatchSize :{} overflowPolicy :{}", async,
+                queue.remainingCapacity(), this.maxBatchSize, this.overflowPolicy);
+    }
+
+    public boolean isAsync() {
+        return async;
+    }
+
+    /**
+     * Queues {@code call} for the writer thread, or executes it right away
+     * when async persistence is disabled or the queue has been shut down.
+     * Returns {@code false} if the call was dropped.
+     */
+    public boolean submit(final org.jooq.Configuration jooqCfg, final String interactionId,
+            final RegisterUserInteraction call) {
+        final Entry entry = new Entry(jooqCfg, interactionId, call);
+        if (!running) {
+            writeOne(entry);
+            return true;
+        }
+        boolean accepted;
+        try {
+            accepted = overflowPolicy == OverflowPolicy.DROP ? queue.offer(entry)
+                    : queue.offer(entry, blockTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            accepted = false;
+        }
+        if (accepted && !running && queue.remove(entry)) {
+            // shut down while this call was being queued, after the final drain
+            writeOne(entry);
+        } else if (!accepted) {
+            dropped.increment();
+            LOG.warn("UserInteractionQueue:: queue full, dropped interaction id : {}", interactionId);
+        }
+        return accepted;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (writer == null || !running) {
+            return;
+        }
+        running = false;
+        try {
+            writer.join(SHUTDOWN_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        final List<Entry> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            LOG.info("UserInteractionQueue:: writing {} interactions left at shutdown", remaining.size());
+            write(remaining);
+        }
+    }
+
+    private void drain() {
+        final List<Entry> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                final Entry first = queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatchSize - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                LOG.error("UserInteractionQueue:: write failed", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /** Writes consecutive calls sharing a jOOQ configuration as one statement each. */
+    private void write(final List<Entry> batch) {
+        int start = 0;
+        for (int end = 1; end <= batch.size(); end++) {
+            if (end == batch.size() || batch.get(end).jooqCfg() != batch.get(start).jooqCfg()) {
+                writeStatement(batch.subList(start, end));
+                start = end;
+            }
+        }
+    }
+
+    private void writeStatement(final List<Entry> statement) {
+        DistributionSummary.builder("techbd.interactions.persist.batch.size")
+                .description("User interactions written per statement")
+                .register(meterRegistry)
+                .record(statement.size());
+        if (statement.size() == 1) {
+            writeOne(statement.get(0));
+            return;
+        }
+        final long start = System.nanoTime();
+        try {
+            final List<Field<?>> fields = new ArrayList<>(statement.size());
+            for (final Entry entry : statement) {
+                fields.add(entry.call().asField());
+            }
+            DSL.using(statement.get(0).jooqCfg()).select(fields).fetchOne();
+            recordBatch(System.nanoTime() - start);
+            statement.forEach(UserInteractionQueue::logWritten);
+        } catch (RuntimeException e) {
+            LOG.warn("UserInteractionQueue:: batched write of {} interactions failed, writing them one by one",
+                    statement.size(), e);
+            Counter.builder("techbd.interactions.persist.fallback")
+                    .description("Batched user interaction writes retried call by call after a failure")
+                    .register(meterRegistry)
+                    .increment();
+            statement.forEach(this::writeOne);
+        }
+    }
+
+    private void writeOne(final Entry entry) {
+        final long start = System.nanoTime();
+        try {
+            entry.call().execute(entry.jooqCfg());
+            recordBatch(System.nanoTime() - start);
+            logWritten(entry);
+        } catch (RuntimeException e) {
+            LOG.error("ERROR:: REGISTER State None  for  interaction id : {} : CALL {} error", entry.interactionId(),
+                    entry.call().getName(), e);
+        }
+    }
+
+    private static void logWritten(final Entry entry) {
+        LOG.info("REGISTER State None : END for  interaction id : {}", entry.interactionId());
+    }
+
+    private void recordBatch(final long elapsedNanos) {
+        Timer.builder("techbd.interactions.persist.batch")
+                .description("Database time per user interaction statement")
+                .register(meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+}
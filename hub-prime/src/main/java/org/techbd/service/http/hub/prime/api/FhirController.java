@@ -3,7 +3,9 @@ package org.techbd.service.http.hub.prime.api;
 import static org.techbd.udi.auto.jooq.ingress.Tables.INTERACTION_HTTP_REQUEST;
 
 import java.io.IOException;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.sql.SQLException;
 import java.time.Instant;
 import java.util.HashMap;
@@ -17,13 +19,14 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.server.ServletServerHttpRequest;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.util.StreamUtils;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
-import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
@@ -35,9 +38,10 @@ import org.techbd.service.dataledger.CoreDataLedgerApiClient;
 import org.techbd.service.fhir.FHIRService;
 import org.techbd.service.fhir.engine.OrchestrationEngine;
 import org.techbd.service.http.Helpers;
-import org.techbd.service.http.hub.CustomRequestWrapper;
 import org.techbd.util.FHIRUtil;
+import org.techbd.util.SpooledPayload;
 import org.techbd.util.fhir.CoreFHIRUtil;
+import org.techbd.util.fhir.ParsedBundle;
 
 import io.micrometer.common.util.StringUtils;
 import io.opentelemetry.api.trace.Span;
@@ -49,7 +53,6 @@ import io.swagger.v3.oas.annotations.media.ExampleObject;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
-import jakarta.annotation.Nonnull;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -100,7 +103,7 @@ public class FhirController {
 
         @PostMapping(value = { "/Bundle", "/Bundle/" }, consumes = { MediaType.APPLICATION_JSON_VALUE,
                         Constants.FHIR_CONTENT_TYPE_HEADER_VALUE })
-        @Operation(summary = "Endpoint to to validate, store, and then forward a payload to SHIN-NY. If you want to validate a payload and not store it or forward it to SHIN-NY, use $validate.", description = "Endpoint to to validate, store, and then forward a payload to SHIN-NY.")
+        @Operation(summary = "Endpoint to to validate, store, and then forward a payload to SHIN-NY. If you want to validate a payload and not store it or forward it to SHIN-NY, use $validate.", description = "Endpoint to to validate, store, and then forward a payload to SHIN-NY.", requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "Payload for the API. This <b>must not</b> be <code>null</code>.", required = true))
         @ApiResponses(value = {
                         @ApiResponse(responseCode = "200", description = "Request processed successfully", content = @Content(mediaType = "application/json", examples = @ExampleObject(value = "{\n"
                                         + "  \"OperationOutcome\": {\n"
@@ -151,7 +154,6 @@ public class FhirController {
         })
         @ResponseBody
         public Object validateBundleAndForward(
-                        @Parameter(description = "Payload for the API. This <b>must not</b> be <code>null</code>.", required = true) final @RequestBody @Nonnull String payload,
                         @Parameter(description = "Parameter to specify the Tenant ID. This is a <b>mandatory</b> parameter.", required = true) @RequestHeader(value = Configuration.Servlet.HeaderName.Request.TENANT_ID, required = true) String tenantId,
                         // "profile" is the same name that HL7 validator uses
                         @Parameter(description = "Optional header to specify the Datalake API URL. If not specified, the default URL mentioned in the application configuration will be used.", required = false) @RequestHeader(value = Constants.DATALAKE_API_URL, required = false) String customDataLakeApi,
@@ -201,7 +203,6 @@ public class FhirController {
                         final var provenance = "%s.validateBundleAndForward(%s)".formatted(
                                         FhirController.class.getName(),
                                         isSync ? "sync" : "async");
-                        request = new CustomRequestWrapper(request, payload);
                         Map<String, Object> headers = CoreFHIRUtil.buildHeaderParametersMap(tenantId, customDataLakeApi,
                                         dataLakeApiContentType,
                                         requestUriToBeOverridden, validationSeverityLevel, healthCheck, coRrelationId,
@@ -213,9 +214,8 @@ public class FhirController {
                         requestDetailsMap.put(Constants.OBSERVABILITY_METRIC_INTERACTION_START_TIME, Instant.now().toString()); 
                         requestDetailsMap.put(Constants.ELABORATION, elaboration);
                         requestDetailsMap.putAll(headers);  
-                        request = new CustomRequestWrapper(request, payload);
                         Map<String, Object> responseParameters = new HashMap<>();
-                        final var result = fhirService.processBundle(payload, requestDetailsMap,responseParameters);
+                        final var result = processRequestBody(request, requestDetailsMap, responseParameters);
                         CoreFHIRUtil.addCookieAndHeadersToResponse(response, responseParameters, requestDetailsMap);
                         return result;
                 } finally {
@@ -226,7 +226,7 @@ public class FhirController {
         @PostMapping(value = { "/Bundle/$validate", "/Bundle/$validate/" }, consumes = {
                         MediaType.APPLICATION_JSON_VALUE,
                         Constants.FHIR_CONTENT_TYPE_HEADER_VALUE })
-        @Operation(summary = "Endpoint to validate but not store or forward a payload to SHIN-NY. If you want to validate a payload, store it and then forward it to SHIN-NY, use /Bundle not /Bundle/$validate.", description = "Endpoint to validate but not store or forward a payload to SHIN-NY.")
+        @Operation(summary = "Endpoint to validate but not store or forward a payload to SHIN-NY. If you want to validate a payload, store it and then forward it to SHIN-NY, use /Bundle not /Bundle/$validate.", description = "Endpoint to validate but not store or forward a payload to SHIN-NY.", requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "Payload for the API. This <b>must not</b> be <code>null</code>.", required = true))
         @ApiResponses(value = {
                         @ApiResponse(responseCode = "200", description = "Request processed successfully", content = @Content(mediaType = "application/json", examples = @ExampleObject(value = "{\n"
                                         + "  \"OperationOutcome\": {\n"
@@ -266,7 +266,6 @@ public class FhirController {
         })
         @ResponseBody
         public Object validateBundle(
-                        @Parameter(description = "Payload for the API. This <b>must not</b> be <code>null</code>.", required = true) final @RequestBody @Nonnull String payload,
                         @Parameter(description = "Parameter to specify the Tenant ID. This is a <b>mandatory</b> parameter.", required = true) @RequestHeader(value = Configuration.Servlet.HeaderName.Request.TENANT_ID, required = true) String tenantId,
                         // "profile" is the same name that HL7 validator uses
                         @Parameter(hidden = true, description = "Optional parameter to decide whether the session cookie (JSESSIONID) should be deleted.", required = false) @RequestParam(value = "delete-session-cookie", required = false) Boolean deleteSessionCookie,
@@ -283,7 +282,6 @@ public class FhirController {
                         if (Boolean.TRUE.equals(deleteSessionCookie)) {
                                 deleteJSessionCookie(request, response);
                         }
-                        request = new CustomRequestWrapper(request, payload);
                         Map<String, Object> headers = CoreFHIRUtil.buildHeaderParametersMap(tenantId, null, null,
                                         null, null, null, null, null,requestedIgVersion );
                         Map <String,Object> requestDetailsMap = FHIRUtil.extractRequestDetails(request);            
@@ -294,7 +292,7 @@ public class FhirController {
                         requestDetailsMap.put(Constants.OBSERVABILITY_METRIC_INTERACTION_START_TIME, Instant.now().toString());
                         requestDetailsMap.putAll(headers);
                         Map<String, Object> responseParameters = new HashMap<>();
-                        final var result = fhirService.processBundle(payload, requestDetailsMap,  responseParameters);
+                        final var result = processRequestBody(request, requestDetailsMap, responseParameters);
                         CoreFHIRUtil.addCookieAndHeadersToResponse(response, responseParameters, requestDetailsMap);
                         return result;
                 } finally {
@@ -361,6 +359,58 @@ public class FhirController {
                 }
         }
 
+        /**
+         * Reads the bundle from the request body and hands it to
+         * {@link FHIRService#processBundle}. With {@code fhirIngestion.streaming}
+         * enabled the body is spooled (in memory up to the configured threshold,
+         * then to disk) and processed as a {@link ParsedBundle} that only builds
+         * the text when a stage needs it; otherwise it is read straight into a
+         * {@code String} as before. Streaming only saves heap with the
+         * {@code tee} interaction capture mode: the default {@code cached} mode
+         * keeps its own copy of the whole body in memory.
+         */
+        private Object processRequestBody(final HttpServletRequest request,
+                        final Map<String, Object> requestDetailsMap, final Map<String, Object> responseParameters)
+                        throws IOException {
+                final CoreAppConfig.FhirIngestion ingestion = appConfig.getFhirIngestion();
+                if (ingestion == null || !ingestion.streaming()) {
+                        final String payload = StreamUtils.copyToString(request.getInputStream(),
+                                        requestCharset(request));
+                        if (payload.isEmpty()) {
+                                throw requestBodyMissing(request);
+                        }
+                        return fhirService.processBundle(payload, requestDetailsMap, responseParameters);
+                }
+                final Path spoolDirectory = StringUtils.isNotEmpty(ingestion.spoolDirectory())
+                                ? Path.of(ingestion.spoolDirectory())
+                                : null;
+                try (SpooledPayload spooledPayload = SpooledPayload.spool(request.getInputStream(),
+                                ingestion.spoolMemoryThresholdBytes(), spoolDirectory)) {
+                        if (spooledPayload.size() == 0) {
+                                throw requestBodyMissing(request);
+                        }
+                        LOG.debug("FHIRController:: Spooled bundle of {} bytes (on disk: {}) for interaction {}",
+                                        spooledPayload.size(), spooledPayload.isOnDisk(),
+                                        requestDetailsMap.get(Constants.INTERACTION_ID));
+                        return fhirService.processBundle(ParsedBundle.of(spooledPayload), requestDetailsMap,
+                                        responseParameters);
+                }
+        }
+
+        private static HttpMessageNotReadableException requestBodyMissing(final HttpServletRequest request) {
+                return new HttpMessageNotReadableException("Required request body is missing",
+                                new ServletServerHttpRequest(request));
+        }
+
+        private static Charset requestCharset(final HttpServletRequest request) {
+                final String encoding = request.getCharacterEncoding();
+                try {
+                        return encoding == null ? StandardCharsets.UTF_8 : Charset.forName(encoding);
+                } catch (IllegalArgumentException e) {
+                        return StandardCharsets.UTF_8;
+                }
+        }
+
         private void deleteJSessionCookie(HttpServletRequest request, HttpServletResponse response) {
                 // Delete the JSESSIONID cookie
                 Cookie cookie = new Cookie("JSESSIONID", null); // Set the cookie name
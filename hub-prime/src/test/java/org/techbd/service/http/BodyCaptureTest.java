@@ -0,0 +1,199 @@
+package org.techbd.service.http;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.techbd.conf.Configuration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+class BodyCaptureTest {
+
+    private static final String BODY = "{\"resourceType\":\"Bundle\",\"type\":\"transaction\",\"entry\":[]}";
+
+    @TempDir
+    Path spoolDirectory;
+
+    @Test
+    void keepsSmallBodiesInPooledChunksAndSharesThemReadOnly() throws IOException {
+        final BodyCapture.Pool pool = new BodyCapture.Pool(16, 8);
+        final byte[] bytes = BODY.getBytes(StandardCharsets.UTF_8);
+        final BodyCapture capture = new BodyCapture(pool, 1024, 4096, BodyCapture.OversizePolicy.TRUNCATE,
+                spoolDirectory);
+        capture.write(bytes, 0, 10);
+        capture.write(bytes, 10, bytes.length - 10);
+
+        assertThat(capture.isOnDisk()).isFalse();
+        assertThat(capture.isComplete()).isTrue();
+        assertThat(read(capture)).isEqualTo(BODY);
+        final List<ByteBuffer> buffers = capture.readOnlyBuffers();
+        assertThat(buffers).hasSize((bytes.length + 15) / 16).allMatch(ByteBuffer::isReadOnly);
+        assertThat(buffers.stream().mapToInt(ByteBuffer::remaining).sum()).isEqualTo(bytes.length);
+        assertThat(capture.sha256()).isEqualTo(CapturedBody.of(bytes).sha256());
+
+        capture.close();
+        assertThat(pool.idleChunks()).isEqualTo(buffers.size());
+    }
+
+    @Test
+    void spillsToDiskAboveTheMemoryThresholdAndDeletesTheFileOnClose() throws IOException {
+        final byte[] bytes = BODY.repeat(10).getBytes(StandardCharsets.UTF_8);
+        final BodyCapture capture = new BodyCapture(new BodyCapture.Pool(16, 8), 32, 4096,
+                BodyCapture.OversizePolicy.TRUNCATE, spoolDirectory);
+        for (int offset = 0; offset < bytes.length; offset += 7) {
+            capture.write(bytes, offset, Math.min(7, bytes.length - offset));
+        }
+
+        assertThat(capture.isOnDisk()).isTrue();
+        assertThat(read(capture)).isEqualTo(BODY.repeat(10));
+        assertThat(capture.readOnlyBuffers()).singleElement()
+                .satisfies(buffer -> assertThat(buffer.isReadOnly()).isTrue())
+                .satisfies(buffer -> assertThat(buffer.remaining()).isEqualTo(bytes.length));
+
+        capture.close();
+        try (Stream<Path> files = Files.list(spoolDirectory)) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    @Test
+    void passesBodiesThroughWhenTheSpoolDirectoryIsUnwritable() throws IOException {
+        final Path unwritable = Files.writeString(spoolDirectory.resolve("not-a-directory"), "")
+                .resolve("spool");
+        final byte[] bytes = BODY.repeat(10).getBytes(StandardCharsets.UTF_8);
+        final MockHttpServletRequest request = new MockHttpServletRequest("POST", "/Bundle");
+        request.setContent(bytes);
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+        try (BodyCapture requestCapture = new BodyCapture(new BodyCapture.Pool(16, 8), 32, 4096,
+                BodyCapture.OversizePolicy.TRUNCATE, unwritable);
+                BodyCapture responseCapture = new BodyCapture(new BodyCapture.Pool(16, 8), 32, 4096,
+                        BodyCapture.OversizePolicy.TRUNCATE, unwritable)) {
+            final TeeRequestWrapper teeRequest = new TeeRequestWrapper(request, requestCapture);
+            final TeeResponseWrapper teeResponse = new TeeResponseWrapper(response, responseCapture);
+
+            assertThat(teeRequest.getInputStream().readAllBytes()).isEqualTo(bytes);
+            teeResponse.getOutputStream().write(bytes);
+
+            assertThat(response.getContentAsByteArray()).isEqualTo(bytes);
+            for (final BodyCapture capture : List.of(requestCapture, responseCapture)) {
+                assertThat(capture.isOnDisk()).isFalse();
+                assertThat(capture.isComplete()).isFalse();
+                assertThat(capture.retainedLength()).isZero();
+                assertThat(capture.length()).isEqualTo(bytes.length);
+                assertThat(capture.sha256()).isEqualTo(CapturedBody.of(bytes).sha256());
+                assertThat(read(capture)).isEmpty();
+            }
+        }
+    }
+
+    @Test
+    void truncatesOrHashesBodiesAboveTheLimit() throws IOException {
+        final byte[] bytes = BODY.getBytes(StandardCharsets.UTF_8);
+        final String sha256 = CapturedBody.of(bytes).sha256();
+        try (BodyCapture truncated = new BodyCapture(new BodyCapture.Pool(16, 8), 1024, 10,
+                BodyCapture.OversizePolicy.TRUNCATE, spoolDirectory);
+                BodyCapture hashed = new BodyCapture(new BodyCapture.Pool(16, 8), 1024, 10,
+                        BodyCapture.OversizePolicy.HASH, spoolDirectory)) {
+            truncated.write(bytes, 0, bytes.length);
+            hashed.write(bytes, 0, bytes.length);
+
+            assertThat(truncated.length()).isEqualTo(bytes.length);
+            assertThat(truncated.retainedLength()).isEqualTo(10);
+            assertThat(read(truncated)).isEqualTo(BODY.substring(0, 10));
+            assertThat(truncated.sha256()).isEqualTo(sha256);
+            assertThat(hashed.retainedLength()).isZero();
+            assertThat(hashed.sha256()).isEqualTo(sha256);
+
+            final JsonNode json = Configuration.objectMapper.valueToTree(new Bodies(truncated, hashed));
+            assertThat(json.at("/first/truncated").asBoolean()).isTrue();
+            assertThat(json.at("/first/content").asText()).isEqualTo(BODY.substring(0, 10));
+            assertThat(json.at("/second/sha256").asText()).isEqualTo(sha256);
+            assertThat(json.at("/second/length").asInt()).isEqualTo(bytes.length);
+            assertThat(json.at("/second/content").isMissingNode()).isTrue();
+        }
+    }
+
+    @Test
+    void serializesCompleteBodiesAsJsonOrText() {
+        final JsonNode json = Configuration.objectMapper.valueToTree(new Bodies(
+                CapturedBody.of(BODY.getBytes(StandardCharsets.UTF_8)),
+                CapturedBody.of("persistPayloads = false".getBytes(StandardCharsets.UTF_8))));
+
+        assertThat(json.at("/first/resourceType").asText()).isEqualTo("Bundle");
+        assertThat(json.at("/second").asText()).isEqualTo("persistPayloads = false");
+    }
+
+    @Test
+    void teeWrappersCaptureBodiesAsTheyStreamThrough() throws IOException {
+        final MockHttpServletRequest request = new MockHttpServletRequest("POST", "/Bundle");
+        request.setContent(BODY.getBytes(StandardCharsets.UTF_8));
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+        response.setCharacterEncoding("UTF-8");
+        try (BodyCapture requestCapture = new BodyCapture(new BodyCapture.Pool(64, 8), 1024, 4096,
+                BodyCapture.OversizePolicy.TRUNCATE, spoolDirectory);
+                BodyCapture responseCapture = new BodyCapture(new BodyCapture.Pool(64, 8), 1024, 4096,
+                        BodyCapture.OversizePolicy.TRUNCATE, spoolDirectory)) {
+            final TeeRequestWrapper teeRequest = new TeeRequestWrapper(request, requestCapture);
+            final TeeResponseWrapper teeResponse = new TeeResponseWrapper(response, responseCapture);
+
+            assertThat(new String(teeRequest.getInputStream().readAllBytes(), StandardCharsets.UTF_8))
+                    .isEqualTo(BODY);
+            teeResponse.getWriter().write("{\"status\":\"ok\"}");
+            teeResponse.finish();
+
+            assertThat(read(requestCapture)).isEqualTo(BODY);
+            assertThat(read(responseCapture)).isEqualTo("{\"status\":\"ok\"}");
+            assertThat(response.getContentAsString()).isEqualTo("{\"status\":\"ok\"}");
+        }
+    }
+
+    @Test
+    void resettingTheResponseResetsTheCapture() throws IOException {
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+        response.setCharacterEncoding("UTF-8");
+        try (BodyCapture capture = new BodyCapture(new BodyCapture.Pool(16, 8), 1024, 4096,
+                BodyCapture.OversizePolicy.TRUNCATE, spoolDirectory)) {
+            final TeeResponseWrapper teeResponse = new TeeResponseWrapper(response, capture);
+
+            teeResponse.getWriter().write("{\"partial\":");
+            teeResponse.getWriter().flush();
+            teeResponse.resetBuffer();
+            teeResponse.getWriter().write("{\"status\":\"error\"}");
+            teeResponse.finish();
+            assertThat(read(capture)).isEqualTo(response.getContentAsString()).isEqualTo("{\"status\":\"error\"}");
+
+            teeResponse.getOutputStream().write("partial".getBytes(StandardCharsets.UTF_8));
+            teeResponse.reset();
+            response.setCharacterEncoding("UTF-8");
+            teeResponse.getWriter().write("{\"status\":\"ok\"}");
+            teeResponse.finish();
+            assertThat(read(capture)).isEqualTo(response.getContentAsString()).isEqualTo("{\"status\":\"ok\"}");
+            assertThat(capture.isComplete()).isTrue();
+            assertThat(capture.sha256())
+                    .isEqualTo(CapturedBody.of("{\"status\":\"ok\"}".getBytes(StandardCharsets.UTF_8)).sha256());
+        }
+    }
+
+    private record Bodies(@JsonSerialize(using = CapturedBody.Serializer.class) CapturedBody first,
+            @JsonSerialize(using = CapturedBody.Serializer.class) CapturedBody second) {
+    }
+
+    private static String read(final CapturedBody body) throws IOException {
+        try (InputStream in = body.openStream()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package org.techbd.service.http;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.techbd.service.http.Interactions.RequestEncountered;
+import org.techbd.service.http.Interactions.RequestResponseEncountered;
+import org.techbd.service.http.Interactions.ResponseEncountered;
+import org.techbd.service.http.Interactions.Tenant;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class InteractionHistoryTest {
+
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void keepsTheMostRecentInteractionsAndEvictsTheOldest() {
+        final InteractionHistory history = new InteractionHistory(3, 1024, registry);
+        final List<RequestResponseEncountered> added = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            final RequestResponseEncountered rre = interaction("/Bundle/" + i, "{\"n\":" + i + "}");
+            added.add(rre);
+            history.add(rre);
+        }
+
+        final Map<UUID, InteractionHistory.Summary> snapshot = history.snapshot();
+        assertThat(snapshot.keySet()).containsExactly(added.get(2).interactionId(), added.get(3).interactionId(),
+                added.get(4).interactionId());
+        assertThat(history.find(added.get(0).interactionId())).isEmpty();
+        assertThat(history.find(added.get(4).interactionId())).get()
+                .extracting(InteractionHistory.Summary::requestUri, InteractionHistory.Summary::status)
+                .containsExactly("/Bundle/4", 200);
+        assertThat(history.size()).isEqualTo(3);
+        assertThat(registry.get("techbd.interactions.history.evicted").counter().count()).isEqualTo(2);
+        assertThat(registry.get("techbd.interactions.history.size").gauge().value()).isEqualTo(3);
+        assertThat(registry.get("techbd.interactions.history.body.bytes").gauge().value())
+                .isEqualTo(snapshot.values().stream().mapToLong(InteractionHistory.Summary::retainedBytes).sum());
+    }
+
+    @Test
+    void deflatesSmallBodiesAndDropsLargeOnes() {
+        final InteractionHistory history = new InteractionHistory(4, 1024, registry);
+        final String small = "{\"resourceType\":\"Bundle\",\"entry\":[]}".repeat(20);
+        final String large = "x".repeat(2048);
+
+        final InteractionHistory.Summary summary = history.add(interaction("/Bundle", small, large));
+
+        assertThat(summary.requestBody().isDropped()).isFalse();
+        assertThat(summary.requestBody().retainedBytes()).isLessThan(small.length());
+        assertThat(new String(summary.requestBody().content().orElseThrow(), StandardCharsets.UTF_8))
+                .isEqualTo(small);
+        assertThat(summary.responseBody().isDropped()).isTrue();
+        assertThat(summary.responseBody().length()).isEqualTo(large.length());
+        assertThat(summary.responseBody().content()).isEmpty();
+        assertThat(registry.get("techbd.interactions.history.body.dropped").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void concurrentWritersKeepTheIndexConsistentWithTheRing() throws InterruptedException {
+        final InteractionHistory history = new InteractionHistory(16, 1024, registry);
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 2_000; i++) {
+            final int n = i;
+            executor.execute(() -> history.add(interaction("/api/ux/" + n, "{}")));
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        final Map<UUID, InteractionHistory.Summary> snapshot = history.snapshot();
+        assertThat(snapshot).hasSize(16);
+        assertThat(snapshot.values()).extracting(InteractionHistory.Summary::sequence)
+                .containsExactlyElementsOf(LongStream.range(2_000 - 16, 2_000).boxed().toList());
+        snapshot.keySet().forEach(id -> assertThat(history.find(id)).isPresent());
+        assertThat(registry.get("techbd.interactions.history.evicted").counter().count()).isEqualTo(2_000 - 16);
+        assertThat(history.bodyBytes())
+                .isEqualTo(snapshot.values().stream().mapToLong(InteractionHistory.Summary::retainedBytes).sum());
+    }
+
+    private static RequestResponseEncountered interaction(final String uri, final String body) {
+        return interaction(uri, body, body);
+    }
+
+    private static RequestResponseEncountered interaction(final String uri, final String requestBody,
+            final String responseBody) {
+        final UUID requestId = UUID.randomUUID();
+        final RequestEncountered request = new RequestEncountered(requestId, new Tenant("tenant"), "POST",
+                "http://localhost" + uri, "http://localhost" + uri, uri, "127.0.0.1", "test", Instant.now(),
+                List.of(), Map.of(), "application/json", null, "HTTP/1.1", null, List.of(),
+                CapturedBody.of(requestBody.getBytes(StandardCharsets.UTF_8)));
+        final ResponseEncountered response = new ResponseEncountered(requestId, UUID.randomUUID(), 200,
+                Instant.now(), List.of(), CapturedBody.of(responseBody.getBytes(StandardCharsets.UTF_8)));
+        return new RequestResponseEncountered(request, response);
+    }
+}
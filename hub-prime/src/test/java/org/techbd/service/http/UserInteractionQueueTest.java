@@ -0,0 +1,106 @@
+package org.techbd.service.http;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.jooq.Configuration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.techbd.udi.auto.jooq.ingress.routines.RegisterUserInteraction;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class UserInteractionQueueTest {
+
+    private final Configuration jooqCfg = mock(Configuration.class);
+    private SimpleMeterRegistry registry;
+    private UserInteractionQueue queue;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        queue.shutdown();
+    }
+
+    @Test
+    void writesOnTheRequestThreadWhenAsyncIsDisabled() {
+        queue = new UserInteractionQueue(false, 10, 50, 50, "BLOCK", 1000, registry);
+        final RegisterUserInteraction call = mock(RegisterUserInteraction.class);
+
+        assertThat(queue.submit(jooqCfg, "i-1", call)).isTrue();
+
+        verify(call).execute(jooqCfg);
+        assertThat(registry.get("techbd.interactions.persist.batch").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void dropsWhenTheQueueIsFullAndFlushesTheRestOnShutdown() throws InterruptedException {
+        queue = new UserInteractionQueue(true, 1, 50, 10, "DROP", 1000, registry);
+        final CountDownLatch writing = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final RegisterUserInteraction slow = mock(RegisterUserInteraction.class);
+        when(slow.execute(any(Configuration.class))).thenAnswer(invocation -> {
+            writing.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return 1;
+        });
+        final RegisterUserInteraction queued = mock(RegisterUserInteraction.class);
+        final RegisterUserInteraction overflow = mock(RegisterUserInteraction.class);
+
+        assertThat(queue.submit(jooqCfg, "i-1", slow)).isTrue();
+        assertThat(writing.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(queue.submit(jooqCfg, "i-2", queued)).isTrue();
+        assertThat(queue.submit(jooqCfg, "i-3", overflow)).isFalse();
+
+        assertThat(registry.get("techbd.interactions.persist.queue.depth").gauge().value()).isEqualTo(1);
+        assertThat(registry.get("techbd.interactions.persist.dropped").tag("policy", "drop").counter().count())
+                .isEqualTo(1);
+        release.countDown();
+        queue.shutdown();
+
+        verify(queued).execute(jooqCfg);
+        verify(overflow, never()).execute(any(Configuration.class));
+        assertThat(registry.get("techbd.interactions.persist.queue.depth").gauge().value()).isZero();
+    }
+
+    @Test
+    void writesQueuedCallsTogetherAndFallsBackToOneByOne() throws InterruptedException {
+        queue = new UserInteractionQueue(true, 10, 50, 10, "BLOCK", 1000, registry);
+        final CountDownLatch writing = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final RegisterUserInteraction slow = mock(RegisterUserInteraction.class);
+        when(slow.execute(any(Configuration.class))).thenAnswer(invocation -> {
+            writing.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return 1;
+        });
+        final RegisterUserInteraction[] calls = { mock(RegisterUserInteraction.class),
+                mock(RegisterUserInteraction.class), mock(RegisterUserInteraction.class) };
+
+        queue.submit(jooqCfg, "i-0", slow);
+        assertThat(writing.await(10, TimeUnit.SECONDS)).isTrue();
+        for (int i = 0; i < calls.length; i++) {
+            queue.submit(jooqCfg, "i-" + (i + 1), calls[i]);
+        }
+        release.countDown();
+
+        for (final RegisterUserInteraction call : calls) {
+            verify(call, timeout(5_000)).execute(jooqCfg);
+        }
+        assertThat(registry.get("techbd.interactions.persist.batch.size").summary().max()).isEqualTo(3);
+        assertThat(registry.get("techbd.interactions.persist.fallback").counter().count()).isEqualTo(1);
+    }
+}
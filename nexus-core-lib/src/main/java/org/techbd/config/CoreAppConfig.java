@@ -30,6 +30,22 @@ public class CoreAppConfig {
     private boolean dataLedgerDiagnostics;    
     private String validationSeverityLevel;
     private String dataLedgerApiKeySecretName;
+    private Integer fhirValidatorCacheMaxSize;
+    private Integer fhirValidatorLoadParallelism;
+    private String fhirConformanceSnapshotStorePath;
+    private FhirValidationConcurrency fhirValidationConcurrency;
+    private FhirIngestion fhirIngestion;
+    private ScoringEngineClient scoringEngineClient;
+    private ScoringEngineForwarding scoringEngineForwarding;
+    private InteractionJournal interactionJournal;
+    private PostStdinWorkerPool postStdinWorkerPool;
+    private CsvConcurrency csvBundleGeneration;
+    private CsvConcurrency csvGroupValidation;
+    private CsvValidationWorkerPool csvValidationWorkerPool;
+    private String csvValidationEngine;
+    private String csvFileScanMode;
+    private CsvZipExtraction csvZipExtraction;
+    private Long codeLookupRefreshIntervalSeconds;
     @Getter
     @Setter
     public static class FhirV4Config {
@@ -44,6 +60,26 @@ public class CoreAppConfig {
             WithApiKeyAuth withApiKeyAuth) {
     }
 
+    public record FhirValidationConcurrency(String executorMode, Integer maxConcurrency,
+            Integer engineTimeoutSeconds, boolean concurrentBundleValidation) {
+    }
+
+    public record FhirIngestion(boolean streaming, Integer spoolMemoryThresholdBytes, String spoolDirectory) {
+    }
+
+    public record ScoringEngineClient(Integer maxConnections, Integer maxIdleTimeSeconds,
+            Integer maxLifeTimeSeconds, Integer pendingAcquireTimeoutSeconds, Integer certificateTtlSeconds,
+            Integer maxClients) {
+    }
+
+    public record ScoringEngineForwarding(boolean async, Integer workerThreads, Integer queueCapacity,
+            String journalDirectory, Integer maxRetries, Integer initialBackoffMillis, Integer maxBackoffMillis) {
+    }
+
+    public record InteractionJournal(boolean writeBehind, Integer maxBatchSize, Integer flushIntervalMillis,
+            Integer capacity, String overflowPolicy, Integer blockTimeoutMillis) {
+    }
+
     public record WithApiKeyAuth(String apiKeyHeaderName,String apiKeySecretName) {
     }
 
@@ -56,6 +92,20 @@ public class CoreAppConfig {
     public record PostStdinPayloadToNyecDataLakeExternal(String cmd, int timeout) {
     }
 
+    public record PostStdinWorkerPool(boolean enabled, String cmd, Integer workers, Integer maxInFlightPerWorker) {
+    }
+
+    public record CsvConcurrency(String executorMode, Integer maxConcurrency) {
+    }
+
+    public record CsvValidationWorkerPool(boolean enabled, String workerScriptPath, Integer workers,
+            Integer maxJobsPerWorker, Integer timeoutSeconds, Integer healthCheckIntervalSeconds) {
+    }
+
+    public record CsvZipExtraction(boolean streaming, Long maxEntryBytes, Long maxTotalBytes, Integer maxEntries,
+            Integer maxCompressionRatio) {
+    }
+
     public record CsvValidation(Validation validation) {
     public record Validation(String pythonScriptPath,String pythonExecutable,String packagePath,String outputPath,String inboundPath,String ingressHomePath) {
     }
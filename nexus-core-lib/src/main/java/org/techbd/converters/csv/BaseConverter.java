@@ -1,7 +1,5 @@
 package org.techbd.converters.csv;
 
-import java.util.Map;
-
 import org.apache.commons.lang3.StringUtils;
 import org.hl7.fhir.r4.model.CanonicalType;
 import org.hl7.fhir.r4.model.CodeableConcept;
@@ -9,15 +7,13 @@ import org.hl7.fhir.r4.model.Coding;
 import org.hl7.fhir.r4.model.Extension;
 import org.hl7.fhir.r4.model.Reference;
 import org.hl7.fhir.r4.model.StringType;
+import org.jooq.DSLContext;
 import org.techbd.config.CoreUdiPrimeJpaConfig;
 import org.techbd.service.csv.CodeLookupService;
 import org.techbd.util.fhir.CoreFHIRUtil;
 
 public abstract class BaseConverter implements IConverter {
 
-    public static Map<String, Map<String, String>> CODE_LOOKUP;
-    public static Map<String, Map<String, String>> SYSTEM_LOOKUP;
-    public static Map<String, Map<String, String>> DISPLAY_LOOKUP;
     private final CodeLookupService codeLookupService;
     private final CoreUdiPrimeJpaConfig coreUdiPrimeJpaConfig;
 
@@ -26,77 +22,39 @@ public abstract class BaseConverter implements IConverter {
         this.coreUdiPrimeJpaConfig = coreUdiPrimeJpaConfig;
     }
 
-    public String fetchCode(String valueFromCsv, String category, String interactionId) {
-        if (CODE_LOOKUP == null) {
-            final var dslContext = coreUdiPrimeJpaConfig.dsl();
-            BaseConverter.CODE_LOOKUP = codeLookupService.fetchCode(dslContext, interactionId);
-        }
+    private DSLContext dsl() {
+        return coreUdiPrimeJpaConfig.dsl();
+    }
 
+    public String fetchCode(String valueFromCsv, String category, String interactionId) {
         if (valueFromCsv == null || category == null) {
             return valueFromCsv;
         }
-        Map<String, String> innerMap = CODE_LOOKUP.get(category);
-        if (innerMap == null) {
-            return valueFromCsv;
-        }
-
-        return innerMap.getOrDefault(valueFromCsv.toLowerCase(), valueFromCsv);
+        String code = codeLookupService.findCode(this::dsl, category, valueFromCsv, interactionId);
+        return code != null ? code : valueFromCsv;
     }
 
     public String fetchSystem(String code, String valueFromCsv, String category, String interactionId) {
-        if (SYSTEM_LOOKUP == null) {
-            final var dslContext = coreUdiPrimeJpaConfig.dsl();
-            BaseConverter.SYSTEM_LOOKUP = codeLookupService.fetchSystem(dslContext, interactionId);
-        }
-
         if (code == null || category == null) {
             return valueFromCsv;
         }
-        Map<String, String> innerMap = SYSTEM_LOOKUP.get(category);
-        if (innerMap == null) {
-            return valueFromCsv;
-        }
-
-        return innerMap.getOrDefault(code, valueFromCsv);
+        String system = codeLookupService.findSystem(this::dsl, category, code, interactionId);
+        return system != null ? system : valueFromCsv;
     }
 
     public String fetchDisplay(String code, String valueFromCsv, String category, String interactionId) {
-        if (DISPLAY_LOOKUP == null) {
-            final var dslContext = coreUdiPrimeJpaConfig.dsl();
-            BaseConverter.DISPLAY_LOOKUP = codeLookupService.fetchDisplay(dslContext, interactionId);
-        }
-
         if (code == null || category == null) {
             return valueFromCsv;
         }
-        Map<String, String> innerMap = DISPLAY_LOOKUP.get(category);
-        if (innerMap == null) {
-            return valueFromCsv;
-        }
-
-        return innerMap.getOrDefault(code, valueFromCsv);
+        String display = codeLookupService.findDisplay(this::dsl, category, code, interactionId);
+        return display != null ? display : valueFromCsv;
     }
 
     public String fetchCodeFromDisplay(String display, String category, String interactionId) {
-        if (DISPLAY_LOOKUP == null) {
-            final var dslContext = coreUdiPrimeJpaConfig.dsl();
-            BaseConverter.DISPLAY_LOOKUP = codeLookupService.fetchDisplay(dslContext, interactionId);
-        }
-
         if (display == null || category == null) {
             return null;
         }
-        Map<String, String> innerMap = DISPLAY_LOOKUP.get(category);
-        if (innerMap == null) {
-            return null;
-        }
-
-        // Reverse lookup: find code for a given display
-        return innerMap.entrySet().stream()
-                .filter(e -> e.getValue().equalsIgnoreCase(display))
-                .map(Map.Entry::getKey)
-                .findFirst()
-                .orElse(null);
+        return codeLookupService.findCodeForDisplay(this::dsl, category, display, interactionId);
     }
 
 
@@ -109,13 +67,7 @@ public abstract class BaseConverter implements IConverter {
     }
 
     private String getCategoryType(String categoryType, String code, String interactionId) {
-        if (CODE_LOOKUP == null) {
-            final var dslContext = coreUdiPrimeJpaConfig.dsl();
-            CODE_LOOKUP = codeLookupService.fetchCode(dslContext, interactionId);
-        }
-
-        Map<String, String> categoryMap = CODE_LOOKUP.get(categoryType);
-        if (categoryMap != null && categoryMap.containsKey(code.toLowerCase())) {
+        if (codeLookupService.findCode(this::dsl, categoryType, code, interactionId) != null) {
             return "ombCategory";
         }
 
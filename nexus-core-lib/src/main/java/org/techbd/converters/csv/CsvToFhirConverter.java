@@ -14,24 +14,38 @@ import org.techbd.model.csv.ScreeningObservationData;
 import org.techbd.model.csv.ScreeningProfileData;
 import org.techbd.util.AppLogger;
 import org.techbd.util.TemplateLogger;
-
-import ca.uhn.fhir.context.FhirContext;
+import org.techbd.util.fhir.FhirContextProvider;
+import org.techbd.util.fhir.ParsedBundle;
 
 @Component
 public class CsvToFhirConverter {
     private final List<IConverter> converters; // todo move other converters inside bundle converter after hl7 changes
     private final BundleConverter bundleConverter;
+    private final FhirContextProvider fhirContextProvider;
     private final TemplateLogger LOG;
 
-    public CsvToFhirConverter(BundleConverter bundleConverter, List<IConverter> converters,AppLogger appLogger) {
+    public CsvToFhirConverter(BundleConverter bundleConverter, List<IConverter> converters,
+            FhirContextProvider fhirContextProvider, AppLogger appLogger) {
         this.converters = converters;
         this.bundleConverter = bundleConverter;
+        this.fhirContextProvider = fhirContextProvider;
         this.LOG = appLogger.getLogger(CsvToFhirConverter.class);
     }
 
     public String convert(DemographicData demographicData,
             QeAdminData qeAdminData, ScreeningProfileData screeningProfileData,
             List<ScreeningObservationData> screeningDataList, String interactionId,String baseFHIRUrl) {
+        return encode(convertToBundle(demographicData, qeAdminData, screeningProfileData, screeningDataList,
+                interactionId, baseFHIRUrl));
+    }
+
+    /**
+     * Same as {@link #convert} but returns the HAPI resource, so callers that
+     * validate the bundle do not have to parse the encoded text again.
+     */
+    public Bundle convertToBundle(DemographicData demographicData,
+            QeAdminData qeAdminData, ScreeningProfileData screeningProfileData,
+            List<ScreeningObservationData> screeningDataList, String interactionId,String baseFHIRUrl) {
         Bundle bundle = null;
         try {
             LOG.info("CsvToFhirConvereter::convert - BEGIN for interactionId :{}", interactionId);
@@ -44,7 +58,20 @@ public class CsvToFhirConverter {
         } catch (Exception ex) {
             LOG.error("Exception in Csv conversion for interaction id : {}", interactionId, ex);
         }
-        return FhirContext.forR4().newJsonParser().encodeResourceToString(bundle);
+        return bundle;
+    }
+
+    public String encode(Bundle bundle) {
+        return fhirContextProvider.encodeToJson(bundle);
+    }
+
+    /**
+     * Encodes {@code bundle} and wraps both forms for
+     * {@code FHIRService.processBundle}, which then validates the resource
+     * instead of parsing the text again.
+     */
+    public ParsedBundle toParsedBundle(Bundle bundle) {
+        return ParsedBundle.of(bundle, fhirContextProvider.getContext(), encode(bundle));
     }
 
     private void addEntries(Bundle bundle, DemographicData demographicData,
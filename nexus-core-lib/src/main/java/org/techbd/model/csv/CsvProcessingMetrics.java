@@ -41,4 +41,11 @@ public class CsvProcessingMetrics {
      */
     @Builder.Default
     private String dataValidationStatus = CsvDataValidationStatus.SUCCESS.getDescription();
+
+    /** Uncompressed bytes written while streaming the ZIP into the session directory (0 when not streamed). */
+    private long zipFileExtractedBytes;
+    /** Time taken to stream the ZIP into the session directory, in milliseconds. */
+    private long zipFileExtractionMillis;
+    /** Extraction throughput, in uncompressed megabytes per second. */
+    private double zipFileExtractionThroughputMbPerSecond;
  }
\ No newline at end of file
@@ -1,4 +1,20 @@
 package org.techbd.model.csv;
 
-public record FileDetail(String filename, FileType fileType, String content,String filePath,boolean utf8Encoded,String reason) {
-}
\ No newline at end of file
+/**
+ * An extracted CSV file. When the file was scanned memory-mapped, {@code content}
+ * is null and {@code mappedContent} holds the file's bytes; {@link #content()}
+ * then decodes them on each call, so callers that only stream the file should
+ * use {@link MappedCsvContent#openReader()} instead.
+ */
+public record FileDetail(String filename, FileType fileType, String content,String filePath,boolean utf8Encoded,String reason,MappedCsvContent mappedContent) {
+
+    public FileDetail(String filename, FileType fileType, String content, String filePath, boolean utf8Encoded,
+            String reason) {
+        this(filename, fileType, content, filePath, utf8Encoded, reason, null);
+    }
+
+    @Override
+    public String content() {
+        return content == null && mappedContent != null ? mappedContent.decode() : content;
+    }
+}
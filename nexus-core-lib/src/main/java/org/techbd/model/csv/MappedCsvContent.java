@@ -0,0 +1,96 @@
+package org.techbd.model.csv;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The bytes of an extracted CSV file, memory-mapped read-only instead of being
+ * decoded into the heap. The mapping outlives the channel used to create it
+ * and is released when this object is garbage collected; the file must not be
+ * truncated while it is mapped. Text is decoded only when {@link #decode()} or
+ * {@link #openReader()} is called.
+ */
+public final class MappedCsvContent {
+
+    private final Path path;
+    private final ByteBuffer bytes;
+
+    private MappedCsvContent(final Path path, final ByteBuffer bytes) {
+        this.path = path;
+        this.bytes = bytes;
+    }
+
+    public static MappedCsvContent map(final Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("File is too large to be mapped: " + size + " bytes");
+            }
+            return new MappedCsvContent(path, channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        }
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    /** The mapped bytes, as a read-only view positioned at the start of the file. */
+    public ByteBuffer bytes() {
+        return bytes.duplicate();
+    }
+
+    public int size() {
+        return bytes.limit();
+    }
+
+    public String decode() {
+        return StandardCharsets.UTF_8.decode(bytes()).toString();
+    }
+
+    public Reader openReader() {
+        return new InputStreamReader(new ByteBufferInputStream(bytes()), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String toString() {
+        return "MappedCsvContent[path=" + path + ", size=" + size() + "]";
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(final ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(final byte[] target, final int offset, final int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            final int count = Math.min(length, buffer.remaining());
+            buffer.get(target, offset, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -2,14 +2,23 @@ package org.techbd.service.csv;
 
 import static org.techbd.udi.auto.jooq.ingress.Tables.REF_CODE_LOOKUP_CODE_VIEW;
 
+import java.time.Instant;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
 
 import org.jooq.DSLContext;
 import org.jooq.Record2;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.techbd.config.CoreAppConfig;
 import org.techbd.util.AppLogger;
 import org.techbd.util.TemplateLogger;
 
@@ -17,111 +26,141 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+
+/**
+ * Looks up codes, systems and displays in a {@link CodeLookupSnapshot} of
+ * {@code REF_CODE_LOOKUP_CODE_VIEW}, loaded with a single query the first time
+ * it is needed. Once the snapshot is older than
+ * {@code codeLookupRefreshIntervalSeconds} (0 or less never refreshes) the
+ * next caller reloads it and swaps it in, while concurrent callers keep
+ * reading the previous one. A failed load keeps the previous snapshot, or an
+ * empty one on first load, until the next interval.
+ * <p>
+ * Every lookup counts a hit or a miss on {@code techbd.csv.code.lookup}.
+ */
 @Service
 public class CodeLookupService {
 
+    public static final long DEFAULT_REFRESH_INTERVAL_SECONDS = 3600;
+
     private final TemplateLogger LOG;
     private final ObjectMapper objectMapper;
+    private final long refreshIntervalNanos;
+    private final LongSupplier nanoTime;
+    private final AtomicReference<CodeLookupSnapshot> snapshot = new AtomicReference<>();
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private final AtomicLong version = new AtomicLong();
+    private volatile long refreshDueNanos;
+    private final Map<String, Counter> hits = new HashMap<>();
+    private final Map<String, Counter> misses = new HashMap<>();
+
+    @Autowired
+    public CodeLookupService(CoreAppConfig coreAppConfig, AppLogger appLogger) {
+        this(coreAppConfig, appLogger, System::nanoTime);
+    }
 
-    public CodeLookupService(AppLogger appLogger) {
+    /** Reads the refresh clock from {@code nanoTime} instead of {@link System#nanoTime()}. */
+    CodeLookupService(CoreAppConfig coreAppConfig, AppLogger appLogger, LongSupplier nanoTime) {
+        this.nanoTime = nanoTime;
         this.objectMapper = new ObjectMapper();
         this.LOG = appLogger.getLogger(CodeLookupService.class);
+        final Long refreshIntervalSeconds = coreAppConfig.getCodeLookupRefreshIntervalSeconds();
+        this.refreshIntervalNanos = TimeUnit.SECONDS.toNanos(
+                refreshIntervalSeconds == null ? DEFAULT_REFRESH_INTERVAL_SECONDS : refreshIntervalSeconds);
+        for (String lookup : List.of("code", "system", "display", "codeForDisplay")) {
+            hits.put(lookup, counter(lookup, "hit"));
+            misses.put(lookup, counter(lookup, "miss"));
+        }
     }
 
-    public Map<String, Map<String, String>> fetchCode(DSLContext dsl, String interactionId) {
-        LOG.info("CodeLookupService::fetchCode fetching values from database - BEGIN - interaction Id: {}", interactionId);
-        try {
-            List<Record2<String, String>> records = dsl
-                    .select(REF_CODE_LOOKUP_CODE_VIEW.CODE_TYPE, REF_CODE_LOOKUP_CODE_VIEW.CODES.cast(String.class))
-                    .from(REF_CODE_LOOKUP_CODE_VIEW)
-                    .fetch();
-    
-            Map<String, Map<String, String>> result = records.stream()
-                    .collect(Collectors.toMap(
-                            Record2::component1,
-                            record -> {
-                                List<Map<String, String>> codesList = parseJsonCodes(record.component2());
-                                return codesList.stream()
-                                    .filter(map -> map != null && map.get("code") != null)
-                                    .collect(Collectors.toMap(
-                                        map -> map.get("code").toLowerCase(),
-                                        map -> map.get("code"),
-                                        (existing, replacement) -> existing
-                                    ));
-                            },
-                            (existing, replacement) -> existing
-                    ));
-    
-            return result;
-        } catch (Exception ex) {
-            LOG.error("Exception during fetching values from database", ex);
+    private static Counter counter(final String lookup, final String result) {
+        return Counter.builder("techbd.csv.code.lookup")
+                .description("Code, system and display lookups against REF_CODE_LOOKUP_CODE_VIEW")
+                .tag("lookup", lookup)
+                .tag("result", result)
+                .register(Metrics.globalRegistry);
+    }
+
+    /** The code of the category matching {@code value} ignoring case, or null. */
+    public String findCode(Supplier<DSLContext> dsl, String category, String value, String interactionId) {
+        return count("code", snapshot(dsl, interactionId).code(category, value));
+    }
+
+    public String findSystem(Supplier<DSLContext> dsl, String category, String code, String interactionId) {
+        return count("system", snapshot(dsl, interactionId).system(category, code));
+    }
+
+    public String findDisplay(Supplier<DSLContext> dsl, String category, String code, String interactionId) {
+        return count("display", snapshot(dsl, interactionId).display(category, code));
+    }
+
+    /** The code of the category whose display matches {@code display} ignoring case, or null. */
+    public String findCodeForDisplay(Supplier<DSLContext> dsl, String category, String display,
+            String interactionId) {
+        return count("codeForDisplay", snapshot(dsl, interactionId).codeForDisplay(category, display));
+    }
+
+    private String count(final String lookup, final String value) {
+        (value == null ? misses : hits).get(lookup).increment();
+        return value;
+    }
+
+    /**
+     * The current snapshot, loading it on first use and reloading it when the
+     * refresh interval has passed.
+     */
+    public CodeLookupSnapshot snapshot(Supplier<DSLContext> dsl, String interactionId) {
+        final CodeLookupSnapshot current = snapshot.get();
+        if (current == null) {
+            synchronized (this) {
+                if (snapshot.get() == null) {
+                    refresh(dsl, interactionId);
+                }
+                return snapshot.get();
+            }
+        }
+        if (refreshIntervalNanos > 0 && nanoTime.getAsLong() - refreshDueNanos >= 0
+                && refreshing.compareAndSet(false, true)) {
+            try {
+                refresh(dsl, interactionId);
+            } finally {
+                refreshing.set(false);
+            }
+            return snapshot.get();
         }
-        LOG.info("CodeLookupService::fetchCode fetching values from database - END - interaction Id: {}", interactionId);
-        return Collections.emptyMap();
+        return current;
     }
 
-    public Map<String, Map<String, String>> fetchSystem(DSLContext dsl, String interactionId) {
-        LOG.info("CodeLookupService::fetchSystem fetching values from database - BEGIN - interaction Id: {}", interactionId);
+    private void refresh(Supplier<DSLContext> dsl, String interactionId) {
+        LOG.info("CodeLookupService::refresh fetching values from database - BEGIN - interaction Id: {}", interactionId);
         try {
-            List<Record2<String, String>> records = dsl
-                    .select(REF_CODE_LOOKUP_CODE_VIEW.CODE_TYPE, REF_CODE_LOOKUP_CODE_VIEW.CODES.cast(String.class))
-                    .from(REF_CODE_LOOKUP_CODE_VIEW)
-                    .fetch();
-    
-            Map<String, Map<String, String>> result = records.stream()
-                    .collect(Collectors.toMap(
-                            Record2::component1,
-                            record -> {
-                                List<Map<String, String>> codesList = parseJsonCodes(record.component2());
-                                return codesList.stream()
-                                    .filter(map -> map != null && map.get("code") != null && map.get("system") != null)
-                                    .collect(Collectors.toMap(
-                                        map -> map.get("code"),
-                                        map -> map.get("system"),
-                                        (existing, replacement) -> existing
-                                    ));
-                            },
-                            (existing, replacement) -> existing
-                    ));
-    
-            return result;
+            final CodeLookupSnapshot loaded = CodeLookupSnapshot.of(version.incrementAndGet(), Instant.now(),
+                    fetchEntries(dsl.get()));
+            snapshot.set(loaded);
+            LOG.info("CodeLookupService::refresh loaded snapshot version {} - END - interaction Id: {}",
+                    loaded.version(), interactionId);
         } catch (Exception ex) {
             LOG.error("Exception during fetching values from database", ex);
+            snapshot.compareAndSet(null, CodeLookupSnapshot.EMPTY);
         }
-        LOG.info("CodeLookupService::fetchSystem fetching values from database - END - interaction Id: {}", interactionId);
-        return Collections.emptyMap();
+        refreshDueNanos = nanoTime.getAsLong() + refreshIntervalNanos;
     }
 
-    public Map<String, Map<String, String>> fetchDisplay(DSLContext dsl, String interactionId) {
-        LOG.info("CodeLookupService::fetchDisplay fetching values from database - BEGIN - interaction Id: {}", interactionId);
-        try {
-            List<Record2<String, String>> records = dsl
-                    .select(REF_CODE_LOOKUP_CODE_VIEW.CODE_TYPE, REF_CODE_LOOKUP_CODE_VIEW.CODES.cast(String.class))
-                    .from(REF_CODE_LOOKUP_CODE_VIEW)
-                    .fetch();
-
-            Map<String, Map<String, String>> result = records.stream()
-                    .collect(Collectors.toMap(
-                            Record2::component1,
-                            record -> {
-                                List<Map<String, String>> codesList = parseJsonCodes(record.component2());
-                                return codesList.stream()
-                                    .filter(map -> map != null && map.get("code") != null && map.get("display") != null)
-                                    .collect(Collectors.toMap(
-                                        map -> map.get("code"),
-                                        map -> map.get("display"),
-                                        (existing, replacement) -> existing
-                                    ));
-                            },
-                            (existing, replacement) -> existing
-                    ));
-
-            return result;
-        } catch (Exception ex) {
-            LOG.error("Exception during fetching display values from database", ex);
+    /** All rows of the view in one query, as the parsed code entries of each code type. */
+    protected Map<String, List<Map<String, String>>> fetchEntries(DSLContext dsl) {
+        List<Record2<String, String>> records = dsl
+                .select(REF_CODE_LOOKUP_CODE_VIEW.CODE_TYPE, REF_CODE_LOOKUP_CODE_VIEW.CODES.cast(String.class))
+                .from(REF_CODE_LOOKUP_CODE_VIEW)
+                .fetch();
+        Map<String, List<Map<String, String>>> entries = new HashMap<>();
+        for (Record2<String, String> record : records) {
+            if (!entries.containsKey(record.component1())) {
+                entries.put(record.component1(), parseJsonCodes(record.component2()));
+            }
         }
-        LOG.info("CodeLookupService::fetchDisplay fetching values from database - END - interaction Id: {}", interactionId);
-        return Collections.emptyMap();
+        return entries;
     }
 
     private List<Map<String, String>> parseJsonCodes(String jsonString) {
@@ -0,0 +1,111 @@
+package org.techbd.service.csv;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * One immutable load of {@code REF_CODE_LOOKUP_CODE_VIEW}: for each code type
+ * (category), the codes keyed by their lower-case form, the system and display
+ * of each code, and the reverse display to code index keyed by lower-case
+ * display. When a code or display appears more than once in a category the
+ * first one wins, as it did when the maps were built separately.
+ */
+public final class CodeLookupSnapshot {
+
+    public static final CodeLookupSnapshot EMPTY = new CodeLookupSnapshot(0, Instant.EPOCH, Map.of(), Map.of(),
+            Map.of(), Map.of());
+
+    private final long version;
+    private final Instant loadedAt;
+    private final Map<String, Map<String, String>> codes;
+    private final Map<String, Map<String, String>> systems;
+    private final Map<String, Map<String, String>> displays;
+    private final Map<String, Map<String, String>> codesByDisplay;
+
+    private CodeLookupSnapshot(final long version, final Instant loadedAt,
+            final Map<String, Map<String, String>> codes, final Map<String, Map<String, String>> systems,
+            final Map<String, Map<String, String>> displays, final Map<String, Map<String, String>> codesByDisplay) {
+        this.version = version;
+        this.loadedAt = loadedAt;
+        this.codes = codes;
+        this.systems = systems;
+        this.displays = displays;
+        this.codesByDisplay = codesByDisplay;
+    }
+
+    /**
+     * Builds the indexes from the entries ({@code code}, {@code system},
+     * {@code display}) of each code type.
+     */
+    public static CodeLookupSnapshot of(final long version, final Instant loadedAt,
+            final Map<String, List<Map<String, String>>> entriesByCodeType) {
+        final Map<String, Map<String, String>> codes = new HashMap<>();
+        final Map<String, Map<String, String>> systems = new HashMap<>();
+        final Map<String, Map<String, String>> displays = new HashMap<>();
+        final Map<String, Map<String, String>> codesByDisplay = new HashMap<>();
+        entriesByCodeType.forEach((codeType, entries) -> {
+            final Map<String, String> typeCodes = new HashMap<>();
+            final Map<String, String> typeSystems = new HashMap<>();
+            final Map<String, String> typeDisplays = new HashMap<>();
+            final Map<String, String> typeCodesByDisplay = new HashMap<>();
+            for (final Map<String, String> entry : entries) {
+                final String code = entry == null ? null : entry.get("code");
+                if (code == null) {
+                    continue;
+                }
+                typeCodes.putIfAbsent(code.toLowerCase(Locale.ROOT), code);
+                if (entry.get("system") != null) {
+                    typeSystems.putIfAbsent(code, entry.get("system"));
+                }
+                final String display = entry.get("display");
+                if (display != null && typeDisplays.putIfAbsent(code, display) == null) {
+                    typeCodesByDisplay.putIfAbsent(display.toLowerCase(Locale.ROOT), code);
+                }
+            }
+            codes.put(codeType, Map.copyOf(typeCodes));
+            systems.put(codeType, Map.copyOf(typeSystems));
+            displays.put(codeType, Map.copyOf(typeDisplays));
+            codesByDisplay.put(codeType, Map.copyOf(typeCodesByDisplay));
+        });
+        return new CodeLookupSnapshot(version, loadedAt, Map.copyOf(codes), Map.copyOf(systems),
+                Map.copyOf(displays), Map.copyOf(codesByDisplay));
+    }
+
+    public long version() {
+        return version;
+    }
+
+    public Instant loadedAt() {
+        return loadedAt;
+    }
+
+    /** The code of a category matching {@code value} ignoring case, or null. */
+    public String code(final String category, final String value) {
+        return value == null ? null : find(codes, category, value.toLowerCase(Locale.ROOT));
+    }
+
+    public String system(final String category, final String code) {
+        return find(systems, category, code);
+    }
+
+    public String display(final String category, final String code) {
+        return find(displays, category, code);
+    }
+
+    /** The code of a category whose display matches {@code display} ignoring case, or null. */
+    public String codeForDisplay(final String category, final String display) {
+        return display == null ? null : find(codesByDisplay, category, display.toLowerCase(Locale.ROOT));
+    }
+
+    private static String find(final Map<String, Map<String, String>> index, final String category,
+            final String key) {
+        if (category == null || key == null) {
+            return null;
+        }
+        final Map<String, String> values = index.get(category);
+        return values == null ? null : values.get(key);
+    }
+}
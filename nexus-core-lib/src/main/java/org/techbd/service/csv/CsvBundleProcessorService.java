@@ -1,9 +1,13 @@
 package org.techbd.service.csv;
 
 import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.OffsetDateTime;
@@ -15,7 +19,9 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToDoubleFunction;
 import java.util.stream.Collectors;
 
 import org.apache.commons.collections.CollectionUtils;
@@ -48,21 +54,30 @@ import org.techbd.udi.auto.jooq.ingress.routines.SatInteractionCsvRequestUpserte
 import org.techbd.util.AppLogger;
 import org.techbd.util.TemplateLogger;
 import org.techbd.util.csv.CsvConversionUtil;
+import org.techbd.util.csv.CsvRowMappers;
 import org.techbd.util.fhir.CoreFHIRUtil;
+import org.techbd.util.fhir.ParsedBundle;
 
 import com.fasterxml.jackson.databind.JsonNode;
 
 import io.micrometer.common.util.StringUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
 import jakarta.servlet.http.Cookie;
 
 @Service
 public class CsvBundleProcessorService {
+    private static final int PROGRESS_LOG_INTERVAL = 100;
     private final TemplateLogger LOG;
     private final CsvToFhirConverter csvToFhirConverter;
     private final FHIRService fhirService;
     private final CoreDataLedgerApiClient coreDataLedgerApiClient;
     private final CoreAppConfig coreAppConfig;
     private final CoreUdiPrimeJpaConfig coreUdiPrimeJpaConfig;
+    private final CsvTaskExecutor bundleGenerationExecutor;
 
     public CsvBundleProcessorService(final CsvToFhirConverter csvToFhirConverter, final FHIRService fhirService,
     CoreDataLedgerApiClient coreDataLedgerApiClient,CoreAppConfig coreAppConfig, final CoreUdiPrimeJpaConfig coreUdiPrimeJpaConfig,AppLogger appLogger) {
@@ -72,6 +87,14 @@ public class CsvBundleProcessorService {
         this.coreAppConfig = coreAppConfig;
         this.coreUdiPrimeJpaConfig = coreUdiPrimeJpaConfig;
         this.LOG = appLogger.getLogger(CsvBundleProcessorService.class);
+        this.bundleGenerationExecutor = CsvTaskExecutor.from("csv-bundle", coreAppConfig.getCsvBundleGeneration());
+        LOG.info("CsvBundleProcessorService:: bundle generation executorMode :{} maxConcurrency :{}",
+                bundleGenerationExecutor.getMode(), bundleGenerationExecutor.getMaxConcurrency());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        bundleGenerationExecutor.close();
     }
 
     public List<Object> processPayload(final String masterInteractionId,
@@ -107,18 +130,21 @@ public class CsvBundleProcessorService {
                     Map<String, List<ScreeningObservationData>> screeningObservationData = null;
 
                     for (final FileDetail fileDetail : outcome.fileDetails()) {
-                        final String content = fileDetail.content();
+                        final Reader content = openCsv(fileDetail);
                         final FileType fileType = fileDetail.fileType();
                         switch (fileType) {
                             case SDOH_PtInfo ->
-                                demographicData = CsvConversionUtil.convertCsvStringToDemographicData(content,masterInteractionId ,coreAppConfig.getVersion() );
+                                demographicData = CsvConversionUtil.convertCsvToObjectMap(content, CsvRowMappers.DEMOGRAPHIC_DATA, masterInteractionId, coreAppConfig.getVersion());
                             case SDOH_ScreeningProf -> screeningProfileData = CsvConversionUtil
-                                    .convertCsvStringToScreeningProfileData(content,masterInteractionId ,coreAppConfig.getVersion() );
+                                    .convertCsvToObjectMap(content, CsvRowMappers.SCREENING_PROFILE_DATA, masterInteractionId, coreAppConfig.getVersion());
                             case SDOH_QEadmin ->
-                                qeAdminData = CsvConversionUtil.convertCsvStringToQeAdminData(content,masterInteractionId ,coreAppConfig.getVersion() );
+                                qeAdminData = CsvConversionUtil.convertCsvToObjectMap(content, CsvRowMappers.QE_ADMIN_DATA, masterInteractionId, coreAppConfig.getVersion());
                             case SDOH_ScreeningObs -> screeningObservationData = CsvConversionUtil
-                                    .convertCsvStringToScreeningObservationData(content,masterInteractionId ,coreAppConfig.getVersion() );
-                            default -> throw new IllegalStateException("Unexpected value: " + fileType);
+                                    .convertCsvToObjectMap(content, CsvRowMappers.SCREENING_OBSERVATION_DATA, masterInteractionId, coreAppConfig.getVersion());
+                            default -> {
+                                content.close();
+                                throw new IllegalStateException("Unexpected value: " + fileType);
+                            }
                         }
                     }
                     validateAndThrowIfDataMissing(demographicData, screeningProfileData, qeAdminData,
@@ -263,7 +289,7 @@ public class CsvBundleProcessorService {
 
     private void saveFhirConversionStatus(final boolean isValid, final String masterInteractionId, final String groupKey,
             final String groupInteractionId, final String interactionId, final Map<String,Object> requestParameters,
-            final String payload, final Map<String, Object> operationOutcome,
+            final ParsedBundle payload, final Map<String, Object> operationOutcome,
             final String tenantId) {
         LOG.info(
                 "REGISTER State CONVERTED_TO_FHIR : BEGIN for master InteractionId :{} group interaction id  : {} tenant id : {}",
@@ -284,11 +310,11 @@ public class CsvBundleProcessorService {
             initRIHR.setPContentType(MimeTypeUtils.APPLICATION_JSON_VALUE);
             initRIHR.setPPayload(null != operationOutcome && operationOutcome.size() > 0
                     ? Configuration.objectMapper.valueToTree(operationOutcome)
-                    : Configuration.objectMapper.readTree(payload));
+                    : payload.getJsonNode());
             initRIHR.setPCreatedAt(forwardedAt);
             initRIHR.setPCreatedBy(CsvService.class.getName());
             initRIHR.setPFromState(isValid ? State.VALIDATION_SUCCESS.name() : State.VALIDATION_FAILED.name());
-            initRIHR.setPToState(StringUtils.isNotEmpty(payload) ? State.CONVERTED_TO_FHIR.name() : State.FHIR_CONVERSION_FAILED.name());
+            initRIHR.setPToState(payload != null && StringUtils.isNotEmpty(payload.getPayload()) ? State.CONVERTED_TO_FHIR.name() : State.FHIR_CONVERSION_FAILED.name());
             final var provenance = "%s.saveConvertedFHIR".formatted(CsvBundleProcessorService.class.getName());
             initRIHR.setPProvenance(provenance);
             initRIHR.setPCsvGroupId(groupInteractionId);
@@ -364,112 +390,212 @@ private List<Object> processScreening(final String groupKey,
             boolean isAllCsvConvertedToFhir,String baseFHIRUrl,AtomicInteger totalNumberOfBundlesGenerated,CsvProcessingMetricsBuilder metricsBuilder)
             throws IOException {
         LOG.info("CsvBundleProcessorService processScreening: BEGIN for zipFileInteractionId: {}, groupInteractionId :{}, tenantId: {}, baseFHIRURL: {}", masterInteractionId, groupInteractionId, tenantId, baseFHIRUrl);
-        final List<Object> results = new ArrayList<>();
+        final List<ScreeningProfileData> profiles = screeningProfileData.values().stream()
+                .flatMap(List::stream)
+                .toList();
         final AtomicInteger errorCount = new AtomicInteger();
-        screeningProfileData.forEach((encounterId, profileList) -> {
-            for (final ScreeningProfileData profile : profileList) {
-                final String interactionId = UUID.randomUUID().toString();
-                String bundle = null;
-                try {
-                    final List<DemographicData> demographicList = demographicData.getOrDefault(
-                            profile.getPatientMrIdValue(),
-                            List.of());
-                    final List<QeAdminData> qeAdminList = qeAdminData.getOrDefault(profile.getPatientMrIdValue(),
-                            List.of());
-                    final List<ScreeningObservationData> screeningObservationList = screeningObservationData
-                            .getOrDefault(profile.getEncounterId(), List.of());
-
-                    if (demographicList.isEmpty() || qeAdminList.isEmpty() || screeningObservationList.isEmpty()) {
-                        final String errorMessage = String.format(
-                                "Data missing in one or more files for patientMrIdValue: %s",
-                                profile.getPatientMrIdValue());
-                        LOG.error(errorMessage);
-                        throw new IllegalArgumentException(errorMessage);
-                    }
-                    final Instant initiatedAt = Instant.now();
-                    bundle = csvToFhirConverter.convert(
-                            demographicList.get(0),
-                            qeAdminList.get(0),
-                            profile,
-                            screeningObservationList,
-                            interactionId,baseFHIRUrl);
-                    final Instant completedAt = Instant.now();
-                    if (bundle != null) {
-                        totalNumberOfBundlesGenerated.getAndIncrement();
-                        final String updatedProvenance = addBundleProvenance(payloadAndValidationOutcome.provenance(),
-                                getFileNames(payloadAndValidationOutcome.fileDetails()),
-                                profile.getPatientMrIdValue(), profile.getEncounterId(), initiatedAt, completedAt);
-                        saveFhirConversionStatus(isValid, masterInteractionId, groupKey, groupInteractionId,
-                                interactionId, requestParameters,
-                                bundle, null, tenantId);
-                        
-                              Map<String, Object> headers = org.techbd.util.fhir.CoreFHIRUtil.buildHeaderParametersMap(
-                                tenantId,
-                                null,
-                                null,
-                                null,
-                                (String) requestParameters.get(Constants.VALIDATION_SEVERITY_LEVEL), // Cast to String, // Pass severity level
-                                null,
-                                null,
-                                updatedProvenance, null);
-                        org.techbd.util.fhir.CoreFHIRUtil.buildRequestParametersMap(requestParameters,
-                            false, null, SourceType.CSV.name(),  groupInteractionId, masterInteractionId,(String) requestParameters.get(Constants.REQUEST_URI));
-                        requestParameters.put(Constants.INTERACTION_ID, interactionId);
-                        requestParameters.put(Constants.GROUP_INTERACTION_ID, groupInteractionId);
-                        requestParameters.put(Constants.MASTER_INTERACTION_ID, masterInteractionId);
-                        requestParameters.putAll(headers);
-                        results.add(fhirService.processBundle(
-                                bundle, requestParameters,responseParameters));
-                        LOG.error("Bundle generated for  patient  MrId: {}, interactionId: {}, masterInteractionId: {}, groupInteractionId :{}",
-                                profile.getPatientMrIdValue(), interactionId, masterInteractionId,groupInteractionId);        
-                    } else {
-                        metricsBuilder.dataValidationStatus(CsvDataValidationStatus.FAILED.getDescription());
-                        LOG.error("Bundle not generated for  patient  MrId: {}, interactionId: {}, masterInteractionId: {}, groupInteractionId :{}",
-                                profile.getPatientMrIdValue(), interactionId, masterInteractionId,groupInteractionId);
-                        errorCount.incrementAndGet();
-                        final Map<String, Object> result = createOperationOutcomeForError(masterInteractionId, interactionId,
-                                profile.getPatientMrIdValue(), profile.getEncounterId(),
-                                new Exception("Bundle not created"),
-                                payloadAndValidationOutcome.provenance(),payloadAndValidationOutcome.fileDetails(),requestParameters);
-                        String bundleId =CoreFHIRUtil.extractBundleId(bundle, tenantId);                                
-                        DataLedgerPayload dataLedgerPayload = DataLedgerPayload.create(
-                        CoreDataLedgerApiClient.Actor.TECHBD.getValue(), CoreDataLedgerApiClient.Action.SENT.getValue(), 
-                        CoreDataLedgerApiClient.Actor.INVALID_CSV.getValue(), bundleId != null ? bundleId : masterInteractionId);
-                        final var dataLedgerProvenance = "%s.processScreening".formatted(CsvBundleProcessorService.class.getName());
-                        coreDataLedgerApiClient.processRequest(dataLedgerPayload,interactionId,masterInteractionId,groupInteractionId,dataLedgerProvenance,SourceType.CSV.name(),result);        
-                        results.add(result);
-                        saveFhirConversionStatus(isValid, masterInteractionId, groupKey, groupInteractionId,
-                                interactionId, requestParameters,
-                                bundle, result, tenantId);
-                    }
-                } catch (final Exception e) {
-                    errorCount.incrementAndGet();
-                    metricsBuilder.dataValidationStatus(CsvDataValidationStatus.FAILED.getDescription());
-                    final Map<String, Object> result = createOperationOutcomeForError(masterInteractionId, interactionId,
-                            profile.getPatientMrIdValue(), profile.getEncounterId(), e,
-                            payloadAndValidationOutcome.provenance(),payloadAndValidationOutcome.fileDetails(),requestParameters);
-                    String bundleId =CoreFHIRUtil.extractBundleId(bundle, tenantId);                                
-                    DataLedgerPayload dataLedgerPayload = DataLedgerPayload.create(
-                    CoreDataLedgerApiClient.Actor.TECHBD.getValue(), CoreDataLedgerApiClient.Action.SENT.getValue(), 
-                    CoreDataLedgerApiClient.Actor.INVALID_CSV.getValue(), bundleId != null ? bundleId : masterInteractionId);
-                    final var dataLedgerProvenance = "%s.processScreening".formatted(FHIRService.class.getName());
-                    coreDataLedgerApiClient.processRequest(dataLedgerPayload,interactionId,masterInteractionId,groupInteractionId,dataLedgerProvenance,SourceType.CSV.name(),result);
-                    LOG.error("Error processing patient data for MrId:{}, interactionId: {}, masterInteractionId:{} , groupInteractionId:{}, Error:{}",
-                            profile.getPatientMrIdValue(), interactionId,masterInteractionId,groupInteractionId, e.getMessage(), e);
-                    results.add(result);
-                    saveFhirConversionStatus(isValid, masterInteractionId, groupKey, groupInteractionId, interactionId,
-                            requestParameters,
-                            bundle, result, tenantId);
+        final AtomicInteger completed = new AtomicInteger();
+        final Map<String, Object> sharedResponseParameters = bundleGenerationExecutor.isConcurrent()
+                ? Collections.synchronizedMap(responseParameters)
+                : responseParameters;
+        // progress of this upload, published only while its bundles are being generated
+        final List<Gauge> progress = List.of(
+                progressGauge("techbd.csv.bundle.progress.completed", "CSV patient bundles of an upload processed so far",
+                        completed, AtomicInteger::get, masterInteractionId, groupInteractionId),
+                progressGauge("techbd.csv.bundle.progress.failed", "CSV patient bundles of an upload that failed so far",
+                        errorCount, AtomicInteger::get, masterInteractionId, groupInteractionId),
+                progressGauge("techbd.csv.bundle.progress.total", "CSV patient bundles in an upload",
+                        profiles, List::size, masterInteractionId, groupInteractionId));
+        final List<Object> results;
+        try {
+            results = bundleGenerationExecutor.map(profiles, profile -> {
+                final long start = System.nanoTime();
+                // bundles may be processed concurrently, so each one gets its own copy of the request context
+                final Object result = processProfile(profile, groupKey, demographicData, qeAdminData,
+                        screeningObservationData, new HashMap<>(requestParameters), sharedResponseParameters,
+                        groupInteractionId, masterInteractionId, tenantId, isValid, payloadAndValidationOutcome,
+                        baseFHIRUrl, totalNumberOfBundlesGenerated, errorCount, metricsBuilder);
+                Timer.builder("techbd.csv.bundle.generation")
+                        .description("Conversion, validation and submission of one CSV patient bundle")
+                        .tag("mode", bundleGenerationExecutor.getMode().name())
+                        .register(Metrics.globalRegistry)
+                        .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                final int done = completed.incrementAndGet();
+                if (done % PROGRESS_LOG_INTERVAL == 0) {
+                    LOG.info("CsvBundleProcessorService processScreening: PROGRESS for zipFileInteractionId: {}, groupInteractionId :{}, bundles processed: {}/{}, errors: {}",
+                            masterInteractionId, groupInteractionId, done, profiles.size(), errorCount.get());
                 }
-            }
-        });
+                return result;
+            });
+        } finally {
+            progress.forEach(Metrics.globalRegistry::remove);
+        }
+        Counter.builder("techbd.csv.bundle.generated")
+                .description("CSV patient bundles processed, by outcome")
+                .tag("outcome", "failure")
+                .register(Metrics.globalRegistry)
+                .increment(errorCount.get());
+        Counter.builder("techbd.csv.bundle.generated")
+                .description("CSV patient bundles processed, by outcome")
+                .tag("outcome", "success")
+                .register(Metrics.globalRegistry)
+                .increment(profiles.size() - errorCount.get());
         if (errorCount.get() > 0) {
             isAllCsvConvertedToFhir = false;
         }
-        LOG.info("CsvBundleProcessorService processScreening: END for zipFileInteractionId: {}, groupInteractionId :{}, tenantId: {}, baseFHIRURL: {}", masterInteractionId, groupInteractionId, tenantId, baseFHIRUrl);
+        LOG.info("CsvBundleProcessorService processScreening: END for zipFileInteractionId: {}, groupInteractionId :{}, tenantId: {}, baseFHIRURL: {}, bundles processed: {}, errors: {}", masterInteractionId, groupInteractionId, tenantId, baseFHIRUrl, profiles.size(), errorCount.get());
         return results;
     }
 
+    private static <T> Gauge progressGauge(final String name, final String description, final T state,
+            final ToDoubleFunction<T> value, final String masterInteractionId, final String groupInteractionId) {
+        return Gauge.builder(name, state, value)
+                .description(description)
+                .tag("masterInteractionId", String.valueOf(masterInteractionId))
+                .tag("groupInteractionId", String.valueOf(groupInteractionId))
+                .register(Metrics.globalRegistry);
+    }
+
+    /**
+     * Converts, registers and submits the bundle of one screening profile row.
+     * Never throws: failures are recorded and returned as an operation outcome
+     * so one patient cannot fail the other bundles of the group.
+     */
+    private Object processProfile(final ScreeningProfileData profile, final String groupKey,
+            final Map<String, List<DemographicData>> demographicData,
+            final Map<String, List<QeAdminData>> qeAdminData,
+            final Map<String, List<ScreeningObservationData>> screeningObservationData,
+            final Map<String,Object> bundleRequestParameters,
+            final Map<String,Object> responseParameters,
+            final String groupInteractionId,
+            final String masterInteractionId,
+            final String tenantId, final boolean isValid, final PayloadAndValidationOutcome payloadAndValidationOutcome,
+            String baseFHIRUrl,AtomicInteger totalNumberOfBundlesGenerated,AtomicInteger errorCount,CsvProcessingMetricsBuilder metricsBuilder) {
+        final String interactionId = UUID.randomUUID().toString();
+        String bundle = null;
+        Object result;
+        ParsedBundle parsedBundle = null;
+        try {
+            final List<DemographicData> demographicList = demographicData.getOrDefault(
+                    profile.getPatientMrIdValue(),
+                    List.of());
+            final List<QeAdminData> qeAdminList = qeAdminData.getOrDefault(profile.getPatientMrIdValue(),
+                    List.of());
+            final List<ScreeningObservationData> screeningObservationList = screeningObservationData
+                    .getOrDefault(profile.getEncounterId(), List.of());
+
+            if (demographicList.isEmpty() || qeAdminList.isEmpty() || screeningObservationList.isEmpty()) {
+                final String errorMessage = String.format(
+                        "Data missing in one or more files for patientMrIdValue: %s",
+                        profile.getPatientMrIdValue());
+                LOG.error(errorMessage);
+                throw new IllegalArgumentException(errorMessage);
+            }
+            final Instant initiatedAt = Instant.now();
+            // keep the HAPI resource so validation does not re-parse the encoded bundle
+            parsedBundle = csvToFhirConverter.toParsedBundle(csvToFhirConverter.convertToBundle(
+                    demographicList.get(0),
+                    qeAdminList.get(0),
+                    profile,
+                    screeningObservationList,
+                    interactionId,baseFHIRUrl));
+            bundle = parsedBundle.getPayload();
+            final Instant completedAt = Instant.now();
+            if (bundle != null) {
+                totalNumberOfBundlesGenerated.getAndIncrement();
+                final String updatedProvenance = addBundleProvenance(payloadAndValidationOutcome.provenance(),
+                        getFileNames(payloadAndValidationOutcome.fileDetails()),
+                        profile.getPatientMrIdValue(), profile.getEncounterId(), initiatedAt, completedAt);
+                saveFhirConversionStatus(isValid, masterInteractionId, groupKey, groupInteractionId,
+                        interactionId, bundleRequestParameters,
+                        parsedBundle, null, tenantId);
+                
+                      Map<String, Object> headers = org.techbd.util.fhir.CoreFHIRUtil.buildHeaderParametersMap(
+                        tenantId,
+                        null,
+                        null,
+                        null,
+                        (String) bundleRequestParameters.get(Constants.VALIDATION_SEVERITY_LEVEL), // Cast to String, // Pass severity level
+                        null,
+                        null,
+                        updatedProvenance, null);
+                org.techbd.util.fhir.CoreFHIRUtil.buildRequestParametersMap(bundleRequestParameters,
+                    false, null, SourceType.CSV.name(),  groupInteractionId, masterInteractionId,(String) bundleRequestParameters.get(Constants.REQUEST_URI));
+                bundleRequestParameters.put(Constants.INTERACTION_ID, interactionId);
+                bundleRequestParameters.put(Constants.GROUP_INTERACTION_ID, groupInteractionId);
+                bundleRequestParameters.put(Constants.MASTER_INTERACTION_ID, masterInteractionId);
+                bundleRequestParameters.putAll(headers);
+                result = fhirService.processBundle(
+                        parsedBundle, bundleRequestParameters,responseParameters);
+                LOG.error("Bundle generated for  patient  MrId: {}, interactionId: {}, masterInteractionId: {}, groupInteractionId :{}",
+                        profile.getPatientMrIdValue(), interactionId, masterInteractionId,groupInteractionId);        
+            } else {
+                markFailed(metricsBuilder);
+                LOG.error("Bundle not generated for  patient  MrId: {}, interactionId: {}, masterInteractionId: {}, groupInteractionId :{}",
+                        profile.getPatientMrIdValue(), interactionId, masterInteractionId,groupInteractionId);
+                errorCount.incrementAndGet();
+                final Map<String, Object> error = createOperationOutcomeForError(masterInteractionId, interactionId,
+                        profile.getPatientMrIdValue(), profile.getEncounterId(),
+                        new Exception("Bundle not created"),
+                        payloadAndValidationOutcome.provenance(),payloadAndValidationOutcome.fileDetails(),bundleRequestParameters);
+                String bundleId =CoreFHIRUtil.extractBundleId(bundle, tenantId);                                
+                DataLedgerPayload dataLedgerPayload = DataLedgerPayload.create(
+                CoreDataLedgerApiClient.Actor.TECHBD.getValue(), CoreDataLedgerApiClient.Action.SENT.getValue(), 
+                CoreDataLedgerApiClient.Actor.INVALID_CSV.getValue(), bundleId != null ? bundleId : masterInteractionId);
+                final var dataLedgerProvenance = "%s.processScreening".formatted(CsvBundleProcessorService.class.getName());
+                coreDataLedgerApiClient.processRequest(dataLedgerPayload,interactionId,masterInteractionId,groupInteractionId,dataLedgerProvenance,SourceType.CSV.name(),error);        
+                result = error;
+                saveFhirConversionStatus(isValid, masterInteractionId, groupKey, groupInteractionId,
+                        interactionId, bundleRequestParameters,
+                        parsedBundle, error, tenantId);
+            }
+        } catch (final Exception e) {
+            errorCount.incrementAndGet();
+            markFailed(metricsBuilder);
+            final Map<String, Object> error = createOperationOutcomeForError(masterInteractionId, interactionId,
+                    profile.getPatientMrIdValue(), profile.getEncounterId(), e,
+                    payloadAndValidationOutcome.provenance(),payloadAndValidationOutcome.fileDetails(),bundleRequestParameters);
+            String bundleId =CoreFHIRUtil.extractBundleId(bundle, tenantId);                                
+            DataLedgerPayload dataLedgerPayload = DataLedgerPayload.create(
+            CoreDataLedgerApiClient.Actor.TECHBD.getValue(), CoreDataLedgerApiClient.Action.SENT.getValue(), 
+            CoreDataLedgerApiClient.Actor.INVALID_CSV.getValue(), bundleId != null ? bundleId : masterInteractionId);
+            final var dataLedgerProvenance = "%s.processScreening".formatted(FHIRService.class.getName());
+            coreDataLedgerApiClient.processRequest(dataLedgerPayload,interactionId,masterInteractionId,groupInteractionId,dataLedgerProvenance,SourceType.CSV.name(),error);
+            LOG.error("Error processing patient data for MrId:{}, interactionId: {}, masterInteractionId:{} , groupInteractionId:{}, Error:{}",
+                    profile.getPatientMrIdValue(), interactionId,masterInteractionId,groupInteractionId, e.getMessage(), e);
+            result = error;
+            saveFhirConversionStatus(isValid, masterInteractionId, groupKey, groupInteractionId, interactionId,
+                    bundleRequestParameters,
+                    parsedBundle, error, tenantId);
+        }
+        return result;
+    }
+
+    private static void markFailed(final CsvProcessingMetricsBuilder metricsBuilder) {
+        synchronized (metricsBuilder) {
+            metricsBuilder.dataValidationStatus(CsvDataValidationStatus.FAILED.getDescription());
+        }
+    }
+
+    /**
+     * Opens a group file for mapping. A memory-mapped file is decoded as it is
+     * read; otherwise the file is streamed from disk when it is still there so
+     * its rows are mapped as they are read, and the content kept in the
+     * {@link FileDetail} is only used when the file is gone.
+     */
+    private static Reader openCsv(final FileDetail fileDetail) throws IOException {
+        if (fileDetail.mappedContent() != null) {
+            return fileDetail.mappedContent().openReader();
+        }
+        if (fileDetail.filePath() != null) {
+            final Path path = Path.of(fileDetail.filePath());
+            if (Files.isReadable(path)) {
+                return Files.newBufferedReader(path, StandardCharsets.UTF_8);
+            }
+        }
+        return new StringReader(fileDetail.content());
+    }
+
     public static List<String> getFileNames(final List<FileDetail> fileDetails) {
         if (fileDetails != null) {
             return fileDetails.stream()
@@ -1,6 +1,7 @@
 package org.techbd.service.csv;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.InetAddress;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -17,6 +18,7 @@ import java.util.concurrent.CompletableFuture;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.core.task.TaskExecutor;
 import org.springframework.stereotype.Service;
+import org.springframework.util.FileSystemUtils;
 import org.springframework.util.MimeTypeUtils;
 import org.springframework.web.multipart.MultipartFile;
 import org.techbd.config.Configuration;
@@ -30,6 +32,7 @@ import org.techbd.config.SourceType;
 import org.techbd.config.State;
 import org.techbd.model.csv.CsvProcessingMetrics;
 import org.techbd.service.csv.engine.CsvOrchestrationEngine;
+import org.techbd.service.csv.engine.CsvZipExtractor;
 import org.techbd.service.dataledger.CoreDataLedgerApiClient;
 import org.techbd.service.dataledger.CoreDataLedgerApiClient.DataLedgerPayload;
 import org.techbd.udi.auto.jooq.ingress.routines.RegisterInteractionCsvRequest;
@@ -78,12 +81,13 @@ public class CsvService {
             final var jooqCfg = dslContext.configuration();
             saveArchiveInteraction(zipFileInteractionId, jooqCfg, requestParameters, file,
                     CsvProcessingState.PROCESSING_COMPLETED);
-            saveIncomingFileToInboundFolder(file, zipFileInteractionId);         
+            final CsvZipExtractor.Extraction extraction = receiveIncomingFile(file, zipFileInteractionId);
             session = engine.session()
                     .withMasterInteractionId(zipFileInteractionId)
                     .withSessionId(UUID.randomUUID().toString())
                     .withTenantId((String) requestParameters.get(Constants.TENANT_ID))
                     .withFile(file)
+                    .withExtraction(extraction)
                     .withRequestParameters(requestParameters)
                     .build();
             engine.orchestrate(session);
@@ -225,6 +229,7 @@ public class CsvService {
             Map<String, Object> requestParams,
             Map<String, Object> responseParams,
             MultipartFile file,
+            CsvZipExtractor.Extraction extraction,
             org.jooq.Configuration jooqCfg,
             long start) throws Exception {
 
@@ -239,6 +244,7 @@ public class CsvService {
                     .withTenantId(tenantId)
                     .withGenerateBundle(true)
                     .withFile(file)
+                    .withExtraction(extraction)
                     .withRequestParameters(requestParams)
                     .build();
 
@@ -278,6 +284,7 @@ public class CsvService {
             Map<String, Object> requestParams,
             Map<String, Object> responseParams,
             MultipartFile file,
+            CsvZipExtractor.Extraction extraction,
             org.jooq.Configuration jooqCfg,
             long start) {        
         CompletableFuture.runAsync(() -> {
@@ -292,6 +299,7 @@ public class CsvService {
                         .withTenantId(tenantId)
                         .withGenerateBundle(true)
                         .withFile(file)
+                        .withExtraction(extraction)
                         .withRequestParameters(requestParams)
                         .build();
 
@@ -354,17 +362,17 @@ public class CsvService {
 
         // Ledger + Initial Archive
         auditInitialReceipt(zipFileInteractionId, provenance, requestParameters, file, jooqCfg);
-        saveIncomingFileToInboundFolder(file, zipFileInteractionId);           
+        final CsvZipExtractor.Extraction extraction = receiveIncomingFile(file, zipFileInteractionId);
         long start = System.nanoTime();
 
         if ("true".equalsIgnoreCase(isSync)) {
             LOG.info("Starting synchronous processing for zipFileInteractionId: {}", zipFileInteractionId);
             return processSync(zipFileInteractionId, tenantId, requestParameters, responseParameters, file,
-                    jooqCfg, start);
+                    extraction, jooqCfg, start);
         } else {
             LOG.info("Starting asynchronous processing for zipFileInteractionId: {}", zipFileInteractionId);
             processAsync(zipFileInteractionId, tenantId, requestParameters, responseParameters, file,
-                    jooqCfg, start);
+                    extraction, jooqCfg, start);
 
             Map<String, Object> response = buildAsyncResponse(zipFileInteractionId);
             LOG.info("Returning interim async response for zipFileInteractionId: {} tenantId: {}",
@@ -480,6 +488,60 @@ public class CsvService {
         }
     }
 
+    /**
+     * Takes the upload off the request before processing starts: it is either
+     * streamed straight into a new ingress session directory (when
+     * {@code csvZipExtraction.streaming} is set) or saved to the inbound folder
+     * for VFS ingress.
+     *
+     * @return the extraction, or null when the file was saved to the inbound folder
+     */
+    private CsvZipExtractor.Extraction receiveIncomingFile(final MultipartFile file,
+            final String masterInteractionId) throws IOException {
+        final CoreAppConfig.CsvZipExtraction zipExtraction = coreAppConfig.getCsvZipExtraction();
+        if (zipExtraction == null || !zipExtraction.streaming()) {
+            saveIncomingFileToInboundFolder(file, masterInteractionId);
+            return null;
+        }
+        return extractIncomingFileToIngressFolder(file, masterInteractionId);
+    }
+
+    /**
+     * Streams a zip MultipartFile into {@code <ingressHomePath>/<uuid>/ingress},
+     * the layout VFS ingress produces, enforcing the configured size limits.
+     * When extraction fails, e.g. because a limit is exceeded, the partially
+     * filled {@code <uuid>} directory is deleted.
+     *
+     * @param file                MultipartFile from request
+     * @param masterInteractionId unique interaction identifier
+     * @return the extracted files and extraction figures
+     * @throws IOException if extraction fails or a limit is exceeded
+     */
+    public CsvZipExtractor.Extraction extractIncomingFileToIngressFolder(
+            MultipartFile file,
+            String masterInteractionId) throws IOException {
+        final Path sessionPath = Path.of(coreAppConfig.getCsv().validation().ingressHomePath(),
+                UUID.randomUUID().toString());
+        final Path ingressPath = sessionPath.resolve("ingress");
+        try (InputStream inputStream = file.getInputStream()) {
+            final CsvZipExtractor.Extraction extraction = CsvZipExtractor.extract(inputStream, ingressPath,
+                    CsvZipExtractor.Limits.of(coreAppConfig.getCsvZipExtraction()));
+            LOG.info("CsvService extracted {} files ({} bytes) in {} ms to {} for zipFileInteractionId: {}",
+                    extraction.files().size(), extraction.uncompressedBytes(), extraction.elapsedMillis(),
+                    ingressPath, masterInteractionId);
+            return extraction;
+        } catch (IOException | RuntimeException e) {
+            try {
+                FileSystemUtils.deleteRecursively(sessionPath);
+            } catch (IOException deleteFailure) {
+                e.addSuppressed(deleteFailure);
+                LOG.warn("CsvService could not delete partial extraction {} for zipFileInteractionId: {}",
+                        sessionPath, masterInteractionId, deleteFailure);
+            }
+            throw e;
+        }
+    }
+
      /**
      * Saves a MultipartFile to a given inbound directory with a unique filename
      * based on the interactionId.
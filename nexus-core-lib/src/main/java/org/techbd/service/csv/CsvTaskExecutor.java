@@ -0,0 +1,141 @@
+package org.techbd.service.csv;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.techbd.config.CoreAppConfig.CsvConcurrency;
+import org.techbd.service.fhir.engine.ValidationExecutor.Mode;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+
+/**
+ * Runs independent units of CSV processing work (one per bundle, one per file
+ * group) according to the configured {@link Mode}.
+ * <p>
+ * In {@link Mode#SEQUENTIAL} (the default) every unit runs on the caller
+ * thread, one after another, exactly as before. The concurrent modes run the
+ * units on virtual threads or on a platform pool; in both, at most
+ * {@code maxConcurrency} units run at once across all callers sharing the
+ * executor, so several uploads processed together cannot exceed the limit.
+ * Results are always returned in the order of the inputs regardless of which
+ * unit finishes first.
+ * <p>
+ * Published meter: {@code techbd.csv.task.in_flight} (tagged {@code name}).
+ */
+public class CsvTaskExecutor implements AutoCloseable {
+
+    public static final int DEFAULT_MAX_CONCURRENCY = Runtime.getRuntime().availableProcessors();
+
+    private final Mode mode;
+    private final int maxConcurrency;
+    private final Semaphore permits;
+    private final ExecutorService executor;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public CsvTaskExecutor(final String name, final Mode mode, final Integer maxConcurrency) {
+        this.mode = mode == null ? Mode.SEQUENTIAL : mode;
+        this.maxConcurrency = maxConcurrency == null || maxConcurrency <= 0 ? DEFAULT_MAX_CONCURRENCY
+                : maxConcurrency;
+        this.permits = new Semaphore(this.maxConcurrency);
+        this.executor = switch (this.mode) {
+            case SEQUENTIAL -> null;
+            case VIRTUAL_THREADS -> Executors.newThreadPerTaskExecutor(
+                    Thread.ofVirtual().name(name + "-", 0).factory());
+            case PLATFORM_POOL -> Executors.newFixedThreadPool(this.maxConcurrency,
+                    Thread.ofPlatform().name(name + "-", 0).daemon(true).factory());
+        };
+        Gauge.builder("techbd.csv.task.in_flight", inFlight, AtomicInteger::get)
+                .description("CSV processing units currently running")
+                .tag("name", name)
+                .register(Metrics.globalRegistry);
+    }
+
+    public static CsvTaskExecutor from(final String name, final CsvConcurrency config) {
+        if (config == null) {
+            return new CsvTaskExecutor(name, Mode.SEQUENTIAL, null);
+        }
+        return new CsvTaskExecutor(name, Mode.from(config.executorMode()), config.maxConcurrency());
+    }
+
+    public boolean isConcurrent() {
+        return executor != null;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /**
+     * Applies {@code task} to every input and returns the results in input
+     * order, waiting until all of them have completed. A task that throws
+     * fails the whole call once every task has finished, so no work is left
+     * running behind the caller.
+     */
+    public <T, R> List<R> map(final List<T> inputs, final Function<T, R> task) {
+        final List<R> results = new ArrayList<>(inputs.size());
+        if (!isConcurrent()) {
+            for (final T input : inputs) {
+                results.add(run(task, input));
+            }
+            return results;
+        }
+        final List<CompletableFuture<R>> futures = new ArrayList<>(inputs.size());
+        for (final T input : inputs) {
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    permits.acquire();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new CompletionException(e);
+                }
+                try {
+                    return run(task, input);
+                } finally {
+                    permits.release();
+                }
+            }, executor));
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+                .exceptionally(error -> null)
+                .join();
+        for (final CompletableFuture<R> future : futures) {
+            try {
+                results.add(future.join());
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                throw e;
+            }
+        }
+        return results;
+    }
+
+    private <T, R> R run(final Function<T, R> task, final T input) {
+        inFlight.incrementAndGet();
+        try {
+            return task.apply(input);
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package org.techbd.service.csv.engine;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.techbd.config.Configuration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * The parts of a frictionless data package descriptor
+ * ({@code datapackage-nyher-fhir-ig-equivalent.json}) that
+ * {@link NativeCsvValidationEngine} enforces: per resource the dialect
+ * delimiter, the fields with their {@code required}, {@code unique},
+ * {@code pattern}, {@code enum}, {@code minLength} and {@code maxLength}
+ * constraints, the primary key and the foreign keys.
+ * <p>
+ * Patterns are compiled once, anchored the way frictionless anchors them
+ * ({@code ^pattern$}) and with Python's semantics for {@code $} and the
+ * Unicode character classes.
+ */
+public record CsvDataPackage(List<Resource> resources) {
+
+    private static final int PATTERN_FLAGS = Pattern.UNIX_LINES | Pattern.UNICODE_CHARACTER_CLASS;
+
+    public record Resource(String name, char delimiter, List<Field> fields, List<String> primaryKey,
+            List<ForeignKey> foreignKeys) {
+
+        public int indexOf(final String fieldName) {
+            for (int index = 0; index < fields.size(); index++) {
+                if (fields.get(index).name().equals(fieldName)) {
+                    return index;
+                }
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * @param constraints the constraint values as written in the descriptor,
+     *                    in descriptor order, used for error notes
+     */
+    public record Field(String name, boolean required, boolean unique, Pattern pattern, Set<String> enumValues,
+            Integer minLength, Integer maxLength, Map<String, Object> constraints) {
+    }
+
+    public record ForeignKey(List<String> fields, String referenceResource, List<String> referenceFields) {
+    }
+
+    public Resource resource(final String name) {
+        for (final Resource resource : resources) {
+            if (resource.name().equals(name)) {
+                return resource;
+            }
+        }
+        return null;
+    }
+
+    public static CsvDataPackage load(final Path descriptor) throws IOException {
+        return parse(Configuration.objectMapper.readTree(Files.readAllBytes(descriptor)));
+    }
+
+    public static CsvDataPackage parse(final JsonNode descriptor) {
+        final List<Resource> resources = new ArrayList<>();
+        for (final JsonNode resource : descriptor.path("resources")) {
+            final JsonNode schema = resource.path("schema");
+            final List<Field> fields = new ArrayList<>();
+            for (final JsonNode field : schema.path("fields")) {
+                fields.add(field(field));
+            }
+            final List<ForeignKey> foreignKeys = new ArrayList<>();
+            for (final JsonNode foreignKey : schema.path("foreignKeys")) {
+                foreignKeys.add(new ForeignKey(names(foreignKey.path("fields")),
+                        foreignKey.path("reference").path("resource").asText(),
+                        names(foreignKey.path("reference").path("fields"))));
+            }
+            final String delimiter = resource.path("dialect").path("delimiter").asText(",");
+            resources.add(new Resource(resource.path("name").asText(),
+                    delimiter.isEmpty() ? ',' : delimiter.charAt(0),
+                    List.copyOf(fields), names(schema.path("primaryKey")), List.copyOf(foreignKeys)));
+        }
+        return new CsvDataPackage(List.copyOf(resources));
+    }
+
+    private static Field field(final JsonNode field) {
+        final JsonNode constraints = field.path("constraints");
+        final Map<String, Object> values = new LinkedHashMap<>();
+        constraints.fields().forEachRemaining(constraint -> values.put(constraint.getKey(),
+                Configuration.objectMapper.convertValue(constraint.getValue(), Object.class)));
+        Set<String> enumValues = null;
+        if (constraints.has("enum")) {
+            enumValues = new HashSet<>();
+            for (final JsonNode value : constraints.path("enum")) {
+                enumValues.add(value.asText());
+            }
+        }
+        return new Field(field.path("name").asText(),
+                constraints.path("required").asBoolean(false),
+                constraints.path("unique").asBoolean(false),
+                constraints.has("pattern")
+                        ? Pattern.compile("^" + constraints.path("pattern").asText() + "$", PATTERN_FLAGS)
+                        : null,
+                enumValues,
+                constraints.has("minLength") ? constraints.path("minLength").asInt() : null,
+                constraints.has("maxLength") ? constraints.path("maxLength").asInt() : null,
+                values);
+    }
+
+    /** A field list may be written as a single name or as an array of names. */
+    private static List<String> names(final JsonNode node) {
+        if (node.isMissingNode() || node.isNull()) {
+            return List.of();
+        }
+        if (node.isTextual()) {
+            return List.of(node.asText());
+        }
+        final List<String> names = new ArrayList<>();
+        node.forEach(name -> names.add(name.asText()));
+        return List.copyOf(names);
+    }
+}
@@ -22,11 +22,14 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
@@ -46,6 +49,7 @@ import org.techbd.model.csv.FileDetail;
 import org.techbd.model.csv.FileType;
 import org.techbd.model.csv.PayloadAndValidationOutcome;
 import org.techbd.service.csv.CsvService;
+import org.techbd.service.csv.CsvTaskExecutor;
 import org.techbd.service.vfs.VfsCoreService;
 import org.techbd.service.vfs.VfsIngressConsumer;
 import org.techbd.udi.auto.jooq.ingress.routines.RegisterInteractionCsvRequest;
@@ -57,6 +61,9 @@ import org.techbd.util.fhir.CoreFHIRUtil;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
 import jakarta.validation.constraints.NotNull;
 
 /**
@@ -69,16 +76,32 @@ public class CsvOrchestrationEngine {
     private final CoreAppConfig coreAppConfig;
     private final VfsCoreService vfsCoreService;
     private final CoreUdiPrimeJpaConfig coreUdiPrimeJpaConfig;
+    private final CsvTaskExecutor groupValidationExecutor;
+    private final CsvValidationWorkerPool csvValidationWorkerPool;
+    private final NativeCsvValidationEngine nativeCsvValidationEngine;
     private static TemplateLogger log;
     private static final Pattern FILE_PATTERN = Pattern.compile(
           "(SDOH_PtInfo|SDOH_QEadmin|SDOH_ScreeningProf|SDOH_ScreeningObs)_(.+)");
 
-    public CsvOrchestrationEngine(final CoreAppConfig coreAppConfig, final VfsCoreService vfsCoreService,final CoreUdiPrimeJpaConfig coreUdiPrimeJpaConfig,AppLogger appLogger) {
+    public CsvOrchestrationEngine(final CoreAppConfig coreAppConfig, final VfsCoreService vfsCoreService,final CoreUdiPrimeJpaConfig coreUdiPrimeJpaConfig,
+            final CsvValidationWorkerPool csvValidationWorkerPool,
+            final NativeCsvValidationEngine nativeCsvValidationEngine, AppLogger appLogger) {
         this.sessions = new ConcurrentHashMap<>();
         this.coreAppConfig = coreAppConfig;
         this.vfsCoreService = vfsCoreService;
         this.coreUdiPrimeJpaConfig = coreUdiPrimeJpaConfig;
+        this.csvValidationWorkerPool = csvValidationWorkerPool;
+        this.nativeCsvValidationEngine = nativeCsvValidationEngine;
         log = appLogger.getLogger(CsvOrchestrationEngine.class);
+        this.groupValidationExecutor = CsvTaskExecutor.from("csv-group-validation",
+                coreAppConfig.getCsvGroupValidation());
+        log.info("CsvOrchestrationEngine:: group validation executorMode :{} maxConcurrency :{}",
+                groupValidationExecutor.getMode(), groupValidationExecutor.getMaxConcurrency());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        groupValidationExecutor.close();
     }
 
     public List<OrchestrationSession> getSessions() {
@@ -100,6 +123,14 @@ public class CsvOrchestrationEngine {
         }
     }
 
+    /**
+     * Outcome of validating one file group; {@code operationOutcome} is
+     * {@code null} for the group of files that were not processed.
+     */
+    private record GroupValidation(String groupKey, List<FileDetail> fileDetails, String groupInteractionId,
+            Map<String, Object> operationOutcome, boolean valid) {
+    }
+
     public CsvOrchestrationEngine.OrchestrationSessionBuilder session() {
         return new OrchestrationSessionBuilder();
     }
@@ -115,6 +146,7 @@ public class CsvOrchestrationEngine {
         private String masterInteractionId;
         private Map<String,Object> requestParameters;
         private boolean generateBundle;
+        private CsvZipExtractor.Extraction extraction;
 
         public OrchestrationSessionBuilder withSessionId(final String sessionId) {
             this.sessionId = sessionId;
@@ -151,6 +183,15 @@ public class CsvOrchestrationEngine {
             return this;
         }
 
+        /**
+         * The upload was already streamed into an ingress session directory, so
+         * the inbound folder and VFS ingress are skipped.
+         */
+        public OrchestrationSessionBuilder withExtraction(final CsvZipExtractor.Extraction extraction) {
+            this.extraction = extraction;
+            return this;
+        }
+
         public OrchestrationSession build() {
             if (sessionId == null) {
                 sessionId = UUID.randomUUID().toString();
@@ -162,7 +203,7 @@ public class CsvOrchestrationEngine {
                 throw new IllegalArgumentException("File must not be null");
             }
             return new OrchestrationSession(sessionId, tenantId, device, file, masterInteractionId, requestParameters,
-                    generateBundle,CsvProcessingMetrics.builder());
+                    generateBundle,CsvProcessingMetrics.builder(), extraction);
         }
     }
 
@@ -194,12 +235,14 @@ public class CsvOrchestrationEngine {
         private final String tenantId;
         Map<String,Object> requestParameters;
         private final boolean generateBundle;
+        private final CsvZipExtractor.Extraction extraction;
 
         public OrchestrationSession(final String sessionId, final String tenantId, final Device device,
                 final MultipartFile file,
                 final String masterInteractionId,
                 final Map<String,Object> requestParameters,
-                boolean generateBundle,CsvProcessingMetrics.CsvProcessingMetricsBuilder metricsBuilder) {
+                boolean generateBundle,CsvProcessingMetrics.CsvProcessingMetricsBuilder metricsBuilder,
+                final CsvZipExtractor.Extraction extraction) {
             this.sessionId = sessionId;
             this.tenantId = tenantId;
             this.device = device;
@@ -211,6 +254,7 @@ public class CsvOrchestrationEngine {
             this.payloadAndValidationOutcomes = new HashMap<>();
             this.filesNotProcessed = new ArrayList<>();
             this.metricsBuilder = metricsBuilder;
+            this.extraction = extraction;
         }
 
         public boolean isGenerateBundle() {
@@ -548,62 +592,68 @@ public class CsvOrchestrationEngine {
                         coreAppConfig.getCsv().validation().inboundPath(), masterInteractionId);
                 log.info("Ingress Home Path: {} for zipFileInteractionId : {}",
                         coreAppConfig.getCsv().validation().ingressHomePath(), masterInteractionId);
-                // Process ZIP files and get the session ID
-                final UUID processId = processZipFilesFromInbound(masterInteractionId);
-                log.info("ZIP files processed with session ID: {} for zipFileInteractionId :{} ", processId,
-                        masterInteractionId);
+                final String processedDirPath;
+                if (extraction != null) {
+                    // the upload was streamed straight into its session directory
+                    processedDirPath = extraction.directory().toString();
+                } else {
+                    // Process ZIP files and get the session ID
+                    final UUID processId = processZipFilesFromInbound(masterInteractionId);
+                    log.info("ZIP files processed with session ID: {} for zipFileInteractionId :{} ", processId,
+                            masterInteractionId);
 
-                // Construct processed directory path
-                final String processedDirPath = coreAppConfig.getCsv().validation().ingressHomePath() + "/" + processId
-                        + "/ingress";
+                    // Construct processed directory path
+                    processedDirPath = coreAppConfig.getCsv().validation().ingressHomePath() + "/" + processId
+                            + "/ingress";
+                }
 
-                copyFilesToProcessedDir(processedDirPath);
+                if (!csvValidationWorkerPool.isEnabled() && !nativeCsvValidationEngine.isEnabled()) {
+                    // workers and the native engine load the package from its configured path
+                    copyFilesToProcessedDir(processedDirPath);
+                }
                 createOutputFileInProcessedDir(processedDirPath);
-                log.info("Attempting to resolve processed directory: {} for zipFileInteractionId : {}", processedDirPath,
-                        masterInteractionId);
+                final List<String> csvFiles;
+                if (extraction != null) {
+                    csvFiles = collectExtractedCsvFiles(masterInteractionId);
+                } else {
+                    log.info("Attempting to resolve processed directory: {} for zipFileInteractionId : {}",
+                            processedDirPath, masterInteractionId);
 
-                // Get processed files for validation
-                final FileObject processedDir = vfsCoreService
-                        .resolveFile(Paths.get(processedDirPath).toAbsolutePath().toString());
+                    // Get processed files for validation
+                    final FileObject processedDir = vfsCoreService
+                            .resolveFile(Paths.get(processedDirPath).toAbsolutePath().toString());
 
-                if (!vfsCoreService.fileExists(processedDir)) {
-                    log.error("Processed directory does not exist: {} for zipFileInteractionId : {}", processedDirPath,
-                            masterInteractionId);
-                    throw new FileSystemException("Processed directory not found: " + processedDirPath);
+                    if (!vfsCoreService.fileExists(processedDir)) {
+                        log.error("Processed directory does not exist: {} for zipFileInteractionId : {}",
+                                processedDirPath, masterInteractionId);
+                        throw new FileSystemException("Processed directory not found: " + processedDirPath);
+                    }
+                    csvFiles = scanForCsvFiles(processedDir, masterInteractionId);
                 }
-                final List<String> csvFiles = scanForCsvFiles(processedDir, masterInteractionId);
 
-                final Map<String, List<FileDetail>> groupedFiles = FileProcessor.processAndGroupFiles(csvFiles);
+                final Map<String, List<FileDetail>> groupedFiles = FileProcessor.processAndGroupFiles(csvFiles,
+                        FileProcessor.MEMORY_MAPPED.equals(coreAppConfig.getCsvFileScanMode()));
+                // groups are validated independently (possibly concurrently) and aggregated here in group order
+                final List<Map.Entry<String, List<FileDetail>>> groups = new ArrayList<>(groupedFiles.entrySet());
+                final List<GroupValidation> groupValidations = groupValidationExecutor.map(groups,
+                        entry -> validateGroup(entry.getKey(), entry.getValue(), originalFileName));
                 List<Map<String, Object>> combinedValidationResults = new ArrayList<>();
                 int noOfValidGroups = 0;
-                for (Map.Entry<String, List<FileDetail>> entry : groupedFiles.entrySet()) {
-                    String groupKey = entry.getKey();
+                for (final GroupValidation groupValidation : groupValidations) {
+                    final String groupKey = groupValidation.groupKey();
+                    final List<FileDetail> fileDetails = groupValidation.fileDetails();
                     if (groupKey.equals("filesNotProcessed")) {
-                        if (!entry.getValue().isEmpty()) {
-                        this.filesNotProcessed = entry.getValue();
+                        if (!fileDetails.isEmpty()) {
+                        this.filesNotProcessed = fileDetails;
                         combinedValidationResults.add(
                                 createOperationOutcomeForFileNotProcessed(
-                                        masterInteractionId, entry.getValue(), originalFileName));
+                                        masterInteractionId, fileDetails, originalFileName));
                         metricsBuilder.dataValidationStatus(CsvDataValidationStatus.FAILED.getDescription());
                         }
                         continue;
                     }
-                    List<FileDetail> fileDetails = entry.getValue();
-                    Map<String, Object> operationOutcomeForThisGroup;
-                    final String groupInteractionId = UUID.randomUUID().toString();
-                    boolean isGroupValid = false;
-                    
-                    if (isGroupComplete(fileDetails)) {
-                        operationOutcomeForThisGroup = validateScreeningGroup(groupInteractionId, groupKey, fileDetails,
-                                originalFileName);
-                        isGroupValid = extractValidValue(operationOutcomeForThisGroup);
-                    } else {
-                        metricsBuilder.dataValidationStatus(CsvDataValidationStatus.FAILED.getDescription());
-                        // Incomplete group - generate error operation outcome
-                        operationOutcomeForThisGroup = createIncompleteGroupOperationOutcome(
-                                groupKey, fileDetails, originalFileName, masterInteractionId);
-                        log.warn("Incomplete Group - Missing files for group {} for zipFileInteractionId : {}", groupKey, masterInteractionId);
-                    }
+                    final Map<String, Object> operationOutcomeForThisGroup = groupValidation.operationOutcome();
+                    final boolean isGroupValid = groupValidation.valid();
                     if (!isGroupValid) {
                         metricsBuilder.dataValidationStatus(CsvDataValidationStatus.FAILED.getDescription());
                     } else {
@@ -614,7 +664,7 @@ public class CsvOrchestrationEngine {
                         this.payloadAndValidationOutcomes.put(groupKey,
                                 new PayloadAndValidationOutcome(fileDetails,
                                         isGroupValid,
-                                        groupInteractionId, extractProvenance(operationOutcomeForThisGroup),
+                                        groupValidation.groupInteractionId(), extractProvenance(operationOutcomeForThisGroup),
                                         operationOutcomeForThisGroup));
                     }
                 }
@@ -803,6 +853,54 @@ public class CsvOrchestrationEngine {
             return operationOutcome;
         }
 
+        /**
+         * Validates one file group and records how long it took. Runs on the
+         * group validation executor, so it must not touch the session's metrics
+         * or result collections; {@link #processScreenings} aggregates the
+         * returned outcomes on the calling thread.
+         */
+        private GroupValidation validateGroup(final String groupKey, final List<FileDetail> fileDetails,
+                final String originalFileName) {
+            if (groupKey.equals("filesNotProcessed")) {
+                return new GroupValidation(groupKey, fileDetails, null, null, false);
+            }
+            final String groupInteractionId = UUID.randomUUID().toString();
+            final long start = System.nanoTime();
+            final Map<String, Object> operationOutcomeForThisGroup;
+            final boolean isGroupValid;
+            final String outcome;
+            try {
+                if (isGroupComplete(fileDetails)) {
+                    operationOutcomeForThisGroup = validateScreeningGroup(groupInteractionId, groupKey, fileDetails,
+                            originalFileName);
+                    isGroupValid = extractValidValue(operationOutcomeForThisGroup);
+                    outcome = isGroupValid ? "valid" : "invalid";
+                } else {
+                    // Incomplete group - generate error operation outcome
+                    operationOutcomeForThisGroup = createIncompleteGroupOperationOutcome(
+                            groupKey, fileDetails, originalFileName, masterInteractionId);
+                    isGroupValid = false;
+                    outcome = "incomplete";
+                    log.warn("Incomplete Group - Missing files for group {} for zipFileInteractionId : {}", groupKey, masterInteractionId);
+                }
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new RuntimeException("Error validating group " + groupKey + " : " + e.getMessage(), e);
+            }
+            final long elapsed = System.nanoTime() - start;
+            Timer.builder("techbd.csv.group.validation")
+                    .description("Validation of one CSV file group")
+                    .tag("outcome", outcome)
+                    .tag("engine", nativeCsvValidationEngine.isEnabled() ? NativeCsvValidationEngine.ENGINE : "python")
+                    .register(Metrics.globalRegistry)
+                    .record(elapsed, TimeUnit.NANOSECONDS);
+            log.info("Validated group {} ({}) in {} ms for zipFileInteractionId : {}", groupKey, outcome,
+                    TimeUnit.NANOSECONDS.toMillis(elapsed), masterInteractionId);
+            return new GroupValidation(groupKey, fileDetails, groupInteractionId, operationOutcomeForThisGroup,
+                    isGroupValid);
+        }
+
         private Map<String, Object> validateScreeningGroup(String groupInteractionId, String groupKey,
                 List<FileDetail> fileDetails,
                 String originalFileName) throws Exception {
@@ -874,6 +972,57 @@ public class CsvOrchestrationEngine {
             return processId;
         }
 
+        /**
+         * Hidden or system files, the validator files copied next to the CSVs and
+         * the uploaded zip itself are not part of the upload's file count.
+         */
+        private boolean isSkippedIngressFile(final String fileName, final String zipFileInteractionId) {
+            // Skip hidden/system files
+            if (fileName.startsWith(".") || fileName.endsWith(".lock") || fileName.startsWith("~")) {
+                log.debug("Skipping hidden/system file: {} for zipFileInteractionId: {}", fileName,
+                        zipFileInteractionId);
+                return true;
+            }
+            // Skip explicitly excluded files
+            if ("validate-nyher-fhir-ig-equivalent.py".equals(fileName)
+                    || "datapackage-nyher-fhir-ig-equivalent.json".equals(fileName)
+                    || "output.json".equals(fileName)
+                    || (fileName.startsWith(zipFileInteractionId) && fileName.endsWith(".zip"))) {
+                log.debug("Skipping excluded file: {} for zipFileInteractionId: {}", fileName,
+                        zipFileInteractionId);
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * The CSV files of a streamed upload, counted like {@link #scanForCsvFiles}
+         * counts an extracted directory, with the extraction figures added to the
+         * metrics.
+         */
+        private List<String> collectExtractedCsvFiles(final String zipFileInteractionId) {
+            final List<String> csvFiles = new ArrayList<>();
+            int totalNumberOfFiles = 0;
+            for (final Path extracted : extraction.files()) {
+                final String fileName = extracted.getFileName().toString();
+                if (isSkippedIngressFile(fileName, zipFileInteractionId)) {
+                    continue;
+                }
+                totalNumberOfFiles++;
+                if (fileName.toLowerCase(Locale.ROOT).endsWith(".csv")) {
+                    csvFiles.add(extracted.toAbsolutePath().toString());
+                }
+            }
+            log.info("Summary for zipFileInteractionId: {} -> Total files: {}, Total CSV files: {}, extracted {} bytes in {} ms ({} MB/s)",
+                    zipFileInteractionId, totalNumberOfFiles, csvFiles.size(), extraction.uncompressedBytes(),
+                    extraction.elapsedMillis(), String.format("%.1f", extraction.throughputMbPerSecond()));
+            metricsBuilder.totalNumberOfFilesInZipFile(totalNumberOfFiles)
+                    .zipFileExtractedBytes(extraction.uncompressedBytes())
+                    .zipFileExtractionMillis(extraction.elapsedMillis())
+                    .zipFileExtractionThroughputMbPerSecond(extraction.throughputMbPerSecond());
+            return csvFiles;
+        }
+
         private List<String> scanForCsvFiles(final FileObject processedDir, String zipFileInteractionId)
                 throws FileSystemException {
 
@@ -901,19 +1050,7 @@ public class CsvOrchestrationEngine {
                                 zipFileInteractionId);
                         continue;
                     }
-                    // Skip hidden/system files
-                    if (fileName.startsWith(".") || fileName.endsWith(".lock") || fileName.startsWith("~")) {
-                        log.debug("Skipping hidden/system file: {} for zipFileInteractionId: {}", fileName,
-                                zipFileInteractionId);
-                        continue;
-                    }
-                    // Skip explicitly excluded files
-                    if ("validate-nyher-fhir-ig-equivalent.py".equals(fileName)
-                            || "datapackage-nyher-fhir-ig-equivalent.json".equals(fileName)
-                            || "output.json".equals(fileName)
-                            || (fileName.startsWith(zipFileInteractionId) && fileName.endsWith(".zip"))) {
-                        log.debug("Skipping excluded file: {} for zipFileInteractionId: {}", fileName,
-                                zipFileInteractionId);
+                    if (isSkippedIngressFile(fileName, zipFileInteractionId)) {
                         continue;
                     }
                     // Count all valid files
@@ -1020,6 +1157,22 @@ public class CsvOrchestrationEngine {
                 // Validate and create directories
                 vfsCoreService.validateAndCreateDirectories(fileObjects.toArray(new FileObject[0]));
 
+                if (nativeCsvValidationEngine.isEnabled()) {
+                    final String output = nativeCsvValidationEngine.validate(
+                            new File(fileDetails.get(0).filePath()).getParentFile().toPath(),
+                            orderedFileNames(fileDetails));
+                    log.info("CsvService : validateCsvUsingPython END (native engine) for zipFileInteractionId :{} " + zipFileInteractionId);
+                    return output;
+                }
+
+                if (csvValidationWorkerPool.isEnabled()) {
+                    final String output = csvValidationWorkerPool.validate(
+                            new File(fileDetails.get(0).filePath()).getParentFile().toPath(),
+                            orderedFileNames(fileDetails));
+                    log.info("CsvService : validateCsvUsingPython END (worker pool) for zipFileInteractionId :{} " + zipFileInteractionId);
+                    return output;
+                }
+
                 // Build command to run Python script
                 final List<String> command = buildValidationCommand(config, fileDetails);
 
@@ -1063,7 +1216,7 @@ public class CsvOrchestrationEngine {
                 // Return parsed validation results
                 return output.toString();
 
-            } catch (IOException | InterruptedException e) {
+            } catch (IOException | InterruptedException | TimeoutException e) {
                 log.error("Error during CSV validation: {} for zipFileInteractionId : {}", e.getMessage(), zipFileInteractionId, e);
                 throw new RuntimeException("Error during CSV validation : "+e.getMessage(), e);
             }
@@ -1075,6 +1228,18 @@ public class CsvOrchestrationEngine {
             command.add(config.pythonExecutable());
             command.add("validate-nyher-fhir-ig-equivalent.py");
             command.add("datapackage-nyher-fhir-ig-equivalent.json");
+            command.addAll(orderedFileNames(fileDetails));
+
+            // Pad with empty strings if fewer than 7 files
+            // command.add("output.json");
+
+            return command;
+        }
+
+        /**
+         * File names of a group in the order the Python validator takes them.
+         */
+        private List<String> orderedFileNames(final List<FileDetail> fileDetails) {
             List<FileType> fileTypeOrder = Arrays.asList(
                     FileType.SDOH_QEadmin,
                     FileType.SDOH_ScreeningProf,
@@ -1084,14 +1249,11 @@ public class CsvOrchestrationEngine {
             for (FileDetail fileDetail : fileDetails) {
                 fileTypeToFileNameMap.put(fileDetail.fileType(), fileDetail.filename());
             }
+            final List<String> fileNames = new ArrayList<>();
             for (FileType fileType : fileTypeOrder) {
-                command.add(fileTypeToFileNameMap.get(fileType)); // Adding the filename in order
+                fileNames.add(fileTypeToFileNameMap.get(fileType)); // Adding the filename in order
             }
-
-            // Pad with empty strings if fewer than 7 files
-            // command.add("output.json");
-
-            return command;
+            return fileNames;
         }
 
         private String extractGroupId(final FileObject file) {
@@ -0,0 +1,168 @@
+package org.techbd.service.csv.engine;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams the records of a delimited text file one at a time, following the
+ * rules of Python's {@code csv} reader (the one frictionless uses for the
+ * screening files): double-quoted fields may contain delimiters, doubled
+ * quotes and line breaks; {@code \n}, {@code \r\n} and {@code \r} all end a
+ * record; and, with {@code skipInitialSpace}, spaces at the start of a field
+ * are dropped. An empty line is returned as an empty record.
+ */
+public final class CsvRecordReader implements Closeable {
+
+    private static final char QUOTE = '"';
+    private static final int END = -1;
+
+    private enum State {
+        START_FIELD, IN_FIELD, IN_QUOTED_FIELD, QUOTE_IN_QUOTED_FIELD
+    }
+
+    private final Reader reader;
+    private final char delimiter;
+    private final boolean skipInitialSpace;
+    private final char[] buffer = new char[16 * 1024];
+    private final StringBuilder field = new StringBuilder(64);
+    private int position;
+    private int limit;
+    private long recordNumber;
+
+    public CsvRecordReader(final Reader reader, final char delimiter, final boolean skipInitialSpace) {
+        this.reader = reader;
+        this.delimiter = delimiter;
+        this.skipInitialSpace = skipInitialSpace;
+    }
+
+    /**
+     * Position of the record last returned by {@link #next()}, starting at 1;
+     * records spanning several lines count once.
+     */
+    public long getRecordNumber() {
+        return recordNumber;
+    }
+
+    /**
+     * @return the fields of the next record, or {@code null} at the end of the
+     *         input
+     */
+    public List<String> next() throws IOException {
+        int c = read();
+        if (c == END) {
+            return null;
+        }
+        recordNumber++;
+        final List<String> record = new ArrayList<>();
+        if (c == '\n' || c == '\r') {
+            endOfLine(c);
+            return record;
+        }
+        State state = State.START_FIELD;
+        field.setLength(0);
+        while (true) {
+            switch (state) {
+                case START_FIELD -> {
+                    if (c == END || c == '\n' || c == '\r') {
+                        record.add("");
+                        endOfLine(c);
+                        return record;
+                    } else if (c == QUOTE) {
+                        state = State.IN_QUOTED_FIELD;
+                    } else if (c == ' ' && skipInitialSpace) {
+                        // dropped
+                    } else if (c == delimiter) {
+                        record.add("");
+                    } else {
+                        field.append((char) c);
+                        state = State.IN_FIELD;
+                    }
+                }
+                case IN_FIELD -> {
+                    if (c == END || c == '\n' || c == '\r') {
+                        record.add(take());
+                        endOfLine(c);
+                        return record;
+                    } else if (c == delimiter) {
+                        record.add(take());
+                        state = State.START_FIELD;
+                    } else {
+                        field.append((char) c);
+                    }
+                }
+                case IN_QUOTED_FIELD -> {
+                    if (c == END) {
+                        record.add(take());
+                        return record;
+                    } else if (c == QUOTE) {
+                        state = State.QUOTE_IN_QUOTED_FIELD;
+                    } else {
+                        field.append((char) c);
+                    }
+                }
+                case QUOTE_IN_QUOTED_FIELD -> {
+                    if (c == QUOTE) {
+                        field.append(QUOTE);
+                        state = State.IN_QUOTED_FIELD;
+                    } else if (c == delimiter) {
+                        record.add(take());
+                        state = State.START_FIELD;
+                    } else if (c == END || c == '\n' || c == '\r') {
+                        record.add(take());
+                        endOfLine(c);
+                        return record;
+                    } else {
+                        // lenient, as Python's reader: text after the closing quote is kept
+                        field.append((char) c);
+                        state = State.IN_FIELD;
+                    }
+                }
+            }
+            c = read();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private String take() {
+        final String value = field.toString();
+        field.setLength(0);
+        return value;
+    }
+
+    private void endOfLine(final int c) throws IOException {
+        if (c == '\r' && peek() == '\n') {
+            position++;
+        }
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill()) {
+            return END;
+        }
+        return buffer[position++];
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return END;
+        }
+        return buffer[position];
+    }
+
+    private boolean fill() throws IOException {
+        final int read = reader.read(buffer, 0, buffer.length);
+        if (read <= 0) {
+            return false;
+        }
+        position = 0;
+        limit = read;
+        return true;
+    }
+}
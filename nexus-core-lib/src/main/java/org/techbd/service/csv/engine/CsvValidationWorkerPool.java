@@ -0,0 +1,123 @@
+package org.techbd.service.csv.engine;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.stereotype.Component;
+import org.techbd.config.Configuration;
+import org.techbd.config.CoreAppConfig;
+import org.techbd.service.fhir.ExternalProcessWorkerPool;
+import org.techbd.util.AppLogger;
+import org.techbd.util.TemplateLogger;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Validates CSV file groups on long-running Python workers
+ * ({@code validate-nyher-fhir-ig-equivalent-worker.py}) instead of starting an
+ * interpreter, and importing frictionless, for every group.
+ * <p>
+ * Each worker loads {@code csv.validation.pythonScriptPath} once and then
+ * validates one group per request, in the group's directory and with the same
+ * arguments the script gets on the command line, so the output is the one
+ * {@code CsvOrchestrationEngine} parses today. Workers are retired after
+ * {@code maxJobsPerWorker} groups and pinged while idle; see
+ * {@link ExternalProcessWorkerPool} for the protocol and the published meters
+ * (tagged {@code pool=csv-validation-worker}).
+ */
+@Component
+public class CsvValidationWorkerPool {
+
+    public static final int DEFAULT_WORKERS = 4;
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofMinutes(5);
+    private static final Duration HEALTH_CHECK_TIMEOUT = Duration.ofSeconds(10);
+    private static final byte[] PING = "{\"ping\":true}".getBytes(StandardCharsets.UTF_8);
+
+    private final TemplateLogger LOG;
+    private final ExternalProcessWorkerPool pool;
+    private final Duration timeout;
+    private final String specPath;
+
+    public CsvValidationWorkerPool(final CoreAppConfig coreAppConfig, final AppLogger appLogger) {
+        LOG = appLogger.getLogger(CsvValidationWorkerPool.class);
+        final CoreAppConfig.CsvValidationWorkerPool config = coreAppConfig.getCsvValidationWorkerPool();
+        final CoreAppConfig.CsvValidation.Validation validation = coreAppConfig.getCsv() == null ? null
+                : coreAppConfig.getCsv().validation();
+        final boolean enabled = config != null && config.enabled() && validation != null
+                && config.workerScriptPath() != null && !config.workerScriptPath().isBlank();
+        this.timeout = config == null || config.timeoutSeconds() == null || config.timeoutSeconds() <= 0
+                ? DEFAULT_TIMEOUT
+                : Duration.ofSeconds(config.timeoutSeconds());
+        this.specPath = enabled ? absolute(validation.packagePath()) : null;
+        final Duration healthCheckInterval = config == null || config.healthCheckIntervalSeconds() == null
+                ? Duration.ZERO
+                : Duration.ofSeconds(Math.max(0, config.healthCheckIntervalSeconds()));
+        this.pool = new ExternalProcessWorkerPool(new ExternalProcessWorkerPool.Settings(
+                "csv-validation-worker",
+                enabled,
+                enabled ? List.of(validation.pythonExecutable(), absolute(config.workerScriptPath()),
+                        absolute(validation.pythonScriptPath())) : List.of(),
+                config == null || config.workers() == null || config.workers() <= 0 ? DEFAULT_WORKERS
+                        : config.workers(),
+                1,
+                config == null || config.maxJobsPerWorker() == null ? 0 : Math.max(0, config.maxJobsPerWorker()),
+                PING,
+                CsvValidationWorkerPool::isPong,
+                healthCheckInterval,
+                HEALTH_CHECK_TIMEOUT), appLogger);
+    }
+
+    public boolean isEnabled() {
+        return pool.isEnabled();
+    }
+
+    /**
+     * Validates the files of one group, which must all be in
+     * {@code directory}, and returns the validator's output.
+     *
+     * @param fileNames the group's file names in the validator's argument
+     *                  order: QE admin, screening profile, screening
+     *                  observation, patient info
+     */
+    public String validate(final Path directory, final List<String> fileNames)
+            throws IOException, TimeoutException, InterruptedException {
+        final Map<String, Object> request = new LinkedHashMap<>();
+        request.put("directory", directory.toAbsolutePath().toString());
+        request.put("spec", specPath);
+        request.put("files", fileNames);
+        final JsonNode response = Configuration.objectMapper
+                .readTree(pool.call(Configuration.objectMapper.writeValueAsBytes(request), timeout));
+        final String error = response.path("error").asText("");
+        if (!error.isEmpty()) {
+            LOG.error("CsvValidationWorkerPool:: validation of {} in {} failed :{}", fileNames, directory, error);
+            throw new IOException("Python CSV validation failed: " + error);
+        }
+        return response.path("output").asText("");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    private static boolean isPong(final byte[] response) {
+        try {
+            return Configuration.objectMapper.readTree(response).path("pong").asBoolean(false);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static String absolute(final String path) {
+        return Paths.get(path).toAbsolutePath().toString();
+    }
+}
@@ -0,0 +1,164 @@
+package org.techbd.service.csv.engine;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipInputStream;
+
+import org.techbd.config.CoreAppConfig;
+
+/**
+ * Extracts an uploaded zip straight from its stream into a session directory,
+ * the only copy made of its content. Directory structure is flattened the way
+ * {@code VfsIngressConsumer.consumeUnzipped} flattens it, so a later entry with
+ * the same name replaces an earlier one.
+ * <p>
+ * Entries are counted and measured while they are written, and extraction
+ * stops with a {@link ZipException} as soon as an entry or the whole archive
+ * grows beyond its limit, or the archive inflates more than the allowed ratio
+ * of bytes written to compressed bytes read (a zip bomb). The ratio is only
+ * enforced past {@link #RATIO_CHECK_THRESHOLD_BYTES} so that small, highly
+ * compressible files are not rejected.
+ */
+public final class CsvZipExtractor {
+
+    public static final long DEFAULT_MAX_ENTRY_BYTES = 512L * 1024 * 1024;
+    public static final long DEFAULT_MAX_TOTAL_BYTES = 2L * 1024 * 1024 * 1024;
+    public static final int DEFAULT_MAX_ENTRIES = 10_000;
+    public static final int DEFAULT_MAX_COMPRESSION_RATIO = 100;
+    static final long RATIO_CHECK_THRESHOLD_BYTES = 1024 * 1024;
+
+    public record Limits(long maxEntryBytes, long maxTotalBytes, int maxEntries, int maxCompressionRatio) {
+
+        public static Limits of(final CoreAppConfig.CsvZipExtraction config) {
+            if (config == null) {
+                return new Limits(DEFAULT_MAX_ENTRY_BYTES, DEFAULT_MAX_TOTAL_BYTES, DEFAULT_MAX_ENTRIES,
+                        DEFAULT_MAX_COMPRESSION_RATIO);
+            }
+            return new Limits(
+                    config.maxEntryBytes() == null || config.maxEntryBytes() <= 0 ? DEFAULT_MAX_ENTRY_BYTES
+                            : config.maxEntryBytes(),
+                    config.maxTotalBytes() == null || config.maxTotalBytes() <= 0 ? DEFAULT_MAX_TOTAL_BYTES
+                            : config.maxTotalBytes(),
+                    config.maxEntries() == null || config.maxEntries() <= 0 ? DEFAULT_MAX_ENTRIES
+                            : config.maxEntries(),
+                    config.maxCompressionRatio() == null || config.maxCompressionRatio() <= 0
+                            ? DEFAULT_MAX_COMPRESSION_RATIO
+                            : config.maxCompressionRatio());
+        }
+    }
+
+    /**
+     * The directory extracted into, the files written in entry order, and how
+     * much was read and written.
+     */
+    public record Extraction(Path directory, List<Path> files, long compressedBytes, long uncompressedBytes,
+            long elapsedNanos) {
+
+        public long elapsedMillis() {
+            return elapsedNanos / 1_000_000;
+        }
+
+        /** Uncompressed megabytes (10^6 bytes) written per second. */
+        public double throughputMbPerSecond() {
+            return elapsedNanos == 0 ? 0 : uncompressedBytes * 1_000.0 / elapsedNanos;
+        }
+    }
+
+    public static Extraction extract(final InputStream zip, final Path targetDirectory, final Limits limits)
+            throws IOException {
+        final long start = System.nanoTime();
+        Files.createDirectories(targetDirectory);
+        final CountingInputStream compressed = new CountingInputStream(zip);
+        final Set<Path> files = new LinkedHashSet<>();
+        final byte[] buffer = new byte[64 * 1024];
+        long total = 0;
+        int entries = 0;
+        try (ZipInputStream zipInputStream = new ZipInputStream(compressed)) {
+            ZipEntry entry;
+            while ((entry = zipInputStream.getNextEntry()) != null) {
+                final String flattenedName = entry.getName().replaceAll(".*[/\\\\]", "");
+                if (entry.isDirectory() || flattenedName.isEmpty() || flattenedName.equals(".")
+                        || flattenedName.equals("..")) {
+                    continue;
+                }
+                if (++entries > limits.maxEntries()) {
+                    throw new ZipException("Zip file has more than " + limits.maxEntries() + " entries");
+                }
+                final Path file = targetDirectory.resolve(flattenedName);
+                long entryBytes = 0;
+                try (OutputStream outputStream = Files.newOutputStream(file)) {
+                    int read;
+                    while ((read = zipInputStream.read(buffer)) > 0) {
+                        entryBytes += read;
+                        total += read;
+                        if (entryBytes > limits.maxEntryBytes()) {
+                            throw new ZipException("Zip entry " + flattenedName + " is larger than "
+                                    + limits.maxEntryBytes() + " bytes");
+                        }
+                        if (total > limits.maxTotalBytes()) {
+                            throw new ZipException("Zip file expands to more than " + limits.maxTotalBytes()
+                                    + " bytes");
+                        }
+                        if (total > RATIO_CHECK_THRESHOLD_BYTES
+                                && total > limits.maxCompressionRatio() * Math.max(compressed.count, 1)) {
+                            throw new ZipException("Zip entry " + flattenedName + " expands more than "
+                                    + limits.maxCompressionRatio() + " times its compressed size");
+                        }
+                        outputStream.write(buffer, 0, read);
+                    }
+                }
+                files.remove(file);
+                files.add(file);
+                zipInputStream.closeEntry();
+            }
+        }
+        return new Extraction(targetDirectory, new ArrayList<>(files), compressed.count, total,
+                System.nanoTime() - start);
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        private CountingInputStream(final InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int read = super.read();
+            if (read >= 0) {
+                count++;
+            }
+            return read;
+        }
+
+        @Override
+        public int read(final byte[] target, final int offset, final int length) throws IOException {
+            final int read = super.read(target, offset, length);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(final long n) throws IOException {
+            final long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+
+    private CsvZipExtractor() {
+    }
+}
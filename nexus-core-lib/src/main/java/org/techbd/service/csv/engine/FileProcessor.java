@@ -12,10 +12,26 @@ import java.util.Map;
 
 import org.techbd.model.csv.FileDetail;
 import org.techbd.model.csv.FileType;
+import org.techbd.model.csv.MappedCsvContent;
+import org.techbd.util.csv.Utf8Validator;
 
 public class FileProcessor {
 
+    /** Scan mode that memory-maps each file instead of decoding it into the heap. */
+    public static final String MEMORY_MAPPED = "mmap";
+
     public static Map<String, List<FileDetail>> processAndGroupFiles(final List<String> filePaths) throws IOException {
+        return processAndGroupFiles(filePaths, false);
+    }
+
+    /**
+     * Groups the extracted files by the part of their name after the file type.
+     * When {@code memoryMapped} is set, each file is mapped and its bytes are
+     * checked for UTF-8 without being decoded; the {@link FileDetail} then keeps
+     * the mapping instead of the content.
+     */
+    public static Map<String, List<FileDetail>> processAndGroupFiles(final List<String> filePaths,
+            final boolean memoryMapped) throws IOException {
         final Map<String, List<FileDetail>> groupedFiles = new HashMap<>();
         final List<FileDetail> filesNotProcessed = new ArrayList<>();
         final Map<String, Boolean> groupHasInvalidEncoding = new HashMap<>();
@@ -28,18 +44,31 @@ public class FileProcessor {
                 String groupKey = fileName.substring(fileType.name().length(), fileName.lastIndexOf(".csv"));
 
                 String content = null;
+                MappedCsvContent mappedContent = null;
                 boolean isUtf8 = true;
                 String reason = null;
 
-                try {
-                    content = Files.readString(path, StandardCharsets.UTF_8);
-                } catch (MalformedInputException  e) {
-                    isUtf8 = false;
-                    reason = "File is not UTF-8 encoded: " + e.getMessage();
-                    groupHasInvalidEncoding.put(groupKey, true);
+                if (memoryMapped) {
+                    mappedContent = MappedCsvContent.map(path);
+                    final int malformedOffset = Utf8Validator.firstMalformedOffset(mappedContent.bytes());
+                    if (malformedOffset >= 0) {
+                        mappedContent = null;
+                        isUtf8 = false;
+                        reason = "File is not UTF-8 encoded: malformed input at byte " + malformedOffset;
+                        groupHasInvalidEncoding.put(groupKey, true);
+                    }
+                } else {
+                    try {
+                        content = Files.readString(path, StandardCharsets.UTF_8);
+                    } catch (MalformedInputException  e) {
+                        isUtf8 = false;
+                        reason = "File is not UTF-8 encoded: " + e.getMessage();
+                        groupHasInvalidEncoding.put(groupKey, true);
+                    }
                 }
 
-                FileDetail fileDetail = new FileDetail(fileName, fileType, content, filePath, isUtf8, reason);
+                FileDetail fileDetail = new FileDetail(fileName, fileType, content, filePath, isUtf8, reason,
+                        mappedContent);
                 groupedFiles.computeIfAbsent(groupKey, k -> new ArrayList<>()).add(fileDetail);
 
             } catch (IllegalArgumentException e) {
@@ -0,0 +1,661 @@
+package org.techbd.service.csv.engine;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.stereotype.Component;
+import org.techbd.config.Configuration;
+import org.techbd.config.CoreAppConfig;
+import org.techbd.util.AppLogger;
+import org.techbd.util.TemplateLogger;
+
+/**
+ * Validates a CSV file group in the JVM, as an alternative to
+ * {@code validate-nyher-fhir-ig-equivalent.py}, selected with
+ * {@code csvValidationEngine: native}.
+ * <p>
+ * It enforces the rules of {@code csv.validation.packagePath} that the Python
+ * validator gets from frictionless (header labels, missing and extra cells,
+ * {@code required}, {@code pattern}, {@code enum}, {@code minLength},
+ * {@code maxLength}, {@code unique}, primary keys and foreign keys between
+ * the QE admin, screening profile, screening observation and patient info
+ * files) plus the script's own steps: the code columns it lowercases before
+ * validating and its {@code validate_answer_code} check. Each file is read
+ * once, as a stream; the key sets needed by foreign keys are collected while
+ * the referenced file is read, so referenced resources are validated first.
+ * <p>
+ * The result is the JSON the script prints ({@code errorsSummary},
+ * {@code report}, {@code originalData}) with frictionless' error types,
+ * titles, messages and notes, so {@code CsvOrchestrationEngine} and the
+ * ingestion-center SQL read it unchanged. Differences: {@code originalData}
+ * keeps every value as text where frictionless infers numbers, and task
+ * stats carry no file hashes.
+ */
+@Component
+public class NativeCsvValidationEngine {
+
+    public static final String ENGINE = "native";
+    public static final int LIMIT_ERRORS = 1000;
+
+    /** The resources the script maps its four file arguments to, in order. */
+    static final List<String> RESOURCE_NAMES = List.of("qe_admin_data", "screening_profile_data",
+            "screening_observation_data", "pt_info_data");
+
+    /** Columns the script lowercases ({@code common_transform_steps}). */
+    static final Set<String> LOWERCASE_FIELDS = Set.of("ORGANIZATION_TYPE_CODE", "ORGANIZATION_TYPE_CODE_SYSTEM",
+            "FACILITY_STATE", "ENCOUNTER_CLASS_CODE", "ENCOUNTER_CLASS_CODE_SYSTEM", "ENCOUNTER_STATUS_CODE",
+            "ENCOUNTER_STATUS_CODE_SYSTEM", "ENCOUNTER_TYPE_CODE_SYSTEM", "CONSENT_STATUS", "SCREENING_STATUS_CODE",
+            "SCREENING_STATUS_CODE_SYSTEM", "SCREENING_LANGUAGE_CODE", "SCREENING_LANGUAGE_CODE_SYSTEM",
+            "SCREENING_ENTITY_ID_CODE_SYSTEM", "SCREENING_CODE", "SCREENING_CODE_SYSTEM", "QUESTION_CODE_SYSTEM",
+            "ANSWER_CODE", "ANSWER_CODE_SYSTEM", "OBSERVATION_CATEGORY_SDOH_CODE", "DATA_ABSENT_REASON_CODE",
+            "POTENTIAL_NEED_INDICATED", "ADMINISTRATIVE_SEX_CODE", "ADMINISTRATIVE_SEX_CODE_SYSTEM",
+            "SEX_AT_BIRTH_CODE", "SEX_AT_BIRTH_CODE_SYSTEM", "STATE", "RACE_CODE_SYSTEM", "ETHNICITY_CODE_SYSTEM",
+            "PERSONAL_PRONOUNS_CODE", "PERSONAL_PRONOUNS_SYSTEM", "GENDER_IDENTITY_CODE",
+            "GENDER_IDENTITY_CODE_SYSTEM", "PREFERRED_LANGUAGE_CODE", "PREFERRED_LANGUAGE_CODE_SYSTEM",
+            "SEXUAL_ORIENTATION_CODE", "SEXUAL_ORIENTATION_CODE_SYSTEM");
+
+    /** The script's {@code ValidateAnswerCode.QUESTION_ANSWER_MAP}. */
+    static final Map<String, Set<String>> QUESTION_ANSWER_MAP = Map.ofEntries(
+            Map.entry("44250-9", Set.of("la6568-5", "la6569-3", "la6570-1", "la6571-9")),
+            Map.entry("44255-8", Set.of("la6568-5", "la6569-3", "la6570-1", "la6571-9")),
+            Map.entry("68516-4", Set.of("la6111-4", "la13942-0", "la19282-5", "la28855-7", "la28858-1",
+                    "la28854-0", "la28853-2", "la28891-2", "la32059-0", "la32060-8")),
+            Map.entry("68517-2", Set.of("la6270-8", "la26460-8", "la18876-5", "la18891-4", "la18934-2")),
+            Map.entry("68524-8", Set.of("la6270-8", "la26460-8", "la18876-5", "la18891-4", "la18934-2")),
+            Map.entry("69858-9", Set.of("la33-6", "la32-8")),
+            Map.entry("69861-3", Set.of("la33-6", "la32-8")),
+            Map.entry("71802-3", Set.of("la31993-1", "la31994-9", "la31995-6")),
+            Map.entry("76513-1", Set.of("la15832-1", "la22683-9", "la31980-8")),
+            Map.entry("88122-7", Set.of("la28397-0", "la6729-3", "la28398-8")),
+            Map.entry("88123-5", Set.of("la28397-0", "la6729-3", "la28398-8")),
+            Map.entry("89555-7", Set.of("la6111-4", "la6112-2", "la6113-0", "la6114-8", "la6115-5", "la10137-0",
+                    "la10138-8", "la10139-6")),
+            Map.entry("93030-5", Set.of("la33-6", "la32-8")),
+            Map.entry("93038-8", Set.of("la6568-5", "la13863-8", "la13909-9", "la13902-4", "la13914-9",
+                    "la30122-8")),
+            Map.entry("93159-2", Set.of("la6270-8", "la10066-1", "la10082-8", "la10044-8", "la9933-8")),
+            Map.entry("95530-2", Set.of("la6270-8", "la26460-8", "la18876-5", "la18891-4", "la18934-2")),
+            Map.entry("95615-1", Set.of("la6270-8", "la10066-1", "la10082-8", "la16644-9", "la6482-9")),
+            Map.entry("95616-9", Set.of("la6270-8", "la10066-1", "la10082-8", "la16644-9", "la6482-9")),
+            Map.entry("95617-7", Set.of("la6270-8", "la10066-1", "la10082-8", "la16644-9", "la6482-9")),
+            Map.entry("95618-5", Set.of("la6270-8", "la10066-1", "la10082-8", "la16644-9", "la6482-9")),
+            Map.entry("96779-4", Set.of("la33-6", "la32-8", "la32002-0")),
+            Map.entry("96780-2", Set.of("la31981-6", "la31982-4", "la31983-2")),
+            Map.entry("96781-0", Set.of("la31976-6", "la31977-4", "la31978-2", "la31979-0")),
+            Map.entry("96782-8", Set.of("la33-6", "la32-8")),
+            Map.entry("96842-0", Set.of("la6270-8", "la26460-8", "la18876-5", "la18891-4", "la18934-2")),
+            Map.entry("97027-7", Set.of("la33-6", "la32-8")));
+
+    private enum ErrorType {
+        EXTRA_LABEL("extra-label", "Extra Label",
+                "The header of the data source contains label that does not exist in the provided schema.",
+                "There is an extra label \"{label}\" in header at position \"{fieldNumber}\"",
+                "#table", "#header", "#label"),
+        MISSING_LABEL("missing-label", "Missing Label",
+                "Based on the schema there should be a label that is missing in the data's header.",
+                "There is a missing label in the header's field \"{fieldName}\" at position \"{fieldNumber}\"",
+                "#table", "#header", "#label"),
+        BLANK_LABEL("blank-label", "Blank Label",
+                "A label in the header row is missing a value. Label should be provided and not be blank.",
+                "Label in the header in field at position \"{fieldNumber}\" is blank",
+                "#table", "#header", "#label"),
+        DUPLICATE_LABEL("duplicate-label", "Duplicate Label",
+                "Two columns in the header row have the same value. Column names should be unique.",
+                "Label \"{label}\" in the header at position \"{fieldNumber}\" is duplicated to a label: {note}",
+                "#table", "#header", "#label"),
+        INCORRECT_LABEL("incorrect-label", "Incorrect Label",
+                "One of the data source header does not match the field name defined in the schema.",
+                "Label \"{label}\" in field {fieldName} at position \"{fieldNumber}\" does not match the field name in the schema",
+                "#table", "#header", "#label"),
+        EXTRA_CELL("extra-cell", "Extra Cell",
+                "This row has more values compared to the header row (the first row in the data source). A key concept is that all the rows in tabular data must have the same number of columns.",
+                "Row at position \"{rowNumber}\" has an extra value in field at position \"{fieldNumber}\"",
+                "#table", "#row", "#cell"),
+        MISSING_CELL("missing-cell", "Missing Cell",
+                "This row has less values compared to the header row (the first row in the data source). A key concept is that all the rows in tabular data must have the same number of columns.",
+                "Row at position \"{rowNumber}\" has a missing cell in field \"{fieldName}\" at position \"{fieldNumber}\"",
+                "#table", "#row", "#cell"),
+        CONSTRAINT("constraint-error", "Constraint Error",
+                "A field value does not conform to a constraint.",
+                "The cell \"{cell}\" in row at position \"{rowNumber}\" and field \"{fieldName}\" at position \"{fieldNumber}\" does not conform to a constraint: {note}",
+                "#table", "#row", "#cell"),
+        UNIQUE("unique-error", "Unique Error",
+                "This field is a unique field but it contains a value that has been used in another row.",
+                "Row at position \"{rowNumber}\" has unique constraint violation in field \"{fieldName}\" at position \"{fieldNumber}\": {note}",
+                "#table", "#row", "#cell"),
+        BLANK_ROW("blank-row", "Blank Row",
+                "This row is empty. A row should contain at least one value.",
+                "Row at position \"{rowNumber}\" is completely blank",
+                "#table", "#row"),
+        PRIMARY_KEY("primary-key", "PrimaryKey Error",
+                "Values in the primary key fields should be unique for every row",
+                "Row at position \"{rowNumber}\" violates the primary key: {note}",
+                "#table", "#row"),
+        FOREIGN_KEY("foreign-key", "ForeignKey Error",
+                "Values in the foreign key fields should exist in the reference table",
+                "Row at position \"{rowNumber}\" violates the foreign key: {note}",
+                "#table", "#row"),
+        ROW("row-error", "Row Error", "Row Error", "Row Error", "#table", "#row");
+
+        private final String type;
+        private final String title;
+        private final String description;
+        private final String template;
+        private final List<String> tags;
+
+        ErrorType(final String type, final String title, final String description, final String template,
+                final String... tags) {
+            this.type = type;
+            this.title = title;
+            this.description = description;
+            this.template = template;
+            this.tags = List.of(tags);
+        }
+    }
+
+    private final TemplateLogger LOG;
+    private final boolean enabled;
+    private final Path packagePath;
+    private volatile CsvDataPackage dataPackage;
+
+    public NativeCsvValidationEngine(final CoreAppConfig coreAppConfig, final AppLogger appLogger) {
+        LOG = appLogger.getLogger(NativeCsvValidationEngine.class);
+        final CoreAppConfig.CsvValidation.Validation validation = coreAppConfig.getCsv() == null ? null
+                : coreAppConfig.getCsv().validation();
+        this.enabled = ENGINE.equalsIgnoreCase(coreAppConfig.getCsvValidationEngine()) && validation != null
+                && validation.packagePath() != null;
+        this.packagePath = enabled ? Paths.get(validation.packagePath()).toAbsolutePath() : null;
+        if (enabled) {
+            LOG.info("NativeCsvValidationEngine:: CSV groups are validated in the JVM against {}", packagePath);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Validates the files of one group, which must all be in
+     * {@code directory}, and returns what the Python validator would print.
+     *
+     * @param fileNames the group's file names in the validator's argument
+     *                  order: QE admin, screening profile, screening
+     *                  observation, patient info
+     */
+    public String validate(final Path directory, final List<String> fileNames) throws IOException {
+        return Configuration.objectMapperConcise.writeValueAsString(validate(dataPackage(), directory, fileNames));
+    }
+
+    Map<String, Object> validate(final CsvDataPackage dataPackage, final Path directory,
+            final List<String> fileNames) throws IOException {
+        final Map<String, Object> results = new LinkedHashMap<>();
+        final List<Map<String, Object>> errorsSummary = new ArrayList<>();
+        final Map<String, String> files = new LinkedHashMap<>();
+        for (int index = 0; index < RESOURCE_NAMES.size(); index++) {
+            final String fileName = index < fileNames.size() ? fileNames.get(index) : null;
+            files.put(RESOURCE_NAMES.get(index), fileName);
+            if (fileName == null || !Files.isRegularFile(directory.resolve(fileName))) {
+                final Map<String, Object> missing = new LinkedHashMap<>();
+                missing.put("fieldName", RESOURCE_NAMES.get(index));
+                missing.put("message", "File for resource '" + RESOURCE_NAMES.get(index) + "' not found: " + fileName);
+                missing.put("type", "file-missing-error");
+                errorsSummary.add(missing);
+            }
+        }
+        if (!errorsSummary.isEmpty()) {
+            results.put("errorsSummary", errorsSummary);
+            results.put("report", null);
+            results.put("originalData", Map.of());
+            return results;
+        }
+
+        final long start = System.nanoTime();
+        final Map<String, Set<String>> lookupFields = new HashMap<>();
+        for (final CsvDataPackage.Resource resource : dataPackage.resources()) {
+            for (final CsvDataPackage.ForeignKey foreignKey : resource.foreignKeys()) {
+                lookupFields.computeIfAbsent(foreignKey.referenceResource(), name -> new HashSet<>())
+                        .add(String.join(",", foreignKey.referenceFields()));
+            }
+        }
+        final Map<String, Set<List<String>>> lookups = new HashMap<>();
+        final Map<String, Map<String, Object>> tasks = new HashMap<>();
+        final Map<String, Object> originalData = new LinkedHashMap<>();
+        for (final CsvDataPackage.Resource resource : validationOrder(dataPackage)) {
+            final String fileName = files.get(resource.name());
+            if (fileName == null) {
+                final Map<String, Object> missing = new LinkedHashMap<>();
+                missing.put("fieldName", null);
+                missing.put("message", "File for resource '" + resource.name() + "' not found.");
+                missing.put("type", "file-missing-error");
+                results.put("errorsSummary", List.of(missing));
+                results.put("report", null);
+                results.put("originalData", originalData);
+                return results;
+            }
+            final List<Map<String, Object>> rows = new ArrayList<>();
+            tasks.put(resource.name(), validateResource(resource, directory.resolve(fileName), fileName,
+                    lookupFields.getOrDefault(resource.name(), Set.of()), lookups, rows));
+            originalData.put(resource.name(), rows);
+        }
+
+        final List<Map<String, Object>> orderedTasks = new ArrayList<>();
+        int errors = 0;
+        int warnings = 0;
+        boolean valid = true;
+        for (final CsvDataPackage.Resource resource : dataPackage.resources()) {
+            final Map<String, Object> task = tasks.get(resource.name());
+            orderedTasks.add(task);
+            errors += ((List<?>) task.get("errors")).size();
+            warnings += ((List<?>) task.get("warnings")).size();
+            valid &= (Boolean) task.get("valid");
+        }
+        final Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("tasks", orderedTasks.size());
+        stats.put("errors", errors);
+        stats.put("warnings", warnings);
+        stats.put("seconds", seconds(start));
+        final Map<String, Object> report = new LinkedHashMap<>();
+        report.put("valid", valid);
+        report.put("stats", stats);
+        report.put("warnings", List.of());
+        report.put("errors", List.of());
+        report.put("tasks", orderedTasks);
+        results.put("report", report);
+        results.put("originalData", reorder(originalData, dataPackage));
+        return results;
+    }
+
+    private Map<String, Object> validateResource(final CsvDataPackage.Resource resource, final Path file,
+            final String place, final Set<String> lookupFields, final Map<String, Set<List<String>>> lookups,
+            final List<Map<String, Object>> originalRows) throws IOException {
+        final long start = System.nanoTime();
+        final List<CsvDataPackage.Field> fields = resource.fields();
+        final int fieldCount = fields.size();
+        final boolean[] lowercase = new boolean[fieldCount];
+        for (int index = 0; index < fieldCount; index++) {
+            lowercase[index] = LOWERCASE_FIELDS.contains(fields.get(index).name());
+        }
+        final List<int[]> lookupIndexes = new ArrayList<>();
+        final List<Set<List<String>>> lookupSets = new ArrayList<>();
+        for (final String lookup : lookupFields) {
+            lookupIndexes.add(indexes(resource, Arrays.asList(lookup.split(","))));
+            final Set<List<String>> keys = new HashSet<>();
+            lookupSets.add(keys);
+            lookups.put(resource.name() + ":" + lookup, keys);
+        }
+        final List<int[]> foreignKeyIndexes = new ArrayList<>();
+        for (final CsvDataPackage.ForeignKey foreignKey : resource.foreignKeys()) {
+            foreignKeyIndexes.add(indexes(resource, foreignKey.fields()));
+        }
+        final int[] primaryKey = indexes(resource, resource.primaryKey());
+        final List<Map<String, Long>> uniqueValues = new ArrayList<>(fieldCount);
+        for (final CsvDataPackage.Field field : fields) {
+            uniqueValues.add(field.unique() ? new HashMap<>() : null);
+        }
+        final Map<List<String>, Long> primaryKeys = new HashMap<>();
+        final int questionCode = resource.indexOf("QUESTION_CODE");
+        final int answerCode = resource.indexOf("ANSWER_CODE");
+
+        final ErrorList errors = new ErrorList();
+        List<String> labels;
+        long rows = 0;
+        try (CsvRecordReader reader = new CsvRecordReader(
+                new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8), resource.delimiter(), true)) {
+            labels = reader.next();
+            if (labels == null) {
+                labels = List.of();
+            } else if (!labels.isEmpty() && labels.get(0).startsWith("\uFEFF")) {
+                labels.set(0, labels.get(0).substring(1));
+            }
+            validateLabels(fields, labels, errors);
+
+            List<String> cells;
+            final String[] values = new String[fieldCount];
+            while ((cells = reader.next()) != null) {
+                if (cells.isEmpty()) {
+                    continue;
+                }
+                rows++;
+                final long rowNumber = reader.getRecordNumber();
+                originalRows.add(originalRow(labels, cells));
+                for (int index = 0; index < fieldCount && index < cells.size(); index++) {
+                    if (lowercase[index]) {
+                        cells.set(index, cells.get(index).toLowerCase(Locale.ROOT));
+                    }
+                }
+                Arrays.fill(values, null);
+                for (int index = 0; index < fieldCount && index < cells.size(); index++) {
+                    final String cell = cells.get(index);
+                    values[index] = cell.isEmpty() ? null : cell;
+                }
+                for (int lookup = 0; lookup < lookupIndexes.size(); lookup++) {
+                    lookupSets.get(lookup).add(key(values, lookupIndexes.get(lookup)));
+                }
+                if (errors.isFull()) {
+                    // frictionless stops at the error limit; later rows are still read for originalData and lookups
+                    continue;
+                }
+                if (isBlank(cells)) {
+                    errors.add(rowError(ErrorType.BLANK_ROW, "", cells, rowNumber));
+                    continue;
+                }
+                for (int index = fieldCount; index < cells.size(); index++) {
+                    errors.add(cellError(ErrorType.EXTRA_CELL, "", cells, rowNumber, cells.get(index), "",
+                            index + 1));
+                }
+                for (int index = 0; index < fieldCount; index++) {
+                    final CsvDataPackage.Field field = fields.get(index);
+                    if (index >= cells.size()) {
+                        errors.add(cellError(ErrorType.MISSING_CELL, "", cells, rowNumber, "", field.name(),
+                                index + 1));
+                        continue;
+                    }
+                    validateConstraints(field, values[index], cells, rowNumber, index + 1, errors);
+                }
+                for (int index = 0; index < fieldCount; index++) {
+                    final Map<String, Long> seen = uniqueValues.get(index);
+                    if (seen != null && values[index] != null) {
+                        final Long match = seen.put(values[index], rowNumber);
+                        if (match != null) {
+                            errors.add(cellError(ErrorType.UNIQUE, "the same as in the row at position " + match,
+                                    cells, rowNumber, values[index], fields.get(index).name(), index + 1));
+                        }
+                    }
+                }
+                if (primaryKey.length > 0) {
+                    final List<String> key = key(values, primaryKey);
+                    if (key.stream().allMatch(value -> value == null)) {
+                        errors.add(rowError(ErrorType.PRIMARY_KEY,
+                                "cells composing the primary keys are all \"None\"", cells, rowNumber));
+                    } else {
+                        final Long match = primaryKeys.put(key, rowNumber);
+                        if (match != null) {
+                            errors.add(rowError(ErrorType.PRIMARY_KEY,
+                                    "the same as in the row at position " + match, cells, rowNumber));
+                        }
+                    }
+                }
+                for (int index = 0; index < foreignKeyIndexes.size(); index++) {
+                    final CsvDataPackage.ForeignKey foreignKey = resource.foreignKeys().get(index);
+                    final Set<List<String>> lookup = lookups.get(foreignKey.referenceResource() + ":"
+                            + String.join(",", foreignKey.referenceFields()));
+                    final List<String> key = key(values, foreignKeyIndexes.get(index));
+                    if (lookup == null || key.stream().allMatch(value -> value == null) || lookup.contains(key)) {
+                        continue;
+                    }
+                    final Map<String, Object> error = rowError(ErrorType.FOREIGN_KEY,
+                            "for \"" + String.join(", ", foreignKey.fields()) + "\": values \""
+                                    + key.stream().map(String::valueOf).collect(Collectors.joining(", "))
+                                    + "\" not found in the lookup table \"" + foreignKey.referenceResource()
+                                    + "\" as \"" + String.join(", ", foreignKey.referenceFields()) + "\"",
+                            cells, rowNumber);
+                    error.put("fieldNames", foreignKey.fields());
+                    error.put("fieldCells", key.stream().map(value -> value == null ? "" : value).toList());
+                    error.put("referenceName", foreignKey.referenceResource());
+                    error.put("referenceFieldNames", foreignKey.referenceFields());
+                    errors.add(error);
+                }
+                if (questionCode >= 0 && answerCode >= 0 && values[questionCode] != null
+                        && values[answerCode] != null) {
+                    final Set<String> validAnswers = QUESTION_ANSWER_MAP
+                            .get(values[questionCode].toLowerCase(Locale.ROOT));
+                    if (validAnswers != null && !validAnswers.contains(values[answerCode].toLowerCase(Locale.ROOT))) {
+                        errors.add(rowError(ErrorType.ROW, "Invalid ANSWER_CODE '" + values[answerCode]
+                                + "' for QUESTION_CODE '" + values[questionCode] + "'", cells, rowNumber));
+                    }
+                }
+            }
+        }
+
+        final Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("errors", errors.errors.size());
+        stats.put("warnings", errors.warnings.size());
+        stats.put("seconds", seconds(start));
+        stats.put("fields", fieldCount);
+        stats.put("rows", rows);
+        final Map<String, Object> task = new LinkedHashMap<>();
+        task.put("name", resource.name());
+        task.put("type", "table");
+        task.put("valid", errors.errors.isEmpty());
+        task.put("place", place);
+        task.put("labels", labels);
+        task.put("stats", stats);
+        task.put("warnings", errors.warnings);
+        task.put("errors", errors.errors);
+        return task;
+    }
+
+    private static boolean isBlank(final List<String> cells) {
+        for (final String cell : cells) {
+            if (!cell.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void validateLabels(final List<CsvDataPackage.Field> fields, final List<String> labels,
+            final ErrorList errors) {
+        for (int index = fields.size(); index < labels.size(); index++) {
+            errors.add(labelError(ErrorType.EXTRA_LABEL, "", labels, labels.get(index), "", index + 1));
+        }
+        for (int index = labels.size(); index < fields.size(); index++) {
+            errors.add(labelError(ErrorType.MISSING_LABEL, "", labels, "", fields.get(index).name(), index + 1));
+        }
+        final Map<String, Integer> seen = new HashMap<>();
+        for (int index = 0; index < Math.min(fields.size(), labels.size()); index++) {
+            final String label = labels.get(index);
+            final String fieldName = fields.get(index).name();
+            if (label.isEmpty()) {
+                errors.add(labelError(ErrorType.BLANK_LABEL, "", labels, label, fieldName, index + 1));
+                continue;
+            }
+            final Integer duplicate = seen.putIfAbsent(label, index + 1);
+            if (duplicate != null) {
+                errors.add(labelError(ErrorType.DUPLICATE_LABEL, "at position \"" + duplicate + "\"", labels, label,
+                        fieldName, index + 1));
+            }
+            if (!label.equals(fieldName)) {
+                errors.add(labelError(ErrorType.INCORRECT_LABEL, "", labels, label, fieldName, index + 1));
+            }
+        }
+    }
+
+    private static void validateConstraints(final CsvDataPackage.Field field, final String value,
+            final List<String> cells, final long rowNumber, final int fieldNumber, final ErrorList errors) {
+        for (final Map.Entry<String, Object> constraint : field.constraints().entrySet()) {
+            final boolean passed = switch (constraint.getKey()) {
+                case "required" -> !field.required() || value != null;
+                case "pattern" -> value == null || field.pattern().matcher(value).lookingAt();
+                case "enum" -> value == null || field.enumValues().contains(value);
+                case "minLength" -> value == null || value.codePointCount(0, value.length()) >= field.minLength();
+                case "maxLength" -> value == null || value.codePointCount(0, value.length()) <= field.maxLength();
+                default -> true;
+            };
+            if (!passed) {
+                errors.add(cellError(ErrorType.CONSTRAINT,
+                        "constraint \"" + constraint.getKey() + "\" is \"" + python(constraint.getValue()) + "\"",
+                        cells, rowNumber, value == null ? "" : value, field.name(), fieldNumber));
+            }
+        }
+    }
+
+    /** Collects a task's errors up to frictionless' default limit. */
+    private static final class ErrorList {
+        private final List<Map<String, Object>> errors = new ArrayList<>();
+        private final List<String> warnings = new ArrayList<>();
+
+        void add(final Map<String, Object> error) {
+            if (isFull()) {
+                return;
+            }
+            errors.add(error);
+            if (isFull()) {
+                warnings.add("reached error limit: " + LIMIT_ERRORS);
+            }
+        }
+
+        boolean isFull() {
+            return errors.size() >= LIMIT_ERRORS;
+        }
+    }
+
+    private static Map<String, Object> labelError(final ErrorType type, final String note, final List<String> labels,
+            final String label, final String fieldName, final int fieldNumber) {
+        final Map<String, Object> error = error(type, note);
+        error.put("labels", List.copyOf(labels));
+        error.put("rowNumbers", List.of(1));
+        error.put("label", label);
+        error.put("fieldName", fieldName);
+        error.put("fieldNumber", fieldNumber);
+        return message(error, type);
+    }
+
+    private static Map<String, Object> cellError(final ErrorType type, final String note, final List<String> cells,
+            final long rowNumber, final String cell, final String fieldName, final int fieldNumber) {
+        final Map<String, Object> error = error(type, note);
+        error.put("cells", List.copyOf(cells));
+        error.put("rowNumber", rowNumber);
+        error.put("cell", cell);
+        error.put("fieldName", fieldName);
+        error.put("fieldNumber", fieldNumber);
+        return message(error, type);
+    }
+
+    private static Map<String, Object> rowError(final ErrorType type, final String note, final List<String> cells,
+            final long rowNumber) {
+        final Map<String, Object> error = error(type, note);
+        error.put("cells", List.copyOf(cells));
+        error.put("rowNumber", rowNumber);
+        return message(error, type);
+    }
+
+    private static Map<String, Object> error(final ErrorType type, final String note) {
+        final Map<String, Object> error = new LinkedHashMap<>();
+        error.put("type", type.type);
+        error.put("title", type.title);
+        error.put("description", type.description);
+        error.put("message", null);
+        error.put("tags", type.tags);
+        error.put("note", note);
+        return error;
+    }
+
+    private static Map<String, Object> message(final Map<String, Object> error, final ErrorType type) {
+        String message = type.template;
+        for (final String placeholder : List.of("rowNumber", "fieldName", "fieldNumber", "label", "cell", "note")) {
+            final Object value = error.get(placeholder);
+            if (value != null) {
+                message = message.replace("{" + placeholder + "}", value.toString());
+            }
+        }
+        error.put("message", message);
+        return error;
+    }
+
+    /** A constraint value the way frictionless prints it in a note. */
+    private static String python(final Object value) {
+        if (value instanceof Boolean bool) {
+            return bool ? "True" : "False";
+        }
+        if (value instanceof List<?> list) {
+            return list.stream()
+                    .map(item -> item instanceof String text
+                            ? text.contains("'") ? "\"" + text + "\"" : "'" + text + "'"
+                            : python(item))
+                    .collect(Collectors.joining(", ", "[", "]"));
+        }
+        return String.valueOf(value);
+    }
+
+    private static Map<String, Object> originalRow(final List<String> labels, final List<String> cells) {
+        final Map<String, Object> row = new LinkedHashMap<>();
+        for (int index = 0; index < labels.size(); index++) {
+            final String cell = index < cells.size() ? cells.get(index) : "";
+            row.put(labels.get(index), cell.isEmpty() ? null : cell);
+        }
+        return row;
+    }
+
+    private static int[] indexes(final CsvDataPackage.Resource resource, final List<String> fieldNames) {
+        return fieldNames.stream().mapToInt(resource::indexOf).toArray();
+    }
+
+    private static List<String> key(final String[] values, final int[] indexes) {
+        final String[] key = new String[indexes.length];
+        for (int index = 0; index < indexes.length; index++) {
+            key[index] = indexes[index] < 0 ? null : values[indexes[index]];
+        }
+        return Arrays.asList(key);
+    }
+
+    /**
+     * The package's resources with every resource after the ones its foreign
+     * keys reference, otherwise in package order.
+     */
+    static List<CsvDataPackage.Resource> validationOrder(final CsvDataPackage dataPackage) {
+        final List<CsvDataPackage.Resource> pending = new ArrayList<>(dataPackage.resources());
+        final List<CsvDataPackage.Resource> ordered = new ArrayList<>();
+        final Set<String> done = new HashSet<>();
+        while (!pending.isEmpty()) {
+            CsvDataPackage.Resource next = pending.get(0);
+            for (final CsvDataPackage.Resource resource : pending) {
+                if (resource.foreignKeys().stream().map(CsvDataPackage.ForeignKey::referenceResource)
+                        .allMatch(reference -> done.contains(reference) || reference.equals(resource.name()))) {
+                    next = resource;
+                    break;
+                }
+            }
+            pending.remove(next);
+            ordered.add(next);
+            done.add(next.name());
+        }
+        return ordered;
+    }
+
+    private static Map<String, Object> reorder(final Map<String, Object> originalData,
+            final CsvDataPackage dataPackage) {
+        final Map<String, Object> ordered = new LinkedHashMap<>();
+        for (final String name : RESOURCE_NAMES) {
+            if (originalData.containsKey(name)) {
+                ordered.put(name, originalData.get(name));
+            }
+        }
+        for (final CsvDataPackage.Resource resource : dataPackage.resources()) {
+            ordered.putIfAbsent(resource.name(), originalData.get(resource.name()));
+        }
+        return ordered;
+    }
+
+    private static double seconds(final long start) {
+        return Math.round((System.nanoTime() - start) / 1_000_000.0) / 1000.0;
+    }
+
+    private CsvDataPackage dataPackage() throws IOException {
+        CsvDataPackage loaded = dataPackage;
+        if (loaded == null) {
+            synchronized (this) {
+                loaded = dataPackage;
+                if (loaded == null) {
+                    loaded = CsvDataPackage.load(packagePath);
+                    dataPackage = loaded;
+                }
+            }
+        }
+        return loaded;
+    }
+}
@@ -0,0 +1,75 @@
+package org.techbd.service.fhir;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Latency and allocation of the stages a FHIR bundle passes through in
+ * {@link FHIRService#processBundle}.
+ * <p>
+ * Each stage is published as {@code techbd.fhir.bundle.stage} (timer) and
+ * {@code techbd.fhir.bundle.stage.allocated} (bytes allocated by the calling
+ * thread while the stage ran), both tagged with the stage name. Allocation is
+ * only recorded when the JVM supports per-thread allocation accounting, and
+ * work a stage hands off to other threads (concurrent validation, the async
+ * scoring engine post) is not included in its allocation figure.
+ */
+final class BundleStageMetrics {
+
+    private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN = threadMXBean();
+
+    private BundleStageMetrics() {
+    }
+
+    static Stage start(final String stage) {
+        return new Stage(stage, System.nanoTime(), allocatedBytes());
+    }
+
+    static final class Stage {
+        private final String name;
+        private final long startedAtNanos;
+        private final long allocatedAtStart;
+
+        private Stage(final String name, final long startedAtNanos, final long allocatedAtStart) {
+            this.name = name;
+            this.startedAtNanos = startedAtNanos;
+            this.allocatedAtStart = allocatedAtStart;
+        }
+
+        void stop() {
+            Timer.builder("techbd.fhir.bundle.stage")
+                    .description("Time spent in each FHIR bundle processing stage")
+                    .tag("stage", name)
+                    .register(Metrics.globalRegistry)
+                    .record(System.nanoTime() - startedAtNanos, TimeUnit.NANOSECONDS);
+            final long allocatedAtEnd = allocatedBytes();
+            if (allocatedAtStart >= 0 && allocatedAtEnd >= allocatedAtStart) {
+                DistributionSummary.builder("techbd.fhir.bundle.stage.allocated")
+                        .description("Bytes allocated by the request thread in each FHIR bundle processing stage")
+                        .baseUnit("bytes")
+                        .tag("stage", name)
+                        .register(Metrics.globalRegistry)
+                        .record(allocatedAtEnd - allocatedAtStart);
+            }
+        }
+    }
+
+    private static long allocatedBytes() {
+        return THREAD_MX_BEAN == null ? -1 : THREAD_MX_BEAN.getCurrentThreadAllocatedBytes();
+    }
+
+    private static com.sun.management.ThreadMXBean threadMXBean() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threadMXBean
+                && threadMXBean.isThreadAllocatedMemorySupported()) {
+            if (!threadMXBean.isThreadAllocatedMemoryEnabled()) {
+                threadMXBean.setThreadAllocatedMemoryEnabled(true);
+            }
+            return threadMXBean;
+        }
+        return null;
+    }
+}
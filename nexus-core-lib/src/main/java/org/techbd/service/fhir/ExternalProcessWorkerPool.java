@@ -0,0 +1,518 @@
+package org.techbd.service.fhir;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.techbd.config.CoreAppConfig;
+import org.techbd.util.AppLogger;
+import org.techbd.util.TemplateLogger;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Pool of long-running external worker processes. The Spring bean serves the
+ * {@code post-stdin-payload-to-nyec-datalake-external} strategy; other callers
+ * build their own pool from {@link Settings}.
+ * <p>
+ * Instead of forking one process per request, the worker command is started
+ * {@code workers} times and kept running. Requests and responses are exchanged
+ * as frames on the worker's stdin and stdout: a 4-byte big-endian length
+ * followed by that many bytes (UTF-8 JSON in practice). A worker answers its
+ * requests in the order it received them and responses are matched first in,
+ * first out. By default a worker is given one request at a time, which suits a
+ * worker that handles one frame at a time; a worker that serves frames
+ * concurrently can be given up to {@code maxInFlightPerWorker}. Stderr is
+ * drained continuously into the log so a chatty worker never blocks on a full
+ * pipe. Frames are written to stdin by a writer thread of each worker, so a
+ * worker that stops reading cannot hold a caller past its deadline or block
+ * the callers and health checks queued behind it.
+ * <p>
+ * A worker that exits, writes a malformed frame or fails a health check is
+ * killed; its outstanding requests fail and a fresh process takes its place on
+ * the next request. So is a worker that does not take a request frame off its
+ * stdin before the request's deadline, since a partly written frame leaves
+ * the stream unusable. A request whose response misses its deadline fails on
+ * its own: the worker gets no new work, its other requests keep their own
+ * deadlines, and it is killed once none are left. Requests are never replayed on another worker
+ * because the payload may already have been acted on. When
+ * {@code maxJobsPerWorker} is set a worker is retired after that many requests:
+ * it receives no new work and its stdin is closed once its last request has
+ * been answered, bounding any memory the worker accumulates.
+ * <p>
+ * When a health check request is configured, idle workers are sent it every
+ * {@code healthCheckInterval} and killed if they do not answer with a frame
+ * the health check accepts within {@code healthCheckTimeout}.
+ * <p>
+ * Published meters, all tagged {@code pool}: {@code techbd.stdin.worker.request}
+ * (also tagged {@code outcome}), {@code techbd.stdin.worker.in_flight},
+ * {@code techbd.stdin.worker.queued}, {@code techbd.stdin.worker.restarts},
+ * {@code techbd.stdin.worker.retired} and {@code techbd.stdin.worker.health_check}
+ * (also tagged {@code outcome}).
+ */
+@Component
+public class ExternalProcessWorkerPool {
+
+    public static final int DEFAULT_WORKERS = 2;
+    public static final int DEFAULT_MAX_IN_FLIGHT_PER_WORKER = 1;
+    static final int MAX_RESPONSE_FRAME_BYTES = 16 * 1024 * 1024;
+
+    /**
+     * How a pool is run. {@code maxJobsPerWorker} of zero never retires a
+     * worker; a {@code null} {@code healthCheckRequest} disables health checks.
+     */
+    public record Settings(String name, boolean enabled, List<String> command, int workers,
+            int maxInFlightPerWorker, int maxJobsPerWorker, byte[] healthCheckRequest,
+            Predicate<byte[]> healthCheckResponse, Duration healthCheckInterval, Duration healthCheckTimeout) {
+    }
+
+    private final TemplateLogger LOG;
+    private final Settings settings;
+    private final Worker[] workers;
+    private final Semaphore slots;
+    private final ScheduledExecutorService healthChecks;
+
+    @Autowired
+    public ExternalProcessWorkerPool(final CoreAppConfig coreAppConfig, final AppLogger appLogger) {
+        this(settings(coreAppConfig.getPostStdinWorkerPool()), appLogger);
+    }
+
+    public ExternalProcessWorkerPool(final Settings settings, final AppLogger appLogger) {
+        LOG = appLogger.getLogger(ExternalProcessWorkerPool.class);
+        this.settings = settings;
+        this.workers = new Worker[settings.workers()];
+        this.slots = new Semaphore(settings.workers() * settings.maxInFlightPerWorker(), true);
+        Gauge.builder("techbd.stdin.worker.in_flight", this, ExternalProcessWorkerPool::inFlight)
+                .description("Requests written to external workers and not yet answered")
+                .tag("pool", settings.name())
+                .register(Metrics.globalRegistry);
+        Gauge.builder("techbd.stdin.worker.queued", slots, Semaphore::getQueueLength)
+                .description("Requests waiting for a free external worker")
+                .tag("pool", settings.name())
+                .register(Metrics.globalRegistry);
+        if (settings.enabled() && settings.healthCheckRequest() != null && settings.healthCheckInterval() != null
+                && !settings.healthCheckInterval().isZero()) {
+            healthChecks = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, settings.name() + "-health-check");
+                thread.setDaemon(true);
+                return thread;
+            });
+            final long interval = settings.healthCheckInterval().toMillis();
+            healthChecks.scheduleWithFixedDelay(this::checkHealth, interval, interval, TimeUnit.MILLISECONDS);
+        } else {
+            healthChecks = null;
+        }
+        LOG.info("ExternalProcessWorkerPool:: {} enabled :{} command :{} workers :{} maxInFlightPerWorker :{} maxJobsPerWorker :{}",
+                settings.name(), settings.enabled(), settings.command(), settings.workers(),
+                settings.maxInFlightPerWorker(), settings.maxJobsPerWorker());
+    }
+
+    private static Settings settings(final CoreAppConfig.PostStdinWorkerPool config) {
+        final boolean enabled = config != null && config.enabled() && config.cmd() != null && !config.cmd().isBlank();
+        final int workerCount = config == null || config.workers() == null || config.workers() <= 0
+                ? DEFAULT_WORKERS
+                : config.workers();
+        final int maxInFlightPerWorker = config == null || config.maxInFlightPerWorker() == null
+                || config.maxInFlightPerWorker() <= 0 ? DEFAULT_MAX_IN_FLIGHT_PER_WORKER
+                        : config.maxInFlightPerWorker();
+        return new Settings("post-stdin-worker", enabled, enabled ? List.of(config.cmd()) : List.of(), workerCount,
+                maxInFlightPerWorker, 0, null, null, null, null);
+    }
+
+    public boolean isEnabled() {
+        return settings.enabled();
+    }
+
+    /**
+     * Sends one request frame to the least loaded worker and waits for its
+     * response frame. Waiting for a free worker, writing the frame and waiting
+     * for the response are each bounded by {@code timeout}; the last counts
+     * from when the frame has been written.
+     *
+     * @throws TimeoutException if no worker slot frees up, the frame cannot be
+     *                          written or the response does not arrive within
+     *                          {@code timeout}; a worker that could not take
+     *                          the frame is killed, one that did not answer is
+     *                          replaced once its other requests are done
+     * @throws IOException      if the worker cannot be started or exits before
+     *                          answering
+     */
+    public byte[] call(final byte[] request, final Duration timeout)
+            throws IOException, TimeoutException, InterruptedException {
+        if (!settings.enabled()) {
+            throw new IllegalStateException(settings.name() + " is not enabled");
+        }
+        final long start = System.nanoTime();
+        String outcome = "failure";
+        if (!slots.tryAcquire(timeout.toNanos(), TimeUnit.NANOSECONDS)) {
+            record("timeout", start);
+            throw new TimeoutException("No external worker became available within " + timeout);
+        }
+        Worker worker = null;
+        boolean written = false;
+        try {
+            worker = pick();
+            final Exchange exchange = worker.send(request);
+            exchange.written().get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+            written = true;
+            final byte[] frame = exchange.response().get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+            outcome = "success";
+            return frame;
+        } catch (TimeoutException e) {
+            outcome = "timeout";
+            if (written) {
+                worker.abandon("request exceeded " + timeout);
+            } else {
+                worker.kill("request frame not written within " + timeout);
+            }
+            throw e;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw new IOException(e.getCause());
+        } finally {
+            if (worker != null) {
+                worker.release();
+            }
+            slots.release();
+            record(outcome, start);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (healthChecks != null) {
+            healthChecks.shutdownNow();
+        }
+        for (final Worker worker : workers) {
+            if (worker != null) {
+                worker.close();
+            }
+        }
+    }
+
+    private synchronized Worker pick() throws IOException {
+        Worker best = null;
+        for (int i = 0; i < workers.length; i++) {
+            if (workers[i] != null && workers[i].alive && !workers[i].retiring && settings.maxJobsPerWorker() > 0
+                    && workers[i].jobs >= settings.maxJobsPerWorker()) {
+                workers[i].retire();
+                workers[i] = new Worker(i);
+            } else if (workers[i] == null || !workers[i].alive || workers[i].retiring) {
+                if (workers[i] != null) {
+                    count("techbd.stdin.worker.restarts", "External workers replaced after exiting or timing out");
+                }
+                workers[i] = new Worker(i);
+            }
+            if (best == null || workers[i].load.get() < best.load.get()) {
+                best = workers[i];
+            }
+        }
+        best.load.incrementAndGet();
+        best.jobs++;
+        return best;
+    }
+
+    /**
+     * Sends the health check request to every idle worker and kills those that
+     * do not answer in time or answer with a frame the check rejects. Busy
+     * workers are skipped: their requests' own deadlines cover them.
+     */
+    void checkHealth() {
+        for (int i = 0; i < workers.length; i++) {
+            final Worker worker;
+            synchronized (this) {
+                worker = workers[i];
+                if (worker == null || !worker.alive || worker.retiring || worker.load.get() > 0) {
+                    continue;
+                }
+                worker.load.incrementAndGet();
+            }
+            String outcome = "failure";
+            try {
+                final byte[] response = worker.send(settings.healthCheckRequest()).response()
+                        .get(settings.healthCheckTimeout().toNanos(), TimeUnit.NANOSECONDS);
+                if (settings.healthCheckResponse() == null || settings.healthCheckResponse().test(response)) {
+                    outcome = "healthy";
+                } else {
+                    worker.kill("unexpected health check response");
+                }
+            } catch (TimeoutException e) {
+                outcome = "timeout";
+                worker.kill("health check exceeded " + settings.healthCheckTimeout());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                LOG.warn("ExternalProcessWorkerPool:: {} worker {} failed its health check :{}", settings.name(), i,
+                        e.getCause().toString());
+            } finally {
+                worker.release();
+            }
+            Counter.builder("techbd.stdin.worker.health_check")
+                    .description("Health checks of idle external workers")
+                    .tag("pool", settings.name())
+                    .tag("outcome", outcome)
+                    .register(Metrics.globalRegistry)
+                    .increment();
+        }
+    }
+
+    private int inFlight() {
+        int total = 0;
+        for (final Worker worker : workers) {
+            if (worker != null) {
+                total += worker.load.get();
+            }
+        }
+        return total;
+    }
+
+    private void record(final String outcome, final long start) {
+        Timer.builder("techbd.stdin.worker.request")
+                .description("Round trip of one request to an external worker")
+                .tag("pool", settings.name())
+                .tag("outcome", outcome)
+                .register(Metrics.globalRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private void count(final String name, final String description) {
+        Counter.builder(name)
+                .description(description)
+                .tag("pool", settings.name())
+                .register(Metrics.globalRegistry)
+                .increment();
+    }
+
+    /**
+     * One request sent to a worker: {@code written} completes once the frame
+     * is on the worker's stdin, {@code response} with the worker's answer.
+     */
+    private record Exchange(CompletableFuture<Void> written, CompletableFuture<byte[]> response) {
+    }
+
+    private final class Worker {
+
+        private final int index;
+        private final Process process;
+        private final DataOutputStream stdin;
+        /** Writes frames to stdin in the order they were sent; only this thread touches {@code stdin}. */
+        private final ExecutorService writer;
+        private final Object writeLock = new Object();
+        private final ConcurrentLinkedDeque<CompletableFuture<byte[]>> pending = new ConcurrentLinkedDeque<>();
+        private final AtomicInteger load = new AtomicInteger();
+        /** Requests assigned to this worker; only changed while holding the pool lock. */
+        private int jobs;
+        private volatile boolean alive = true;
+        private volatile boolean retiring;
+        /** Set when a request missed its deadline; the worker is killed rather than closed. */
+        private volatile boolean stuck;
+
+        private Worker(final int index) throws IOException {
+            this.index = index;
+            this.process = new ProcessBuilder(settings.command()).start();
+            this.stdin = new DataOutputStream(new BufferedOutputStream(process.getOutputStream()));
+            this.writer = Executors.newSingleThreadExecutor(runnable -> daemon("stdin", runnable));
+            daemon("stdout", this::readResponses).start();
+            daemon("stderr", this::drainStderr).start();
+            LOG.info("ExternalProcessWorkerPool:: {} started worker {} pid :{}", settings.name(), index, process.pid());
+        }
+
+        private Thread daemon(final String stream, final Runnable runnable) {
+            final Thread thread = new Thread(runnable, settings.name() + "-" + index + "-" + stream);
+            thread.setDaemon(true);
+            return thread;
+        }
+
+        /**
+         * Queues {@code request} for the writer thread. The lock only keeps the
+         * pending responses in the order the frames are written; the write
+         * itself happens outside it.
+         */
+        private Exchange send(final byte[] request) {
+            final Exchange exchange = new Exchange(new CompletableFuture<>(), new CompletableFuture<>());
+            synchronized (writeLock) {
+                if (alive) {
+                    pending.addLast(exchange.response());
+                    try {
+                        writer.execute(() -> write(request, exchange.written()));
+                        return exchange;
+                    } catch (RejectedExecutionException e) {
+                        pending.remove(exchange.response());
+                    }
+                }
+            }
+            final IOException exited = new IOException("External worker " + index + " has exited");
+            exchange.written().completeExceptionally(exited);
+            exchange.response().completeExceptionally(exited);
+            return exchange;
+        }
+
+        private void write(final byte[] request, final CompletableFuture<Void> written) {
+            try {
+                stdin.writeInt(request.length);
+                stdin.write(request);
+                stdin.flush();
+                written.complete(null);
+            } catch (IOException e) {
+                kill("write failed: " + e.getMessage());
+                written.completeExceptionally(e);
+            }
+        }
+
+        /**
+         * Called when a request assigned by {@link #pick()} is done; the last
+         * one out of a retiring worker lets it exit, or kills it if it missed
+         * a deadline.
+         */
+        private void release() {
+            if (load.decrementAndGet() == 0 && retiring) {
+                if (stuck) {
+                    kill("a request missed its deadline");
+                } else {
+                    closeStdin();
+                }
+            }
+        }
+
+        /**
+         * Stops new work from reaching a worker that missed a request's
+         * deadline without failing its other outstanding requests. A late
+         * response still completes the abandoned request, so the responses
+         * that follow stay matched.
+         */
+        private void abandon(final String reason) {
+            if (!stuck) {
+                LOG.warn("ExternalProcessWorkerPool:: {} replacing worker {} :{}", settings.name(), index, reason);
+            }
+            stuck = true;
+            retiring = true;
+        }
+
+        /**
+         * Stops new work from reaching this worker and lets it exit once its
+         * outstanding requests have been answered.
+         */
+        private void retire() {
+            retiring = true;
+            count("techbd.stdin.worker.retired", "External workers retired after maxJobsPerWorker requests");
+            LOG.info("ExternalProcessWorkerPool:: {} retiring worker {} after {} requests", settings.name(), index,
+                    jobs);
+            if (load.get() == 0) {
+                closeStdin();
+            }
+        }
+
+        /** Closes stdin after the frames already queued have been written. */
+        private void closeStdin() {
+            try {
+                writer.execute(() -> {
+                    try {
+                        stdin.close();
+                    } catch (IOException e) {
+                        process.destroyForcibly();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                process.destroyForcibly();
+            }
+        }
+
+        private void readResponses() {
+            IOException failure;
+            try (DataInputStream stdout = new DataInputStream(new BufferedInputStream(process.getInputStream()))) {
+                while (true) {
+                    final int length = stdout.readInt();
+                    if (length < 0 || length > MAX_RESPONSE_FRAME_BYTES) {
+                        throw new IOException("Invalid response frame length " + length);
+                    }
+                    final byte[] frame = stdout.readNBytes(length);
+                    if (frame.length < length) {
+                        throw new EOFException("Truncated response frame");
+                    }
+                    final CompletableFuture<byte[]> response = pending.pollFirst();
+                    if (response == null) {
+                        throw new IOException("Response frame without a pending request");
+                    }
+                    response.complete(frame);
+                }
+            } catch (IOException e) {
+                failure = e;
+            }
+            alive = false;
+            process.destroyForcibly();
+            writer.shutdown();
+            final IOException exited = new IOException("External worker " + index + " exited", failure);
+            for (CompletableFuture<byte[]> response; (response = pending.pollFirst()) != null;) {
+                response.completeExceptionally(exited);
+            }
+            if (retiring && failure instanceof EOFException) {
+                LOG.info("ExternalProcessWorkerPool:: {} worker {} retired", settings.name(), index);
+            } else {
+                LOG.warn("ExternalProcessWorkerPool:: {} worker {} stopped :{}", settings.name(), index,
+                        failure.toString());
+            }
+        }
+
+        private void drainStderr() {
+            try (BufferedReader stderr = new BufferedReader(
+                    new InputStreamReader(process.getErrorStream(), StandardCharsets.UTF_8))) {
+                for (String line; (line = stderr.readLine()) != null;) {
+                    LOG.debug("ExternalProcessWorkerPool:: {} worker {} stderr :{}", settings.name(), index, line);
+                }
+            } catch (IOException e) {
+                LOG.debug("ExternalProcessWorkerPool:: {} worker {} stderr closed :{}", settings.name(), index,
+                        e.getMessage());
+            }
+        }
+
+        private void kill(final String reason) {
+            if (alive) {
+                LOG.warn("ExternalProcessWorkerPool:: {} killing worker {} :{}", settings.name(), index, reason);
+            }
+            alive = false;
+            process.destroyForcibly();
+        }
+
+        private void close() {
+            alive = false;
+            closeStdin();
+            try {
+                if (!process.waitFor(5, TimeUnit.SECONDS)) {
+                    process.destroyForcibly();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                process.destroyForcibly();
+            }
+        }
+    }
+}
@@ -1,13 +1,9 @@
 package org.techbd.service.fhir;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Paths;
-import java.rmi.UnexpectedException;
-import java.security.Security;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.OffsetDateTime;
@@ -19,15 +15,16 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
 
 import org.apache.commons.collections4.CollectionUtils;
-import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.hl7.fhir.r4.model.Bundle;
 import org.springframework.core.NestedExceptionUtils;
 import org.springframework.http.MediaType;
-import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Service;
 import org.springframework.util.MimeTypeUtils;
@@ -62,6 +59,8 @@ import org.techbd.util.AWSUtil;
 import org.techbd.util.AppLogger;
 import org.techbd.util.TemplateLogger;
 import org.techbd.util.fhir.CoreFHIRUtil;
+import org.techbd.util.fhir.FhirContextProvider;
+import org.techbd.util.fhir.ParsedBundle;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
@@ -70,17 +69,15 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.TextNode;
 
 import io.micrometer.common.util.StringUtils;
-import io.netty.handler.ssl.SslContextBuilder;
 import io.opentelemetry.api.GlobalOpenTelemetry;
 import io.opentelemetry.api.trace.Span;
 import io.opentelemetry.api.trace.Tracer;
 import jakarta.annotation.Nonnull;
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.Getter;
 import lombok.Setter;
 import reactor.core.publisher.Mono;
-import reactor.netty.http.client.HttpClient;
-import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.secretsmanager.SecretsManagerClient;
 import software.amazon.awssdk.services.secretsmanager.model.GetSecretValueRequest;
 import software.amazon.awssdk.services.secretsmanager.model.GetSecretValueResponse;
@@ -96,11 +93,21 @@ public class FHIRService {
 	private final CoreDataLedgerApiClient coreDataLedgerApiClient;
     private final OrchestrationEngine engine;
 	private final CoreUdiPrimeJpaConfig coreUdiPrimeJpaConfig;
+	private final ScoringEngineClientRegistry scoringEngineClientRegistry;
+	private final ScoringEngineForwarder scoringEngineForwarder;
+	private final InteractionJournal interactionJournal;
+	private final ExternalProcessWorkerPool externalProcessWorkerPool;
 	private Tracer tracer;
 
 	public FHIRService(CoreAppConfig coreAppConfig, CoreDataLedgerApiClient coreDataLedgerApiClient,OrchestrationEngine engine,
-	final CoreUdiPrimeJpaConfig coreUdiPrimeJpaConfig, AppLogger appLogger) {
+	final CoreUdiPrimeJpaConfig coreUdiPrimeJpaConfig, final ScoringEngineClientRegistry scoringEngineClientRegistry,
+	final ScoringEngineForwarder scoringEngineForwarder, final InteractionJournal interactionJournal,
+	final ExternalProcessWorkerPool externalProcessWorkerPool, AppLogger appLogger) {
 		this.coreAppConfig = coreAppConfig;
+		this.scoringEngineClientRegistry = scoringEngineClientRegistry;
+		this.scoringEngineForwarder = scoringEngineForwarder;
+		this.interactionJournal = interactionJournal;
+		this.externalProcessWorkerPool = externalProcessWorkerPool;
 		this.coreDataLedgerApiClient = coreDataLedgerApiClient;
 		this.tracer = GlobalOpenTelemetry.get().getTracer("FHIRService");
 		this.engine = engine;
@@ -108,6 +115,11 @@ public class FHIRService {
 		LOG = appLogger.getLogger(FHIRService.class);
 	}
 
+	@PostConstruct
+	public void startForwarding() {
+		scoringEngineForwarder.start(this::forward);
+	}
+
  /**
      * TODO: These parameters will be removed. Ensure they are set in the
      * {@code requestMap} from Mirth.
@@ -138,6 +150,32 @@ public class FHIRService {
     public Object processBundle(final @RequestBody @Nonnull String payload, final Map<String, Object> requestParameters,
             final Map<String, Object> responseParameters)
             throws IOException {
+        return processBundle(ParsedBundle.of(payload), requestParameters, responseParameters);
+    }
+
+    /**
+     * Same as {@link #processBundle(String, Map, Map)} for a bundle the caller
+     * already built as a HAPI resource, e.g. one converted from CSV, together
+     * with its encoded form. Bundle id and profile are read from the resource
+     * and validation uses it directly, so {@code payload} is only parsed into a
+     * Jackson tree for registration and forwarding.
+     */
+    public Object processBundle(final @Nonnull Bundle bundle, final @Nonnull String payload,
+            final Map<String, Object> requestParameters, final Map<String, Object> responseParameters)
+            throws IOException {
+        return processBundle(ParsedBundle.of(bundle, FhirContextProvider.shared().getContext(), payload),
+                requestParameters, responseParameters);
+    }
+
+    /**
+     * Same as {@link #processBundle(String, Map, Map)} for a payload wrapped in a
+     * {@link ParsedBundle}. The payload is parsed once and the parsed forms are
+     * shared by every stage of the request (bundle id extraction, JSON and
+     * profile checks, payload registration, validation and forwarding).
+     */
+    public Object processBundle(final @Nonnull ParsedBundle parsedBundle, final Map<String, Object> requestParameters,
+            final Map<String, Object> responseParameters)
+            throws IOException {
         final Span span = tracer.spanBuilder("FHIRService.processBundle").startSpan();
         try {
             final var start = Instant.now();
@@ -163,7 +201,9 @@ public class FHIRService {
             if (null == interactionId) {
                 throw new IllegalArgumentException("Interaction ID must be provided in the request parameters.");
             }
-				final String bundleId = CoreFHIRUtil.extractBundleId(payload, tenantId);
+				final var extractBundleIdStage = BundleStageMetrics.start("extractBundleId");
+				final String bundleId = CoreFHIRUtil.extractBundleId(parsedBundle, tenantId);
+				extractBundleIdStage.stop();
 			if (!SourceType.CSV.name().equalsIgnoreCase(source)
 					&& !SourceType.CCDA.name().equalsIgnoreCase(source)
 					&& !SourceType.HL7V2.name().equalsIgnoreCase(source)) {
@@ -186,18 +226,18 @@ public class FHIRService {
             final var jooqCfg = dslContext.configuration();
 			if (!"true".equalsIgnoreCase(healthCheck != null ? healthCheck.trim() : null)) {
 				registerOriginalPayload(jooqCfg, requestParameters,
-						payload, interactionId, groupInteractionId, masterInteractionId,
+						parsedBundle, interactionId, groupInteractionId, masterInteractionId,
 						source, requestUriToBeOverriden, coRrelationId);
 			}
 			Map<String, Object> payloadWithDisposition = null;			
             try {
-                validateJson(payload, interactionId);
-                validateBundleProfileUrl(payload, interactionId);
+                validateJson(parsedBundle, interactionId);
+                validateBundleProfileUrl(parsedBundle, interactionId);
                 if (null == requestParameters.get(Constants.DATA_LAKE_API_CONTENT_TYPE)) {
                     dataLakeApiContentType = MediaType.APPLICATION_JSON_VALUE;
                 }
 
-                                final Map<String, Object> immediateResult = validate(requestParameters, payload, interactionId, provenance,
+                                final Map<String, Object> immediateResult = validate(requestParameters, parsedBundle, interactionId, provenance,
                         source);
                                                final Map<String, Object> result = Map.of("OperationOutcome", immediateResult);
 				if (!"true".equalsIgnoreCase(healthCheck != null ? healthCheck.trim() : null)) {
@@ -222,8 +262,8 @@ public class FHIRService {
                     LOG.warn(
                             "FHIRService:: ERROR:: Disposition payload is not available.Send Bundle payload to scoring engine for interaction id {}.",
                             interactionId);
-                    sendToScoringEngine(jooqCfg, requestParameters,customDataLakeApi, dataLakeApiContentType,
-                            tenantId, payload,
+                    forwardToScoringEngine(jooqCfg, requestParameters,customDataLakeApi, dataLakeApiContentType,
+                            tenantId, parsedBundle,
                             provenance, null,
                             mtlsStrategy,
                             interactionId, groupInteractionId, masterInteractionId,
@@ -237,8 +277,8 @@ public class FHIRService {
                     LOG.info(
                             "FHIRService:: Received Disposition payload.Send Disposition payload to scoring engine for interaction id {}.",
                             interactionId);
-                    sendToScoringEngine(jooqCfg, requestParameters, customDataLakeApi, dataLakeApiContentType,
-                            tenantId, payload,
+                    forwardToScoringEngine(jooqCfg, requestParameters, customDataLakeApi, dataLakeApiContentType,
+                            tenantId, parsedBundle,
                             provenance, payloadWithDisposition,
                             mtlsStrategy, interactionId, groupInteractionId,
                             masterInteractionId, source, requestUriToBeOverriden, coRrelationId,bundleId);
@@ -278,33 +318,36 @@ public class FHIRService {
 	}
 
 	public void validateJson(final String jsonString, final String interactionId) {
+		validateJson(ParsedBundle.of(jsonString), interactionId);
+	}
+
+	public void validateJson(final ParsedBundle parsedBundle, final String interactionId) {
 		final Span validateJsonSpan = tracer.spanBuilder("FHIRService.validateJson").startSpan();
+		final var stage = BundleStageMetrics.start("validateJson");
 		try {
 			try {
-				Configuration.objectMapper.readTree(jsonString);
+				parsedBundle.getJsonNode();
 			} catch (final Exception e) {
 				throw new JsonValidationException(ErrorCode.INVALID_JSON);
 			}
 		} finally {
+			stage.stop();
 			validateJsonSpan.end();
 		}
 
 	}
 
 	public void validateBundleProfileUrl(final String jsonString, final String interactionId) {
+		validateBundleProfileUrl(ParsedBundle.of(jsonString), interactionId);
+	}
+
+	public void validateBundleProfileUrl(final ParsedBundle parsedBundle, final String interactionId) {
 		final Span validateJsonSpan = tracer.spanBuilder("FHIRService.validateBundleProfileUrl").startSpan();
+		final var stage = BundleStageMetrics.start("validateBundleProfileUrl");
 		try {
-			JsonNode rootNode;
 			try {
-				rootNode = Configuration.objectMapper.readTree(jsonString);
-				final JsonNode metaNode = rootNode.path("meta").path("profile");
-
-				final List<String> profileList = Optional.ofNullable(metaNode)
-						.filter(JsonNode::isArray)
-						.map(node -> StreamSupport.stream(node.spliterator(), false)
-								.map(JsonNode::asText)
-								.collect(Collectors.toList()))
-						.orElse(List.of());
+				parsedBundle.getJsonNode();
+				final List<String> profileList = parsedBundle.getProfileUrls();
 
 				if (CollectionUtils.isEmpty(profileList)) {
 					LOG.error("Bundle profile is not provided for interaction id: {}", interactionId);
@@ -321,6 +364,7 @@ public class FHIRService {
 			}
 
 		} finally {
+			stage.stop();
 			validateJsonSpan.end();
 		}
 
@@ -347,7 +391,7 @@ public class FHIRService {
 	}
 	private void registerOriginalPayload(final org.jooq.Configuration jooqCfg,
 			final Map<String, Object> requestParameters,
-			final String payload,
+			final ParsedBundle parsedBundle,
 			final String interactionId,
 			final String groupInteractionId,
 			final String masterInteractionId,
@@ -355,19 +399,19 @@ public class FHIRService {
 			final String requestUriToBeOverriden,
 			final String coRrelationId) throws IOException {
 		final Span span = tracer.spanBuilder("FHIRService.registerOriginalPayload").startSpan();
+		final var stage = BundleStageMetrics.start("registerOriginalPayload");
 		try {
 			LOG.info(
 					"FHIRService -  REGISTER Original Payload BEGIN  for interaction id: {}",interactionId);
 			final var rihr = new RegisterInteractionFhirRequest();
 			final var provenance = "%s.doFilterInternal".formatted(FHIRService.class.getName());
-			final var start = Instant.now();
 			JsonNode payloadJson;
 
 			try {
-				payloadJson = Configuration.objectMapper.readTree(payload);
+				payloadJson = parsedBundle.getJsonNode();
 			} catch (JsonProcessingException e) {
 				LOG.error("Invalid JSON format. Storing raw payload. Error: {} for interactionID :{}", e.getMessage(), interactionId,e);
-				payloadJson = TextNode.valueOf(payload);
+				payloadJson = TextNode.valueOf(parsedBundle.getPayload());
 			}
 			prepareRequestBase(
 					rihr,
@@ -389,20 +433,20 @@ public class FHIRService {
 					LOG.error("Invalid elaboration JSON. Storing as string. Error: {} for interactionID :{}", e.getMessage(), interactionId, e);
 				}
 			}
-			final int i = rihr.execute(jooqCfg);
-			final var end = Instant.now();
-			final JsonNode response = rihr.getReturnValue();
-			final Map<String, Object> responseAttributes = CoreFHIRUtil.extractFields(response);
-			LOG.info(
-					"FHIRService - Time taken: {} ms for DB call to REGISTER Original Payload, interaction id: {}, error: {}, hub_nexus_interaction_id: {}",
-					Duration.between(start, end).toMillis(),
-					interactionId,
-					responseAttributes.getOrDefault(Constants.KEY_ERROR, "N/A"),
-					responseAttributes.getOrDefault(Constants.KEY_HUB_NEXUS_INTERACTION_ID, "N/A"));
+			interactionJournal.register(jooqCfg, interactionId, rihr, (execResult, response, elapsedMillis) -> {
+				final Map<String, Object> responseAttributes = CoreFHIRUtil.extractFields(response);
+				LOG.info(
+						"FHIRService - Time taken: {} ms for DB call to REGISTER Original Payload, interaction id: {}, error: {}, hub_nexus_interaction_id: {}",
+						elapsedMillis,
+						interactionId,
+						responseAttributes.getOrDefault(Constants.KEY_ERROR, "N/A"),
+						responseAttributes.getOrDefault(Constants.KEY_HUB_NEXUS_INTERACTION_ID, "N/A"));
+			});
 		} catch (final Exception e) {
 			LOG.error("ERROR:: REGISTER Original Payload for interaction id: {}: {}",
 					interactionId, e.getMessage(), e);
 		} finally {
+			stage.stop();
 			span.end();
 		}
 	}
@@ -416,6 +460,7 @@ public class FHIRService {
 			final String sourceType,
 			final String requestUriToBeOverriden) throws IOException {
 		final Span span = tracer.spanBuilder("FHIRService.registerValidationResults").startSpan();
+		final var stage = BundleStageMetrics.start("registerValidationResults");
 		try {
 			LOG.info("FHIRService REGISTER Validation Results BEGIN  for interaction id: {}",interactionId);
 			final var rihr = new RegisterInteractionFhirRequest();
@@ -432,7 +477,8 @@ public class FHIRService {
 					provenance,
 					Nature.TECH_BY_DISPOSITION.getDescription(),
 					Configuration.objectMapper.valueToTree(immediateResult),State.ACCEPT_FHIR_BUNDLE.name(),State.DISPOSITION.name());
-			final int i = rihr.execute(jooqCfg);
+			// the disposition is needed right away, so write through the journal
+			interactionJournal.registerNow(jooqCfg, interactionId, rihr);
 			final var end = Instant.now();
 			final JsonNode response = rihr.getReturnValue();
 			final Map<String, Object> responseAttributes = CoreFHIRUtil.extractFields(response);
@@ -450,6 +496,7 @@ public class FHIRService {
 					interactionId, e.getMessage(), e);
 			return null;
 		} finally {
+			stage.stop();
 			span.end();
 		}
 	}
@@ -499,9 +546,10 @@ public class FHIRService {
         request.setAttribute("activeHttpRequestTenant", tenant);
     }
 
-	private Map<String, Object> validate(final Map<String,Object> requestParameters, final String payload,
+	private Map<String, Object> validate(final Map<String,Object> requestParameters, final ParsedBundle parsedBundle,
             final String interactionId, final String provenance, final String sourceType) {
         final Span span = tracer.spanBuilder("FhirService.validate").startSpan();
+		final var stage = BundleStageMetrics.start("validate");
 		try {
 			final var start = Instant.now();
 			LOG.info("FHIRService  - Validate -BEGIN for interactionId: {} ", interactionId);
@@ -512,7 +560,7 @@ public class FHIRService {
 					.withSessionId(UUID.randomUUID().toString())
 					.onDevice(Device.createDefault())
 					.withInteractionId(interactionId)
-					.withPayloads(List.of(payload))
+					.withParsedPayloads(List.of(parsedBundle))
 					.withFhirProfileUrl(CoreFHIRUtil.getBundleProfileUrl())
 					.withTracer(tracer)
 					.withFhirIGPackages(igPackages)
@@ -563,21 +611,65 @@ public class FHIRService {
 						interactionId, timeElapsed.toMillis());
 			}
 		} finally {
+			stage.stop();
 			span.end();
 		}
 	}
 
+	/**
+	 * Hands the bundle to the {@link ScoringEngineForwarder} when async
+	 * forwarding is enabled, otherwise forwards it on the calling thread.
+	 */
+	private void forwardToScoringEngine(final org.jooq.Configuration jooqCfg,
+			final Map<String,Object> requestParameters,
+			final String scoringEngineApiURL,
+			final String dataLakeApiContentType,
+			final String tenantId,
+			final ParsedBundle parsedBundle,
+			final String provenance,
+			final Map<String, Object> validationPayloadWithDisposition, 
+			final String mtlsStrategy, final String interactionId, final String groupInteractionId,
+			final String masterInteractionId, final String sourceType, final String requestUriToBeOverriden, final String coRrelationId,final String bundleId) {
+		if (scoringEngineForwarder.isAsync()) {
+			// the job must not depend on request-scoped state: copy the parameters and
+			// materialize the payload text before a spooled request body is released
+			final var job = new ScoringEngineForwarder.ForwardJob(interactionId, tenantId,
+					new HashMap<>(requestParameters), scoringEngineApiURL, dataLakeApiContentType,
+					parsedBundle.getPayload(), validationPayloadWithDisposition, provenance, mtlsStrategy,
+					groupInteractionId, masterInteractionId, sourceType, requestUriToBeOverriden, coRrelationId,
+					bundleId);
+			if (scoringEngineForwarder.submit(job)) {
+				LOG.info("FHIRService:: Queued bundle for scoring engine forwarding for interaction id: {}",
+						interactionId);
+				return;
+			}
+		}
+		sendToScoringEngine(jooqCfg, requestParameters, scoringEngineApiURL, dataLakeApiContentType, tenantId,
+				parsedBundle, provenance, validationPayloadWithDisposition, mtlsStrategy, interactionId,
+				groupInteractionId, masterInteractionId, sourceType, requestUriToBeOverriden, coRrelationId, bundleId);
+	}
+
+	private void forward(final ScoringEngineForwarder.ForwardJob job) {
+		sendToScoringEngine(coreUdiPrimeJpaConfig.dsl().configuration(), job.requestParameters(),
+				job.scoringEngineApiURL(), job.dataLakeApiContentType(), job.tenantId(),
+				ParsedBundle.of(job.payload()), job.provenance(), job.validationPayloadWithDisposition(),
+				job.mtlsStrategy(), job.interactionId(), job.groupInteractionId(), job.masterInteractionId(),
+				job.sourceType(), job.requestUriToBeOverriden(), job.coRrelationId(), job.bundleId());
+	}
+
 	private void sendToScoringEngine(final org.jooq.Configuration jooqCfg,
 			final Map<String,Object> requestParameters,
 			final String scoringEngineApiURL,
 			final String dataLakeApiContentType,
 			final String tenantId,
-			final String payload,
+			final ParsedBundle parsedBundle,
 			final String provenance,
 			final Map<String, Object> validationPayloadWithDisposition, 
 			final String mtlsStrategy, final String interactionId, final String groupInteractionId,
 			final String masterInteractionId, final String sourceType, final String requestUriToBeOverriden, final String coRrelationId,final String bundleId) {
 		final Span span = tracer.spanBuilder("FhirService.sentToScoringEngine").startSpan();
+		final var stage = BundleStageMetrics.start("sendToScoringEngine");
+		final String payload = parsedBundle.getPayload();
 		try {
 			LOG.info("FHIRService:: sendToScoringEngine BEGIN for interaction id: {} for", interactionId);
 
@@ -591,15 +683,13 @@ public class FHIRService {
 							"FHIRService:: sendToScoringEngine Prepare payload with operation outcome interaction id: {}",
 							interactionId);
 					bundlePayloadWithDisposition = preparePayload(requestParameters,
-							payload,
+							parsedBundle,
 							validationPayloadWithDisposition, interactionId);
 				} else {
 					LOG.debug(
 							"FHIRService:: sendToScoringEngine Send payload without operation outcome interaction id: {}",
 							interactionId);
-					bundlePayloadWithDisposition = Configuration.objectMapper.readValue(payload,
-							new TypeReference<Map<String, Object>>() {
-							});
+					bundlePayloadWithDisposition = parsedBundle.toMap();
 				}
 				final var dataLakeApiBaseURL = Optional.ofNullable(scoringEngineApiURL)
 						.filter(s -> !s.isEmpty())
@@ -634,6 +724,7 @@ public class FHIRService {
 				LOG.info("FHIRService:: sendToScoringEngine END for interaction id: {}", interactionId);
 			}
 		} finally {
+			stage.stop();
 			span.end();
 		}
 	}
@@ -728,61 +819,10 @@ public class FHIRService {
 				throw new IllegalArgumentException(
 						"Client certificate location `mTlsCertResourceName` not configured in application.yml");
 			}
-			final String myClientKey = Files
-					.readString(Paths.get(mTlsResources.mTlsKeyResourceName()));
-			if (null == myClientKey) {
-				LOG.error(
-						"ERROR:: FHIRService:: handleMtlsResources Key not provided.Copy the key to file in location :{} for interaction id :{} tenant id :{} ",
-						mTlsResources.mTlsKeyResourceName(), interactionId, tenantId);
-				throw new IllegalArgumentException(
-						"Client key not provided.Copy the key to file in location : "
-								+ mTlsResources.mTlsKeyResourceName());
-			}
-			LOG.debug(
-					"FHIRService:: handleMtlsResources Client key fetched successfully for interaction id: {} tenantid :{} ",
-					interactionId,
-					tenantId);
-			final String myClientCert = Files.readString(Paths.get(mTlsResources.mTlsCertResourceName()));
-			if (null == myClientCert) {
-				LOG.error(
-						"ERROR:: FHIRService:: handleMtlsResources Client certificate not provided.Copy the certificate to file in location :{}  for interaction id : {}  tenantId :{}",
-						mTlsResources.mTlsCertResourceName(), interactionId, tenantId);
-				throw new IllegalArgumentException(
-						"Client certificate not provided.Copy the certificate to file in location : "
-								+ mTlsResources.mTlsCertResourceName());
-			}
-			LOG.debug(
-					"FHIRService:: handleMtlsResources Client cert fetched successfully for interaction id: {} tenantid :{} ",
-					interactionId,
-					tenantId);
-			LOG.debug("FHIRService:: handleMtlsResources Get SSL Context -BEGIN for interaction id: {} tenantid:{}",
-					interactionId, tenantId);
-
-			final var sslContext = SslContextBuilder.forClient()
-					.keyManager(new ByteArrayInputStream(myClientCert.getBytes()),
-							new ByteArrayInputStream(myClientKey.getBytes()))
-					.build();
-			LOG.debug("FHIRService:: handleMtlsResources Get SSL Context -END for interaction id: {} tenantId:{}",
-					interactionId, tenantId);
-			LOG.debug("FHIRService:: handleMtlsResources Create HttpClient for interaction id: {} tenantID:{}",
-					interactionId, tenantId);
-			final HttpClient httpClient = HttpClient.create()
-					.secure(sslSpec -> sslSpec.sslContext(sslContext));
-
-			LOG.debug("FHIRService:: Create ReactorClientHttpConnector for interaction id: {} tenantId:{}",
-					interactionId, tenantId);
-			final ReactorClientHttpConnector connector = new ReactorClientHttpConnector(httpClient);
-			LOG.debug(
-					"FHIRService:: Build WebClient with MTLS Enabled ReactorClientHttpConnector -BEGIN with scoring Engine API URL : {} for interactionID :{} tenant Id:{} ",
-					dataLakeApiBaseURL, interactionId, tenantId);
-			final var webClient = WebClient.builder()
-					.baseUrl(dataLakeApiBaseURL)
-					.defaultHeader("Content-Type", dataLakeApiContentType)
-					.clientConnector(connector)
-					.build();
 			LOG.debug(
-					"FHIRService:: Build WebClient with MTLS Enabled ReactorClientHttpConnector -END with scoring Engine API URL : {} for interactionID :{} tenant Id:{} ",
+					"FHIRService:: handleMtlsResources Get shared mTLS WebClient for scoring Engine API URL : {} interaction id: {} tenantid :{}",
 					dataLakeApiBaseURL, interactionId, tenantId);
+			final var webClient = scoringEngineClientRegistry.getClient(dataLakeApiBaseURL, mTlsResources);
 			LOG.debug(
 					"FHIRService:: handleMtlsResources Build WebClient with MTLS Enabled ReactorClientHttpConnector -BEGIN \n"
 							+
@@ -852,20 +892,22 @@ public class FHIRService {
 						: "Payload is not null",
 				interactionId,
 				tenantId);
-		final var webClient = createWebClient(dataLakeApiBaseURL, jooqCfg, requestParameters,
-				tenantId, payload,
-				bundlePayloadWithDisposition, provenance, 
-				interactionId, groupInteractionId, masterInteractionId, sourceType,
-				requestUriToBeOverriden);
+		final var requestURI = StringUtils.isNotEmpty(requestUriToBeOverriden) ? requestUriToBeOverriden
+				: (String) requestParameters.get(Constants.REQUEST_URI);
+		// registered once here rather than in the WebClient filter, which runs again on every retry
+		registerStateForward(jooqCfg, provenance, interactionId, requestURI, tenantId,
+				Optional.ofNullable(bundlePayloadWithDisposition).orElse(new HashMap<>()),
+				null,
+				payload, groupInteractionId,
+				masterInteractionId, sourceType);
+		final var webClient = createWebClient(dataLakeApiBaseURL, interactionId);
 		LOG.debug("FHIRService:: createWebClient END for interaction id: {} tenant id :{} ", interactionId,
 				tenantId);
 		LOG.debug("FHIRService:: sendPostRequest BEGIN for interaction id: {} tenantid :{} ", interactionId,
 				tenantId);
 		sendPostRequestWithApiKey(webClient, tenantId, bundlePayloadWithDisposition, payload,
 				dataLakeApiContentType, interactionId,
-				jooqCfg, provenance,
-				StringUtils.isNotEmpty(requestUriToBeOverriden) ? requestUriToBeOverriden
-						: (String) requestParameters.get(Constants.REQUEST_URI),
+				jooqCfg, provenance, requestURI,
 				dataLakeApiBaseURL, groupInteractionId,
 				masterInteractionId, sourceType,apiKeyAuthDetails,bundleId,requestParameters);
 		LOG.debug("FHIRService:: sendPostRequest END for interaction id: {} tenantid :{} ", interactionId,
@@ -896,20 +938,22 @@ public class FHIRService {
 						: "Payload is not null",
 				interactionId,
 				tenantId);
-		final var webClient = createWebClient(dataLakeApiBaseURL, jooqCfg, requestParameters,
-				tenantId, payload,
-				bundlePayloadWithDisposition, provenance, 
-				interactionId, groupInteractionId, masterInteractionId, sourceType,
-				requestUriToBeOverriden);
+		final var requestURI = StringUtils.isNotEmpty(requestUriToBeOverriden) ? requestUriToBeOverriden
+				: (String) requestParameters.get(Constants.REQUEST_URI);
+		// registered once here rather than in the WebClient filter, which runs again on every retry
+		registerStateForward(jooqCfg, provenance, interactionId, requestURI, tenantId,
+				Optional.ofNullable(bundlePayloadWithDisposition).orElse(new HashMap<>()),
+				null,
+				payload, groupInteractionId,
+				masterInteractionId, sourceType);
+		final var webClient = createWebClient(dataLakeApiBaseURL, interactionId);
 		LOG.debug("FHIRService:: createWebClient END for interaction id: {} tenant id :{} ", interactionId,
 				tenantId);
 		LOG.debug("FHIRService:: sendPostRequest BEGIN for interaction id: {} tenantid :{} ", interactionId,
 				tenantId);
 		sendPostRequest(webClient, tenantId, bundlePayloadWithDisposition, payload,
 				dataLakeApiContentType, interactionId,
-				jooqCfg, provenance,
-				StringUtils.isNotEmpty(requestUriToBeOverriden) ? requestUriToBeOverriden
-						: (String) requestParameters.get(Constants.REQUEST_URI),
+				jooqCfg, provenance, requestURI,
 				dataLakeApiBaseURL, groupInteractionId,
 				masterInteractionId, sourceType,bundleId,requestParameters);
 		LOG.debug("FHIRService:: sendPostRequest END for interaction id: {} tenantid :{} ", interactionId,
@@ -936,49 +980,6 @@ public class FHIRService {
 				throw new IllegalArgumentException(
 						"######## Strategy defined is aws-secrets but mTlsKeySecretName and mTlsCertSecretName is not correctly configured. ######### ");
 			}
-			if (Security.getProvider(BouncyCastleProvider.PROVIDER_NAME) == null) {
-				Security.addProvider(new BouncyCastleProvider());
-			}
-			final KeyDetails keyDetails = getSecretsFromAWSSecretManager(mTlsAwsSecrets.mTlsKeySecretName(),
-					mTlsAwsSecrets.mTlsCertSecretName());
-			final String CERTIFICATE = keyDetails.cert();
-			final String PRIVATE_KEY = keyDetails.key();
-
-			if (StringUtils.isEmpty(CERTIFICATE)) {
-				throw new IllegalArgumentException(
-						"Certifcate read from secrets manager with certficate secret name : {} is null "
-								+ mTlsAwsSecrets.mTlsCertSecretName());
-			}
-
-			if (StringUtils.isEmpty(PRIVATE_KEY)) {
-				throw new IllegalArgumentException(
-						"Private key read from secrets manager with key secret name : {} is null "
-								+ mTlsAwsSecrets.mTlsKeySecretName());
-			}
-
-			LOG.debug(
-					"FHIRService :: handleAwsSecrets Certificate and Key Details fetched successfully for interactionId : {}",
-					interactionId);
-
-			LOG.debug("FHIRService :: handleAwsSecrets Creating SSLContext  -BEGIN for interactionId : {}",
-					interactionId);
-
-			final var sslContext = SslContextBuilder.forClient()
-					.keyManager(new ByteArrayInputStream(CERTIFICATE.getBytes()),
-							new ByteArrayInputStream(PRIVATE_KEY.getBytes()))
-					.build();
-			LOG.debug("FHIRService :: handleAwsSecrets Creating SSLContext  - END for interactionId : {}",
-					interactionId);
-
-			final HttpClient httpClient = HttpClient.create()
-					.secure(sslSpec -> sslSpec.sslContext(sslContext));
-			LOG.debug("FHIRService :: handleAwsSecrets HttpClient created successfully  for interactionId : {}",
-					interactionId);
-
-			final ReactorClientHttpConnector connector = new ReactorClientHttpConnector(httpClient);
-			LOG.debug(
-					"FHIRService :: handleAwsSecrets ReactorClientHttpConnector created successfully  for interactionId : {}",
-					interactionId);
 			LOG.info(
 					"FHIRService:: handleAwsSecrets Build WebClient with MTLS Enabled ReactorClientHttpConnector -BEGIN \n"
 							+
@@ -993,11 +994,7 @@ public class FHIRService {
 							: "Payload is not null",
 					interactionId,
 					tenantId);
-			final var webClient = WebClient.builder()
-					.baseUrl(dataLakeApiBaseURL)
-					.defaultHeader("Content-Type", dataLakeApiContentType)
-					.clientConnector(connector)
-					.build();
+			final var webClient = scoringEngineClientRegistry.getClient(dataLakeApiBaseURL, mTlsAwsSecrets);
 			LOG.debug(
 					"FHIRService :: handleAwsSecrets  Build WebClient with MTLS Enabled ReactorClientHttpConnector -END for interactionId :{}",
 					interactionId);
@@ -1093,6 +1090,10 @@ public class FHIRService {
 		String errorOutput = "";
 		LOG.info("FHIRService :: postStdinPayloadToNyecDataLakeExternal BEGIN for interaction id : {} tenantID :{}",
 				interactionId, tenantId);
+		if (externalProcessWorkerPool.isEnabled()) {
+			return postStdinPayloadToWorkerPool(dataLakeApiBaseURL, tenantId, interactionId,
+					bundlePayloadWithDisposition, postStdinPayloadToNyecDataLakeExternal);
+		}
 		final var bashScriptPath = postStdinPayloadToNyecDataLakeExternal.cmd();
 		if (null == bashScriptPath) {
 			throw new IllegalArgumentException(
@@ -1117,23 +1118,15 @@ public class FHIRService {
 				interactionId, tenantId);
 		try (var errorStream = process.getErrorStream();
 				var inputStream = process.getInputStream()) {
-
-			// DEBUG: Print any errors encountered
-			errorOutput = new String(errorStream.readAllBytes(), StandardCharsets.UTF_8);
-			if (!errorOutput.isBlank()) {
-				LOG.error(
-						"FHIRService :: postStdinPayloadToNyecDataLakeExternal Error Stream Output before sending payload:{}  for interaction id : {} tenantID :{}",
-						errorOutput, interactionId, tenantId);
-				throw new UnexpectedException(
-						"Error Stream Output before sending payload:\n" + errorOutput);
-			}
-			LOG.debug(
-					"FHIRService :: postStdinPayloadToNyecDataLakeExternal Convert Payload map to String BEGIN for interaction id : {} tenantID :{}",
-					interactionId, tenantId);
-
-			LOG.debug(
-					"FHIRService :: postStdinPayloadToNyecDataLakeExternal Pass the payload map to String END for interaction id : {} tenantID :{}",
-					interactionId, tenantId);
+			// stderr is redirected into stdout, which is drained concurrently so a verbose
+			// script cannot fill the pipe and block while we write the payload or wait
+			final CompletableFuture<String> stdout = CompletableFuture.supplyAsync(() -> {
+				try {
+					return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+				} catch (final IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
 			final String payload = Configuration.objectMapper.writeValueAsString(bundlePayloadWithDisposition);
 			LOG.debug(
 					"FHIRService :: postStdinPayloadToNyecDataLakeExternal Pass the payload via STDIN -BEGIN for interaction id : {} tenantID :{}",
@@ -1148,27 +1141,38 @@ public class FHIRService {
 				LOG.debug(
 						"FHIRService :: postStdinPayloadToNyecDataLakeExternal Failed to write payload to process STDIN due to error :{}  begin for interaction id : {} tenantID :{}",
 						e.getMessage(), interactionId, tenantId);
+				process.destroyForcibly();
 				throw e;
 			}
 			final int timeout = Integer.valueOf(postStdinPayloadToNyecDataLakeExternal.timeout());
 			LOG.debug(
 					"FHIRService :: postStdinPayloadToNyecDataLakeExternal Wait for the process to complete with a timeout :{}  begin for interaction id : {} tenantID :{}",
 					timeout, interactionId, tenantId);
+			// one deadline covers both the process and reading its output
+			final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeout);
 			completed = process.waitFor(timeout, TimeUnit.SECONDS);
+			if (!completed) {
+				process.destroyForcibly();
+			}
 			LOG.debug(
 					"FHIRService :: postStdinPayloadToNyecDataLakeExternal Wait elapsed ...Fetch response  begin for interaction id : {} tenantID :{}",
 					interactionId, tenantId);
 
-			processOutput = new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+			try {
+				processOutput = stdout.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+			} catch (final ExecutionException e) {
+				errorOutput = e.getCause().getMessage();
+			} catch (final TimeoutException e) {
+				// reported like a worker pool timeout rather than escaping as an exception
+				process.destroyForcibly();
+				completed = false;
+				errorOutput = "Timed out after %d seconds".formatted(timeout);
+				LOG.error("FHIRService :: postStdinPayloadToNyecDataLakeExternal timed out after {} seconds for interaction id : {} tenantID :{}",
+						timeout, interactionId, tenantId);
+			}
 			LOG.debug(
 					"FHIRService :: postStdinPayloadToNyecDataLakeExternal Standard Output received:{} for interaction id : {} tenantID :{}",
 					processOutput, interactionId, tenantId);
-			errorOutput = new String(errorStream.readAllBytes(), StandardCharsets.UTF_8);
-			if (!errorOutput.isBlank()) {
-				LOG.debug(
-						"FHIRService :: postStdinPayloadToNyecDataLakeExternal Error Stream Output after execution: {} for interaction id : {} tenantID :{}",
-						errorOutput, interactionId, tenantId);
-			}
 		}
 
 		LOG.info("FHIRService :: postStdinPayloadToNyecDataLakeExternal END for interaction id : {} tenantID :{}",
@@ -1176,46 +1180,44 @@ public class FHIRService {
 		return new PostToNyecExternalResponse(completed, processOutput, errorOutput);
 	}
 
-	private WebClient createWebClient(final String scoringEngineApiURL,
-			final org.jooq.Configuration jooqCfg,
-			final Map<String,Object> requestParamters,
-			final String tenantId,
-			final String payload,
-			final Map<String, Object> bundlePayloadWithDisposition,
-			final String provenance,
-			
-                        final String interactionId, final String groupInteractionId,
-			final String masterInteractionId, final String sourceType, final String requestUriToBeOverriden) {
-		return WebClient.builder()
-				.baseUrl(scoringEngineApiURL)
+	/**
+	 * Sends the payload to a long-running worker from
+	 * {@link ExternalProcessWorkerPool} instead of forking the script. The
+	 * request frame is {@code {"processingAgent", "url", "payload"}}; the worker
+	 * answers with {@code {"exitCode", "output", "error"}}, where {@code output}
+	 * carries what the script would have written to stdout.
+	 */
+	private PostToNyecExternalResponse postStdinPayloadToWorkerPool(final String dataLakeApiBaseURL,
+			final String tenantId, final String interactionId, final Map<String, Object> bundlePayloadWithDisposition,
+			final PostStdinPayloadToNyecDataLakeExternal postStdinPayloadToNyecDataLakeExternal) throws Exception {
+		final Map<String, Object> request = new HashMap<>();
+		request.put("processingAgent", tenantId);
+		request.put("url", dataLakeApiBaseURL);
+		request.put("payload", bundlePayloadWithDisposition);
+		final Duration timeout = Duration.ofSeconds(postStdinPayloadToNyecDataLakeExternal.timeout());
+		try {
+			final JsonNode response = Configuration.objectMapper.readTree(
+					externalProcessWorkerPool.call(Configuration.objectMapper.writeValueAsBytes(request), timeout));
+			LOG.info("FHIRService :: postStdinPayloadToWorkerPool END exitCode :{} for interaction id : {} tenantID :{}",
+					response.path("exitCode").asInt(-1), interactionId, tenantId);
+			return new PostToNyecExternalResponse(response.path("exitCode").asInt(-1) == 0,
+					response.path("output").asText(""), response.path("error").asText(""));
+		} catch (final TimeoutException e) {
+			LOG.error("FHIRService :: postStdinPayloadToWorkerPool timed out after {} for interaction id : {} tenantID :{}",
+					timeout, interactionId, tenantId);
+			return new PostToNyecExternalResponse(false, "", e.getMessage());
+		}
+	}
+
+	private WebClient createWebClient(final String scoringEngineApiURL, final String interactionId) {
+		return scoringEngineClientRegistry.getClient(scoringEngineApiURL).mutate()
 				.filter(ExchangeFilterFunction.ofRequestProcessor(clientRequest -> {
-					filter(clientRequest, requestParamters, jooqCfg, provenance, tenantId, payload,
-							bundlePayloadWithDisposition,
-							
-                                                         groupInteractionId,
-							masterInteractionId, sourceType, requestUriToBeOverriden, interactionId);
+					filter(clientRequest, interactionId);
 					return Mono.just(clientRequest);
 				}))
 				.build();
 	}
 
-	private KeyDetails getSecretsFromAWSSecretManager(final String keyName, final String certName) {
-		final Region region = Region.US_EAST_1;
-		LOG.debug(
-				"FHIRService:: getSecretsFromAWSSecretManager  - Get Secrets Client Manager for region : {} BEGIN for interaction id: {}",
-				Region.US_EAST_1);
-		final SecretsManagerClient secretsClient = SecretsManagerClient.builder()
-				.region(region)
-				.build();
-		final KeyDetails keyDetails = new KeyDetails(getValue(secretsClient, keyName),
-				getValue(secretsClient, certName));
-		secretsClient.close();
-		LOG.debug(
-				"FHIRService:: getSecretsFromAWSSecretManager  - Get Secrets Client Manager for region : {} END for interaction id: {}",
-				Region.US_EAST_1);
-		return keyDetails;
-	}
-
 	public String getValue(final SecretsManagerClient secretsClient, final String secretName) {
 		LOG.debug("FHIRService:: getValue  - Get Value of secret with name  : {} -BEGIN", secretName);
 		String secret = null;
@@ -1239,34 +1241,23 @@ public class FHIRService {
 		return secret;
 	}
 
-	private void filter(final ClientRequest clientRequest,
-			final Map<String,Object> requestParameters,
-			final org.jooq.Configuration jooqCfg,
-			final String provenance,
-			final String tenantId,
-			final String payload,
-			final Map<String, Object> bundlePayloadWithDisposition,
-                        final String groupInteractionId, final String masterInteractionId,
-			final String sourceType, final String requestUriToBeOverriden, final String interactionId) {
-
+	/**
+	 * Logs the outbound request line and header names; values are left out so
+	 * API keys do not reach the logs. Runs on every attempt, including
+	 * retries, so it must not register interaction state.
+	 */
+	private void filter(final ClientRequest clientRequest, final String interactionId) {
 		LOG.debug("FHIRService:: sendToScoringEngine Filter request before post - BEGIN interaction id: {}",
 				interactionId);
-		final var requestURI = StringUtils.isNotEmpty(requestUriToBeOverriden) ? requestUriToBeOverriden
-				: (String) requestParameters.get(Constants.REQUEST_URI);
 		final StringBuilder requestBuilder = new StringBuilder()
 				.append(clientRequest.method().name()).append(" ")
 				.append(clientRequest.url()).append(" HTTP/1.1").append("\n");
 
-		clientRequest.headers().forEach((name, values) -> values
-				.forEach(value -> requestBuilder.append(name).append(": ").append(value).append("\n")));
+		clientRequest.headers().keySet().forEach(name -> requestBuilder.append(name).append("\n"));
 
 		final var outboundHttpMessage = requestBuilder.toString();
-
-		registerStateForward(jooqCfg, provenance, interactionId, requestURI, tenantId,
-				Optional.ofNullable(bundlePayloadWithDisposition).orElse(new HashMap<>()),
-				outboundHttpMessage, 
-                                 payload, groupInteractionId,
-				masterInteractionId, sourceType);
+		LOG.debug("FHIRService:: sendToScoringEngine outbound request for interaction id: {}\n{}",
+				interactionId, outboundHttpMessage);
 
 		LOG.debug("FHIRService:: sendToScoringEngine Filter request before post - END interaction id: {}",
 				interactionId);
@@ -1291,7 +1282,7 @@ public class FHIRService {
 				CoreDataLedgerApiClient.Actor.TECHBD.getValue(), CoreDataLedgerApiClient.Action.SENT.getValue(),
 				CoreDataLedgerApiClient.Actor.NYEC.getValue(), bundleId);
         // Post request to scoring engine
-        webClient.post()
+        scoringEngineForwarder.dispatch(webClient.post()
                 .uri("?processingAgent=" + tenantId)
                 .body(BodyInserters.fromValue(
                         bundlePayloadWithDisposition != null ? bundlePayloadWithDisposition : payload))
@@ -1299,19 +1290,24 @@ public class FHIRService {
                         .orElse(Constants.FHIR_CONTENT_TYPE_HEADER_VALUE))
                 .retrieve()
                 .bodyToMono(String.class)
+                .retryWhen(scoringEngineForwarder.retrySpec(interactionId))
                 .doFinally(signalType -> {
                     final var dataLedgerProvenance = "%s.sendPostRequest".formatted(FHIRService.class.getName());
             		coreDataLedgerApiClient.processRequest(dataLedgerPayload,interactionId,masterInteractionId,groupInteractionId,dataLedgerProvenance,SourceType.FHIR.name(),null);
                 })
-                .subscribe(response -> {
+                .doOnNext(response -> {
                     handleResponse(response, jooqCfg, interactionId, requestURI, tenantId,
                             provenance, scoringEngineApiURL, groupInteractionId,
                             masterInteractionId, sourceType, requestParameters);
-                }, error -> {
+                })
+                .doOnError(error -> {
                     registerStateFailure(jooqCfg, scoringEngineApiURL, interactionId, error,
                             requestURI, tenantId, provenance, groupInteractionId,
                             masterInteractionId, sourceType, requestParameters);
-                });
+                    scoringEngineForwarder.deadLetter(interactionId, tenantId, bundleId, scoringEngineApiURL,
+                            bundlePayloadWithDisposition != null ? bundlePayloadWithDisposition : payload, error);
+                })
+                .onErrorComplete());
 
 			LOG.info("FHIRService:: sendToScoringEngine Post to scoring engine - END interaction id: {} tenantid: {}",
 					interactionId, tenantId);
@@ -1339,7 +1335,7 @@ public class FHIRService {
 			LOG.info(
 				"FHIRService:: nyec api client key retrieved  : {} from secret  {} - BEGIN interaction id: {} tenantID :{}",
 				apiClientKey == null ? "Api key is null" : "Api key is not null" ,apiKeyAuthDetails.apiKeySecretName(),interactionId, tenantId);	
-			webClient.post()
+			scoringEngineForwarder.dispatch(webClient.post()
 					.uri("?processingAgent=" + tenantId)
 					.body(BodyInserters.fromValue(null != bundlePayloadWithDisposition
 							? bundlePayloadWithDisposition
@@ -1349,6 +1345,7 @@ public class FHIRService {
 					.header(apiKeyAuthDetails.apiKeyHeaderName(),apiClientKey)				
 					.retrieve()
 					.bodyToMono(String.class)
+					.retryWhen(scoringEngineForwarder.retrySpec(interactionId))
 					.doFinally(signalType -> {
 						final DataLedgerPayload dataLedgerPayload = DataLedgerPayload.create(
 							CoreDataLedgerApiClient.Actor.TECHBD.getValue(), CoreDataLedgerApiClient.Action.SENT.getValue(), 
@@ -1356,15 +1353,19 @@ public class FHIRService {
 						final var dataLedgerProvenance = "%s.sendPostRequest".formatted(FHIRService.class.getName());
 						coreDataLedgerApiClient.processRequest(dataLedgerPayload,interactionId,masterInteractionId,groupInteractionId,dataLedgerProvenance,SourceType.FHIR.name(),null);
 					})
-					.subscribe(response -> {
+					.doOnNext(response -> {
 						handleResponse(response, jooqCfg, interactionId, requestURI, tenantId,
 								provenance, scoringEngineApiURL, groupInteractionId,
 								masterInteractionId, sourceType,requestParameters);
-					}, error -> {
+					})
+					.doOnError(error -> {
 						registerStateFailure(jooqCfg, scoringEngineApiURL, interactionId, error,
 								requestURI, tenantId, provenance, groupInteractionId,
 								masterInteractionId, sourceType,requestParameters);
-					});
+						scoringEngineForwarder.deadLetter(interactionId, tenantId, bundleId, scoringEngineApiURL,
+								null != bundlePayloadWithDisposition ? bundlePayloadWithDisposition : payload, error);
+					})
+					.onErrorComplete());
 
 			LOG.info("FHIRService:: sendPostRequestWithApiKey Post to scoring engine - END interaction id: {} tenantid: {}",
 					interactionId, tenantId);
@@ -1426,7 +1427,7 @@ public class FHIRService {
 				interactionId, e);
 	}
 
-	private Map<String, Object> preparePayload(final Map<String,Object> requestParameters, final String bundlePayload,
+	private Map<String, Object> preparePayload(final Map<String,Object> requestParameters, final ParsedBundle bundlePayload,
 			final Map<String, Object> payloadWithDisposition, final String interactionId) {
 		LOG.debug("FHIRService:: addValidationResultToPayload BEGIN for interaction id : {}", interactionId);
 
@@ -1449,9 +1450,7 @@ public class FHIRService {
 				return payloadWithDisposition;
 			}
 			final Map<String, Object> bundleMap = Optional
-					.ofNullable(Configuration.objectMapper.readValue(bundlePayload,
-							new TypeReference<Map<String, Object>>() {
-							}))
+					.ofNullable(bundlePayload.toMap())
 					.filter(map -> !map.isEmpty())
 					.orElseGet(() -> {
 						LOG.warn(
@@ -1644,20 +1643,19 @@ public class FHIRService {
 				initRIHR.setPCreatedBy(FHIRService.class.getName());
 				initRIHR.setPProvenance(provenance);
 				initRIHR.setPTechbdVersionNumber(coreAppConfig.getVersion());
-				final var start = Instant.now();
-				final var execResult = initRIHR.execute(jooqCfg);
-				final var end = Instant.now();
-				final JsonNode response = initRIHR.getReturnValue();
-				final Map<String,Object> responseAttributes = CoreFHIRUtil.extractFields(response);
-				LOG.info(
-						"REGISTER State Forward : END for interaction id: {} tenant id: {}. Time taken: {} milliseconds | payload -> error: {}, interaction_id: {}, hub_nexus_interaction_id: {} | execResult: {}",
-						bundleAsyncInteractionId,
-						tenantId,
-						Duration.between(start, end).toMillis(),
-						responseAttributes.getOrDefault(Constants.KEY_ERROR, "N/A"),
-						responseAttributes.getOrDefault(Constants.KEY_INTERACTION_ID, "N/A"),
-						responseAttributes.getOrDefault(Constants.KEY_HUB_NEXUS_INTERACTION_ID, "N/A"),
-						execResult);
+				interactionJournal.register(jooqCfg, bundleAsyncInteractionId, initRIHR,
+						(execResult, response, elapsedMillis) -> {
+							final Map<String,Object> responseAttributes = CoreFHIRUtil.extractFields(response);
+							LOG.info(
+									"REGISTER State Forward : END for interaction id: {} tenant id: {}. Time taken: {} milliseconds | payload -> error: {}, interaction_id: {}, hub_nexus_interaction_id: {} | execResult: {}",
+									bundleAsyncInteractionId,
+									tenantId,
+									elapsedMillis,
+									responseAttributes.getOrDefault(Constants.KEY_ERROR, "N/A"),
+									responseAttributes.getOrDefault(Constants.KEY_INTERACTION_ID, "N/A"),
+									responseAttributes.getOrDefault(Constants.KEY_HUB_NEXUS_INTERACTION_ID, "N/A"),
+									execResult);
+						});
 			} catch (final Exception e) {
 				LOG.error("ERROR:: REGISTER State Forward CALL for interaction id : {} tenant id : {}"
 						+ initRIHR.getName() + " initRIHR error", bundleAsyncInteractionId,
@@ -1706,20 +1704,19 @@ public class FHIRService {
 				forwardRIHR.setPCreatedBy(FHIRService.class.getName());
 				forwardRIHR.setPProvenance(provenance);
 				forwardRIHR.setPTechbdVersionNumber(coreAppConfig.getVersion());
-				final var start = Instant.now();
-				final var execResult = forwardRIHR.execute(jooqCfg);
-				final var end = Instant.now();
-				final JsonNode responseFromDB = forwardRIHR.getReturnValue();
-				final Map<String,Object> responseAttributes = CoreFHIRUtil.extractFields(responseFromDB);
-				LOG.info(
-						"REGISTER State Complete : END for interaction id: {} tenant id: {}. Time Taken: {} milliseconds | payload -> error: {}, interaction_id: {}, hub_nexus_interaction_id: {} | execResult: {}",
-						bundleAsyncInteractionId,
-						tenantId,
-						Duration.between(start, end).toMillis(),
-						responseAttributes.getOrDefault(Constants.KEY_ERROR, "N/A"),
-						responseAttributes.getOrDefault(Constants.KEY_INTERACTION_ID, "N/A"),
-						responseAttributes.getOrDefault(Constants.KEY_HUB_NEXUS_INTERACTION_ID, "N/A"),
-						execResult);
+				interactionJournal.register(jooqCfg, bundleAsyncInteractionId, forwardRIHR,
+						(execResult, responseFromDB, elapsedMillis) -> {
+							final Map<String,Object> responseAttributes = CoreFHIRUtil.extractFields(responseFromDB);
+							LOG.info(
+									"REGISTER State Complete : END for interaction id: {} tenant id: {}. Time Taken: {} milliseconds | payload -> error: {}, interaction_id: {}, hub_nexus_interaction_id: {} | execResult: {}",
+									bundleAsyncInteractionId,
+									tenantId,
+									elapsedMillis,
+									responseAttributes.getOrDefault(Constants.KEY_ERROR, "N/A"),
+									responseAttributes.getOrDefault(Constants.KEY_INTERACTION_ID, "N/A"),
+									responseAttributes.getOrDefault(Constants.KEY_HUB_NEXUS_INTERACTION_ID, "N/A"),
+									execResult);
+						});
 			} catch (final Exception e) {
 				LOG.error("ERROR:: REGISTER State Complete CALL for interaction id : {} tenant id : {} "
 						+ forwardRIHR.getName()
@@ -1768,23 +1765,22 @@ public class FHIRService {
 				forwardRIHR.setPCreatedBy(FHIRService.class.getName());
 				forwardRIHR.setPProvenance(provenance);
 				forwardRIHR.setPTechbdVersionNumber(coreAppConfig.getVersion());
-				final var start = Instant.now();
-				final var execResult = forwardRIHR.execute(jooqCfg);
-				final var end = Instant.now();
-                final JsonNode responseFromDB = forwardRIHR.getReturnValue();
-				final Map<String,Object> responseAttributes = CoreFHIRUtil.extractFields(responseFromDB);
-				LOG.info(
-					"FHIRService - Time taken: {} milliseconds for DB call to REGISTER State None, Accept, Disposition for interaction id: {}  error: {}, hub_nexus_interaction_id: {}",
-					Duration.between(start, end).toMillis(),
-					responseAttributes.getOrDefault(Constants.KEY_INTERACTION_ID, "N/A"),
-					responseAttributes.getOrDefault(Constants.KEY_ERROR, "N/A"),					
-					responseAttributes.getOrDefault(Constants.KEY_HUB_NEXUS_INTERACTION_ID, "N/A")
-				);
-				LOG.info(
-						"REGISTER State Fail : END for interaction id : {} tenant id : {} .Time Taken : {} milliseconds"
-								+ execResult,
-						bundleAsyncInteractionId, tenantId,
-						Duration.between(start, end).toMillis());
+				interactionJournal.register(jooqCfg, bundleAsyncInteractionId, forwardRIHR,
+						(execResult, responseFromDB, elapsedMillis) -> {
+							final Map<String,Object> responseAttributes = CoreFHIRUtil.extractFields(responseFromDB);
+							LOG.info(
+								"FHIRService - Time taken: {} milliseconds for DB call to REGISTER State None, Accept, Disposition for interaction id: {}  error: {}, hub_nexus_interaction_id: {}",
+								elapsedMillis,
+								responseAttributes.getOrDefault(Constants.KEY_INTERACTION_ID, "N/A"),
+								responseAttributes.getOrDefault(Constants.KEY_ERROR, "N/A"),					
+								responseAttributes.getOrDefault(Constants.KEY_HUB_NEXUS_INTERACTION_ID, "N/A")
+							);
+							LOG.info(
+									"REGISTER State Fail : END for interaction id : {} tenant id : {} .Time Taken : {} milliseconds"
+											+ execResult,
+									bundleAsyncInteractionId, tenantId,
+									elapsedMillis);
+						});
 			} catch (final Exception e) {
 				LOG.error("ERROR:: REGISTER State Fail CALL for interaction id : {} tenant id : {} "
 						+ forwardRIHR.getName()
@@ -1879,22 +1875,20 @@ public class FHIRService {
 				errorRIHR.setPCreatedBy(FHIRService.class.getName());
 				errorRIHR.setPProvenance(provenance);
 				errorRIHR.setPTechbdVersionNumber(coreAppConfig.getVersion());
-				final var start = Instant.now();
-				final var execResult = errorRIHR.execute(jooqCfg);
-				final var end = Instant.now();
-
-				final JsonNode responseFromDB = errorRIHR.getReturnValue();
-				final Map<String, Object> responseAttributes = CoreFHIRUtil.extractFields(responseFromDB);
-
-				LOG.info(
-						"Register State Failure - END for interaction id: {} tenant id: {} forwardRIHR execResult: {}. Time Taken: {} milliseconds  error: {}, interaction_id: {}, hub_nexus_interaction_id: {}",
-						bundleAsyncInteractionId,
-						tenantId,
-						execResult,
-						Duration.between(start, end).toMillis(),
-						responseAttributes.getOrDefault(Constants.KEY_ERROR, "N/A"),
-						responseAttributes.getOrDefault(Constants.KEY_INTERACTION_ID, "N/A"),
-						responseAttributes.getOrDefault(Constants.KEY_HUB_NEXUS_INTERACTION_ID, "N/A"));
+				interactionJournal.register(jooqCfg, bundleAsyncInteractionId, errorRIHR,
+						(execResult, responseFromDB, elapsedMillis) -> {
+							final Map<String, Object> responseAttributes = CoreFHIRUtil.extractFields(responseFromDB);
+
+							LOG.info(
+									"Register State Failure - END for interaction id: {} tenant id: {} forwardRIHR execResult: {}. Time Taken: {} milliseconds  error: {}, interaction_id: {}, hub_nexus_interaction_id: {}",
+									bundleAsyncInteractionId,
+									tenantId,
+									execResult,
+									elapsedMillis,
+									responseAttributes.getOrDefault(Constants.KEY_ERROR, "N/A"),
+									responseAttributes.getOrDefault(Constants.KEY_INTERACTION_ID, "N/A"),
+									responseAttributes.getOrDefault(Constants.KEY_HUB_NEXUS_INTERACTION_ID, "N/A"));
+						});
 			} catch (final Exception e) {
 				LOG.error("ERROR :: Register State Failure - for interaction id : {} tenant id : {} CALL "
 						+ errorRIHR.getName() + " errorRIHR error", bundleAsyncInteractionId,
@@ -0,0 +1,398 @@
+package org.techbd.service.fhir;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.jooq.Field;
+import org.jooq.Record;
+import org.jooq.impl.DSL;
+import org.springframework.stereotype.Component;
+import org.techbd.config.CoreAppConfig;
+import org.techbd.udi.auto.jooq.ingress.routines.RegisterInteractionFhirRequest;
+import org.techbd.util.AppLogger;
+import org.techbd.util.TemplateLogger;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Write-behind journal for {@link RegisterInteractionFhirRequest} state
+ * transitions.
+ * <p>
+ * With {@code interactionJournal.writeBehind} disabled (the default)
+ * {@link #register} executes the call immediately, exactly as the callers did
+ * before. When enabled, calls whose result the caller does not need are
+ * queued and flushed every {@code flushIntervalMillis} or as soon as
+ * {@code maxBatchSize} calls are pending. A flush sends the pending calls as a
+ * single {@code SELECT f(...), f(...), ...} statement, one round trip per
+ * batch. A statement never holds two calls for the same interaction, so the
+ * state transitions of an interaction are written in the order they were
+ * registered. If the combined statement fails, its calls are retried one by
+ * one so a single bad row does not lose the others. Calls that still fail are
+ * counted and logged per interaction, since no caller is waiting for them.
+ * <p>
+ * At most {@code capacity} calls are queued. When the queue is full the
+ * {@link OverflowPolicy} decides: {@code BLOCK} waits up to
+ * {@code blockTimeoutMillis} for room and then writes the call through on the
+ * caller's thread, {@code DROP} drops it at once.
+ * <p>
+ * {@link #registerNow} is for callers that need the stored procedure's
+ * result, e.g. the disposition. It first writes the calls queued for the same
+ * interaction so the call sees its earlier transitions (read-your-writes),
+ * then executes on the caller's thread.
+ * <p>
+ * Published meters: {@code techbd.interaction.journal.pending},
+ * {@code techbd.interaction.journal.batch.size},
+ * {@code techbd.interaction.journal.flush} (DB time per statement),
+ * {@code techbd.interaction.journal.delay} (time from registration to write),
+ * {@code techbd.interaction.journal.fallback},
+ * {@code techbd.interaction.journal.failed} and
+ * {@code techbd.interaction.journal.overflow} (tagged with {@code policy}).
+ */
+@Component
+public class InteractionJournal {
+
+    public static final int DEFAULT_MAX_BATCH_SIZE = 50;
+    public static final int DEFAULT_FLUSH_INTERVAL_MILLIS = 50;
+    public static final int DEFAULT_CAPACITY = 10_000;
+    public static final int DEFAULT_BLOCK_TIMEOUT_MILLIS = 1000;
+
+    public enum OverflowPolicy {
+        BLOCK, DROP
+    }
+
+    /**
+     * Receives the outcome of a journaled call once it has been written.
+     */
+    @FunctionalInterface
+    public interface Callback {
+        void completed(int execResult, JsonNode response, long elapsedMillis);
+    }
+
+    private record Entry(org.jooq.Configuration jooqCfg, String interactionId,
+            RegisterInteractionFhirRequest call, Callback callback, long registeredAt) {
+    }
+
+    private final TemplateLogger LOG;
+    private final boolean writeBehind;
+    private final int maxBatchSize;
+    private final long flushIntervalMillis;
+    private final int capacity;
+    private final OverflowPolicy overflowPolicy;
+    private final long blockTimeoutMillis;
+    private final Counter overflow;
+    private final Counter failed;
+    private final Object flushLock = new Object();
+    private final List<Entry> pending = new ArrayList<>();
+    private final ScheduledExecutorService flusher;
+
+    public InteractionJournal(final CoreAppConfig coreAppConfig, final AppLogger appLogger) {
+        LOG = appLogger.getLogger(InteractionJournal.class);
+        final CoreAppConfig.InteractionJournal config = coreAppConfig.getInteractionJournal();
+        this.writeBehind = config != null && config.writeBehind();
+        this.maxBatchSize = config == null || config.maxBatchSize() == null || config.maxBatchSize() <= 0
+                ? DEFAULT_MAX_BATCH_SIZE
+                : config.maxBatchSize();
+        this.flushIntervalMillis = config == null || config.flushIntervalMillis() == null
+                || config.flushIntervalMillis() <= 0 ? DEFAULT_FLUSH_INTERVAL_MILLIS : config.flushIntervalMillis();
+        this.capacity = config == null || config.capacity() == null || config.capacity() <= 0 ? DEFAULT_CAPACITY
+                : config.capacity();
+        this.overflowPolicy = config != null && config.overflowPolicy() != null
+                && config.overflowPolicy().trim().equalsIgnoreCase("DROP") ? OverflowPolicy.DROP
+                        : OverflowPolicy.BLOCK;
+        this.blockTimeoutMillis = config == null || config.blockTimeoutMillis() == null
+                || config.blockTimeoutMillis() < 0 ? DEFAULT_BLOCK_TIMEOUT_MILLIS : config.blockTimeoutMillis();
+        if (writeBehind) {
+            flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, "interaction-journal-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis,
+                    TimeUnit.MILLISECONDS);
+        } else {
+            flusher = null;
+        }
+        Gauge.builder("techbd.interaction.journal.pending", this, InteractionJournal::pendingCount)
+                .description("Interaction state transitions waiting to be written")
+                .register(Metrics.globalRegistry);
+        this.overflow = Counter.builder("techbd.interaction.journal.overflow")
+                .description("Interaction state transitions that found the journal full")
+                .tag("policy", overflowPolicy.name().toLowerCase(Locale.ROOT))
+                .register(Metrics.globalRegistry);
+        this.failed = Counter.builder("techbd.interaction.journal.failed")
+                .description("Journaled interaction state transitions that could not be written")
+                .register(Metrics.globalRegistry);
+        LOG.info(
+                "InteractionJournal:: writeBehind :{} maxBatchSize :{} flushIntervalMillis :{} capacity :{} overflowPolicy :{}",
+                writeBehind, maxBatchSize, flushIntervalMillis, capacity, overflowPolicy);
+    }
+
+    public boolean isWriteBehind() {
+        return writeBehind;
+    }
+
+    /**
+     * Registers a state transition whose result the caller does not wait for.
+     * Without write-behind the call runs immediately and exceptions reach the
+     * caller; with write-behind {@code callback} runs on the flusher thread and
+     * failures are counted and logged there.
+     */
+    public void register(final org.jooq.Configuration jooqCfg, final String interactionId,
+            final RegisterInteractionFhirRequest call, final Callback callback) {
+        if (!writeBehind) {
+            final long start = System.nanoTime();
+            final int execResult = call.execute(jooqCfg);
+            callback.completed(execResult, call.getReturnValue(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            return;
+        }
+        final Entry entry = new Entry(jooqCfg, interactionId, call, callback, System.nanoTime());
+        if (enqueue(entry)) {
+            return;
+        }
+        overflow.increment();
+        if (overflowPolicy == OverflowPolicy.DROP) {
+            failed.increment();
+            LOG.error("ERROR:: InteractionJournal:: journal full, dropped {} for interaction id : {}",
+                    call.getName(), interactionId);
+            return;
+        }
+        LOG.warn("InteractionJournal:: journal full, writing {} through for interaction id : {}", call.getName(),
+                interactionId);
+        flush(interactionId);
+        writeOne(entry);
+    }
+
+    /**
+     * Writes the calls queued for {@code interactionId} and then executes
+     * {@code call} on the calling thread, returning its result.
+     */
+    public int registerNow(final org.jooq.Configuration jooqCfg, final String interactionId,
+            final RegisterInteractionFhirRequest call) {
+        if (writeBehind) {
+            flush(interactionId);
+        }
+        return call.execute(jooqCfg);
+    }
+
+    /**
+     * Queues {@code entry} unless the journal is full, waiting for room first
+     * under {@code BLOCK}. Returns {@code false} when there was no room.
+     */
+    private boolean enqueue(final Entry entry) {
+        final boolean full;
+        synchronized (pending) {
+            if (pending.size() >= capacity) {
+                flusher.execute(this::flushQuietly);
+                if (overflowPolicy == OverflowPolicy.BLOCK) {
+                    final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(blockTimeoutMillis);
+                    long remaining;
+                    while (pending.size() >= capacity && (remaining = deadline - System.nanoTime()) > 0) {
+                        try {
+                            TimeUnit.NANOSECONDS.timedWait(pending, remaining);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            break;
+                        }
+                    }
+                }
+                if (pending.size() >= capacity) {
+                    return false;
+                }
+            }
+            pending.add(entry);
+            full = pending.size() >= maxBatchSize;
+        }
+        if (full) {
+            flusher.execute(this::flushQuietly);
+        }
+        return true;
+    }
+
+    /**
+     * Writes everything queued so far. Safe to call from any thread.
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            final List<Entry> batch;
+            synchronized (pending) {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = new ArrayList<>(pending);
+                pending.clear();
+                pending.notifyAll();
+            }
+            for (final List<Entry> statement : statements(batch)) {
+                write(statement);
+            }
+        }
+    }
+
+    /**
+     * Writes the calls queued so far for {@code interactionId}, leaving the
+     * others for the flusher.
+     */
+    private void flush(final String interactionId) {
+        if (interactionId == null) {
+            flush();
+            return;
+        }
+        synchronized (flushLock) {
+            final List<Entry> batch = new ArrayList<>();
+            synchronized (pending) {
+                for (final Iterator<Entry> entries = pending.iterator(); entries.hasNext();) {
+                    final Entry entry = entries.next();
+                    if (interactionId.equals(entry.interactionId())) {
+                        batch.add(entry);
+                        entries.remove();
+                    }
+                }
+                if (batch.isEmpty()) {
+                    return;
+                }
+                pending.notifyAll();
+            }
+            for (final List<Entry> statement : statements(batch)) {
+                write(statement);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (flusher != null) {
+            flusher.shutdown();
+            flush();
+        }
+    }
+
+    private int pendingCount() {
+        synchronized (pending) {
+            return pending.size();
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            LOG.error("InteractionJournal:: Flush failed", e);
+        }
+    }
+
+    /**
+     * Splits a batch into statements that share a jOOQ configuration and hold
+     * at most one call per interaction, keeping registration order.
+     */
+    private List<List<Entry>> statements(final List<Entry> batch) {
+        final List<List<Entry>> statements = new ArrayList<>();
+        List<Entry> current = new ArrayList<>();
+        final Set<String> interactionIds = new HashSet<>();
+        for (final Entry entry : batch) {
+            final boolean sameConfig = current.isEmpty() || current.get(0).jooqCfg() == entry.jooqCfg();
+            if (!sameConfig || current.size() >= maxBatchSize
+                    || (entry.interactionId() != null && !interactionIds.add(entry.interactionId()))) {
+                statements.add(current);
+                current = new ArrayList<>();
+                interactionIds.clear();
+                if (entry.interactionId() != null) {
+                    interactionIds.add(entry.interactionId());
+                }
+            }
+            current.add(entry);
+        }
+        if (!current.isEmpty()) {
+            statements.add(current);
+        }
+        return statements;
+    }
+
+    private void write(final List<Entry> statement) {
+        DistributionSummary.builder("techbd.interaction.journal.batch.size")
+                .description("Interaction state transitions written per statement")
+                .register(Metrics.globalRegistry)
+                .record(statement.size());
+        final long start = System.nanoTime();
+        if (statement.size() == 1) {
+            writeOne(statement.get(0));
+            return;
+        }
+        final Record result;
+        try {
+            final List<Field<?>> fields = new ArrayList<>(statement.size());
+            for (final Entry entry : statement) {
+                fields.add(entry.call().asField());
+            }
+            result = DSL.using(statement.get(0).jooqCfg()).select(fields).fetchOne();
+        } catch (RuntimeException e) {
+            LOG.warn("InteractionJournal:: Batched write of {} calls failed, writing them one by one",
+                    statement.size(), e);
+            Counter.builder("techbd.interaction.journal.fallback")
+                    .description("Batched writes retried call by call after a failure")
+                    .register(Metrics.globalRegistry)
+                    .increment();
+            statement.forEach(this::writeOne);
+            return;
+        }
+        final long elapsedNanos = System.nanoTime() - start;
+        recordFlush(elapsedNanos);
+        for (int i = 0; i < statement.size(); i++) {
+            final Entry entry = statement.get(i);
+            recordDelay(entry);
+            complete(entry, 1, (JsonNode) result.get(i), TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        }
+    }
+
+    private void writeOne(final Entry entry) {
+        final long start = System.nanoTime();
+        try {
+            final int execResult = entry.call().execute(entry.jooqCfg());
+            final long elapsedNanos = System.nanoTime() - start;
+            recordFlush(elapsedNanos);
+            recordDelay(entry);
+            complete(entry, execResult, entry.call().getReturnValue(), TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        } catch (RuntimeException e) {
+            failed.increment();
+            LOG.error("ERROR:: InteractionJournal:: {} failed for interaction id : {}", entry.call().getName(),
+                    entry.interactionId(), e);
+        }
+    }
+
+    private void complete(final Entry entry, final int execResult, final JsonNode response,
+            final long elapsedMillis) {
+        try {
+            entry.callback().completed(execResult, response, elapsedMillis);
+        } catch (RuntimeException e) {
+            LOG.error("InteractionJournal:: Callback failed for interaction id : {}", entry.interactionId(), e);
+        }
+    }
+
+    private static void recordFlush(final long elapsedNanos) {
+        Timer.builder("techbd.interaction.journal.flush")
+                .description("Database time per interaction journal statement")
+                .register(Metrics.globalRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static void recordDelay(final Entry entry) {
+        Timer.builder("techbd.interaction.journal.delay")
+                .description("Time from registering a state transition until it is written")
+                .register(Metrics.globalRegistry)
+                .record(System.nanoTime() - entry.registeredAt(), TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,277 @@
+package org.techbd.service.fhir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.Security;
+import java.time.Duration;
+import java.util.concurrent.CompletionException;
+
+import javax.net.ssl.SSLException;
+
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.techbd.config.CoreAppConfig;
+import org.techbd.config.CoreAppConfig.MTlsAwsSecrets;
+import org.techbd.config.CoreAppConfig.MTlsResources;
+import org.techbd.service.fhir.FHIRService.KeyDetails;
+import org.techbd.service.fhir.FHIRService.MTlsStrategy;
+import org.techbd.util.AppLogger;
+import org.techbd.util.TemplateLogger;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import jakarta.annotation.PreDestroy;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.secretsmanager.SecretsManagerClient;
+import software.amazon.awssdk.services.secretsmanager.model.GetSecretValueRequest;
+
+/**
+ * Long-lived {@link WebClient}s for posting bundles to the scoring engine
+ * (data lake), keyed by base URL, mTLS strategy and the configured credential
+ * source.
+ * <p>
+ * All clients share one Reactor Netty {@link ConnectionProvider}, so
+ * connections to the same target are kept alive and reused across bundles
+ * instead of paying a TCP connect and TLS handshake per request. Client
+ * certificates and keys (read from AWS Secrets Manager or local files) are
+ * cached with the client and reloaded in the background once
+ * {@code certificateTtlSeconds} has passed, so a rotated certificate is picked
+ * up without a restart while requests keep using the current client.
+ * <p>
+ * Connection pool gauges ({@code reactor.netty.connection.provider.*}) and
+ * connect / TLS handshake timers ({@code reactor.netty.http.client.*}) are
+ * published by Reactor Netty; credential loads are timed as
+ * {@code techbd.scoring.client.credentials.load} and the client cache is
+ * monitored under the {@code cache.*} meters with
+ * {@code cache=scoringEngineClients}.
+ */
+@Component
+public class ScoringEngineClientRegistry {
+
+    public static final int DEFAULT_MAX_CONNECTIONS = 50;
+    public static final int DEFAULT_MAX_IDLE_TIME_SECONDS = 60;
+    public static final int DEFAULT_MAX_LIFE_TIME_SECONDS = 600;
+    public static final int DEFAULT_PENDING_ACQUIRE_TIMEOUT_SECONDS = 45;
+    public static final int DEFAULT_CERTIFICATE_TTL_SECONDS = 3600;
+    public static final int DEFAULT_MAX_CLIENTS = 32;
+
+    private static final String POOL_NAME = "scoring-engine";
+
+    /**
+     * {@code credentialSource} is the {@link MTlsAwsSecrets} or
+     * {@link MTlsResources} record the client was built from, or {@code null}
+     * for clients without a client certificate.
+     */
+    public record ClientKey(String baseUrl, MTlsStrategy strategy, Record credentialSource) {
+    }
+
+    private final TemplateLogger LOG;
+    private final ConnectionProvider connectionProvider;
+    private final LoadingCache<ClientKey, WebClient> clients;
+    private SecretsManagerClient secretsClient;
+
+    public ScoringEngineClientRegistry(final CoreAppConfig coreAppConfig, final AppLogger appLogger) {
+        LOG = appLogger.getLogger(ScoringEngineClientRegistry.class);
+        final CoreAppConfig.ScoringEngineClient config = coreAppConfig.getScoringEngineClient();
+        final int maxConnections = valueOrDefault(config == null ? null : config.maxConnections(),
+                DEFAULT_MAX_CONNECTIONS);
+        final Duration maxIdleTime = Duration.ofSeconds(valueOrDefault(
+                config == null ? null : config.maxIdleTimeSeconds(), DEFAULT_MAX_IDLE_TIME_SECONDS));
+        final Duration maxLifeTime = Duration.ofSeconds(valueOrDefault(
+                config == null ? null : config.maxLifeTimeSeconds(), DEFAULT_MAX_LIFE_TIME_SECONDS));
+        final Duration pendingAcquireTimeout = Duration.ofSeconds(valueOrDefault(
+                config == null ? null : config.pendingAcquireTimeoutSeconds(),
+                DEFAULT_PENDING_ACQUIRE_TIMEOUT_SECONDS));
+        final Duration certificateTtl = Duration.ofSeconds(valueOrDefault(
+                config == null ? null : config.certificateTtlSeconds(), DEFAULT_CERTIFICATE_TTL_SECONDS));
+        final int maxClients = valueOrDefault(config == null ? null : config.maxClients(), DEFAULT_MAX_CLIENTS);
+
+        this.connectionProvider = ConnectionProvider.builder(POOL_NAME)
+                .maxConnections(maxConnections)
+                .maxIdleTime(maxIdleTime)
+                .maxLifeTime(maxLifeTime)
+                .pendingAcquireTimeout(pendingAcquireTimeout)
+                .evictInBackground(maxIdleTime)
+                .disposeInactivePoolsInBackground(maxLifeTime, maxLifeTime)
+                .metrics(true)
+                .build();
+        this.clients = Caffeine.newBuilder()
+                .maximumSize(maxClients)
+                .refreshAfterWrite(certificateTtl)
+                .recordStats()
+                .build(this::createClient);
+        CaffeineCacheMetrics.monitor(Metrics.globalRegistry, clients, "scoringEngineClients");
+        Gauge.builder("techbd.scoring.client.registered", clients, LoadingCache::estimatedSize)
+                .description("Scoring engine WebClients currently held by the registry")
+                .register(Metrics.globalRegistry);
+        LOG.info(
+                "ScoringEngineClientRegistry:: maxConnections :{} maxIdleTime :{} maxLifeTime :{} certificateTtl :{} maxClients :{}",
+                maxConnections, maxIdleTime, maxLifeTime, certificateTtl, maxClients);
+    }
+
+    /**
+     * Returns the shared client for a scoring engine reached without a client
+     * certificate.
+     */
+    public WebClient getClient(final String baseUrl) {
+        return get(new ClientKey(baseUrl, MTlsStrategy.NO_MTLS, null));
+    }
+
+    /**
+     * Returns the shared mTLS client whose key and certificate are read from
+     * AWS Secrets Manager.
+     */
+    public WebClient getClient(final String baseUrl, final MTlsAwsSecrets mTlsAwsSecrets) {
+        return get(new ClientKey(baseUrl, MTlsStrategy.AWS_SECRETS, mTlsAwsSecrets));
+    }
+
+    /**
+     * Returns the shared mTLS client whose key and certificate are read from
+     * local files.
+     */
+    public WebClient getClient(final String baseUrl, final MTlsResources mTlsResources) {
+        return get(new ClientKey(baseUrl, MTlsStrategy.MTLS_RESOURCES, mTlsResources));
+    }
+
+    /**
+     * Drops all clients so the next request reloads credentials, e.g. after a
+     * certificate was revoked.
+     */
+    public void invalidateAll() {
+        clients.invalidateAll();
+    }
+
+    public long size() {
+        return clients.estimatedSize();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        clients.invalidateAll();
+        connectionProvider.dispose();
+        synchronized (this) {
+            if (secretsClient != null) {
+                secretsClient.close();
+                secretsClient = null;
+            }
+        }
+    }
+
+    private WebClient get(final ClientKey key) {
+        try {
+            return clients.get(key);
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    private WebClient createClient(final ClientKey key) {
+        LOG.info("ScoringEngineClientRegistry:: Creating WebClient for scoring engine API URL :{} strategy :{}",
+                key.baseUrl(), key.strategy().getValue());
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .keepAlive(true)
+                .metrics(true, uri -> POOL_NAME);
+        final KeyDetails keyDetails = loadCredentials(key);
+        if (keyDetails != null) {
+            final SslContext sslContext = sslContext(keyDetails);
+            httpClient = httpClient.secure(sslSpec -> sslSpec.sslContext(sslContext));
+        }
+        return WebClient.builder()
+                .baseUrl(key.baseUrl())
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+    }
+
+    private KeyDetails loadCredentials(final ClientKey key) {
+        if (key.credentialSource() == null) {
+            return null;
+        }
+        final Timer.Sample sample = Timer.start(Metrics.globalRegistry);
+        String outcome = "failure";
+        try {
+            final KeyDetails keyDetails = switch (key.credentialSource()) {
+                case MTlsAwsSecrets aws -> new KeyDetails(getSecretValue(aws.mTlsKeySecretName()),
+                        getSecretValue(aws.mTlsCertSecretName()));
+                case MTlsResources resources -> new KeyDetails(
+                        Files.readString(Paths.get(resources.mTlsKeyResourceName())),
+                        Files.readString(Paths.get(resources.mTlsCertResourceName())));
+                default -> throw new IllegalArgumentException(
+                        "Unsupported credential source " + key.credentialSource().getClass().getSimpleName());
+            };
+            if (keyDetails.cert() == null || keyDetails.cert().isEmpty()) {
+                throw new IllegalArgumentException(
+                        "Client certificate for strategy " + key.strategy().getValue() + " is empty");
+            }
+            if (keyDetails.key() == null || keyDetails.key().isEmpty()) {
+                throw new IllegalArgumentException(
+                        "Client key for strategy " + key.strategy().getValue() + " is empty");
+            }
+            outcome = "success";
+            return keyDetails;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            sample.stop(Timer.builder("techbd.scoring.client.credentials.load")
+                    .description("Time taken to load scoring engine client certificates and keys")
+                    .tag("strategy", key.strategy().getValue())
+                    .tag("outcome", outcome)
+                    .register(Metrics.globalRegistry));
+        }
+    }
+
+    private static SslContext sslContext(final KeyDetails keyDetails) {
+        if (Security.getProvider(BouncyCastleProvider.PROVIDER_NAME) == null) {
+            Security.addProvider(new BouncyCastleProvider());
+        }
+        try {
+            return SslContextBuilder.forClient()
+                    .keyManager(new ByteArrayInputStream(keyDetails.cert().getBytes(StandardCharsets.UTF_8)),
+                            new ByteArrayInputStream(keyDetails.key().getBytes(StandardCharsets.UTF_8)))
+                    .build();
+        } catch (SSLException e) {
+            throw new IllegalArgumentException("Unable to build SSL context from client certificate and key", e);
+        }
+    }
+
+    private String getSecretValue(final String secretName) {
+        LOG.debug("ScoringEngineClientRegistry:: getSecretValue - Get value of secret with name : {} -BEGIN",
+                secretName);
+        final String secret = secretsClient()
+                .getSecretValue(GetSecretValueRequest.builder().secretId(secretName).build())
+                .secretString();
+        LOG.info("ScoringEngineClientRegistry:: getSecretValue - Fetched secret with name : {} value is null : {}",
+                secretName, secret == null);
+        return secret;
+    }
+
+    private synchronized SecretsManagerClient secretsClient() {
+        if (secretsClient == null) {
+            secretsClient = SecretsManagerClient.builder()
+                    .region(Region.US_EAST_1)
+                    .build();
+        }
+        return secretsClient;
+    }
+
+    private static int valueOrDefault(final Integer value, final int defaultValue) {
+        return value == null || value <= 0 ? defaultValue : value;
+    }
+}
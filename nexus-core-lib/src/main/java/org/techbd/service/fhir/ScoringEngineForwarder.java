@@ -0,0 +1,355 @@
+package org.techbd.service.fhir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.techbd.config.Configuration;
+import org.techbd.config.CoreAppConfig;
+import org.techbd.util.AppLogger;
+import org.techbd.util.TemplateLogger;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+/**
+ * Pipeline stage that forwards validated bundles to the scoring engine (data
+ * lake) off the request thread.
+ * <p>
+ * When {@code scoringEngineForwarding.async} is disabled (the default) nothing
+ * is queued and {@link FHIRService} forwards on the request thread as before.
+ * When enabled, {@link #submit(ForwardJob)} places the job on a bounded queue
+ * served by a fixed pool of workers and returns immediately. A full queue
+ * pushes back by running the job on the submitting thread rather than
+ * dropping it. Posts made inside a job go through {@link #dispatch(Mono)},
+ * which waits for the post and its retries to finish, so a worker (or a
+ * caller running a job itself) is busy for the whole post and at most
+ * {@code workerThreads} posts are in flight. If a journal directory is
+ * configured each queued job is also written there and removed once the post
+ * has finished, so jobs still queued or posting when the process stops are
+ * replayed on the next start.
+ * <p>
+ * Transient post failures (connection errors and 5xx responses) are retried
+ * with exponential backoff through {@link #retrySpec(String)}; posts that
+ * still fail are recorded as dead letters, both as the {@code FORWARD -> FAIL}
+ * interaction state written by {@link FHIRService} and, with a journal
+ * directory, as a JSON file under {@code dead-letter/} for replay.
+ * <p>
+ * Published meters: {@code techbd.scoring.forward.queue.depth},
+ * {@code techbd.scoring.forward.active},
+ * {@code techbd.scoring.forward.jobs} (tagged with {@code outcome}),
+ * {@code techbd.scoring.forward.queue.wait},
+ * {@code techbd.scoring.forward.duration},
+ * {@code techbd.scoring.forward.retries} and
+ * {@code techbd.scoring.forward.dead_letter}.
+ */
+@Component
+public class ScoringEngineForwarder {
+
+    public static final int DEFAULT_WORKER_THREADS = 4;
+    public static final int DEFAULT_QUEUE_CAPACITY = 1000;
+    public static final int DEFAULT_MAX_RETRIES = 3;
+    public static final int DEFAULT_INITIAL_BACKOFF_MILLIS = 500;
+    public static final int DEFAULT_MAX_BACKOFF_MILLIS = 30_000;
+
+    private static final String JOURNAL_SUFFIX = ".job.json";
+    private static final String DEAD_LETTER_DIRECTORY = "dead-letter";
+    private static final ThreadLocal<Boolean> FORWARDING = new ThreadLocal<>();
+
+    /**
+     * Everything needed to forward one bundle. {@code requestParameters} is a
+     * copy owned by the job.
+     */
+    public record ForwardJob(String interactionId, String tenantId, Map<String, Object> requestParameters,
+            String scoringEngineApiURL, String dataLakeApiContentType, String payload,
+            Map<String, Object> validationPayloadWithDisposition, String provenance, String mtlsStrategy,
+            String groupInteractionId, String masterInteractionId, String sourceType,
+            String requestUriToBeOverriden, String coRrelationId, String bundleId) {
+    }
+
+    private final TemplateLogger LOG;
+    private final boolean async;
+    private final int workerThreads;
+    private final int queueCapacity;
+    private final int maxRetries;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Path journalDirectory;
+    private final ArrayBlockingQueue<Runnable> queue;
+    private ThreadPoolExecutor executor;
+    private volatile Consumer<ForwardJob> handler;
+
+    public ScoringEngineForwarder(final CoreAppConfig coreAppConfig, final AppLogger appLogger) {
+        LOG = appLogger.getLogger(ScoringEngineForwarder.class);
+        final CoreAppConfig.ScoringEngineForwarding config = coreAppConfig.getScoringEngineForwarding();
+        this.async = config != null && config.async();
+        this.workerThreads = positiveOrDefault(config == null ? null : config.workerThreads(),
+                DEFAULT_WORKER_THREADS);
+        this.queueCapacity = positiveOrDefault(config == null ? null : config.queueCapacity(),
+                DEFAULT_QUEUE_CAPACITY);
+        this.maxRetries = config == null || config.maxRetries() == null || config.maxRetries() < 0
+                ? DEFAULT_MAX_RETRIES
+                : config.maxRetries();
+        this.initialBackoff = Duration.ofMillis(positiveOrDefault(
+                config == null ? null : config.initialBackoffMillis(), DEFAULT_INITIAL_BACKOFF_MILLIS));
+        this.maxBackoff = Duration.ofMillis(positiveOrDefault(
+                config == null ? null : config.maxBackoffMillis(), DEFAULT_MAX_BACKOFF_MILLIS));
+        this.journalDirectory = config == null || config.journalDirectory() == null
+                || config.journalDirectory().isBlank() ? null : Path.of(config.journalDirectory());
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        Gauge.builder("techbd.scoring.forward.queue.depth", queue, ArrayBlockingQueue::size)
+                .description("Bundles waiting to be forwarded to the scoring engine")
+                .register(Metrics.globalRegistry);
+        LOG.info(
+                "ScoringEngineForwarder:: async :{} workerThreads :{} queueCapacity :{} maxRetries :{} journalDirectory :{}",
+                async, workerThreads, queueCapacity, maxRetries, journalDirectory);
+    }
+
+    public boolean isAsync() {
+        return async;
+    }
+
+    /**
+     * Starts the workers with {@code handler} as the forwarding step and replays
+     * any journaled jobs left by a previous run. Does nothing when async
+     * forwarding is disabled.
+     */
+    public synchronized void start(final Consumer<ForwardJob> handler) {
+        if (!async || executor != null) {
+            return;
+        }
+        this.handler = handler;
+        final AtomicInteger threadCount = new AtomicInteger();
+        final ThreadFactory threadFactory = runnable -> {
+            final Thread thread = new Thread(runnable, "scoring-engine-forward-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        final RejectedExecutionHandler callerRuns = (runnable, pool) -> {
+            jobCounter("caller_runs").increment();
+            if (!pool.isShutdown()) {
+                runnable.run();
+            }
+        };
+        executor = new ThreadPoolExecutor(workerThreads, workerThreads, 0L, TimeUnit.MILLISECONDS, queue,
+                threadFactory, callerRuns);
+        Gauge.builder("techbd.scoring.forward.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Workers currently forwarding a bundle to the scoring engine")
+                .register(Metrics.globalRegistry);
+        replayJournal();
+    }
+
+    /**
+     * Queues {@code job} for forwarding. Returns {@code false} when async
+     * forwarding is disabled or not started, in which case the caller must
+     * forward on its own thread.
+     */
+    public boolean submit(final ForwardJob job) {
+        if (!async || executor == null) {
+            return false;
+        }
+        final Path journalFile = journal(job);
+        jobCounter("submitted").increment();
+        final long queuedAt = System.nanoTime();
+        executor.execute(() -> run(job, journalFile, queuedAt));
+        return true;
+    }
+
+    /**
+     * Runs a scoring engine post that handles its own response and errors.
+     * Inside a forwarding job the post is awaited on the job's thread;
+     * otherwise it is subscribed to and completes in the background as before.
+     */
+    public void dispatch(final Mono<?> post) {
+        if (Boolean.TRUE.equals(FORWARDING.get())) {
+            post.block();
+        } else {
+            post.subscribe();
+        }
+    }
+
+    /**
+     * Backoff for retrying a scoring engine post. Only transient failures are
+     * retried; with async forwarding disabled no retries are made so the
+     * synchronous path behaves as before.
+     */
+    public Retry retrySpec(final String interactionId) {
+        if (!async || maxRetries == 0) {
+            return Retry.max(0);
+        }
+        return Retry.backoff(maxRetries, initialBackoff)
+                .maxBackoff(maxBackoff)
+                .filter(ScoringEngineForwarder::isTransient)
+                .doBeforeRetry(signal -> {
+                    Counter.builder("techbd.scoring.forward.retries")
+                            .description("Scoring engine posts retried after a transient failure")
+                            .register(Metrics.globalRegistry)
+                            .increment();
+                    LOG.warn("ScoringEngineForwarder:: Retry {} of post to scoring engine for interaction id :{} after :{}",
+                            signal.totalRetries() + 1, interactionId, signal.failure().getMessage());
+                })
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure());
+    }
+
+    /**
+     * Records a post that failed after all retries. The body is written under
+     * the journal's {@code dead-letter/} directory when a journal is
+     * configured.
+     */
+    public void deadLetter(final String interactionId, final String tenantId, final String bundleId,
+            final String scoringEngineApiURL, final Object body, final Throwable error) {
+        Counter.builder("techbd.scoring.forward.dead_letter")
+                .description("Scoring engine posts that failed after all retries")
+                .register(Metrics.globalRegistry)
+                .increment();
+        if (journalDirectory == null) {
+            return;
+        }
+        final Map<String, Object> deadLetter = new LinkedHashMap<>();
+        deadLetter.put("interactionId", interactionId);
+        deadLetter.put("tenantId", tenantId);
+        deadLetter.put("bundleId", bundleId);
+        deadLetter.put("scoringEngineApiURL", scoringEngineApiURL);
+        deadLetter.put("failedAt", Instant.now().toString());
+        deadLetter.put("error", error == null ? null : error.getMessage());
+        deadLetter.put("body", body);
+        try {
+            final Path directory = Files.createDirectories(journalDirectory.resolve(DEAD_LETTER_DIRECTORY));
+            Configuration.objectMapper.writeValue(directory.resolve(interactionId + ".json").toFile(), deadLetter);
+        } catch (IOException | RuntimeException e) {
+            LOG.error("ScoringEngineForwarder:: Unable to write dead letter for interaction id :{}", interactionId, e);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                LOG.warn("ScoringEngineForwarder:: {} queued bundles not forwarded before shutdown{}",
+                        executor.shutdownNow().size(),
+                        journalDirectory == null ? "" : "; they will be replayed from the journal on restart");
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run(final ForwardJob job, final Path journalFile, final long queuedAt) {
+        Timer.builder("techbd.scoring.forward.queue.wait")
+                .description("Time bundles spend queued before a worker forwards them")
+                .register(Metrics.globalRegistry)
+                .record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+        final Timer.Sample sample = Timer.start(Metrics.globalRegistry);
+        String outcome = "completed";
+        FORWARDING.set(Boolean.TRUE);
+        try {
+            handler.accept(job);
+        } catch (RuntimeException e) {
+            outcome = "failed";
+            LOG.error("ScoringEngineForwarder:: Forwarding failed for interaction id :{}", job.interactionId(), e);
+        } finally {
+            FORWARDING.remove();
+            sample.stop(Timer.builder("techbd.scoring.forward.duration")
+                    .description("Time taken to forward a bundle, including the post and its retries")
+                    .register(Metrics.globalRegistry));
+            jobCounter(outcome).increment();
+            deleteJournal(journalFile);
+        }
+    }
+
+    private Path journal(final ForwardJob job) {
+        if (journalDirectory == null) {
+            return null;
+        }
+        try {
+            final Path file = Files.createDirectories(journalDirectory)
+                    .resolve(job.interactionId() + JOURNAL_SUFFIX);
+            Configuration.objectMapper.writeValue(file.toFile(), job);
+            return file;
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("ScoringEngineForwarder:: Unable to journal job for interaction id :{}; forwarding without journal",
+                    job.interactionId(), e);
+            return null;
+        }
+    }
+
+    private void deleteJournal(final Path journalFile) {
+        if (journalFile == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(journalFile);
+        } catch (IOException e) {
+            LOG.warn("ScoringEngineForwarder:: Unable to delete journal file :{}", journalFile, e);
+        }
+    }
+
+    private void replayJournal() {
+        if (journalDirectory == null || !Files.isDirectory(journalDirectory)) {
+            return;
+        }
+        int replayed = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(journalDirectory, "*" + JOURNAL_SUFFIX)) {
+            for (final Path file : files) {
+                try {
+                    final ForwardJob job = Configuration.objectMapper.readValue(file.toFile(), ForwardJob.class);
+                    jobCounter("replayed").increment();
+                    final long queuedAt = System.nanoTime();
+                    executor.execute(() -> run(job, file, queuedAt));
+                    replayed++;
+                } catch (IOException e) {
+                    LOG.error("ScoringEngineForwarder:: Unable to replay journal file :{}", file, e);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (replayed > 0) {
+            LOG.info("ScoringEngineForwarder:: Replayed {} journaled bundles from :{}", replayed, journalDirectory);
+        }
+    }
+
+    private static boolean isTransient(final Throwable error) {
+        if (error instanceof WebClientResponseException responseException) {
+            return responseException.getStatusCode().is5xxServerError();
+        }
+        return error instanceof WebClientRequestException;
+    }
+
+    private static Counter jobCounter(final String outcome) {
+        return Counter.builder("techbd.scoring.forward.jobs")
+                .description("Bundles handled by the scoring engine forwarding stage")
+                .tag("outcome", outcome)
+                .register(Metrics.globalRegistry);
+    }
+
+    private static int positiveOrDefault(final Integer value, final int defaultValue) {
+        return value == null || value <= 0 ? defaultValue : value;
+    }
+}
@@ -12,15 +12,16 @@ import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeoutException;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.text.StringEscapeUtils;
@@ -28,6 +29,7 @@ import org.hl7.fhir.common.hapi.validation.support.CachingValidationSupport;
 import org.hl7.fhir.common.hapi.validation.support.CommonCodeSystemsTerminologyService;
 import org.hl7.fhir.common.hapi.validation.support.InMemoryTerminologyServerValidationSupport;
 import org.hl7.fhir.common.hapi.validation.support.NpmPackageValidationSupport;
+import org.hl7.fhir.common.hapi.validation.support.PrePopulatedValidationSupport;
 import org.hl7.fhir.common.hapi.validation.support.SnapshotGeneratingValidationSupport;
 import org.hl7.fhir.common.hapi.validation.support.ValidationSupportChain;
 import org.hl7.fhir.common.hapi.validation.validator.FhirInstanceValidator;
@@ -36,31 +38,33 @@ import org.hl7.fhir.r4.model.OperationOutcome;
 import org.hl7.fhir.r4.model.OperationOutcome.IssueSeverity;
 import org.hl7.fhir.r4.model.OperationOutcome.OperationOutcomeIssueComponent;
 import org.springframework.stereotype.Component;
-import org.techbd.config.Configuration;
 import org.techbd.config.CoreAppConfig;
 import org.techbd.config.CoreAppConfig.FhirV4Config;
 import org.techbd.exceptions.ErrorCode;
 import org.techbd.exceptions.JsonValidationException;
+import org.techbd.service.fhir.validation.ConformanceSnapshotStore;
 import org.techbd.service.fhir.validation.FhirBundleValidator;
+import org.techbd.service.fhir.validation.FhirBundleValidatorCache;
 import org.techbd.service.fhir.validation.PostPopulateSupport;
 import org.techbd.service.fhir.validation.PrePopulateSupport;
 import org.techbd.util.AppLogger;
 import org.techbd.util.JsonText.JsonTextSerializer;
 import org.techbd.util.TemplateLogger;
 import org.techbd.util.fhir.CoreFHIRUtil;
+import org.techbd.util.fhir.FhirContextProvider;
+import org.techbd.util.fhir.ParsedBundle;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 
 import ca.uhn.fhir.context.FhirContext;
 import ca.uhn.fhir.context.support.DefaultProfileValidationSupport;
-import ca.uhn.fhir.parser.LenientErrorHandler;
 import ca.uhn.fhir.validation.FhirValidator;
 import io.opentelemetry.api.GlobalOpenTelemetry;
 import io.opentelemetry.api.trace.Span;
 import io.opentelemetry.api.trace.Tracer;
+import jakarta.annotation.PreDestroy;
 import jakarta.validation.constraints.NotNull;
 import lombok.Getter;
 import lombok.Setter;
@@ -142,22 +146,32 @@ import lombok.Setter;
 @Setter
 public class OrchestrationEngine {
     private final ConcurrentHashMap<String, OrchestrationSession> sessions;
-    private final Map<ValidationEngineIdentifier, ValidationEngine> validationEngineCache;
+    private final ConcurrentHashMap<ValidationEngineIdentifier, ValidationEngine> validationEngineCache;
     private final CoreAppConfig coreAppConfig;
     private final TemplateLogger LOG;
     private final AppLogger appLogger;
+    private final ValidationExecutor validationExecutor;
     private Tracer tracer;
 
     public OrchestrationEngine(final CoreAppConfig coreAppConfig, AppLogger appLogger) {
         this.sessions = new ConcurrentHashMap<>();
         this.coreAppConfig = coreAppConfig;
-        this.validationEngineCache = new HashMap<>();
+        this.validationEngineCache = new ConcurrentHashMap<>();
         this.tracer = GlobalOpenTelemetry.get().getTracer("OrchestrationEngine");
         LOG = appLogger.getLogger(OrchestrationEngine.class);
         this.appLogger = appLogger;
+        this.validationExecutor = ValidationExecutor.from(coreAppConfig.getFhirValidationConcurrency());
+        LOG.info("OrchestrationEngine:: validation executor mode :{} maxConcurrency :{} engineTimeout :{}",
+                validationExecutor.getMode(), validationExecutor.getMaxConcurrency(),
+                validationExecutor.getEngineTimeout());
         initializeEngines();
     }
 
+    @PreDestroy
+    public void shutdown() {
+        validationExecutor.close();
+    }
+
     private void initializeEngines() {
         LOG.info("OrchestrationEngine:: initializeEngines -BEGIN");
         getOrCreateValidationEngine(ValidationEngineIdentifier.HAPI, coreAppConfig.getIgPackages(),
@@ -203,6 +217,11 @@ public class OrchestrationEngine {
                             .withTracer(tracer)
                             .withAppLogger(appLogger)
                             .withTemplateLogger(LOG)
+                            .withValidatorCacheMaxSize(coreAppConfig.getFhirValidatorCacheMaxSize())
+                            .withValidatorLoadParallelism(coreAppConfig.getFhirValidatorLoadParallelism())
+                            .withConformanceSnapshotStorePath(coreAppConfig.getFhirConformanceSnapshotStorePath())
+                            .withBundleEntryExecutor(validationExecutor.getBundleEntryExecutor())
+                            .withFhirContextProvider(FhirContextProvider.shared())
                             .build();
                 case HL7_EMBEDDED:
                     return new Hl7ValidationEngineEmbedded.Builder().build();
@@ -278,6 +297,16 @@ public class OrchestrationEngine {
         Observability observability();
 
         ValidationResult validate(@NotNull final String payload, final String interactionId , final String requestedIgVersion);
+
+        /**
+         * Validates a payload that earlier stages of the request may already have
+         * parsed. Engines that can reuse the parsed forms override this; by default
+         * the raw text is validated.
+         */
+        default ValidationResult validate(@NotNull final ParsedBundle bundle, final String interactionId,
+                final String requestedIgVersion) {
+            return validate(bundle.getPayload(), interactionId, requestedIgVersion);
+        }
     }
 
     @Getter
@@ -285,19 +314,33 @@ public class OrchestrationEngine {
         private final Observability observability;
         private final Instant engineInitAt = Instant.now();
         private final Instant engineConstructedAt;
-        private String fhirProfileUrl;
+        private final String fhirProfileUrl;
         private final FhirContext fhirContext;
+        private final FhirContextProvider fhirContextProvider;
         private final Map<String, FhirV4Config> igPackages;
-        private String igVersion;
+        private final String igVersion;
         private final Tracer tracer;
         private final AppLogger appLogger;
         private final TemplateLogger LOG;
         private final String interactionId;
         private final List<FhirBundleValidator> fhirBundleValidators;
-        
+        private final FhirBundleValidatorCache fhirBundleValidatorCache;
+        private final ForkJoinPool validatorLoadPool;
+        private final ConformanceSnapshotStore conformanceSnapshotStore;
+        private final ExecutorService bundleEntryExecutor;
+        private final Map<Map<String, String>, NpmPackageValidationSupport> basePackageValidationSupports = new ConcurrentHashMap<>();
+
+        private static final Map<String, String> REQUESTED_IG_VERSION_BASE_PACKAGES = Map.of(
+                "us-core", "ig-packages/fhir-v4/us-core/stu-7.0.0",
+                "sdoh", "ig-packages/fhir-v4/sdoh-clinicalcare/stu-2.2.0",
+                "uv-sdc", "ig-packages/fhir-v4/uv-sdc/stu-3.0.0");
+
         private HapiValidationEngine(final Builder builder) {
             this.fhirProfileUrl = builder.fhirProfileUrl;
-            this.fhirContext = FhirContext.forR4();
+            this.fhirContextProvider = builder.fhirContextProvider != null ? builder.fhirContextProvider
+                    : FhirContextProvider.shared();
+            // the process-wide context, already lenient; built once and shared by all concurrent validations
+            this.fhirContext = fhirContextProvider.getContext();
             this.engineConstructedAt = Instant.now();
             this.observability = new Observability(HapiValidationEngine.class.getName(),
                     "HAPI version %s (FHIR version %s)"
@@ -310,6 +353,13 @@ public class OrchestrationEngine {
             this.LOG = builder.LOG;
             this.interactionId = builder.interactionId;
             this.fhirBundleValidators = new ArrayList<>();
+            this.validatorLoadPool = new ForkJoinPool(builder.validatorLoadParallelism == null
+                    || builder.validatorLoadParallelism <= 0 ? Runtime.getRuntime().availableProcessors()
+                            : builder.validatorLoadParallelism);
+            this.conformanceSnapshotStore = new ConformanceSnapshotStore(builder.conformanceSnapshotStorePath, LOG);
+            this.bundleEntryExecutor = builder.bundleEntryExecutor;
+            this.fhirBundleValidatorCache = new FhirBundleValidatorCache("techbd.fhir.bundle.validators",
+                    builder.validatorCacheMaxSize, validatorLoadPool);
             initializeFhirBundleValidators();
         }
 
@@ -326,24 +376,30 @@ public class OrchestrationEngine {
                     Map<String, String> basePackages = fhirV4Config.getBasePackages();
                     LOG.info("Number of Base Packages to be loaded :{} interactionId :{} ",
                             null == basePackages ? 0 : basePackages.size(), interactionId);
+                    final var loadStartedAt = Instant.now();
+                    final List<CompletableFuture<FhirBundleValidator>> pendingValidators = new ArrayList<>();
                     for (Map<String, String> igPackageMap : shinNyPackages.values()) {
-                        String packagePath = igPackageMap.get("package-path");
-                        String profileBaseUrl = igPackageMap.get("profile-base-url");
-                        String igVersion = igPackageMap.get("ig-version");
+                        pendingValidators.add(CompletableFuture.supplyAsync(() -> {
+                            String packagePath = igPackageMap.get("package-path");
+                            String profileBaseUrl = igPackageMap.get("profile-base-url");
+                            String igVersion = igPackageMap.get("ig-version");
 
-                        LOG.info("Creating FhirBundleValidator for package: {} interactionId :{}", packagePath,
-                                interactionId);
+                            LOG.info("Creating FhirBundleValidator for package: {} interactionId :{}", packagePath,
+                                    interactionId);
 
-                        FhirBundleValidator bundleValidator = FhirBundleValidator.builder()
-                                .fhirContext(FhirContext.forR4())
-                                .fhirValidator(initializeFhirValidator(packagePath, basePackages,profileBaseUrl)) // Pass igPackageMap
-                                                                                                   // directly
-                                .baseFHIRUrl(profileBaseUrl)
-                                .packagePath(packagePath)
-                                .igVersion(igVersion)
-                                .build();
-                        fhirBundleValidators.add(bundleValidator);
+                            return FhirBundleValidator.builder()
+                                    .fhirContext(fhirContext)
+                                    .fhirValidator(initializeFhirValidator(packagePath, basePackages, profileBaseUrl))
+                                    .baseFHIRUrl(profileBaseUrl)
+                                    .packagePath(packagePath)
+                                    .igVersion(igVersion)
+                                    .build();
+                        }, validatorLoadPool));
                     }
+                    pendingValidators.forEach(pending -> fhirBundleValidators.add(pending.join()));
+                    LOG.info("Loaded {} SHIN-NY IG Packages in {} ms with parallelism {} interactionId :{}",
+                            fhirBundleValidators.size(), Duration.between(loadStartedAt, Instant.now()).toMillis(),
+                            validatorLoadPool.getParallelism(), interactionId);
                 } else {
                     LOG.warn("No SHIN-NY IG Packages found in igPackages for interaction id :{}", interactionId);
                 }
@@ -361,6 +417,21 @@ public class OrchestrationEngine {
                 final var supportChain = new ValidationSupportChain();
                 final var defaultSupport = new DefaultProfileValidationSupport(fhirContext);
 
+                final List<String> hashedPackagePaths = new ArrayList<>();
+                if (shinNyPackagePath != null) {
+                    hashedPackagePaths.add(shinNyPackagePath);
+                }
+                if (basePackages != null) {
+                    basePackages.values().stream().sorted().forEach(hashedPackagePaths::add);
+                }
+                final String packageHash = conformanceSnapshotStore.isEnabled()
+                        ? ConformanceSnapshotStore.packageHash(hashedPackagePaths, profileBaseUrl)
+                        : null;
+                final var storedSnapshots = conformanceSnapshotStore.isEnabled()
+                        ? conformanceSnapshotStore.load(fhirContext, packageHash)
+                        : Optional.<PrePopulatedValidationSupport>empty();
+                storedSnapshots.ifPresent(supportChain::addValidationSupport);
+
                 LOG.info("Adding IG Packages to NpmPackageValidationSupport for package : {} interactionId :{} ",
                         shinNyPackagePath, interactionId);
                 var npmPackageValidationSupport = new NpmPackageValidationSupport(fhirContext);
@@ -376,72 +447,114 @@ public class OrchestrationEngine {
                     }
                 }
 
-                // Add hl7Packages
-                if (basePackages != null && !basePackages.isEmpty()) {
-                    LOG.info("Adding Base Packages... interaction id :{}", interactionId);
-                    for (Map.Entry<String, String> entry : basePackages.entrySet()) {
-                        String packageName = entry.getKey();
-                        String packagePath = entry.getValue();
-                        try {
-                            LOG.info("Adding Base Package: {} at {} interactionId :{} ", packageName, packagePath,
-                                    interactionId);
-                            npmPackageValidationSupport.loadPackageFromClasspath(packagePath + "/package.tgz");
-                        } catch (Exception e) {
-                            LOG.error("Failed to load Base package: {} at {} interactionId: {} ", packageName,
-                                    packagePath, interactionId, e);
-                        }
-                    }
-                } else {
-                    LOG.warn("No Base packages defined for interactionId : {}", interactionId);
-                }
-
+                // Base packages are identical for every SHIN-NY version, so they are parsed once and shared.
+                // They were loaded after the SHIN-NY package into the same support and replaced its resources
+                // with the same URL, so they stay ahead of it in the chain.
+                getBasePackageValidationSupport(basePackages).ifPresent(supportChain::addValidationSupport);
                 supportChain.addValidationSupport(npmPackageValidationSupport);
                 supportChain.addValidationSupport(defaultSupport);
                 supportChain.addValidationSupport(new CommonCodeSystemsTerminologyService(fhirContext));
                 supportChain.addValidationSupport(new SnapshotGeneratingValidationSupport(fhirContext));
-                supportChain.addValidationSupport(new InMemoryTerminologyServerValidationSupport(fhirContext));
                 final var prePopulateSupport = new PrePopulateSupport(tracer, appLogger);
+                // Reference code systems come from the process-wide store, ahead of value set expansion
+                supportChain.addValidationSupport(prePopulateSupport.buildCodeSystemSupport(fhirContext));
+                supportChain.addValidationSupport(new InMemoryTerminologyServerValidationSupport(fhirContext));
                 var prePopulatedValidationSupport = prePopulateSupport.build(fhirContext);
-                prePopulateSupport.addCodeSystems(supportChain, prePopulatedValidationSupport);
                 supportChain.addValidationSupport(prePopulatedValidationSupport);
                 prePopulatedValidationSupport = null;
                 final var postPopulateSupport = new PostPopulateSupport(tracer, appLogger);
-                postPopulateSupport.update(supportChain,profileBaseUrl);
+                // PostPopulateSupport amends core value sets that DefaultProfileValidationSupport shares per FhirContext
+                synchronized (fhirContext) {
+                    postPopulateSupport.update(supportChain, profileBaseUrl);
+                }
+                if (packageHash != null && storedSnapshots.isEmpty()) {
+                    conformanceSnapshotStore.store(fhirContext, packageHash, npmPackageValidationSupport,
+                            supportChain);
+                }
                 final var cache = new CachingValidationSupport(supportChain);
                 final var instanceValidator = new FhirInstanceValidator(cache);
                 
                 FhirValidator fhirValidator = fhirContext.newValidator().registerValidatorModule(instanceValidator);
-                // fhirValidator.setConcurrentBundleValidation(true);
-                // ExecutorService executorService = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
-                // fhirValidator.setExecutorService(executorService);
-                return fhirValidator;                
+                if (bundleEntryExecutor != null) {
+                    fhirValidator.setConcurrentBundleValidation(true);
+                    fhirValidator.setExecutorService(bundleEntryExecutor);
+                }
+                return fhirValidator;
             } finally {
                 span.end();
             }
         }
 
-        private String extractProfileUrl(String jsonString) {
-            try {
-                JsonNode rootNode = Configuration.objectMapper.readTree(jsonString);
-                JsonNode metaNode = rootNode.path("meta").path("profile");
-
-                List<String> profileList = Optional.ofNullable(metaNode)
-                        .filter(JsonNode::isArray)
-                        .map(node -> StreamSupport.stream(node.spliterator(), false)
-                                .map(JsonNode::asText)
-                                .collect(Collectors.toList()))
-                        .orElse(List.of());
-
-                return profileList.isEmpty() ? null : profileList.get(0); // Return the first profile URL
-            } catch (Exception e) {
-                LOG.error("Error extracting profile URL from payload for interactionId : {} ", interactionId, e);
+        private Optional<NpmPackageValidationSupport> getBasePackageValidationSupport(
+                final Map<String, String> basePackages) {
+            if (basePackages == null || basePackages.isEmpty()) {
+                LOG.warn("No Base packages defined for interactionId : {}", interactionId);
+                return Optional.empty();
+            }
+            return Optional.of(basePackageValidationSupports.computeIfAbsent(Map.copyOf(basePackages), packages -> {
+                LOG.info("Adding Base Packages... interaction id :{}", interactionId);
+                final var baseSupport = new NpmPackageValidationSupport(fhirContext);
+                for (Map.Entry<String, String> entry : packages.entrySet()) {
+                    String packageName = entry.getKey();
+                    String packagePath = entry.getValue();
+                    try {
+                        LOG.info("Adding Base Package: {} at {} interactionId :{} ", packageName, packagePath,
+                                interactionId);
+                        baseSupport.loadPackageFromClasspath(packagePath + "/package.tgz");
+                    } catch (Exception e) {
+                        LOG.error("Failed to load Base package: {} at {} interactionId: {} ", packageName,
+                                packagePath, interactionId, e);
+                    }
+                }
+                return baseSupport;
+            }));
+        }
+
+        private String extractProfileUrl(final ParsedBundle bundle, final String interactionId) {
+            // isJson answers from the bundle header where it can, without building the Jackson tree
+            if (!bundle.isJson()) {
+                LOG.error("Error extracting profile URL from payload for interactionId : {} ", interactionId);
                 return StringUtils.EMPTY;
             }
+            return bundle.getProfileUrl(); // Return the first profile URL
+        }
+
+        /**
+         * Returns the validator for an IG version requested through the request
+         * header. Validators preloaded at startup are reused as-is; any other
+         * version is built once and kept in {@link #fhirBundleValidatorCache} so
+         * that subsequent requests for it do not reload the IG packages.
+         */
+        private FhirBundleValidator getOrBuildFhirBundleValidator(final String shinNyPackagePath,
+                final String igVersion, final String profileBaseUrl) {
+            final var key = new FhirBundleValidatorCache.Key(shinNyPackagePath, igVersion, profileBaseUrl);
+            return fhirBundleValidatorCache.get(key, k -> fhirBundleValidators.stream()
+                    .filter(validator -> Objects.equals(validator.getPackagePath(), k.packagePath())
+                            && Objects.equals(validator.getIgVersion(), k.igVersion())
+                            && Objects.equals(validator.getBaseFHIRUrl(), k.profileBaseUrl()))
+                    .findFirst()
+                    .orElseGet(() -> {
+                        final var buildStartedAt = Instant.now();
+                        LOG.info("Building FhirBundleValidator for package: {} ig version: {} profile base url: {}",
+                                k.packagePath(), k.igVersion(), k.profileBaseUrl());
+                        final var bundleValidator = FhirBundleValidator.builder()
+                                .fhirContext(fhirContext)
+                                .fhirValidator(initializeFhirValidator(k.packagePath(),
+                                        REQUESTED_IG_VERSION_BASE_PACKAGES, k.profileBaseUrl()))
+                                .baseFHIRUrl(k.profileBaseUrl())
+                                .packagePath(k.packagePath())
+                                .igVersion(k.igVersion())
+                                .build();
+                        LOG.info("Built FhirBundleValidator for package: {} in {} ms (cached validators: {})",
+                                k.packagePath(), Duration.between(buildStartedAt, Instant.now()).toMillis(),
+                                fhirBundleValidatorCache.size());
+                        return bundleValidator;
+                    }));
         }
 
         public FhirBundleValidator findFhirBundleValidator(String profileUrl) {
             return fhirBundleValidators.stream()
-                    .peek(validator -> System.out.println("Checking Profile URL: " + validator.getFhirProfileUrl()))
+                    .peek(validator -> LOG.debug("Checking Profile URL: {}", validator.getFhirProfileUrl()))
                     .filter(validator -> validator.getFhirProfileUrl().equals(profileUrl))
                     .findFirst()
                     .orElse(null);
@@ -453,9 +566,17 @@ public class OrchestrationEngine {
                 FhirContext fhirContext,
                 FhirBundleValidator bundleValidator,
                 String interactionId) {
+            return validateAsBundle(ParsedBundle.of(payload), fhirContext, bundleValidator, interactionId);
+        }
+
+        public ca.uhn.fhir.validation.ValidationResult validateAsBundle(
+                ParsedBundle payload,
+                FhirContext fhirContext,
+                FhirBundleValidator bundleValidator,
+                String interactionId) {
 
             LOG.debug("BUNDLE PAYLOAD parse -BEGIN for interactionId:{}", interactionId);
-            final var bundle = fhirContext.newJsonParser().parseResource(Bundle.class, payload);
+            final Bundle bundle = payload.getBundle(fhirContext);
             LOG.debug("BUNDLE PAYLOAD parse -END for interactionId:{}", interactionId);
 
             final var hapiVR = bundleValidator.getFhirValidator().validateWithResult(bundle);
@@ -468,25 +589,42 @@ public class OrchestrationEngine {
                 FhirContext fhirContext,
                 FhirBundleValidator bundleValidator,
                 String interactionId) {
+            return validateAsRawPayload(ParsedBundle.of(payload), fhirContext, bundleValidator, interactionId);
+        }
+
+        public ca.uhn.fhir.validation.ValidationResult validateAsRawPayload(
+                ParsedBundle payload,
+                FhirContext fhirContext,
+                FhirBundleValidator bundleValidator,
+                String interactionId) {
 
             LOG.debug("RAW PAYLOAD validation -BEGIN for interactionId:{}", interactionId);
-            fhirContext.newJsonParser().parseResource(Bundle.class, payload);
-            final var hapiVR = bundleValidator.getFhirValidator().validateWithResult(payload);
-            ;
+            // the validator parses the raw text itself; only reject non-Bundle input up front,
+            // from the Jackson tree the request has already parsed rather than a second HAPI parse
+            payload.requireBundle();
+            final var hapiVR = bundleValidator.getFhirValidator().validateWithResult(payload.getPayload());
             LOG.debug("RAW PAYLOAD validation -END for interactionId:{}", interactionId);
 
             return hapiVR;
         }
-        
+
         @Override
         public OrchestrationEngine.ValidationResult validate(@NotNull final String payload,
                 final String interactionId, final String requestedIgVersion) {
+            return validate(ParsedBundle.of(payload), interactionId, requestedIgVersion);
+        }
+
+        @Override
+        public OrchestrationEngine.ValidationResult validate(@NotNull final ParsedBundle payload,
+                final String interactionId, final String requestedIgVersion) {
             final var initiatedAt = Instant.now();
             Span span = tracer.spanBuilder("OrchestrationEngine.validate").startSpan();
+            String resolvedProfileUrl = null;
+            String resolvedIgVersion = null;
             try {
                 try {
                     LOG.info("VALIDATOR -BEGIN initiated At : {} for interactionid:{}", initiatedAt, interactionId);
-                    String profileUrl = extractProfileUrl(payload);
+                    String profileUrl = extractProfileUrl(payload, interactionId);
                     LOG.info("Extracted Profile URL: {} for interactionId :{} ", profileUrl, interactionId);
                     FhirBundleValidator bundleValidator;
                     String shinNyPackagePath = null;
@@ -506,26 +644,15 @@ public class OrchestrationEngine {
 
                     if (headerIgVersion != null) {
                         LOG.info("requested IG Version : " + headerIgVersion);
-                        Map<String, String> basePackages = Map.of(
-                                "us-core", "ig-packages/fhir-v4/us-core/stu-7.0.0",
-                                "sdoh", "ig-packages/fhir-v4/sdoh-clinicalcare/stu-2.2.0",
-                                "uv-sdc", "ig-packages/fhir-v4/uv-sdc/stu-3.0.0");
-                        
                         String profileBaseUrl = profileUrl;
                         if (profileUrl != null) {
                             int idx = profileUrl.indexOf("/StructureDefinition/");
                             if (idx != -1) {
                                 profileBaseUrl = profileUrl.substring(0, idx);
                             }
-                        }                                
-                        bundleValidator = FhirBundleValidator.builder()
-                                .fhirContext(FhirContext.forR4())
-                                .fhirValidator(initializeFhirValidator(shinNyPackagePath, basePackages, profileBaseUrl))
-                                .baseFHIRUrl(profileBaseUrl)
-                                .packagePath(shinNyPackagePath)
-                                .igVersion(headerIgVersion)
-                                .build();
-                        fhirBundleValidators.add(bundleValidator);
+                        }
+                        bundleValidator = getOrBuildFhirBundleValidator(shinNyPackagePath, headerIgVersion,
+                                profileBaseUrl);
                     } else {
                         bundleValidator = findFhirBundleValidator(profileUrl);
                     }
@@ -538,104 +665,33 @@ public class OrchestrationEngine {
                                 "Bundle validated against version :{} using package at path: {} for interactionId :{} ",
                                 bundleValidator.getIgVersion(), bundleValidator.getPackagePath(), interactionId);
                     }
-                    this.igVersion = bundleValidator.getIgVersion();
-                                        this.fhirProfileUrl = bundleValidator.getFhirProfileUrl();
-                    fhirContext.setParserErrorHandler(new LenientErrorHandler());
-
-                    final var hapiVR = validateAsRawPayload(payload, fhirContext, bundleValidator, interactionId);
+                    resolvedIgVersion = bundleValidator.getIgVersion();
+                    resolvedProfileUrl = bundleValidator.getFhirProfileUrl();
+
+                    // HAPI only validates bundle entries concurrently for a parsed Bundle, not for raw text;
+                    // a bundle built in memory (e.g. from CSV) is validated as-is instead of re-parsing its text
+                    final var hapiVR = bundleEntryExecutor != null || payload.hasBundle(fhirContext)
+                            ? validateAsBundle(payload, fhirContext, bundleValidator, interactionId)
+                            : validateAsRawPayload(payload, fhirContext, bundleValidator, interactionId);
                     final var completedAt = Instant.now();
-                    LOG.info("VALIDATOR -END completed at :{} ms for interactionId:{} with ig version :{}",
-                            Duration.between(initiatedAt, completedAt).toMillis(), interactionId, igVersion);
-                    this.igVersion = bundleValidator.getIgVersion();  
-                    return new OrchestrationEngine.ValidationResult() {
-                        @Override
-                        @JsonSerialize(using = JsonTextSerializer.class)
-                        public String getOperationOutcome() {
-                            final var jp = FhirContext.forR4Cached().newJsonParser();
-                            OperationOutcome outcome = (OperationOutcome) hapiVR.toOperationOutcome();
-                            return jp.encodeResourceToString(outcome);
-                        }
-
-                        @Override
-                        public boolean isValid() {
-                            return hapiVR.isSuccessful();
-                        }
-
-                        @Override
-                        public String getProfileUrl() {
-                            LOG.info("Profile url in final outcome :{}  for interactionId :{} ",
-                                    HapiValidationEngine.this.fhirProfileUrl, interactionId);
-                            return HapiValidationEngine.this.fhirProfileUrl;
-                        }
-
-                        @Override
-                        public String getIgVersion() {
-                            LOG.info("IG version in final outcome :{}    for interactionId :{} ", igVersion,
-                                    interactionId);
-                            return igVersion;
-                        }
-
-                        @Override
-                        public ValidationEngine.Observability getObservability() {
-                            return observability;
-                        }
-
-                        @Override
-                        public Instant getInitiatedAt() {
-                            return initiatedAt;
-                        }
-
-                        @Override
-                        public Instant getCompletedAt() {
-                            return completedAt;
-                        }
-                    };
-
+                    LOG.info("VALIDATOR -END completed at :{} ms for interactionId:{} with ig version :{} profile url :{}",
+                            Duration.between(initiatedAt, completedAt).toMillis(), interactionId, resolvedIgVersion,
+                            resolvedProfileUrl);
+                    final OperationOutcome outcome = (OperationOutcome) hapiVR.toOperationOutcome();
+                    return new ImmutableValidationResult(initiatedAt, completedAt, resolvedProfileUrl,
+                            resolvedIgVersion, observability, hapiVR.isSuccessful(),
+                            fhirContextProvider.encodeToJson(outcome));
                 } catch (final Exception e) {
                     final var completedAt = Instant.now();
-                    return new OrchestrationEngine.ValidationResult() {
-                        @Override
-                        @JsonSerialize(using = JsonTextSerializer.class)
-                        public String getOperationOutcome() {
-                            OperationOutcome operationOutcome = new OperationOutcome();
-                            OperationOutcomeIssueComponent issue = new OperationOutcomeIssueComponent();
-                            issue.setSeverity(IssueSeverity.FATAL);
-                            issue.setDiagnostics(e.getMessage());
-                            issue.setCode(OperationOutcome.IssueType.EXCEPTION);
-                            operationOutcome.addIssue(issue);
-                            return FhirContext.forR4().newJsonParser().encodeResourceToString(operationOutcome);
-                        }
-
-                        @Override
-                        public boolean isValid() {
-                            return false;
-                        }
-
-                        @Override
-                        public String getProfileUrl() {
-                            return HapiValidationEngine.this.fhirProfileUrl;
-                        }
-
-                        @Override
-                        public String getIgVersion() {
-                            return igVersion;
-                        }
-
-                        @Override
-                        public ValidationEngine.Observability getObservability() {
-                            return observability;
-                        }
-
-                        @Override
-                        public Instant getInitiatedAt() {
-                            return initiatedAt;
-                        }
-
-                        @Override
-                        public Instant getCompletedAt() {
-                            return completedAt;
-                        }
-                    };
+                    OperationOutcome operationOutcome = new OperationOutcome();
+                    OperationOutcomeIssueComponent issue = new OperationOutcomeIssueComponent();
+                    issue.setSeverity(IssueSeverity.FATAL);
+                    issue.setDiagnostics(e.getMessage());
+                    issue.setCode(OperationOutcome.IssueType.EXCEPTION);
+                    operationOutcome.addIssue(issue);
+                    return new ImmutableValidationResult(initiatedAt, completedAt, resolvedProfileUrl,
+                            resolvedIgVersion, observability, false,
+                            fhirContextProvider.encodeToJson(operationOutcome));
                 }
             } finally {
                 span.end();
@@ -651,6 +707,11 @@ public class OrchestrationEngine {
             private Tracer tracer;
             private AppLogger appLogger;
             private TemplateLogger LOG;
+            private Integer validatorCacheMaxSize;
+            private Integer validatorLoadParallelism;
+            private String conformanceSnapshotStorePath;
+            private ExecutorService bundleEntryExecutor;
+            private FhirContextProvider fhirContextProvider;
 
             public Builder withInteractionId(@NotNull final String interactionId) {
                 this.interactionId = interactionId;
@@ -662,6 +723,31 @@ public class OrchestrationEngine {
                 return this;
             }
 
+            public Builder withValidatorCacheMaxSize(final Integer validatorCacheMaxSize) {
+                this.validatorCacheMaxSize = validatorCacheMaxSize;
+                return this;
+            }
+
+            public Builder withValidatorLoadParallelism(final Integer validatorLoadParallelism) {
+                this.validatorLoadParallelism = validatorLoadParallelism;
+                return this;
+            }
+
+            public Builder withFhirContextProvider(final FhirContextProvider fhirContextProvider) {
+                this.fhirContextProvider = fhirContextProvider;
+                return this;
+            }
+
+            public Builder withBundleEntryExecutor(final ExecutorService bundleEntryExecutor) {
+                this.bundleEntryExecutor = bundleEntryExecutor;
+                return this;
+            }
+
+            public Builder withConformanceSnapshotStorePath(final String conformanceSnapshotStorePath) {
+                this.conformanceSnapshotStorePath = conformanceSnapshotStorePath;
+                return this;
+            }
+
             public Builder withIgPackages(@NotNull final Map<String, FhirV4Config> igPackages) {
                 this.igPackages = igPackages;
                 return this;
@@ -912,6 +998,85 @@ public class OrchestrationEngine {
         }
     }
 
+    /**
+     * Builds a FATAL result for a validation that never produced its own
+     * result, e.g. because it timed out on the {@link ValidationExecutor}.
+     */
+    static ValidationResult failedValidationResult(final ValidationEngine engine, final Instant initiatedAt,
+            final String diagnostics) {
+        OperationOutcome operationOutcome = new OperationOutcome();
+        OperationOutcomeIssueComponent issue = new OperationOutcomeIssueComponent();
+        issue.setSeverity(IssueSeverity.FATAL);
+        issue.setDiagnostics(diagnostics);
+        issue.setCode(OperationOutcome.IssueType.EXCEPTION);
+        operationOutcome.addIssue(issue);
+        return new ImmutableValidationResult(initiatedAt, Instant.now(), null, null, engine.observability(), false,
+                FhirContextProvider.shared().encodeToJson(operationOutcome));
+    }
+
+    /**
+     * {@link ValidationResult} whose values are all captured when validation
+     * completes. Engines are shared by concurrent requests, so results must not
+     * read anything back from the engine after the fact.
+     */
+    public static final class ImmutableValidationResult implements ValidationResult {
+        private final Instant initiatedAt;
+        private final Instant completedAt;
+        private final String profileUrl;
+        private final String igVersion;
+        private final ValidationEngine.Observability observability;
+        private final boolean valid;
+        private final String operationOutcome;
+
+        public ImmutableValidationResult(final Instant initiatedAt, final Instant completedAt,
+                final String profileUrl, final String igVersion, final ValidationEngine.Observability observability,
+                final boolean valid, final String operationOutcome) {
+            this.initiatedAt = initiatedAt;
+            this.completedAt = completedAt;
+            this.profileUrl = profileUrl;
+            this.igVersion = igVersion;
+            this.observability = observability;
+            this.valid = valid;
+            this.operationOutcome = operationOutcome;
+        }
+
+        @Override
+        @JsonSerialize(using = JsonTextSerializer.class)
+        public String getOperationOutcome() {
+            return operationOutcome;
+        }
+
+        @Override
+        public boolean isValid() {
+            return valid;
+        }
+
+        @Override
+        public String getProfileUrl() {
+            return profileUrl;
+        }
+
+        @Override
+        public String getIgVersion() {
+            return igVersion;
+        }
+
+        @Override
+        public ValidationEngine.Observability getObservability() {
+            return observability;
+        }
+
+        @Override
+        public Instant getInitiatedAt() {
+            return initiatedAt;
+        }
+
+        @Override
+        public Instant getCompletedAt() {
+            return completedAt;
+        }
+    }
+
     public record Device(String deviceId, String deviceName) {
         public static final Device INSTANCE = createDefault();
 
@@ -931,28 +1096,36 @@ public class OrchestrationEngine {
         private final String sessionId;
         private final Device device;
         private final List<String> payloads;
+        private final List<ParsedBundle> parsedPayloads;
         private final List<ValidationEngine> validationEngines;
         private final List<ValidationResult> validationResults;
         private final String fhirProfileUrl;
         private String igVersion;
         private String interactionId;
         private String requestedIgVersion;
+        private final ValidationExecutor validationExecutor;
 
         private OrchestrationSession(final Builder builder) {
             this.sessionId = builder.sessionId;
-            this.payloads = Collections.unmodifiableList(builder.payloads);
+            this.parsedPayloads = Collections.unmodifiableList(builder.payloads);
+            this.payloads = parsedPayloads.stream().map(ParsedBundle::getPayload).toList();
             this.validationEngines = Collections.unmodifiableList(builder.validationEngines);
             this.validationResults = new ArrayList<>();
             this.fhirProfileUrl = builder.fhirProfileUrl;
             this.device = builder.device;
             this.interactionId = builder.interactionId;
             this.requestedIgVersion = builder.requestedIgVersion;
+            this.validationExecutor = builder.engine.getValidationExecutor();
         }
 
         public List<String> getPayloads() {
             return payloads;
         }
 
+        public List<ParsedBundle> getParsedPayloads() {
+            return parsedPayloads;
+        }
+
         public List<ValidationEngine> getValidationEngines() {
             return validationEngines;
         }
@@ -982,17 +1155,53 @@ public class OrchestrationEngine {
         }
 
         public void validate() {
-            for (final String payload : payloads) {
+            if (validationExecutor == null || !validationExecutor.isConcurrent()
+                    || payloads.size() * validationEngines.size() < 2) {
+                for (final ParsedBundle payload : parsedPayloads) {
+                    for (final ValidationEngine engine : validationEngines) {
+                        final ValidationResult result = engine.validate(payload, interactionId, requestedIgVersion);
+                        validationResults.add(result);
+                    }
+                }
+                return;
+            }
+            final List<CompletableFuture<ValidationResult>> pending = new ArrayList<>();
+            final List<ValidationEngine> pendingEngines = new ArrayList<>();
+            final List<Instant> submittedAt = new ArrayList<>();
+            for (final ParsedBundle payload : parsedPayloads) {
                 for (final ValidationEngine engine : validationEngines) {
-                    final ValidationResult result = engine.validate(payload, interactionId, requestedIgVersion);
-                    validationResults.add(result);
+                    submittedAt.add(Instant.now());
+                    pendingEngines.add(engine);
+                    pending.add(validationExecutor
+                            .submit(() -> engine.validate(payload, interactionId, requestedIgVersion)));
+                }
+            }
+            for (int i = 0; i < pending.size(); i++) {
+                // each task times out on its own, counted from when it started running
+                try {
+                    validationResults.add(pending.get(i).get());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    for (int j = i; j < pending.size(); j++) {
+                        pending.get(j).cancel(true);
+                        validationResults.add(failedValidationResult(pendingEngines.get(j), submittedAt.get(j),
+                                "Validation interrupted"));
+                    }
+                    return;
+                } catch (ExecutionException e) {
+                    validationResults.add(failedValidationResult(pendingEngines.get(i), submittedAt.get(i),
+                            e.getCause() instanceof TimeoutException
+                                    ? "Validation by %s did not complete within %s"
+                                            .formatted(pendingEngines.get(i).observability().name(),
+                                                    validationExecutor.getEngineTimeout())
+                                    : String.valueOf(e.getCause())));
                 }
             }
         }
 
         public static class Builder {
             private final OrchestrationEngine engine;
-            private final List<String> payloads = new ArrayList<>();
+            private final List<ParsedBundle> payloads = new ArrayList<>();
             private final List<ValidationEngine> validationEngines = new ArrayList<>();
             private Device device = Device.INSTANCE;
             private String fhirProfileUrl;
@@ -1020,6 +1229,15 @@ public class OrchestrationEngine {
             }
 
             public Builder withPayloads(@NotNull final List<String> payloads) {
+                payloads.forEach(payload -> this.payloads.add(ParsedBundle.of(payload)));
+                return this;
+            }
+
+            /**
+             * Adds payloads already parsed by earlier stages of the request so the
+             * engines can reuse them instead of parsing the raw text again.
+             */
+            public Builder withParsedPayloads(@NotNull final List<ParsedBundle> payloads) {
                 this.payloads.addAll(payloads);
                 return this;
             }
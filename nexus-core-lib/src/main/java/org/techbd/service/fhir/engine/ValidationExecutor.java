@@ -0,0 +1,202 @@
+package org.techbd.service.fhir.engine;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.techbd.config.CoreAppConfig.FhirValidationConcurrency;
+
+/**
+ * Executes FHIR validation work for {@link OrchestrationEngine} according to
+ * the configured {@link Mode}.
+ * <p>
+ * In {@link Mode#SEQUENTIAL} (the default) nothing is offloaded and sessions
+ * validate on the caller thread exactly as before. The concurrent modes run
+ * each (payload, engine) pair of a session on either virtual threads or a
+ * bounded platform pool. Submissions are throttled by a semaphore of
+ * {@code maxConcurrency} permits shared by all sessions, so callers block
+ * (back-pressure) instead of queueing unbounded work, and each task is given
+ * {@code engineTimeout} from the moment it starts to complete.
+ * <p>
+ * When {@code concurrentBundleValidation} is enabled a separate executor is
+ * exposed for HAPI's per-entry bundle validation. It is kept apart from the
+ * session executor so that a session task waiting on its bundle entries can
+ * never starve the pool it is running on.
+ */
+public class ValidationExecutor implements AutoCloseable {
+
+    public enum Mode {
+        SEQUENTIAL, VIRTUAL_THREADS, PLATFORM_POOL;
+
+        public static Mode from(final String value) {
+            if (value == null || value.isBlank()) {
+                return SEQUENTIAL;
+            }
+            return Mode.valueOf(value.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+        }
+    }
+
+    public static final int DEFAULT_MAX_CONCURRENCY = Runtime.getRuntime().availableProcessors();
+    public static final Duration DEFAULT_ENGINE_TIMEOUT = Duration.ofMinutes(5);
+
+    private final Mode mode;
+    private final int maxConcurrency;
+    private final Duration engineTimeout;
+    private final Semaphore permits;
+    private final ExecutorService sessionExecutor;
+    private final ExecutorService bundleEntryExecutor;
+
+    public ValidationExecutor(final Mode mode, final Integer maxConcurrency, final Duration engineTimeout,
+            final boolean concurrentBundleValidation) {
+        this.mode = mode == null ? Mode.SEQUENTIAL : mode;
+        this.maxConcurrency = maxConcurrency == null || maxConcurrency <= 0 ? DEFAULT_MAX_CONCURRENCY
+                : maxConcurrency;
+        this.engineTimeout = engineTimeout == null || engineTimeout.isZero() || engineTimeout.isNegative()
+                ? DEFAULT_ENGINE_TIMEOUT
+                : engineTimeout;
+        this.permits = new Semaphore(this.maxConcurrency);
+        this.sessionExecutor = newExecutor("fhir-validation-");
+        this.bundleEntryExecutor = concurrentBundleValidation
+                ? (this.mode == Mode.SEQUENTIAL ? newExecutor(Mode.PLATFORM_POOL, "fhir-bundle-entry-")
+                        : newExecutor("fhir-bundle-entry-"))
+                : null;
+    }
+
+    public static ValidationExecutor from(final FhirValidationConcurrency config) {
+        if (config == null) {
+            return new ValidationExecutor(Mode.SEQUENTIAL, null, null, false);
+        }
+        return new ValidationExecutor(Mode.from(config.executorMode()), config.maxConcurrency(),
+                config.engineTimeoutSeconds() == null ? null : Duration.ofSeconds(config.engineTimeoutSeconds()),
+                config.concurrentBundleValidation());
+    }
+
+    private ExecutorService newExecutor(final String threadNamePrefix) {
+        return newExecutor(mode, threadNamePrefix);
+    }
+
+    private ExecutorService newExecutor(final Mode executorMode, final String threadNamePrefix) {
+        return switch (executorMode) {
+            case SEQUENTIAL -> null;
+            case VIRTUAL_THREADS -> Executors.newThreadPerTaskExecutor(
+                    Thread.ofVirtual().name(threadNamePrefix, 0).factory());
+            case PLATFORM_POOL -> Executors.newFixedThreadPool(maxConcurrency, daemonThreadFactory(threadNamePrefix));
+        };
+    }
+
+    private static ThreadFactory daemonThreadFactory(final String threadNamePrefix) {
+        final AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            final Thread thread = new Thread(runnable, threadNamePrefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    public boolean isConcurrent() {
+        return sessionExecutor != null;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public Duration getEngineTimeout() {
+        return engineTimeout;
+    }
+
+    /**
+     * Executor for HAPI concurrent bundle validation, or {@code null} when
+     * bundles are validated as a whole on the calling thread.
+     */
+    public ExecutorService getBundleEntryExecutor() {
+        return bundleEntryExecutor;
+    }
+
+    /**
+     * Runs {@code task} on the session executor once a permit is available,
+     * blocking the caller while {@code maxConcurrency} tasks are in flight.
+     * <p>
+     * The returned future fails with a {@link TimeoutException} when the task
+     * has not finished {@code engineTimeout} after it started running.
+     * Timing out or cancelling the returned future interrupts the task and
+     * releases its permit straight away.
+     */
+    public <T> CompletableFuture<T> submit(final Supplier<T> task) {
+        if (!isConcurrent()) {
+            return CompletableFuture.completedFuture(task.get());
+        }
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(e);
+        }
+        final AtomicBoolean released = new AtomicBoolean();
+        final Runnable release = () -> {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        };
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        final FutureTask<T> running = new FutureTask<>(() -> {
+            result.orTimeout(engineTimeout.toNanos(), TimeUnit.NANOSECONDS);
+            return task.get();
+        }) {
+            @Override
+            protected void done() {
+                release.run();
+                if (isCancelled()) {
+                    result.cancel(false);
+                    return;
+                }
+                try {
+                    result.complete(get());
+                } catch (ExecutionException e) {
+                    result.completeExceptionally(e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    result.completeExceptionally(e);
+                }
+            }
+        };
+        result.whenComplete((value, error) -> {
+            if (!running.isDone()) {
+                running.cancel(true);
+            }
+            release.run();
+        });
+        try {
+            sessionExecutor.execute(running);
+        } catch (RuntimeException e) {
+            release.run();
+            throw e;
+        }
+        return result;
+    }
+
+    @Override
+    public void close() {
+        if (sessionExecutor != null) {
+            sessionExecutor.shutdownNow();
+        }
+        if (bundleEntryExecutor != null) {
+            bundleEntryExecutor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package org.techbd.service.fhir.validation;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+import org.hl7.fhir.common.hapi.validation.support.PrePopulatedValidationSupport;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.StructureDefinition;
+import org.hl7.fhir.r4.model.ValueSet;
+import org.techbd.util.TemplateLogger;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.context.support.IValidationSupport;
+import ca.uhn.fhir.context.support.ValidationSupportContext;
+
+/**
+ * Optional on-disk store of StructureDefinition snapshots and pre-expanded
+ * ValueSets generated for an IG package.
+ * <p>
+ * Entries are keyed by a SHA-256 hash over the IG {@code package.tgz} files a
+ * validator is built from, its profile base URL, {@link #FORMAT_VERSION} and
+ * the checksum of the compiled {@link TerminologyIndex}, so a changed package,
+ * base URL, store layout or reference terminology produces a new key and
+ * stale entries are simply never read again. On a warm start the stored resources
+ * are served from a {@link PrePopulatedValidationSupport} placed ahead of the
+ * package support in the validation chain, which lets the validator skip
+ * snapshot regeneration. When no store directory is configured the store is
+ * disabled and every call is a no-op.
+ */
+public class ConformanceSnapshotStore {
+
+    /** Bump whenever what {@link #store} generates changes, to invalidate existing entries. */
+    public static final int FORMAT_VERSION = 1;
+
+    private final Path storeDirectory;
+    private final TemplateLogger LOG;
+
+    public ConformanceSnapshotStore(final String storeDirectory, final TemplateLogger LOG) {
+        this.storeDirectory = storeDirectory == null || storeDirectory.isBlank() ? null : Path.of(storeDirectory);
+        this.LOG = LOG;
+    }
+
+    public boolean isEnabled() {
+        return storeDirectory != null;
+    }
+
+    /**
+     * Computes the store key for a validator built from the given classpath
+     * package directories (each containing a {@code package.tgz}) for
+     * {@code profileBaseUrl}.
+     */
+    public static String packageHash(final List<String> packagePaths, final String profileBaseUrl) {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(("format:" + FORMAT_VERSION + "\n").getBytes(StandardCharsets.UTF_8));
+            digest.update(("profile-base-url:" + Objects.toString(profileBaseUrl, "") + "\n")
+                    .getBytes(StandardCharsets.UTF_8));
+            digest.update(("terminology:" + TerminologyIndex.shared().map(TerminologyIndex::sourceChecksum)
+                    .orElse("none") + "\n").getBytes(StandardCharsets.UTF_8));
+            final byte[] buffer = new byte[64 * 1024];
+            for (String packagePath : packagePaths) {
+                digest.update(packagePath.getBytes(StandardCharsets.UTF_8));
+                try (InputStream in = ConformanceSnapshotStore.class.getClassLoader()
+                        .getResourceAsStream(packagePath + "/package.tgz")) {
+                    if (in == null) {
+                        continue;
+                    }
+                    int read;
+                    while ((read = in.read(buffer)) != -1) {
+                        digest.update(buffer, 0, read);
+                    }
+                }
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException | IOException e) {
+            throw new IllegalStateException("Unable to hash IG packages " + packagePaths, e);
+        }
+    }
+
+    public Optional<PrePopulatedValidationSupport> load(final FhirContext fhirContext, final String packageHash) {
+        if (!isEnabled()) {
+            return Optional.empty();
+        }
+        final Path file = storeDirectory.resolve(packageHash + ".json");
+        if (!Files.isRegularFile(file)) {
+            LOG.info("No stored conformance snapshots for package hash {}", packageHash);
+            return Optional.empty();
+        }
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            final Bundle bundle = fhirContext.newJsonParser().parseResource(Bundle.class, reader);
+            final var support = new PrePopulatedValidationSupport(fhirContext);
+            bundle.getEntry().forEach(entry -> support.addResource(entry.getResource()));
+            LOG.info("Loaded {} stored conformance resources for package hash {}", bundle.getEntry().size(),
+                    packageHash);
+            return Optional.of(support);
+        } catch (Exception e) {
+            LOG.warn("Ignoring unreadable conformance snapshot store entry {}", file, e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Generates snapshots for every StructureDefinition and expansions for every
+     * ValueSet in {@code packageSupport}, resolving dependencies through
+     * {@code validationSupport}, and writes them under {@code packageHash}.
+     * Resources that cannot be generated are skipped; the validator falls back
+     * to generating them lazily as before.
+     */
+    public void store(final FhirContext fhirContext, final String packageHash,
+            final IValidationSupport packageSupport, final IValidationSupport validationSupport) {
+        if (!isEnabled()) {
+            return;
+        }
+        final var context = new ValidationSupportContext(validationSupport);
+        final Bundle bundle = new Bundle().setType(Bundle.BundleType.COLLECTION);
+        final List<IBaseResource> resources = packageSupport.fetchAllConformanceResources();
+        if (resources == null) {
+            return;
+        }
+        for (IBaseResource resource : resources) {
+            try {
+                if (resource instanceof StructureDefinition structureDefinition) {
+                    IBaseResource generated = structureDefinition.hasSnapshot() ? structureDefinition
+                            : validationSupport.generateSnapshot(context, structureDefinition.copy(),
+                                    structureDefinition.getUrl(), null, structureDefinition.getName());
+                    if (generated instanceof StructureDefinition withSnapshot && withSnapshot.hasSnapshot()) {
+                        bundle.addEntry().setResource(withSnapshot);
+                    }
+                } else if (resource instanceof ValueSet valueSet) {
+                    final var outcome = validationSupport.expandValueSet(context, null, valueSet);
+                    if (outcome != null && outcome.getValueSet() instanceof ValueSet expansion
+                            && outcome.getError() == null) {
+                        final ValueSet expanded = valueSet.copy();
+                        expanded.setExpansion(expansion.getExpansion());
+                        bundle.addEntry().setResource(expanded);
+                    }
+                }
+            } catch (Exception e) {
+                LOG.debug("Skipping conformance resource {} for package hash {}", resource.getIdElement(),
+                        packageHash, e);
+            }
+        }
+        try {
+            Files.createDirectories(storeDirectory);
+            final Path tmp = Files.createTempFile(storeDirectory, packageHash, ".tmp");
+            try (Writer writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                fhirContext.newJsonParser().encodeResourceToWriter(bundle, writer);
+            }
+            Files.move(tmp, storeDirectory.resolve(packageHash + ".json"), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            LOG.info("Stored {} conformance resources for package hash {}", bundle.getEntry().size(), packageHash);
+        } catch (IOException e) {
+            LOG.warn("Unable to write conformance snapshot store entry for package hash {}", packageHash, e);
+        }
+    }
+}
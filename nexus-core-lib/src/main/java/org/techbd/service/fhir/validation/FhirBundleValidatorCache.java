@@ -0,0 +1,86 @@
+package org.techbd.service.fhir.validation;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Bounded cache of {@link FhirBundleValidator} instances keyed by SHIN-NY IG
+ * package path, IG version and profile base URL.
+ * <p>
+ * Building a validator loads and snapshots the IG {@code package.tgz} files,
+ * which takes seconds and a large amount of heap; only the reference
+ * terminology in {@link TerminologyStore} is shared between validators. The
+ * cache guarantees that a given key is built only once even when many
+ * requests ask for it at the same time (callers for the same key wait on the
+ * same in-flight build), evicts the least valuable entries once
+ * {@code maximumSize} is reached and publishes hit, miss, eviction and
+ * build-time statistics through Micrometer under the {@code cache.*} meters
+ * tagged with the cache name.
+ */
+public class FhirBundleValidatorCache {
+
+    public static final int DEFAULT_MAXIMUM_SIZE = 8;
+
+    public record Key(String packagePath, String igVersion, String profileBaseUrl) {
+    }
+
+    private final AsyncCache<Key, FhirBundleValidator> cache;
+
+    public FhirBundleValidatorCache(final String cacheName, final Integer maximumSize) {
+        this(cacheName, maximumSize, ForkJoinPool.commonPool());
+    }
+
+    public FhirBundleValidatorCache(final String cacheName, final Integer maximumSize, final Executor buildExecutor) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize == null || maximumSize <= 0 ? DEFAULT_MAXIMUM_SIZE : maximumSize)
+                .executor(buildExecutor)
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(Metrics.globalRegistry, cache.synchronous(), cacheName);
+    }
+
+    /**
+     * Returns the validator for {@code key}, building it with {@code builder} on
+     * a miss. Concurrent callers for the same key share a single build; a failed
+     * build is not cached so the next caller retries it.
+     */
+    public FhirBundleValidator get(final Key key, final Function<Key, FhirBundleValidator> builder) {
+        try {
+            return cache.get(key, builder).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    public FhirBundleValidator getIfPresent(final Key key) {
+        return cache.synchronous().getIfPresent(key);
+    }
+
+    public long size() {
+        return cache.synchronous().estimatedSize();
+    }
+
+    public CacheStats stats() {
+        return cache.synchronous().stats();
+    }
+
+    public void cleanUp() {
+        cache.synchronous().cleanUp();
+    }
+
+    public void invalidateAll() {
+        cache.synchronous().invalidateAll();
+    }
+}
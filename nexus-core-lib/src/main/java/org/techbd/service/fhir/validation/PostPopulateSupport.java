@@ -1,5 +1,8 @@
 package org.techbd.service.fhir.validation;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.hl7.fhir.common.hapi.validation.support.ValidationSupportChain;
 import org.hl7.fhir.r4.model.ValueSet;
 import org.techbd.util.AppLogger;
@@ -37,8 +40,7 @@ public class PostPopulateSupport {
                     .fetchValueSet("http://hl7.org/fhir/ValueSet/observation-codes");
             try {
                 loinc_valueSet.getCompose().addInclude(new ValueSet.ConceptSetComponent()
-                        .setConcept(
-                                ConceptReaderUtils.getValueSetConcepts_wCode(referenceCodesPath.concat("loinc.psv")))
+                        .setConcept(valueSetConcepts(TerminologyStore.shared().codeTable(TerminologyStore.LOINC)))
                         .setSystem("http://loinc.org"));
 
                 loinc_valueSet.getCompose().addInclude(new ValueSet.ConceptSetComponent()
@@ -54,4 +56,12 @@ public class PostPopulateSupport {
         LOG.info("PrePopulateSupport:addObservationLoincCodes  -BEGIN");
     }
 
+    private static List<ValueSet.ConceptReferenceComponent> valueSetConcepts(TerminologyStore.CodeTable codeTable) {
+        List<ValueSet.ConceptReferenceComponent> concepts = new ArrayList<>(codeTable.size());
+        for (int index = 0; index < codeTable.size(); index++) {
+            concepts.add(new ValueSet.ConceptReferenceComponent().setCode(codeTable.code(index)));
+        }
+        return concepts;
+    }
+
 }
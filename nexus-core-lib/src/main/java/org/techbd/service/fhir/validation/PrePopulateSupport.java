@@ -6,13 +6,11 @@ import java.util.List;
 import java.util.Map;
 
 import org.hl7.fhir.common.hapi.validation.support.PrePopulatedValidationSupport;
-import org.hl7.fhir.common.hapi.validation.support.ValidationSupportChain;
-import org.hl7.fhir.r4.model.CodeSystem;
+import org.hl7.fhir.r4.model.DateTimeType;
 import org.hl7.fhir.r4.model.Enumerations;
 import org.hl7.fhir.r4.model.ValueSet;
 import org.techbd.util.AppLogger;
 import org.techbd.util.TemplateLogger;
-import org.techbd.util.fhir.ConceptReaderUtils;
 import org.techbd.util.fhir.FileUtils;
 
 import ca.uhn.fhir.context.FhirContext;
@@ -21,7 +19,6 @@ import io.opentelemetry.api.trace.Tracer;
 
 public class PrePopulateSupport {
 
-    private final String referenceCodesPath = "ig-packages/reference/";
     private final Tracer tracer;
     private final TemplateLogger LOG;
 
@@ -42,108 +39,22 @@ public class PrePopulateSupport {
         }
     }
 
-    public void addCodeSystems(ValidationSupportChain validationSupportChain,
-            PrePopulatedValidationSupport prePopulatedValidationSupport) {
-        Span span = tracer.spanBuilder("PrePopulateSupport.addCodeSystems").startSpan();
-        try {
-            addSnomedCodes(validationSupportChain, prePopulatedValidationSupport);
-            addICD10Codes(validationSupportChain, prePopulatedValidationSupport);
-            addCPTCodes(validationSupportChain, prePopulatedValidationSupport);
-            addHCPCSCodes(validationSupportChain, prePopulatedValidationSupport);
-            addLoincCodes(validationSupportChain, prePopulatedValidationSupport);
-        } finally {
-            span.end();
-        }
-    }
-
-    private void addCPTCodes(ValidationSupportChain validationSupportChain,
-            PrePopulatedValidationSupport prePopulatedValidationSupport) {
-        LOG.info("PrePopulateSupport:addCPTCodes  -BEGIN");
-        CodeSystem existCpt = (CodeSystem) validationSupportChain.fetchCodeSystem("http://www.ama-assn.org/go/cpt");
-        if (existCpt == null) {
-            CodeSystem newCpt = new CodeSystem();
-            newCpt.setUrl("http://www.ama-assn.org/go/cpt");
-            newCpt.setConcept(ConceptReaderUtils.getCodeSystemConcepts_wCode(referenceCodesPath.concat("cpt.psv")));
-            newCpt.setContent(CodeSystem.CodeSystemContentMode.COMPLETE);
-            prePopulatedValidationSupport.addCodeSystem(newCpt);
-        } else {
-            existCpt.setContent(CodeSystem.CodeSystemContentMode.COMPLETE);
-            existCpt.getConcept()
-                    .addAll(ConceptReaderUtils.getCodeSystemConcepts_wCode(referenceCodesPath.concat("cpt.psv")));
-        }
-        LOG.info("PrePopulateSupport:addCPTCodes  -END");
-    }
-
-    private void addHCPCSCodes(ValidationSupportChain validationSupportChain,
-            PrePopulatedValidationSupport prePopulatedValidationSupport) {
-        LOG.info("PrePopulateSupport:addHCPCSCodes  -BEGIN");
-        CodeSystem existHCPCS = (CodeSystem) validationSupportChain.fetchCodeSystem("urn:oid:2.16.840.1.113883.6.285");
-        // CodeSystem existHCPCS = (CodeSystem)
-        // validationSupportChain.fetchCodeSystem("https://www.cms.gov/Medicare/Coding/HCPCSReleaseCodeSets");
-        if (existHCPCS == null) {
-            CodeSystem newHCPCS = new CodeSystem();
-            // newHCPCS.setUrl("https://www.cms.gov/Medicare/Coding/HCPCSReleaseCodeSets");
-            newHCPCS.setUrl("urn:oid:2.16.840.1.113883.6.285");
-            newHCPCS.setConcept(ConceptReaderUtils.getCodeSystemConcepts_wCode(referenceCodesPath.concat("hcpcs.psv")));
-            newHCPCS.setContent(CodeSystem.CodeSystemContentMode.COMPLETE);
-            prePopulatedValidationSupport.addCodeSystem(newHCPCS);
-        } else {
-            existHCPCS.setContent(CodeSystem.CodeSystemContentMode.COMPLETE);
-            existHCPCS.getConcept()
-                    .addAll(ConceptReaderUtils.getCodeSystemConcepts_wCode(referenceCodesPath.concat("hcpcs.psv")));
-        }
-        LOG.info("PrePopulateSupport:addHCPCSCodes  -END");
-    }
-
-    private void addICD10Codes(ValidationSupportChain validationSupportChain,
-            PrePopulatedValidationSupport prePopulatedValidationSupport) {
-        LOG.info("PrePopulateSupport:addICD10Codes  -BEGIN");
-        Span span = tracer.spanBuilder("PrePopulateSupport.addICD10Codes").startSpan();
-        try {
-            CodeSystem existingIcd10 = (CodeSystem) validationSupportChain
-                    .fetchCodeSystem("http://hl7.org/fhir/sid/icd-10-cm");
-            if (existingIcd10 == null) {
-                CodeSystem newIcd10 = new CodeSystem();
-                newIcd10.setUrl("http://hl7.org/fhir/sid/icd-10-cm");
-                newIcd10.setConcept(ConceptReaderUtils.getCodeSystemConcepts_wCode(referenceCodesPath + "icd10cm.psv"));
-                newIcd10.setContent(CodeSystem.CodeSystemContentMode.COMPLETE);
-                prePopulatedValidationSupport.addCodeSystem(newIcd10);
-            } else {
-                if (existingIcd10.getConcept().isEmpty()) {
-                    existingIcd10.getConcept()
-                            .addAll(ConceptReaderUtils.getCodeSystemConcepts_wCode(referenceCodesPath + "icd10cm.psv"));
-                }
-                existingIcd10.setContent(CodeSystem.CodeSystemContentMode.COMPLETE);
-            }
-        } finally {
-            span.end();
-        }
-        LOG.info("PrePopulateSupport:addICD10Codes  -END");
-    }
-
-    private void addSnomedCodes(ValidationSupportChain validationSupportChain,
-            PrePopulatedValidationSupport prePopulatedValidationSupport) {
-        LOG.info("PrePopulateSupport:addSnomedCodes  -BEGIN");
-        Span span = tracer.spanBuilder("PrePopulateSupport.addSnomedCodes").startSpan();
+    /**
+     * The SNOMED, ICD-10-CM, CPT, HCPCS and LOINC codes shipped under
+     * {@code ig-packages/reference}, served from the process-wide
+     * {@link TerminologyStore}. The store is read from the classpath by the
+     * first validator built and shared by every later one.
+     */
+    public TerminologyValidationSupport buildCodeSystemSupport(FhirContext fhirContext) {
+        Span span = tracer.spanBuilder("PrePopulateSupport.buildCodeSystemSupport").startSpan();
         try {
-            CodeSystem existingSnomed = (CodeSystem) validationSupportChain.fetchCodeSystem("http://snomed.info/sct");
-            if (existingSnomed == null) {
-                CodeSystem newSnomed = new CodeSystem();
-                newSnomed.setUrl("http://snomed.info/sct");
-                newSnomed.setConcept(ConceptReaderUtils.getCodeSystemConcepts_wCode(referenceCodesPath + "snomed.psv"));
-                newSnomed.setContent(CodeSystem.CodeSystemContentMode.COMPLETE);
-                prePopulatedValidationSupport.addCodeSystem(newSnomed);
-            } else {
-                if (existingSnomed.getConcept().isEmpty()) {
-                    existingSnomed.getConcept()
-                            .addAll(ConceptReaderUtils.getCodeSystemConcepts_wCode(referenceCodesPath + "snomed.psv"));
-                }
-                existingSnomed.setContent(CodeSystem.CodeSystemContentMode.COMPLETE);
-            }
+            final TerminologyStore terminologyStore = TerminologyStore.shared();
+            LOG.info("PrePopulateSupport:buildCodeSystemSupport using {} codes of {} code systems in {} bytes",
+                    terminologyStore.size(), terminologyStore.systems().size(), terminologyStore.sizeInBytes());
+            return new TerminologyValidationSupport(fhirContext, terminologyStore);
         } finally {
             span.end();
         }
-        LOG.info("PrePopulateSupport:addSnomedCodes  -END");
     }
 
     public void loadValueSets(FhirContext fhirContext, PrePopulatedValidationSupport prePopulatedValidationSupport) {
@@ -164,8 +75,11 @@ public class PrePopulateSupport {
             PrePopulatedValidationSupport prePopulatedValidationSupport) {
         Span span = tracer.spanBuilder("PrePopulateSupport.loadValueSet").startSpan();
         try {
-            ValueSet valueSet = fhirContext.newJsonParser().parseResource(ValueSet.class,
-                    FileUtils.readFile1(filePath));
+            ValueSet valueSet = TerminologyIndex.shared()
+                    .flatMap(index -> index.valueSet(filePath))
+                    .map(PrePopulateSupport::toValueSet)
+                    .orElseGet(() -> fhirContext.newJsonParser().parseResource(ValueSet.class,
+                            FileUtils.readFile1(filePath)));
             try {
                 addExpansionToInclude(valueSet);
                 prePopulatedValidationSupport.addValueSet(valueSet);
@@ -177,6 +91,38 @@ public class PrePopulateSupport {
         }
     }
 
+    /** Rebuilds a value set compiled into the {@link TerminologyIndex} without parsing its JSON. */
+    static ValueSet toValueSet(TerminologyIndex.ValueSetEntry entry) {
+        ValueSet valueSet = new ValueSet();
+        valueSet.setId(entry.id());
+        valueSet.setUrl(entry.url());
+        valueSet.setVersion(entry.version());
+        valueSet.setName(entry.name());
+        valueSet.setTitle(entry.title());
+        if (entry.status() != null) {
+            valueSet.setStatus(Enumerations.PublicationStatus.fromCode(entry.status()));
+        }
+        entry.includes().forEach(include -> {
+            ValueSet.ConceptSetComponent conceptSet = valueSet.getCompose().addInclude().setSystem(include.system());
+            include.valueSets().forEach(conceptSet::addValueSet);
+            include.concepts().forEach(concept -> conceptSet.addConcept().setCode(concept.code())
+                    .setDisplay(concept.display()));
+            if (!include.concepts().isEmpty()) {
+                conceptSet.setVersion(include.concepts().get(0).version());
+            }
+        });
+        if (entry.expansionTimestamp() != null || !entry.contains().isEmpty()) {
+            ValueSet.ValueSetExpansionComponent expansion = valueSet.getExpansion();
+            if (entry.expansionTimestamp() != null) {
+                expansion.setTimestampElement(new DateTimeType(entry.expansionTimestamp()));
+            }
+            expansion.setTotal(entry.contains().size());
+            entry.contains().forEach(concept -> expansion.addContains().setSystem(concept.system())
+                    .setVersion(concept.version()).setCode(concept.code()).setDisplay(concept.display()));
+        }
+        return valueSet;
+    }
+
     private void addExpansionToInclude(ValueSet valueSet) {
         if (valueSet == null || valueSet.getExpansion().getContains().size() == 0)
             return;
@@ -195,32 +141,4 @@ public class PrePopulateSupport {
                 new ValueSet.ConceptSetComponent().setSystem(k).setConcept(v)));
     }
 
-    private void addLoincCodes(ValidationSupportChain validationSupportChain,
-            PrePopulatedValidationSupport prePopulatedValidationSupport) {
-        LOG.info("PrePopulateSupport:addLoincCodes  -BEGIN");
-        Span span = tracer.spanBuilder("PrePopulateSupport.addLoincCodes").startSpan();
-        try {
-            CodeSystem existingLoinc = (CodeSystem) validationSupportChain.fetchCodeSystem("http://loinc.org");
-            if (existingLoinc == null) {
-                CodeSystem newLoinc = new CodeSystem();
-                newLoinc.setUrl("http://loinc.org");
-                newLoinc.setVersion("2.81"); // or whatever version your .psv represents
-                newLoinc.setName("LOINC");
-                newLoinc.setStatus(Enumerations.PublicationStatus.ACTIVE);
-                newLoinc.setConcept(ConceptReaderUtils.getCodeSystemConcepts_wCode(referenceCodesPath + "loinc.psv"));
-                newLoinc.setContent(CodeSystem.CodeSystemContentMode.COMPLETE);
-                prePopulatedValidationSupport.addCodeSystem(newLoinc);
-            } else {
-                if (existingLoinc.getConcept().isEmpty()) {
-                    existingLoinc.getConcept()
-                            .addAll(ConceptReaderUtils.getCodeSystemConcepts_wCode(referenceCodesPath + "loinc.psv"));
-                }
-                existingLoinc.setContent(CodeSystem.CodeSystemContentMode.COMPLETE);
-            }
-        } finally {
-            span.end();
-        }
-        LOG.info("PrePopulateSupport:addLoincCodes  -END");
-    }
-
 }
@@ -0,0 +1,429 @@
+package org.techbd.service.fhir.validation;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Binary index of the reference terminology, compiled from
+ * {@code ig-packages/reference/*.psv} and {@code ig-packages/vs/*.json} when
+ * the module is packaged and memory-mapped at runtime, so that neither the
+ * text code lists nor the JSON value sets are parsed at startup.
+ * <p>
+ * The {@code compile-terminology-index} execution in the module's
+ * {@code pom.xml} runs {@link #main} in the {@code process-classes} phase and
+ * writes {@value #INDEX_RESOURCE} next to the sources. The index starts with a
+ * SHA-256 checksum over its source files; {@link #shared()} recomputes it from
+ * the classpath and ignores an index that is stale, of another format
+ * version, or unreadable, in which case callers fall back to the text files.
+ * <p>
+ * Layout, big-endian, strings as an int byte length (-1 for null) followed by
+ * UTF-8 bytes:
+ *
+ * <pre>
+ * int magic, int format version, 32 bytes source checksum
+ * int source count, source paths
+ * int code system count, per code system: url, code table (see CodeTable.writeTo)
+ * int value set count, per value set: source, id, url, version, name, title, status,
+ *     expansion timestamp, int include count, per include: system, int value set count,
+ *     value set urls, concepts; expansion concepts
+ * concepts: int concept count, per concept: system, version, code, display
+ * </pre>
+ */
+public final class TerminologyIndex {
+
+    public static final String INDEX_RESOURCE = "ig-packages/terminology.idx";
+    public static final String VALUE_SETS_PATH = "ig-packages/vs/";
+    public static final int MAGIC = 0x54424454; // "TBDT"
+    public static final int FORMAT_VERSION = 1;
+
+    private static final Logger LOG = LoggerFactory.getLogger(TerminologyIndex.class);
+
+    /** One concept of a value set expansion or compose include. */
+    public record Concept(String system, String version, String code, String display) {
+    }
+
+    /** One compose include: a code system or the intersection of value sets, with listed concepts. */
+    public record Include(String system, List<String> valueSets, List<Concept> concepts) {
+    }
+
+    /**
+     * The parts of a value set that validation reads: its identity, its
+     * compose includes and its expansion.
+     */
+    public record ValueSetEntry(String source, String id, String url, String version, String name, String title,
+            String status, String expansionTimestamp, List<Include> includes, List<Concept> contains) {
+    }
+
+    @FunctionalInterface
+    interface SourceOpener {
+        InputStream open(String source) throws IOException;
+    }
+
+    private static final class Shared {
+        private static final Optional<TerminologyIndex> INSTANCE = loadFromClasspath();
+    }
+
+    private final byte[] sourceChecksum;
+    private final List<String> sources;
+    private final TerminologyStore terminologyStore;
+    private final Map<String, ValueSetEntry> valueSets;
+    private final long sizeInBytes;
+
+    private TerminologyIndex(final byte[] sourceChecksum, final List<String> sources,
+            final TerminologyStore terminologyStore, final Map<String, ValueSetEntry> valueSets,
+            final long sizeInBytes) {
+        this.sourceChecksum = sourceChecksum;
+        this.sources = sources;
+        this.terminologyStore = terminologyStore;
+        this.valueSets = valueSets;
+        this.sizeInBytes = sizeInBytes;
+    }
+
+    /**
+     * The index on the classpath, mapped on first use, or empty when it is
+     * missing, stale or unreadable.
+     */
+    public static Optional<TerminologyIndex> shared() {
+        return Shared.INSTANCE;
+    }
+
+    public TerminologyStore terminologyStore() {
+        return terminologyStore;
+    }
+
+    /** The value set compiled from the classpath resource {@code source}, if it was indexed. */
+    public Optional<ValueSetEntry> valueSet(final String source) {
+        return Optional.ofNullable(valueSets.get(source));
+    }
+
+    public List<String> sources() {
+        return sources;
+    }
+
+    public String sourceChecksum() {
+        return HexFormat.of().formatHex(sourceChecksum);
+    }
+
+    public long sizeInBytes() {
+        return sizeInBytes;
+    }
+
+    /** Compiles the index under {@code args[0]}, the module's class output directory. */
+    public static void main(final String[] args) throws IOException {
+        if (args.length != 1) {
+            throw new IllegalArgumentException("Usage: TerminologyIndex <resource root directory>");
+        }
+        final Path root = Path.of(args[0]);
+        final Path index = root.resolve(INDEX_RESOURCE);
+        compile(root, index);
+        System.out.println("Compiled terminology index " + index + " (" + Files.size(index) + " bytes)");
+    }
+
+    public static void compile(final Path root, final Path target) throws IOException {
+        final List<String> codeSystemSources = new ArrayList<>(TerminologyStore.REFERENCE_CODE_SYSTEMS.values());
+        final List<String> valueSetSources = new ArrayList<>();
+        final Path valueSetDirectory = root.resolve(VALUE_SETS_PATH);
+        if (Files.isDirectory(valueSetDirectory)) {
+            try (Stream<Path> files = Files.list(valueSetDirectory)) {
+                files.map(file -> file.getFileName().toString())
+                        .filter(name -> name.endsWith(".json"))
+                        .sorted()
+                        .forEach(name -> valueSetSources.add(VALUE_SETS_PATH + name));
+            }
+        }
+        final List<String> sources = new ArrayList<>(codeSystemSources);
+        sources.addAll(valueSetSources);
+        final SourceOpener opener = source -> Files.newInputStream(root.resolve(source));
+        final byte[] checksum = checksum(sources, opener);
+
+        Files.createDirectories(target.toAbsolutePath().getParent());
+        final Path temporary = Files.createTempFile(target.toAbsolutePath().getParent(), "terminology", ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(temporary)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.write(checksum);
+            out.writeInt(sources.size());
+            for (final String source : sources) {
+                writeString(out, source);
+            }
+            out.writeInt(TerminologyStore.REFERENCE_CODE_SYSTEMS.size());
+            for (final Map.Entry<String, String> codeSystem : TerminologyStore.REFERENCE_CODE_SYSTEMS.entrySet()) {
+                writeString(out, codeSystem.getKey());
+                TerminologyStore.CodeTable.of(readLines(opener, codeSystem.getValue())).writeTo(out);
+            }
+            out.writeInt(valueSetSources.size());
+            final ObjectMapper objectMapper = new ObjectMapper();
+            for (final String source : valueSetSources) {
+                try (InputStream in = opener.open(source)) {
+                    writeValueSet(out, valueSetEntry(source, objectMapper.readTree(in)));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    static ValueSetEntry valueSetEntry(final String source, final JsonNode valueSet) {
+        final List<Include> includes = new ArrayList<>();
+        for (final JsonNode include : valueSet.path("compose").path("include")) {
+            final List<String> valueSets = new ArrayList<>();
+            include.path("valueSet").forEach(url -> valueSets.add(url.asText()));
+            final List<Concept> concepts = new ArrayList<>();
+            for (final JsonNode concept : include.path("concept")) {
+                concepts.add(new Concept(text(include, "system"), text(include, "version"), text(concept, "code"),
+                        text(concept, "display")));
+            }
+            includes.add(new Include(text(include, "system"), valueSets, concepts));
+        }
+        final List<Concept> contains = new ArrayList<>();
+        for (final JsonNode concept : valueSet.path("expansion").path("contains")) {
+            contains.add(new Concept(text(concept, "system"), text(concept, "version"), text(concept, "code"),
+                    text(concept, "display")));
+        }
+        return new ValueSetEntry(source, text(valueSet, "id"), text(valueSet, "url"), text(valueSet, "version"),
+                text(valueSet, "name"), text(valueSet, "title"), text(valueSet, "status"),
+                text(valueSet.path("expansion"), "timestamp"), includes, contains);
+    }
+
+    private static String text(final JsonNode node, final String field) {
+        final JsonNode value = node.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+
+    private static void writeValueSet(final DataOutputStream out, final ValueSetEntry valueSet) throws IOException {
+        for (final String value : Arrays.asList(valueSet.source(), valueSet.id(), valueSet.url(),
+                valueSet.version(), valueSet.name(), valueSet.title(), valueSet.status(),
+                valueSet.expansionTimestamp())) {
+            writeString(out, value);
+        }
+        out.writeInt(valueSet.includes().size());
+        for (final Include include : valueSet.includes()) {
+            writeString(out, include.system());
+            out.writeInt(include.valueSets().size());
+            for (final String url : include.valueSets()) {
+                writeString(out, url);
+            }
+            writeConcepts(out, include.concepts());
+        }
+        writeConcepts(out, valueSet.contains());
+    }
+
+    private static void writeConcepts(final DataOutputStream out, final List<Concept> concepts) throws IOException {
+        out.writeInt(concepts.size());
+        for (final Concept concept : concepts) {
+            writeString(out, concept.system());
+            writeString(out, concept.version());
+            writeString(out, concept.code());
+            writeString(out, concept.display());
+        }
+    }
+
+    private static void writeString(final DataOutputStream out, final String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static List<String> readLines(final SourceOpener opener, final String source) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(opener.open(source),
+                StandardCharsets.UTF_8))) {
+            return reader.lines().toList();
+        }
+    }
+
+    static byte[] checksum(final List<String> sources, final SourceOpener opener) throws IOException {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            final byte[] buffer = new byte[64 * 1024];
+            for (final String source : sources) {
+                digest.update(source.getBytes(StandardCharsets.UTF_8));
+                try (InputStream in = opener.open(source)) {
+                    if (in == null) {
+                        throw new IOException("Terminology source not found: " + source);
+                    }
+                    int read;
+                    while ((read = in.read(buffer)) != -1) {
+                        digest.update(buffer, 0, read);
+                    }
+                }
+            }
+            return digest.digest();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Maps an index file read-only. The code tables are views of the mapping;
+     * the small value sets are copied into the heap.
+     */
+    public static TerminologyIndex map(final Path index) throws IOException {
+        final ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(index, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a terminology index: " + index);
+            }
+            final int formatVersion = buffer.getInt();
+            if (formatVersion != FORMAT_VERSION) {
+                throw new IOException("Terminology index " + index + " has format version " + formatVersion
+                        + ", expected " + FORMAT_VERSION);
+            }
+            final byte[] checksum = new byte[32];
+            buffer.get(checksum);
+            final List<String> sources = new ArrayList<>();
+            for (int count = buffer.getInt(); count > 0; count--) {
+                sources.add(readString(buffer));
+            }
+            final Map<String, TerminologyStore.CodeTable> codeTables = new LinkedHashMap<>();
+            for (int count = buffer.getInt(); count > 0; count--) {
+                final String system = readString(buffer);
+                final int size = buffer.getInt();
+                final int dataLength = buffer.getInt();
+                final ByteBuffer offsets = slice(buffer, (size + 1) * Integer.BYTES);
+                final ByteBuffer data = slice(buffer, dataLength);
+                codeTables.put(system, TerminologyStore.CodeTable.wrap(offsets, data, size));
+            }
+            final Map<String, ValueSetEntry> valueSets = new LinkedHashMap<>();
+            for (int count = buffer.getInt(); count > 0; count--) {
+                final ValueSetEntry valueSet = readValueSet(buffer);
+                valueSets.put(valueSet.source(), valueSet);
+            }
+            return new TerminologyIndex(checksum, List.copyOf(sources), TerminologyStore.of(codeTables),
+                    Map.copyOf(valueSets), buffer.capacity());
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IOException("Terminology index " + index + " is truncated", e);
+        }
+    }
+
+    private static ByteBuffer slice(final ByteBuffer buffer, final int length) {
+        final ByteBuffer slice = buffer.slice(buffer.position(), length);
+        buffer.position(buffer.position() + length);
+        return slice;
+    }
+
+    private static ValueSetEntry readValueSet(final ByteBuffer buffer) {
+        final String[] fields = new String[8];
+        for (int field = 0; field < fields.length; field++) {
+            fields[field] = readString(buffer);
+        }
+        final List<Include> includes = new ArrayList<>();
+        for (int count = buffer.getInt(); count > 0; count--) {
+            final String system = readString(buffer);
+            final List<String> valueSets = new ArrayList<>();
+            for (int valueSetCount = buffer.getInt(); valueSetCount > 0; valueSetCount--) {
+                valueSets.add(readString(buffer));
+            }
+            includes.add(new Include(system, List.copyOf(valueSets), readConcepts(buffer)));
+        }
+        return new ValueSetEntry(fields[0], fields[1], fields[2], fields[3], fields[4], fields[5], fields[6],
+                fields[7], List.copyOf(includes), readConcepts(buffer));
+    }
+
+    private static List<Concept> readConcepts(final ByteBuffer buffer) {
+        final List<Concept> concepts = new ArrayList<>();
+        for (int count = buffer.getInt(); count > 0; count--) {
+            concepts.add(new Concept(readString(buffer), readString(buffer), readString(buffer),
+                    readString(buffer)));
+        }
+        return List.copyOf(concepts);
+    }
+
+    private static String readString(final ByteBuffer buffer) {
+        final int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        final byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /** Whether the sources this index was compiled from still have the same content. */
+    boolean isCurrent(final SourceOpener opener) throws IOException {
+        return Arrays.equals(sourceChecksum, checksum(sources, opener));
+    }
+
+    private static Optional<TerminologyIndex> loadFromClasspath() {
+        final ClassLoader classLoader = TerminologyIndex.class.getClassLoader();
+        final URL resource = classLoader.getResource(INDEX_RESOURCE);
+        if (resource == null) {
+            LOG.info("No terminology index {} on the classpath, reference terminology is parsed from text",
+                    INDEX_RESOURCE);
+            return Optional.empty();
+        }
+        try {
+            final long start = System.nanoTime();
+            final TerminologyIndex index = map(localPath(resource));
+            if (!index.isCurrent(classLoader::getResourceAsStream)) {
+                LOG.warn("Terminology index {} is stale (checksum {} no longer matches its sources), "
+                        + "reference terminology is parsed from text", resource, index.sourceChecksum());
+                return Optional.empty();
+            }
+            LOG.info("Mapped terminology index {} ({} bytes, {} codes, {} value sets) in {} ms", resource,
+                    index.sizeInBytes(), index.terminologyStore().size(), index.valueSets.size(),
+                    (System.nanoTime() - start) / 1_000_000);
+            return Optional.of(index);
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("Unable to map terminology index {}, reference terminology is parsed from text", resource, e);
+            return Optional.empty();
+        }
+    }
+
+    /** The index as a file: used in place when the classpath is a directory, copied out of a jar otherwise. */
+    private static Path localPath(final URL resource) throws IOException {
+        if ("file".equals(resource.getProtocol())) {
+            try {
+                return Path.of(resource.toURI());
+            } catch (URISyntaxException e) {
+                throw new IOException("Invalid terminology index location " + resource, e);
+            }
+        }
+        final Path copy = Files.createTempFile("terminology", ".idx");
+        copy.toFile().deleteOnExit();
+        try (InputStream in = resource.openStream(); OutputStream out = Files.newOutputStream(copy)) {
+            in.transferTo(out);
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,242 @@
+package org.techbd.service.fhir.validation;
+
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Process-wide, read-only store of the reference code systems shipped under
+ * {@code ig-packages/reference}. Each code system is held as a
+ * {@link CodeTable}: its distinct codes sorted and packed into one UTF-8 byte
+ * array with an offset per code, so half a million codes take a few
+ * megabytes instead of one HAPI {@code ConceptDefinitionComponent} per code
+ * and per validator. Lookups are a binary search over the packed bytes.
+ * <p>
+ * {@link #shared()} loads the store on first use and every validator built
+ * afterwards reads the same instance. It reads the tables straight from the
+ * memory-mapped {@link TerminologyIndex} compiled at build time, and only
+ * parses the {@code .psv} files when that index is missing or stale.
+ */
+public final class TerminologyStore {
+
+    public static final String SNOMED = "http://snomed.info/sct";
+    public static final String ICD10CM = "http://hl7.org/fhir/sid/icd-10-cm";
+    public static final String CPT = "http://www.ama-assn.org/go/cpt";
+    public static final String HCPCS = "urn:oid:2.16.840.1.113883.6.285";
+    public static final String LOINC = "http://loinc.org";
+
+    private static final String REFERENCE_CODES_PATH = "ig-packages/reference/";
+
+    /** The code systems loaded by {@link #shared()}, by URL, and the classpath file of their codes. */
+    public static final Map<String, String> REFERENCE_CODE_SYSTEMS;
+
+    static {
+        final Map<String, String> files = new LinkedHashMap<>();
+        files.put(SNOMED, REFERENCE_CODES_PATH + "snomed.psv");
+        files.put(ICD10CM, REFERENCE_CODES_PATH + "icd10cm.psv");
+        files.put(CPT, REFERENCE_CODES_PATH + "cpt.psv");
+        files.put(HCPCS, REFERENCE_CODES_PATH + "hcpcs.psv");
+        files.put(LOINC, REFERENCE_CODES_PATH + "loinc.psv");
+        REFERENCE_CODE_SYSTEMS = Collections.unmodifiableMap(files);
+    }
+
+    private static final class Shared {
+        private static final TerminologyStore INSTANCE = TerminologyIndex.shared()
+                .map(TerminologyIndex::terminologyStore)
+                .orElseGet(() -> loadFromClasspath(REFERENCE_CODE_SYSTEMS));
+    }
+
+    private final Map<String, CodeTable> codeTables;
+
+    private TerminologyStore(final Map<String, CodeTable> codeTables) {
+        this.codeTables = Map.copyOf(codeTables);
+    }
+
+    /** The store of {@link #REFERENCE_CODE_SYSTEMS}, loaded once per class loader. */
+    public static TerminologyStore shared() {
+        return Shared.INSTANCE;
+    }
+
+    public static TerminologyStore of(final Map<String, CodeTable> codeTables) {
+        return new TerminologyStore(codeTables);
+    }
+
+    /** Loads one code per line from each classpath file, keyed by code system URL. */
+    public static TerminologyStore loadFromClasspath(final Map<String, String> filesBySystem) {
+        final Map<String, CodeTable> codeTables = new LinkedHashMap<>();
+        filesBySystem.forEach((system, file) -> {
+            try (InputStream in = TerminologyStore.class.getClassLoader().getResourceAsStream(file)) {
+                if (in == null) {
+                    throw new IllegalStateException("Code system file not found on the classpath: " + file);
+                }
+                final List<String> codes = new ArrayList<>();
+                final BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    codes.add(line);
+                }
+                codeTables.put(system, CodeTable.of(codes));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to read code system file " + file, e);
+            }
+        });
+        return new TerminologyStore(codeTables);
+    }
+
+    public Set<String> systems() {
+        return codeTables.keySet();
+    }
+
+    public boolean isSupported(final String system) {
+        return system != null && codeTables.containsKey(system);
+    }
+
+    public boolean contains(final String system, final String code) {
+        final CodeTable codeTable = system == null ? null : codeTables.get(system);
+        return codeTable != null && codeTable.contains(code);
+    }
+
+    public CodeTable codeTable(final String system) {
+        return codeTables.get(system);
+    }
+
+    public int size() {
+        return codeTables.values().stream().mapToInt(CodeTable::size).sum();
+    }
+
+    /** Bytes held by the packed code arrays and their offsets. */
+    public long sizeInBytes() {
+        return codeTables.values().stream().mapToLong(CodeTable::sizeInBytes).sum();
+    }
+
+    /**
+     * The distinct, non-empty codes of one code system sorted by their UTF-8
+     * bytes, stored back to back in {@code data}; code {@code i} spans the
+     * offsets at int positions {@code i} and {@code i + 1} of
+     * {@code offsets}. Both buffers are only read with absolute gets, so a
+     * table can be shared between threads and can sit directly on a
+     * memory-mapped {@link TerminologyIndex}.
+     */
+    public static final class CodeTable {
+
+        private final ByteBuffer data;
+        private final ByteBuffer offsets;
+        private final int size;
+
+        private CodeTable(final ByteBuffer data, final ByteBuffer offsets, final int size) {
+            this.data = data;
+            this.offsets = offsets;
+            this.size = size;
+        }
+
+        public static CodeTable of(final Iterable<String> codes) {
+            final List<byte[]> encoded = new ArrayList<>();
+            for (final String code : codes) {
+                if (code != null && !code.isEmpty()) {
+                    encoded.add(code.getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            encoded.sort(Arrays::compareUnsigned);
+            final List<byte[]> distinct = new ArrayList<>(encoded.size());
+            int length = 0;
+            for (final byte[] code : encoded) {
+                if (distinct.isEmpty() || !Arrays.equals(distinct.get(distinct.size() - 1), code)) {
+                    distinct.add(code);
+                    length += code.length;
+                }
+            }
+            final ByteBuffer data = ByteBuffer.allocate(length);
+            final ByteBuffer offsets = ByteBuffer.allocate((distinct.size() + 1) * Integer.BYTES);
+            for (final byte[] code : distinct) {
+                offsets.putInt(data.position());
+                data.put(code);
+            }
+            offsets.putInt(data.position());
+            return new CodeTable(data.clear(), offsets.clear(), distinct.size());
+        }
+
+        /** A table over {@code size + 1} big-endian int offsets followed by the code bytes they index. */
+        static CodeTable wrap(final ByteBuffer offsets, final ByteBuffer data, final int size) {
+            return new CodeTable(data, offsets, size);
+        }
+
+        /** Writes the code count, the data length, the offsets and the data, as read back by {@link #wrap}. */
+        void writeTo(final DataOutputStream out) throws IOException {
+            out.writeInt(size);
+            out.writeInt(data.capacity());
+            out.write(bytes(offsets));
+            out.write(bytes(data));
+        }
+
+        private static byte[] bytes(final ByteBuffer buffer) {
+            final byte[] bytes = new byte[buffer.capacity()];
+            buffer.get(0, bytes);
+            return bytes;
+        }
+
+        public boolean contains(final String code) {
+            return code != null && indexOf(code) >= 0;
+        }
+
+        /** The position of {@code code} in sort order, or a negative value if it is absent. */
+        public int indexOf(final String code) {
+            final byte[] key = code.getBytes(StandardCharsets.UTF_8);
+            int low = 0;
+            int high = size - 1;
+            while (low <= high) {
+                final int middle = (low + high) >>> 1;
+                final int comparison = compare(offset(middle), offset(middle + 1), key);
+                if (comparison < 0) {
+                    low = middle + 1;
+                } else if (comparison > 0) {
+                    high = middle - 1;
+                } else {
+                    return middle;
+                }
+            }
+            return -(low + 1);
+        }
+
+        private int compare(final int start, final int end, final byte[] key) {
+            final int length = end - start;
+            final int common = Math.min(length, key.length);
+            for (int index = 0; index < common; index++) {
+                final int difference = (data.get(start + index) & 0xFF) - (key[index] & 0xFF);
+                if (difference != 0) {
+                    return difference;
+                }
+            }
+            return length - key.length;
+        }
+
+        private int offset(final int index) {
+            return offsets.getInt(index * Integer.BYTES);
+        }
+
+        public String code(final int index) {
+            final byte[] code = new byte[offset(index + 1) - offset(index)];
+            data.get(offset(index), code);
+            return new String(code, StandardCharsets.UTF_8);
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public long sizeInBytes() {
+            return data.capacity() + (long) offsets.capacity();
+        }
+    }
+}
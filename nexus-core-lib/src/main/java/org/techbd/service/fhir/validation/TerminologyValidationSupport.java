@@ -0,0 +1,74 @@
+package org.techbd.service.fhir.validation;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.context.support.ConceptValidationOptions;
+import ca.uhn.fhir.context.support.IValidationSupport;
+import ca.uhn.fhir.context.support.LookupCodeRequest;
+import ca.uhn.fhir.context.support.ValidationSupportContext;
+
+/**
+ * Answers code lookups and code-system validation for the code systems of a
+ * {@link TerminologyStore} straight from its packed code tables, so that no
+ * {@code CodeSystem} with a concept per code has to be built for each
+ * validator.
+ * <p>
+ * Value set validation is left to the rest of the chain: when
+ * {@code InMemoryTerminologyServerValidationSupport} expands a value set that
+ * includes one of these code systems it asks the chain to look the code up,
+ * which ends here. Placing this support ahead of it in the chain lets plain
+ * code-system checks skip the expansion entirely.
+ */
+public class TerminologyValidationSupport implements IValidationSupport {
+
+    private final FhirContext fhirContext;
+    private final TerminologyStore terminologyStore;
+
+    public TerminologyValidationSupport(final FhirContext fhirContext, final TerminologyStore terminologyStore) {
+        this.fhirContext = fhirContext;
+        this.terminologyStore = terminologyStore;
+    }
+
+    @Override
+    public FhirContext getFhirContext() {
+        return fhirContext;
+    }
+
+    @Override
+    public String getName() {
+        return "TerminologyValidationSupport";
+    }
+
+    @Override
+    public boolean isCodeSystemSupported(final ValidationSupportContext validationSupportContext,
+            final String system) {
+        return terminologyStore.isSupported(system);
+    }
+
+    @Override
+    public CodeValidationResult validateCode(final ValidationSupportContext validationSupportContext,
+            final ConceptValidationOptions options, final String codeSystem, final String code,
+            final String display, final String valueSetUrl) {
+        if (valueSetUrl != null || !terminologyStore.isSupported(codeSystem) || code == null) {
+            return null;
+        }
+        if (terminologyStore.contains(codeSystem, code)) {
+            return new CodeValidationResult().setCode(code);
+        }
+        return new CodeValidationResult()
+                .setSeverity(IssueSeverity.ERROR)
+                .setMessage("Unknown code '" + code + "' in code system '" + codeSystem + "'");
+    }
+
+    @Override
+    public LookupCodeResult lookupCode(final ValidationSupportContext validationSupportContext,
+            final LookupCodeRequest lookupCodeRequest) {
+        final String system = lookupCodeRequest.getSystem();
+        if (!terminologyStore.isSupported(system)) {
+            return null;
+        }
+        return new LookupCodeResult()
+                .setSearchedForSystem(system)
+                .setSearchedForCode(lookupCodeRequest.getCode())
+                .setFound(terminologyStore.contains(system, lookupCodeRequest.getCode()));
+    }
+}
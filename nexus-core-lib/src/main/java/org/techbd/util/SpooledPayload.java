@@ -0,0 +1,134 @@
+package org.techbd.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Metrics;
+
+/**
+ * A request payload read once from its source stream and kept either in
+ * memory or, above a size threshold, in a temporary file, so that it can be
+ * re-read by later processing stages without holding it as a {@code String}.
+ * <p>
+ * Closing the payload deletes its spool file. Payload sizes are published as
+ * {@code techbd.payload.spooled} tagged with {@code storage=memory|disk}.
+ */
+public final class SpooledPayload implements AutoCloseable {
+
+    public static final int DEFAULT_MEMORY_THRESHOLD_BYTES = 4 * 1024 * 1024;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final byte[] memory;
+    private final int memoryLength;
+    private final Path file;
+    private final long size;
+
+    private SpooledPayload(final byte[] memory, final int memoryLength, final Path file, final long size) {
+        this.memory = memory;
+        this.memoryLength = memoryLength;
+        this.file = file;
+        this.size = size;
+    }
+
+    public static SpooledPayload of(final byte[] bytes) {
+        record(bytes.length, "memory");
+        return new SpooledPayload(bytes, bytes.length, null, bytes.length);
+    }
+
+    /**
+     * Reads {@code in} to the end. Up to {@code memoryThresholdBytes} are kept in
+     * memory; once the payload grows beyond that it is written to a temporary
+     * file in {@code spoolDirectory} (or {@code java.io.tmpdir} when
+     * {@code null}). The caller remains responsible for closing {@code in}.
+     */
+    public static SpooledPayload spool(final InputStream in, final Integer memoryThresholdBytes,
+            final Path spoolDirectory) throws IOException {
+        final int threshold = memoryThresholdBytes == null || memoryThresholdBytes < 0
+                ? DEFAULT_MEMORY_THRESHOLD_BYTES
+                : memoryThresholdBytes;
+        byte[] buffer = new byte[Math.min(BUFFER_SIZE, Math.max(threshold, 1))];
+        int length = 0;
+        int read;
+        while ((read = in.read(buffer, length, buffer.length - length)) != -1) {
+            length += read;
+            if (length == buffer.length) {
+                if (buffer.length >= threshold) {
+                    return spill(in, buffer, length, spoolDirectory);
+                }
+                buffer = Arrays.copyOf(buffer, (int) Math.min((long) buffer.length * 2, threshold));
+            }
+        }
+        record(length, "memory");
+        return new SpooledPayload(buffer, length, null, length);
+    }
+
+    private static SpooledPayload spill(final InputStream in, final byte[] head, final int headLength,
+            final Path spoolDirectory) throws IOException {
+        final Path file = spoolDirectory == null
+                ? Files.createTempFile("techbd-payload-", ".spool")
+                : Files.createTempFile(Files.createDirectories(spoolDirectory), "techbd-payload-", ".spool");
+        try (OutputStream out = Files.newOutputStream(file)) {
+            out.write(head, 0, headLength);
+            final long size = headLength + in.transferTo(out);
+            record(size, "disk");
+            return new SpooledPayload(null, 0, file, size);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+    }
+
+    private static void record(final long size, final String storage) {
+        DistributionSummary.builder("techbd.payload.spooled")
+                .description("Size of request payloads spooled for re-reading")
+                .baseUnit("bytes")
+                .tag("storage", storage)
+                .register(Metrics.globalRegistry)
+                .record(size);
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public boolean isOnDisk() {
+        return file != null;
+    }
+
+    /**
+     * Opens a new stream over the whole payload. Each call starts from the
+     * beginning; the caller must close the returned stream.
+     */
+    public InputStream openStream() throws IOException {
+        return file != null ? Files.newInputStream(file) : new ByteArrayInputStream(memory, 0, memoryLength);
+    }
+
+    public String asString(final Charset charset) {
+        try {
+            return file != null ? Files.readString(file, charset) : new String(memory, 0, memoryLength, charset);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read spooled payload " + file, e);
+        }
+    }
+
+    public String asString() {
+        return asString(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (file != null) {
+            Files.deleteIfExists(file);
+        }
+    }
+}
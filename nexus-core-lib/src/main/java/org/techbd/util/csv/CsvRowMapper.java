@@ -0,0 +1,146 @@
+package org.techbd.util.csv;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.opencsv.CSVParserBuilder;
+import com.opencsv.CSVReader;
+import com.opencsv.CSVReaderBuilder;
+import com.opencsv.exceptions.CsvValidationException;
+
+/**
+ * Maps the rows of one CSV file to model objects through a fixed table of
+ * column setters, grouping them by a key column while the file is read.
+ * <p>
+ * Rows are parsed one at a time with the same OpenCSV parser settings
+ * {@code CsvToBean} used (leading white space before quotes ignored), and the
+ * header is resolved to setters once, case-insensitively as
+ * {@code @CsvBindByName} does; unknown columns are ignored. As before, a row
+ * whose number of fields differs from the header is logged and skipped, and a
+ * row without a group key fails the whole file. Only the grouped objects are
+ * kept in memory.
+ */
+public final class CsvRowMapper<T> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CsvRowMapper.class.getName());
+
+    private final Class<T> type;
+    private final Supplier<T> factory;
+    private final String groupKeyName;
+    private final Function<T, String> groupKey;
+    private final Map<String, BiConsumer<T, String>> setters;
+
+    private CsvRowMapper(final Builder<T> builder) {
+        this.type = builder.type;
+        this.factory = builder.factory;
+        this.groupKeyName = builder.groupKeyName;
+        this.groupKey = builder.groupKey;
+        this.setters = Collections.unmodifiableMap(new LinkedHashMap<>(builder.setters));
+    }
+
+    public static <T> Builder<T> builder(final Class<T> type, final Supplier<T> factory, final String groupKeyName,
+            final Function<T, String> groupKey) {
+        return new Builder<>(type, factory, groupKeyName, groupKey);
+    }
+
+    public Class<T> getType() {
+        return type;
+    }
+
+    /** The mapped column names, upper case. */
+    public Set<String> getColumns() {
+        return setters.keySet();
+    }
+
+    /**
+     * Reads every row of {@code reader} and returns the mapped objects grouped
+     * by the group key, in file order within each group.
+     *
+     * @throws IllegalArgumentException if a row has no group key
+     */
+    public Map<String, List<T>> readGrouped(final Reader reader, final char separator, final String interactionId,
+            final String techBDVersion) throws IOException {
+        final Map<String, List<T>> groups = new HashMap<>();
+        try (CSVReader csvReader = new CSVReaderBuilder(reader)
+                .withCSVParser(new CSVParserBuilder().withSeparator(separator).withIgnoreLeadingWhiteSpace(true)
+                        .build())
+                .build()) {
+            final String[] header = csvReader.readNext();
+            if (header == null) {
+                return groups;
+            }
+            if (header.length > 0 && header[0].startsWith("\uFEFF")) {
+                header[0] = header[0].substring(1);
+            }
+            final List<BiConsumer<T, String>> columns = new ArrayList<>(header.length);
+            for (final String column : header) {
+                columns.add(setters.get(column.trim().toUpperCase(Locale.ROOT)));
+            }
+            String[] row;
+            while ((row = csvReader.readNext()) != null) {
+                if (row.length != header.length) {
+                    LOG.error("Malformed CSV row skipped: {} for interactionId: {} TechBDVersion: {}",
+                            csvReader.getLinesRead(), interactionId, techBDVersion);
+                    continue;
+                }
+                final T object = factory.get();
+                for (int index = 0; index < row.length; index++) {
+                    final BiConsumer<T, String> setter = columns.get(index);
+                    if (setter != null) {
+                        setter.accept(object, row[index]);
+                    }
+                }
+                final String key = groupKey.apply(object);
+                if (key == null) {
+                    LOG.error("Null value encountered for field '{}' in object: {} for interactionId: {} TechBDVersion: {}",
+                            groupKeyName, object, interactionId, techBDVersion);
+                    throw new IllegalArgumentException(
+                            "Field '" + groupKeyName + "' has a null value in object: " + object);
+                }
+                groups.computeIfAbsent(key, k -> new ArrayList<>()).add(object);
+            }
+        } catch (CsvValidationException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+        return groups;
+    }
+
+    public static final class Builder<T> {
+        private final Class<T> type;
+        private final Supplier<T> factory;
+        private final String groupKeyName;
+        private final Function<T, String> groupKey;
+        private final Map<String, BiConsumer<T, String>> setters = new LinkedHashMap<>();
+
+        private Builder(final Class<T> type, final Supplier<T> factory, final String groupKeyName,
+                final Function<T, String> groupKey) {
+            this.type = type;
+            this.factory = factory;
+            this.groupKeyName = groupKeyName;
+            this.groupKey = groupKey;
+        }
+
+        public Builder<T> column(final String name, final BiConsumer<T, String> setter) {
+            setters.put(name.toUpperCase(Locale.ROOT), setter);
+            return this;
+        }
+
+        public CsvRowMapper<T> build() {
+            return new CsvRowMapper<>(this);
+        }
+    }
+}
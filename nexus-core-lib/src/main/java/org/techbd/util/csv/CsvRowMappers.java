@@ -0,0 +1,152 @@
+package org.techbd.util.csv;
+
+import org.techbd.model.csv.DemographicData;
+import org.techbd.model.csv.QeAdminData;
+import org.techbd.model.csv.ScreeningObservationData;
+import org.techbd.model.csv.ScreeningProfileData;
+
+/**
+ * The column tables of the four SDOH CSV files, one setter per
+ * {@code @CsvBindByName} column of the model classes, and the column each file
+ * is grouped by. {@code CsvRowMappersTest} fails when a model class gains a
+ * column that is not listed here.
+ */
+public final class CsvRowMappers {
+
+    public static final CsvRowMapper<DemographicData> DEMOGRAPHIC_DATA = CsvRowMapper
+            .builder(DemographicData.class, DemographicData::new, "patientMrIdValue",
+                    DemographicData::getPatientMrIdValue)
+            .column("PATIENT_MR_ID_VALUE", DemographicData::setPatientMrIdValue)
+            .column("FACILITY_NAME", DemographicData::setFacilityName)
+            .column("PATIENT_MEDICAID_ID", DemographicData::setPatientMedicaidId)
+            .column("PATIENT_SS_ID_VALUE", DemographicData::setPatientSsIdValue)
+            .column("FAMILY_NAME", DemographicData::setFamilyName)
+            .column("GIVEN_NAME", DemographicData::setGivenName)
+            .column("MIDDLE_NAME", DemographicData::setMiddleName)
+            .column("ADMINISTRATIVE_SEX_CODE", DemographicData::setAdministrativeSexCode)
+            .column("ADMINISTRATIVE_SEX_CODE_DESCRIPTION", DemographicData::setAdministrativeSexCodeDescription)
+            .column("ADMINISTRATIVE_SEX_CODE_SYSTEM", DemographicData::setAdministrativeSexCodeSystem)
+            .column("SEX_AT_BIRTH_CODE", DemographicData::setSexAtBirthCode)
+            .column("SEX_AT_BIRTH_CODE_DESCRIPTION", DemographicData::setSexAtBirthCodeDescription)
+            .column("SEX_AT_BIRTH_CODE_SYSTEM", DemographicData::setSexAtBirthCodeSystem)
+            .column("PATIENT_BIRTH_DATE", DemographicData::setPatientBirthDate)
+            .column("ADDRESS1", DemographicData::setAddress1)
+            .column("ADDRESS2", DemographicData::setAddress2)
+            .column("CITY", DemographicData::setCity)
+            .column("STATE", DemographicData::setState)
+            .column("ZIP", DemographicData::setZip)
+            .column("COUNTY", DemographicData::setCounty)
+            .column("TELECOM_VALUE", DemographicData::setTelecomValue)
+            .column("TELECOM_USE", DemographicData::setTelecomUse)
+            .column("RACE_CODE", DemographicData::setRaceCode)
+            .column("RACE_CODE_DESCRIPTION", DemographicData::setRaceCodeDescription)
+            .column("RACE_CODE_SYSTEM", DemographicData::setRaceCodeSystem)
+            .column("ETHNICITY_CODE", DemographicData::setEthnicityCode)
+            .column("ETHNICITY_CODE_DESCRIPTION", DemographicData::setEthnicityCodeDescription)
+            .column("ETHNICITY_CODE_SYSTEM", DemographicData::setEthnicityCodeSystem)
+            .column("PERSONAL_PRONOUNS_CODE", DemographicData::setPersonalPronounsCode)
+            .column("PERSONAL_PRONOUNS_DESCRIPTION", DemographicData::setPersonalPronounsDescription)
+            .column("PERSONAL_PRONOUNS_SYSTEM", DemographicData::setPersonalPronounsSystem)
+            .column("GENDER_IDENTITY_CODE", DemographicData::setGenderIdentityCode)
+            .column("GENDER_IDENTITY_CODE_DESCRIPTION", DemographicData::setGenderIdentityCodeDescription)
+            .column("GENDER_IDENTITY_CODE_SYSTEM", DemographicData::setGenderIdentityCodeSystem)
+            .column("PREFERRED_LANGUAGE_CODE", DemographicData::setPreferredLanguageCode)
+            .column("PREFERRED_LANGUAGE_CODE_DESCRIPTION", DemographicData::setPreferredLanguageCodeDescription)
+            .column("PREFERRED_LANGUAGE_CODE_SYSTEM", DemographicData::setPreferredLanguageCodeSystem)
+            .column("SEXUAL_ORIENTATION_CODE", DemographicData::setSexualOrientationCode)
+            .column("SEXUAL_ORIENTATION_CODE_DESCRIPTION", DemographicData::setSexualOrientationCodeDescription)
+            .column("SEXUAL_ORIENTATION_CODE_SYSTEM", DemographicData::setSexualOrientationCodeSystem)
+            .column("PATIENT_LAST_UPDATED", DemographicData::setPatientLastUpdated)
+            .column("SEXUAL_ORIENTATION_LAST_UPDATED", DemographicData::setSexualOrientationLastUpdated)
+            .build();
+
+    public static final CsvRowMapper<QeAdminData> QE_ADMIN_DATA = CsvRowMapper
+            .builder(QeAdminData.class, QeAdminData::new, "patientMrIdValue",
+                    QeAdminData::getPatientMrIdValue)
+            .column("PATIENT_MR_ID_VALUE", QeAdminData::setPatientMrIdValue)
+            .column("FACILITY_ID", QeAdminData::setFacilityId)
+            .column("FACILITY_NAME", QeAdminData::setFacilityName)
+            .column("ORGANIZATION_TYPE_CODE", QeAdminData::setOrganizationTypeCode)
+            .column("ORGANIZATION_TYPE_DISPLAY", QeAdminData::setOrganizationTypeDisplay)
+            .column("ORGANIZATION_TYPE_CODE_SYSTEM", QeAdminData::setOrganizationTypeCodeSystem)
+            .column("ENCOUNTER_LOCATION", QeAdminData::setEncounterLocation)
+            .column("FACILITY_ADDRESS1", QeAdminData::setFacilityAddress1)
+            .column("FACILITY_ADDRESS2", QeAdminData::setFacilityAddress2)
+            .column("FACILITY_CITY", QeAdminData::setFacilityCity)
+            .column("FACILITY_STATE", QeAdminData::setFacilityState)
+            .column("FACILITY_ZIP", QeAdminData::setFacilityZip)
+            .column("FACILITY_COUNTY", QeAdminData::setFacilityCounty)
+            .column("FACILITY_LAST_UPDATED", QeAdminData::setFacilityLastUpdated)
+            .build();
+
+    public static final CsvRowMapper<ScreeningProfileData> SCREENING_PROFILE_DATA = CsvRowMapper
+            .builder(ScreeningProfileData.class, ScreeningProfileData::new, "encounterId",
+                    ScreeningProfileData::getEncounterId)
+            .column("PATIENT_MR_ID_VALUE", ScreeningProfileData::setPatientMrIdValue)
+            .column("FACILITY_ID", ScreeningProfileData::setFacilityId)
+            .column("FACILITY_NAME", ScreeningProfileData::setFacilityName)
+            .column("ENCOUNTER_ID", ScreeningProfileData::setEncounterId)
+            .column("ENCOUNTER_ID_SYSTEM", ScreeningProfileData::setEncounterIdSystem)
+            .column("SCREENING_IDENTIFIER", ScreeningProfileData::setScreeningIdentifier)
+            .column("ENCOUNTER_CLASS_CODE", ScreeningProfileData::setEncounterClassCode)
+            .column("ENCOUNTER_CLASS_CODE_DESCRIPTION", ScreeningProfileData::setEncounterClassCodeDescription)
+            .column("ENCOUNTER_CLASS_CODE_SYSTEM", ScreeningProfileData::setEncounterClassCodeSystem)
+            .column("ENCOUNTER_STATUS_CODE", ScreeningProfileData::setEncounterStatusCode)
+            .column("ENCOUNTER_STATUS_CODE_DESCRIPTION", ScreeningProfileData::setEncounterStatusCodeDescription)
+            .column("ENCOUNTER_STATUS_CODE_SYSTEM", ScreeningProfileData::setEncounterStatusCodeSystem)
+            .column("ENCOUNTER_TYPE_CODE", ScreeningProfileData::setEncounterTypeCode)
+            .column("ENCOUNTER_TYPE_CODE_DESCRIPTION", ScreeningProfileData::setEncounterTypeCodeDescription)
+            .column("ENCOUNTER_TYPE_CODE_SYSTEM", ScreeningProfileData::setEncounterTypeCodeSystem)
+            .column("ENCOUNTER_START_DATETIME", ScreeningProfileData::setEncounterStartDatetime)
+            .column("ENCOUNTER_END_DATETIME", ScreeningProfileData::setEncounterEndDatetime)
+            .column("ENCOUNTER_LOCATION", ScreeningProfileData::setEncounterLocation)
+            .column("PROCEDURE_STATUS_CODE", ScreeningProfileData::setProcedureStatusCode)
+            .column("PROCEDURE_CODE", ScreeningProfileData::setProcedureCode)
+            .column("PROCEDURE_CODE_DESCRIPTION", ScreeningProfileData::setProcedureCodeDescription)
+            .column("PROCEDURE_CODE_SYSTEM", ScreeningProfileData::setProcedureCodeSystem)
+            .column("PROCEDURE_CODE_MODIFIER", ScreeningProfileData::setProcedureCodeModifier)
+            .column("CONSENT_STATUS", ScreeningProfileData::setConsentStatus)
+            .column("CONSENT_DATE_TIME", ScreeningProfileData::setConsentDateTime)
+            .column("SCREENING_LAST_UPDATED", ScreeningProfileData::setScreeningLastUpdated)
+            .column("SCREENING_STATUS_CODE", ScreeningProfileData::setScreeningStatusCode)
+            .column("SCREENING_STATUS_CODE_DESCRIPTION", ScreeningProfileData::setScreeningStatusCodeDescription)
+            .column("SCREENING_STATUS_CODE_SYSTEM", ScreeningProfileData::setScreeningStatusCodeSystem)
+            .column("SCREENING_LANGUAGE_CODE", ScreeningProfileData::setScreeningLanguageCode)
+            .column("SCREENING_LANGUAGE_DESCRIPTION", ScreeningProfileData::setScreeningLanguageDescription)
+            .column("SCREENING_LANGUAGE_CODE_SYSTEM", ScreeningProfileData::setScreeningLanguageCodeSystem)
+            .column("SCREENING_ENTITY_ID", ScreeningProfileData::setScreeningEntityId)
+            .column("SCREENING_ENTITY_ID_CODE_SYSTEM", ScreeningProfileData::setScreeningEntityIdCodeSystem)
+            .column("CONSENT_LAST_UPDATED", ScreeningProfileData::setConsentLastUpdated)
+            .column("ENCOUNTER_LAST_UPDATED", ScreeningProfileData::setEncounterLastUpdated)
+            .build();
+
+    public static final CsvRowMapper<ScreeningObservationData> SCREENING_OBSERVATION_DATA = CsvRowMapper
+            .builder(ScreeningObservationData.class, ScreeningObservationData::new, "encounterId",
+                    ScreeningObservationData::getEncounterId)
+            .column("PATIENT_MR_ID_VALUE", ScreeningObservationData::setPatientMrIdValue)
+            .column("FACILITY_ID", ScreeningObservationData::setFacilityId)
+            .column("FACILITY_NAME", ScreeningObservationData::setFacilityName)
+            .column("ENCOUNTER_ID", ScreeningObservationData::setEncounterId)
+            .column("ENCOUNTER_ID_SYSTEM", ScreeningObservationData::setEncounterIdSystem)
+            .column("SCREENING_IDENTIFIER", ScreeningObservationData::setScreeningIdentifier)
+            .column("SCREENING_CODE", ScreeningObservationData::setScreeningCode)
+            .column("SCREENING_CODE_DESCRIPTION", ScreeningObservationData::setScreeningCodeDescription)
+            .column("SCREENING_CODE_SYSTEM", ScreeningObservationData::setScreeningCodeSystem)
+            .column("QUESTION_CODE", ScreeningObservationData::setQuestionCode)
+            .column("QUESTION_CODE_DESCRIPTION", ScreeningObservationData::setQuestionCodeDescription)
+            .column("QUESTION_CODE_SYSTEM", ScreeningObservationData::setQuestionCodeSystem)
+            .column("ANSWER_CODE", ScreeningObservationData::setAnswerCode)
+            .column("ANSWER_CODE_DESCRIPTION", ScreeningObservationData::setAnswerCodeDescription)
+            .column("ANSWER_CODE_SYSTEM", ScreeningObservationData::setAnswerCodeSystem)
+            .column("OBSERVATION_CATEGORY_SDOH_CODE", ScreeningObservationData::setObservationCategorySdohCode)
+            .column("OBSERVATION_CATEGORY_SDOH_TEXT", ScreeningObservationData::setObservationCategorySdohText)
+            .column("DATA_ABSENT_REASON_CODE", ScreeningObservationData::setDataAbsentReasonCode)
+            .column("DATA_ABSENT_REASON_DISPLAY", ScreeningObservationData::setDataAbsentReasonDisplay)
+            .column("POTENTIAL_NEED_INDICATED", ScreeningObservationData::setPotentialNeedIndicated)
+            .column("SCREENING_START_DATETIME", ScreeningObservationData::setScreeningStartDateTime)
+            .column("SCREENING_END_DATETIME", ScreeningObservationData::setScreeningEndDateTime)
+            .build();
+
+    private CsvRowMappers() {
+    }
+}
@@ -0,0 +1,78 @@
+package org.techbd.util.csv;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Checks that bytes are well-formed UTF-8 without decoding them. Runs of ASCII
+ * are skipped eight bytes at a time; multi-byte sequences are checked against
+ * the well-formed ranges of the Unicode standard (table 3-7), so overlong
+ * forms, surrogates and code points above U+10FFFF are rejected exactly as
+ * {@code StandardCharsets.UTF_8} rejects them.
+ */
+public final class Utf8Validator {
+
+    private static final long NON_ASCII = 0x8080808080808080L;
+
+    /**
+     * Returns the offset, relative to the buffer's position, of the first byte
+     * of the first malformed sequence between position and limit, or -1 if all
+     * of them are well-formed UTF-8. The buffer's position is not changed.
+     */
+    public static int firstMalformedOffset(final ByteBuffer bytes) {
+        final ByteBuffer buffer = bytes.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        final int start = buffer.position();
+        final int limit = buffer.limit();
+        int index = start;
+        while (index < limit) {
+            if (index + Long.BYTES <= limit && (buffer.getLong(index) & NON_ASCII) == 0) {
+                index += Long.BYTES;
+                continue;
+            }
+            final int lead = buffer.get(index) & 0xFF;
+            if (lead < 0x80) {
+                index++;
+                continue;
+            }
+            final int length;
+            int low = 0x80;
+            int high = 0xBF;
+            if (lead >= 0xC2 && lead <= 0xDF) {
+                length = 2;
+            } else if (lead >= 0xE0 && lead <= 0xEF) {
+                length = 3;
+                if (lead == 0xE0) {
+                    low = 0xA0;
+                } else if (lead == 0xED) {
+                    high = 0x9F;
+                }
+            } else if (lead >= 0xF0 && lead <= 0xF4) {
+                length = 4;
+                if (lead == 0xF0) {
+                    low = 0x90;
+                } else if (lead == 0xF4) {
+                    high = 0x8F;
+                }
+            } else {
+                return index - start;
+            }
+            if (index + length > limit) {
+                return index - start;
+            }
+            final int second = buffer.get(index + 1) & 0xFF;
+            if (second < low || second > high) {
+                return index - start;
+            }
+            for (int continuation = 2; continuation < length; continuation++) {
+                if ((buffer.get(index + continuation) & 0xC0) != 0x80) {
+                    return index - start;
+                }
+            }
+            index += length;
+        }
+        return -1;
+    }
+
+    private Utf8Validator() {
+    }
+}
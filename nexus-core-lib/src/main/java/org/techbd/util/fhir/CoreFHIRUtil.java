@@ -154,6 +154,13 @@ public class CoreFHIRUtil {
         }
     }
 
+    public static String extractBundleId(ParsedBundle parsedBundle, String interactionId) {
+        if (!parsedBundle.isJson()) {
+            LOG.error("Exception fetching bundle Id for interactionId : {} payload is not valid JSON", interactionId);
+        }
+        return parsedBundle.getBundleId();
+    }
+
     
    
     public static Map<String, Object> buildHeaderParametersMap(String tenantId, String customDataLakeApi,
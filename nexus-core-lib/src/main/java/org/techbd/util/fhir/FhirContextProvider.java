@@ -0,0 +1,105 @@
+package org.techbd.util.fhir;
+
+import java.io.Reader;
+
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.springframework.stereotype.Component;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.parser.IParser;
+import ca.uhn.fhir.parser.LenientErrorHandler;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+
+/**
+ * Process-wide R4 {@link FhirContext} and the JSON parsers built from it.
+ * <p>
+ * Building a {@code FhirContext} scans the whole R4 model and is one of the
+ * most expensive objects in HAPI, while a built context is thread-safe. Every
+ * component that parses or encodes FHIR in this library therefore uses the
+ * single context held here instead of calling {@code FhirContext.forR4()}
+ * itself; the validators are built on it too. The context is configured with
+ * a {@link LenientErrorHandler}, as the validation engine always did, so
+ * payloads with unknown elements are parsed and reported by validation rather
+ * than rejected by the parser.
+ * <p>
+ * {@link IParser} instances are not thread-safe, so {@link #jsonParser()}
+ * hands out one parser per thread and reuses it for every call on that
+ * thread. Callers must not change the settings of a parser obtained here.
+ * <p>
+ * The Spring bean and {@link #shared()} expose the same context, so code that
+ * is not managed by Spring (validation engines, static helpers) does not build
+ * a second one. Published meters: {@code techbd.fhir.context.created} and
+ * {@code techbd.fhir.parser.created}.
+ */
+@Component
+public class FhirContextProvider {
+
+    private static final FhirContextProvider SHARED = new FhirContextProvider();
+
+    private final ThreadLocal<IParser> jsonParsers = ThreadLocal.withInitial(() -> {
+        Counter.builder("techbd.fhir.parser.created")
+                .description("Thread-confined FHIR JSON parsers created")
+                .register(Metrics.globalRegistry)
+                .increment();
+        return getContext().newJsonParser();
+    });
+
+    /**
+     * Holds the context so it is built on first use rather than when the class
+     * is loaded.
+     */
+    private static final class Context {
+        private static final FhirContext R4 = newContext();
+    }
+
+    public static FhirContextProvider shared() {
+        return SHARED;
+    }
+
+    /**
+     * Builds a new, separately configured R4 context. Only for callers that
+     * must not share state with the process-wide context; everything else uses
+     * {@link #getContext()}.
+     */
+    public static FhirContext newContext() {
+        final FhirContext fhirContext = FhirContext.forR4();
+        fhirContext.setParserErrorHandler(new LenientErrorHandler());
+        Counter.builder("techbd.fhir.context.created")
+                .description("FHIR contexts built by the application")
+                .register(Metrics.globalRegistry)
+                .increment();
+        return fhirContext;
+    }
+
+    public FhirContext getContext() {
+        return Context.R4;
+    }
+
+    /**
+     * Returns a JSON parser for {@code fhirContext}: the calling thread's
+     * shared parser for the process-wide context, a new one otherwise.
+     */
+    public static IParser jsonParser(final FhirContext fhirContext) {
+        return fhirContext == SHARED.getContext() ? SHARED.jsonParser() : fhirContext.newJsonParser();
+    }
+
+    /**
+     * Returns the JSON parser confined to the calling thread.
+     */
+    public IParser jsonParser() {
+        return jsonParsers.get();
+    }
+
+    public String encodeToJson(final IBaseResource resource) {
+        return jsonParser().encodeResourceToString(resource);
+    }
+
+    public <T extends IBaseResource> T parseJson(final Class<T> resourceType, final String json) {
+        return jsonParser().parseResource(resourceType, json);
+    }
+
+    public <T extends IBaseResource> T parseJson(final Class<T> resourceType, final Reader json) {
+        return jsonParser().parseResource(resourceType, json);
+    }
+}
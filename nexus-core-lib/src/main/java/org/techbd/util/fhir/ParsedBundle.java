@@ -0,0 +1,409 @@
+package org.techbd.util.fhir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.hl7.fhir.r4.model.Bundle;
+import org.techbd.config.Configuration;
+import org.techbd.util.SpooledPayload;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.parser.DataFormatException;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * A FHIR bundle payload shared by every stage that processes one request.
+ * <p>
+ * The raw JSON is parsed into a Jackson tree at most once, on first use, and
+ * the HAPI {@link Bundle} is only built if a stage actually needs the resource
+ * model. Bundle id, profile URLs and the map view used for forwarding are all
+ * derived from the same tree, so a 5–20 MB payload is no longer re-parsed by
+ * every stage it passes through. Instances are safe to share between the
+ * threads of a concurrent validation session; callers must not mutate the
+ * tree returned by {@link #getJsonNode()}.
+ * <p>
+ * A bundle created from a {@link SpooledPayload} never holds the payload text
+ * up front: bundle id, profile URLs and JSON well-formedness come from a single
+ * pass of Jackson's streaming parser that skips over everything but
+ * {@code resourceType}, {@code id} and {@code meta.profile}, and the tree, the
+ * HAPI resource and the text are each read from the spool only if a stage
+ * asks for them. A bundle the caller already built as a HAPI resource (see
+ * {@link #of(Bundle, FhirContext, String)}) answers the same questions from
+ * the resource and is never parsed by HAPI again.
+ * <p>
+ * Parse time is published as {@code techbd.fhir.bundle.parse} tagged with the
+ * parser used ({@code jackson}, {@code streaming} or {@code hapi}), so the
+ * number of parses per request can be checked against the request rate.
+ */
+public final class ParsedBundle {
+
+    public static final String BUNDLE_ID_NOT_PROVIDED = "Bundle id not provided";
+
+    private final SpooledPayload spooledPayload;
+    private String payload;
+    private JsonNode jsonNode;
+    private JsonProcessingException parseError;
+    private boolean parsed;
+    private Header header;
+    private FhirContext bundleContext;
+    private Bundle bundle;
+
+    /**
+     * Fields read by the streaming scan of a spooled payload. {@code error} is
+     * set when the payload is not well-formed JSON.
+     */
+    private record Header(String resourceType, String id, List<String> profileUrls, JsonProcessingException error) {
+    }
+
+    private ParsedBundle(final String payload, final JsonNode jsonNode, final SpooledPayload spooledPayload) {
+        this.payload = payload;
+        this.jsonNode = jsonNode;
+        this.parsed = jsonNode != null;
+        this.spooledPayload = spooledPayload;
+    }
+
+    public static ParsedBundle of(final String payload) {
+        return new ParsedBundle(payload, null, null);
+    }
+
+    /**
+     * Wraps a spooled request body. The caller keeps ownership of
+     * {@code spooledPayload} and must not close it while the bundle is in use.
+     */
+    public static ParsedBundle of(final SpooledPayload spooledPayload) {
+        return new ParsedBundle(null, null, spooledPayload);
+    }
+
+    /**
+     * Wraps a payload whose Jackson tree is already available, e.g. because the
+     * caller built the bundle itself.
+     */
+    public static ParsedBundle of(final String payload, final JsonNode jsonNode) {
+        return new ParsedBundle(payload, jsonNode, null);
+    }
+
+    /**
+     * Wraps a bundle the caller built as a HAPI resource, together with its
+     * encoded form. Bundle id, profile URLs and JSON well-formedness are read
+     * from the resource, and {@link #getBundle(FhirContext)} returns it as-is
+     * for {@code fhirContext}, so validation does not parse the text again.
+     * The text is still parsed into a Jackson tree if a stage needs one.
+     * Callers must not modify {@code bundle} afterwards.
+     */
+    public static ParsedBundle of(final Bundle bundle, final FhirContext fhirContext, final String payload) {
+        final ParsedBundle parsedBundle = new ParsedBundle(payload, null, null);
+        parsedBundle.bundle = bundle;
+        parsedBundle.bundleContext = fhirContext;
+        final List<String> profileUrls = new ArrayList<>();
+        bundle.getMeta().getProfile().forEach(profile -> {
+            if (profile.hasValue()) {
+                profileUrls.add(profile.getValue());
+            }
+        });
+        final String id = bundle.getIdElement().getIdPart();
+        parsedBundle.header = new Header("Bundle", id == null || id.isEmpty() ? null : id,
+                Collections.unmodifiableList(profileUrls), null);
+        return parsedBundle;
+    }
+
+    /**
+     * Returns the payload text. For a spooled payload the text is read from the
+     * spool on first call and kept for later callers.
+     */
+    public synchronized String getPayload() {
+        if (payload == null && spooledPayload != null) {
+            payload = spooledPayload.asString(StandardCharsets.UTF_8);
+        }
+        return payload;
+    }
+
+    public boolean isSpooled() {
+        return spooledPayload != null;
+    }
+
+    /**
+     * Returns the Jackson tree of the payload, parsing it on first call. A parse
+     * failure is remembered and rethrown to every caller.
+     */
+    public synchronized JsonNode getJsonNode() throws JsonProcessingException {
+        if (!parsed) {
+            final Timer.Sample sample = Timer.start(Metrics.globalRegistry);
+            try {
+                if (spooledPayload != null && payload == null) {
+                    try (InputStream in = spooledPayload.openStream()) {
+                        jsonNode = Configuration.objectMapper.readTree(in);
+                    }
+                } else {
+                    jsonNode = Configuration.objectMapper.readTree(payload);
+                }
+            } catch (JsonProcessingException e) {
+                parseError = e;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (IllegalArgumentException e) {
+                // null payload
+                parseError = new JsonParseException(null, "Payload is empty");
+            } finally {
+                parsed = true;
+                sample.stop(parseTimer("jackson"));
+            }
+        }
+        if (parseError != null) {
+            throw parseError;
+        }
+        return jsonNode;
+    }
+
+    public boolean isJson() {
+        if (useHeader()) {
+            return header().error() == null;
+        }
+        try {
+            return getJsonNode() != null;
+        } catch (JsonProcessingException e) {
+            return false;
+        }
+    }
+
+    public String getResourceType() {
+        if (useHeader()) {
+            return header().resourceType();
+        }
+        return isJson() ? jsonNode.path("resourceType").asText(null) : null;
+    }
+
+    /**
+     * Same contract as {@link CoreFHIRUtil#extractBundleId(String, String)}: an
+     * empty string for invalid JSON and {@value #BUNDLE_ID_NOT_PROVIDED} when the
+     * payload is not a Bundle or has no id.
+     */
+    public String getBundleId() {
+        if (!isJson()) {
+            return "";
+        }
+        if (useHeader()) {
+            final Header scanned = header();
+            if (!"Bundle".equals(scanned.resourceType())) {
+                return BUNDLE_ID_NOT_PROVIDED;
+            }
+            return scanned.id() == null ? BUNDLE_ID_NOT_PROVIDED : scanned.id();
+        }
+        if (!"Bundle".equals(jsonNode.path("resourceType").asText())) {
+            return BUNDLE_ID_NOT_PROVIDED;
+        }
+        return jsonNode.path("id").asText(BUNDLE_ID_NOT_PROVIDED);
+    }
+
+    /**
+     * Returns {@code meta.profile} in document order, or an empty list when the
+     * payload is not JSON or declares no profile.
+     */
+    public List<String> getProfileUrls() {
+        if (!isJson()) {
+            return List.of();
+        }
+        if (useHeader()) {
+            return header().profileUrls();
+        }
+        final JsonNode profileNode = jsonNode.path("meta").path("profile");
+        if (!profileNode.isArray()) {
+            return List.of();
+        }
+        final List<String> profileUrls = new ArrayList<>(profileNode.size());
+        profileNode.forEach(node -> profileUrls.add(node.asText()));
+        return Collections.unmodifiableList(profileUrls);
+    }
+
+    public String getProfileUrl() {
+        final List<String> profileUrls = getProfileUrls();
+        return profileUrls.isEmpty() ? null : profileUrls.get(0);
+    }
+
+    /**
+     * Returns a new mutable map of the payload. The map is converted from the
+     * already parsed tree rather than from the raw text.
+     */
+    public Map<String, Object> toMap() throws JsonProcessingException {
+        return Configuration.objectMapper.convertValue(getJsonNode(), new TypeReference<Map<String, Object>>() {
+        });
+    }
+
+    /**
+     * Returns the HAPI model of the payload parsed with {@code fhirContext}. The
+     * result is kept for later callers using the same context.
+     *
+     * @throws DataFormatException if the payload is not a FHIR Bundle
+     */
+    public synchronized Bundle getBundle(final FhirContext fhirContext) {
+        if (bundle == null || bundleContext != fhirContext) {
+            final Timer.Sample sample = Timer.start(Metrics.globalRegistry);
+            try {
+                if (spooledPayload != null && payload == null) {
+                    try (Reader reader = new InputStreamReader(spooledPayload.openStream(), StandardCharsets.UTF_8)) {
+                        bundle = FhirContextProvider.jsonParser(fhirContext).parseResource(Bundle.class, reader);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                } else {
+                    bundle = FhirContextProvider.jsonParser(fhirContext).parseResource(Bundle.class, payload);
+                }
+                bundleContext = fhirContext;
+            } finally {
+                sample.stop(parseTimer("hapi"));
+            }
+        }
+        return bundle;
+    }
+
+    /**
+     * Whether {@link #getBundle(FhirContext)} returns without parsing for
+     * {@code fhirContext}.
+     */
+    public synchronized boolean hasBundle(final FhirContext fhirContext) {
+        return bundle != null && bundleContext == fhirContext;
+    }
+
+    /**
+     * Fails like {@code parseResource(Bundle.class, payload)} would for input
+     * that is not JSON or not a Bundle, using the Jackson tree instead of a full
+     * HAPI parse.
+     *
+     * @throws DataFormatException if the payload is not a JSON FHIR Bundle
+     */
+    public void requireBundle() {
+        if (useHeader()) {
+            final JsonProcessingException error = header().error();
+            if (error != null) {
+                throw new DataFormatException("Failed to parse JSON encoded FHIR content: " + error.getOriginalMessage(),
+                        error);
+            }
+        } else {
+            try {
+                getJsonNode();
+            } catch (JsonProcessingException e) {
+                throw new DataFormatException("Failed to parse JSON encoded FHIR content: " + e.getOriginalMessage(),
+                        e);
+            }
+        }
+        final String resourceType = getResourceType();
+        if (!"Bundle".equals(resourceType)) {
+            throw new DataFormatException(
+                    "Incorrect resource type found, expected \"Bundle\" but found \"%s\"".formatted(resourceType));
+        }
+    }
+
+    /**
+     * Spooled payloads answer header questions from the streaming scan, and
+     * bundles built by the caller from the resource, until a stage has needed
+     * the full tree anyway.
+     */
+    private synchronized boolean useHeader() {
+        return !parsed && (spooledPayload != null || header != null);
+    }
+
+    private synchronized Header header() {
+        if (header == null) {
+            final Timer.Sample sample = Timer.start(Metrics.globalRegistry);
+            try (InputStream in = spooledPayload.openStream();
+                    JsonParser parser = Configuration.objectMapper.getFactory().createParser(in)) {
+                header = scan(parser);
+            } catch (JsonProcessingException e) {
+                header = new Header(null, null, List.of(), e);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                sample.stop(parseTimer("streaming"));
+            }
+        }
+        return header;
+    }
+
+    /**
+     * Reads {@code resourceType}, {@code id} and {@code meta.profile} from the
+     * root object and skips (but still tokenizes, and so checks) everything
+     * else. Values are rendered the way {@link JsonNode#asText()} would render
+     * them so results match the tree-based accessors.
+     */
+    private static Header scan(final JsonParser parser) throws IOException {
+        String resourceType = null;
+        String id = null;
+        List<String> profileUrls = List.of();
+        if (parser.nextToken() == JsonToken.START_OBJECT) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String field = parser.currentName();
+                final JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "resourceType" -> resourceType = scalarText(parser, value);
+                    case "id" -> id = scalarText(parser, value);
+                    case "meta" -> {
+                        if (value == JsonToken.START_OBJECT) {
+                            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                                final String metaField = parser.currentName();
+                                final JsonToken metaValue = parser.nextToken();
+                                if ("profile".equals(metaField) && metaValue == JsonToken.START_ARRAY) {
+                                    final List<String> profiles = new ArrayList<>();
+                                    JsonToken element;
+                                    while ((element = parser.nextToken()) != JsonToken.END_ARRAY) {
+                                        final String text = scalarText(parser, element);
+                                        profiles.add(text == null ? "null" : text);
+                                    }
+                                    profileUrls = Collections.unmodifiableList(profiles);
+                                } else {
+                                    if ("profile".equals(metaField)) {
+                                        profileUrls = List.of();
+                                    }
+                                    parser.skipChildren();
+                                }
+                            }
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                    default -> parser.skipChildren();
+                }
+            }
+        } else {
+            parser.skipChildren();
+        }
+        return new Header(resourceType, id, profileUrls, null);
+    }
+
+    /**
+     * Text of a value as {@link JsonNode#asText()} renders it: {@code null} for
+     * JSON null and an empty string for objects and arrays (whose children are
+     * skipped).
+     */
+    private static String scalarText(final JsonParser parser, final JsonToken token) throws IOException {
+        if (token == null || token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token.isStructStart()) {
+            parser.skipChildren();
+            return "";
+        }
+        return parser.getText();
+    }
+
+    private static Timer parseTimer(final String parser) {
+        return Timer.builder("techbd.fhir.bundle.parse")
+                .description("Time spent parsing inbound FHIR bundle payloads")
+                .tag("parser", parser)
+                .register(Metrics.globalRegistry);
+    }
+}
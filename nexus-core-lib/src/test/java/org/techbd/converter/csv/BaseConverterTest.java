@@ -3,7 +3,6 @@ package org.techbd.converter.csv;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -55,12 +54,8 @@ class BaseConverterTest {
 
     @Test
     void testFetchCode() {
-        Map<String, String> categoryMap = new HashMap<>();
-        categoryMap.put("example", "mappedValue");
-        Map<String, Map<String, String>> codeLookup = new HashMap<>();
-        codeLookup.put("category", categoryMap);
-
-        BaseConverter.CODE_LOOKUP = codeLookup;
+        when(mockCodeLookupService.findCode(any(), eq("category"), eq("example"), eq("interactionId")))
+                .thenReturn("mappedValue");
 
         String result = baseConverter.fetchCode("example", "category", "interactionId");
         assertEquals("mappedValue", result);
@@ -71,12 +66,8 @@ class BaseConverterTest {
 
     @Test
     void testFetchSystem() {
-        Map<String, String> categoryMap = new HashMap<>();
-        categoryMap.put("example", "mappedSystem");
-        Map<String, Map<String, String>> systemLookup = new HashMap<>();
-        systemLookup.put("category", categoryMap);
-
-        BaseConverter.SYSTEM_LOOKUP = systemLookup;
+        when(mockCodeLookupService.findSystem(any(), eq("category"), eq("example"), eq("interactionId")))
+                .thenReturn("mappedSystem");
 
         String result = baseConverter.fetchSystem("example", "defaultSystem", "category", "interactionId");
         assertEquals("mappedSystem", result);
@@ -84,6 +75,16 @@ class BaseConverterTest {
         result = baseConverter.fetchSystem("unknown", "unknown", "category", "interactionId");
         assertEquals("unknown", result);
     }
+
+    @Test
+    void testFetchCodeFromDisplay() {
+        when(mockCodeLookupService.findCodeForDisplay(any(), eq("category"), eq("Example Display"),
+                eq("interactionId"))).thenReturn("example");
+
+        assertEquals("example", baseConverter.fetchCodeFromDisplay("Example Display", "category", "interactionId"));
+        assertNull(baseConverter.fetchCodeFromDisplay("Unknown", "category", "interactionId"));
+        assertNull(baseConverter.fetchCodeFromDisplay(null, "category", "interactionId"));
+    }
     
     @Test
     void testGetProfileUrl1() {
@@ -0,0 +1,146 @@
+package org.techbd.service.csv;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.jooq.DSLContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.techbd.config.CoreAppConfig;
+import org.techbd.util.AppLogger;
+import org.techbd.util.TemplateLogger;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class CodeLookupServiceTest {
+
+    private static final Supplier<DSLContext> DSL = () -> null;
+
+    private static final Map<String, List<Map<String, String>>> ENTRIES = Map.of(
+            "ombRaceCategory", List.of(
+                    Map.of("code", "2106-3", "system", "urn:oid:2.16.840.1.113883.6.238", "display", "White"),
+                    Map.of("code", "2054-5", "system", "urn:oid:2.16.840.1.113883.6.238",
+                            "display", "Black or African American")),
+            "gender", List.of(
+                    Map.of("code", "UNK", "display", "Unknown"),
+                    Map.of("code", "unk", "display", "unknown"),
+                    Map.of("code", "female", "system", "http://hl7.org/fhir/administrative-gender",
+                            "display", "Female")));
+
+    private final AtomicLong nanoTime = new AtomicLong();
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void addRegistry() {
+        meterRegistry = new SimpleMeterRegistry();
+        Metrics.addRegistry(meterRegistry);
+    }
+
+    @AfterEach
+    void removeRegistry() {
+        Metrics.removeRegistry(meterRegistry);
+    }
+
+    @Test
+    void looksUpForwardAndReverseIgnoringCase() {
+        final CodeLookupService service = service(0, ENTRIES);
+
+        assertThat(service.findCode(DSL, "ombRaceCategory", "2106-3", "id")).isEqualTo("2106-3");
+        assertThat(service.findCode(DSL, "gender", "Female", "id")).isEqualTo("female");
+        assertThat(service.findCode(DSL, "gender", "uNk", "id")).isEqualTo("UNK");
+        assertThat(service.findSystem(DSL, "gender", "female", "id"))
+                .isEqualTo("http://hl7.org/fhir/administrative-gender");
+        assertThat(service.findSystem(DSL, "gender", "UNK", "id")).isNull();
+        assertThat(service.findDisplay(DSL, "ombRaceCategory", "2054-5", "id"))
+                .isEqualTo("Black or African American");
+        assertThat(service.findCodeForDisplay(DSL, "ombRaceCategory", "BLACK OR AFRICAN AMERICAN", "id"))
+                .isEqualTo("2054-5");
+        assertThat(service.findCodeForDisplay(DSL, "gender", "UNKNOWN", "id")).isEqualTo("UNK");
+        assertThat(service.findCode(DSL, "missing", "2106-3", "id")).isNull();
+        assertThat(service.findCodeForDisplay(DSL, "gender", null, "id")).isNull();
+    }
+
+    @Test
+    void loadsOnceAndCountsHitsAndMisses() {
+        final Deque<Map<String, List<Map<String, String>>>> loads = new ArrayDeque<>(List.of(ENTRIES));
+        final CodeLookupService service = service(0, loads);
+
+        service.findCode(DSL, "gender", "female", "id");
+        service.findCode(DSL, "gender", "male", "id");
+        service.findCode(DSL, "gender", "female", "id");
+
+        assertThat(loads).isEmpty();
+        assertThat(service.snapshot(DSL, "id").version()).isEqualTo(1);
+        assertThat(count("code", "hit")).isEqualTo(2);
+        assertThat(count("code", "miss")).isEqualTo(1);
+    }
+
+    @Test
+    void swapsInANewSnapshotWhenTheIntervalHasPassed() {
+        final Deque<Map<String, List<Map<String, String>>>> loads = new ArrayDeque<>(List.of(ENTRIES,
+                Map.of("gender", List.of(Map.of("code", "male", "display", "Male")))));
+        final CodeLookupService service = service(1, loads);
+
+        final CodeLookupSnapshot first = service.snapshot(DSL, "id");
+        nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(999));
+        assertThat(service.snapshot(DSL, "id")).isSameAs(first);
+        nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+
+        final CodeLookupSnapshot second = service.snapshot(DSL, "id");
+        assertThat(second.version()).isEqualTo(2);
+        assertThat(second.code("gender", "MALE")).isEqualTo("male");
+        assertThat(second.code("gender", "female")).isNull();
+        assertThat(first.code("gender", "female")).isEqualTo("female");
+
+        // the next load fails and the last good snapshot stays in place
+        nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertThat(service.snapshot(DSL, "id")).isSameAs(second);
+    }
+
+    @Test
+    void fallsBackToAnEmptySnapshotWhenTheFirstLoadFails() {
+        final CodeLookupService service = service(0, new ArrayDeque<>());
+
+        assertThat(service.snapshot(DSL, "id")).isSameAs(CodeLookupSnapshot.EMPTY);
+        assertThat(service.findCode(DSL, "gender", "female", "id")).isNull();
+    }
+
+    private double count(final String lookup, final String result) {
+        return meterRegistry.get("techbd.csv.code.lookup").tag("lookup", lookup).tag("result", result)
+                .counter().count();
+    }
+
+    private CodeLookupService service(final long refreshIntervalSeconds,
+            final Map<String, List<Map<String, String>>> entries) {
+        return service(refreshIntervalSeconds, new ArrayDeque<>(List.of(entries)));
+    }
+
+    private CodeLookupService service(final long refreshIntervalSeconds,
+            final Deque<Map<String, List<Map<String, String>>>> loads) {
+        final CoreAppConfig coreAppConfig = mock(CoreAppConfig.class);
+        when(coreAppConfig.getCodeLookupRefreshIntervalSeconds()).thenReturn(refreshIntervalSeconds);
+        final AppLogger appLogger = mock(AppLogger.class);
+        when(appLogger.getLogger(any())).thenReturn(mock(TemplateLogger.class));
+        return new CodeLookupService(coreAppConfig, appLogger, nanoTime::get) {
+            @Override
+            protected Map<String, List<Map<String, String>>> fetchEntries(final DSLContext dsl) {
+                if (loads.isEmpty()) {
+                    throw new IllegalStateException("database unavailable");
+                }
+                return loads.removeFirst();
+            }
+        };
+    }
+}
@@ -0,0 +1,151 @@
+package org.techbd.service.csv;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+
+import org.hl7.fhir.r4.model.Bundle;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.techbd.config.CoreAppConfig;
+import org.techbd.config.CoreAppConfig.FhirV4Config;
+import org.techbd.service.fhir.engine.OrchestrationEngine;
+import org.techbd.util.AppLogger;
+import org.techbd.util.TemplateLogger;
+import org.techbd.util.fhir.CoreFHIRUtil;
+import org.techbd.util.fhir.FhirContextProvider;
+import org.techbd.util.fhir.ParsedBundle;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Compares handing CSV-converted bundles to validation as encoded text, as
+ * {@code CsvBundleProcessorService} used to, with handing over the HAPI
+ * resource built by the converter. The bundles are synthetic per-patient SDOH
+ * screening bundles derived from the SHIN-NY example, standing in for the
+ * output of a large CSV zip. Building the engine loads the IG packages, so the
+ * benchmark only runs when requested:
+ *
+ * <pre>
+ * mvn -pl nexus-core-lib test -Dtest=CsvBundleHandoffBenchmarkTest -Dtechbd.benchmark=true
+ * </pre>
+ */
+@EnabledIfSystemProperty(named = "techbd.benchmark", matches = "true")
+class CsvBundleHandoffBenchmarkTest {
+
+    private static final int PATIENTS = 200;
+    private static final String EXAMPLE_BUNDLE = "src/test/resources/org/techbd/ig-examples/shinny-examples/Bundle-AHCHRSNScreeningResponseExample.json";
+
+    private static final List<Bundle> bundles = new ArrayList<>();
+
+    @BeforeAll
+    static void convertPatients() throws Exception {
+        CoreFHIRUtil.PROFILE_MAP = Map.of(CoreFHIRUtil.BUNDLE, "/StructureDefinition/SHINNYBundleProfile");
+        final FhirContextProvider provider = FhirContextProvider.shared();
+        final Bundle example = provider.parseJson(Bundle.class, Files.readString(Path.of(EXAMPLE_BUNDLE)));
+        for (int patient = 0; patient < PATIENTS; patient++) {
+            final Bundle bundle = example.copy();
+            bundle.setId(UUID.randomUUID().toString());
+            bundles.add(bundle);
+        }
+    }
+
+    @Test
+    void compareEncodedAndInMemoryHandoff() {
+        final OrchestrationEngine engine = newEngine();
+        final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        Metrics.addRegistry(meterRegistry);
+        try {
+            final FhirContextProvider provider = FhirContextProvider.shared();
+            final Function<Bundle, ParsedBundle> encoded = bundle -> ParsedBundle.of(provider.encodeToJson(bundle));
+            final Function<Bundle, ParsedBundle> inMemory = bundle -> ParsedBundle.of(bundle, provider.getContext(),
+                    provider.encodeToJson(bundle));
+            // warm up so class loading and snapshot generation are not measured
+            process(engine, bundles.subList(0, 5), encoded);
+            process(engine, bundles.subList(0, 5), inMemory);
+            meterRegistry.clear();
+
+            final Duration encodedTime = process(engine, bundles, encoded);
+            final Duration inMemoryTime = process(engine, bundles, inMemory);
+
+            System.out.printf("%d bundles handed over encoded: %d ms, in memory: %d ms%n", PATIENTS,
+                    encodedTime.toMillis(), inMemoryTime.toMillis());
+            // the in-memory bundles were validated as built, never parsed back from their text
+            assertThat(hapiParses(meterRegistry)).isZero();
+        } finally {
+            Metrics.removeRegistry(meterRegistry);
+            engine.shutdown();
+        }
+    }
+
+    /**
+     * The per-bundle work {@code FHIRService.processBundle} does on the payload
+     * before registration: bundle id extraction, JSON and profile checks and
+     * validation.
+     */
+    private static Duration process(final OrchestrationEngine engine, final List<Bundle> patients,
+            final Function<Bundle, ParsedBundle> handoff) {
+        final Instant start = Instant.now();
+        for (final Bundle patient : patients) {
+            final ParsedBundle parsedBundle = handoff.apply(patient);
+            assertThat(CoreFHIRUtil.extractBundleId(parsedBundle, "tenant")).isNotBlank();
+            assertThat(parsedBundle.getProfileUrl()).isNotNull();
+            final var session = engine.session()
+                    .withParsedPayloads(List.of(parsedBundle))
+                    .withSessionId(UUID.randomUUID().toString())
+                    .withInteractionId(UUID.randomUUID().toString())
+                    .addHapiValidationEngine()
+                    .build();
+            try {
+                engine.orchestrate(session);
+                assertThat(engine.getSessions().get(session.getSessionId()).getValidationResults()).hasSize(1);
+            } finally {
+                engine.clear(session);
+            }
+        }
+        return Duration.between(start, Instant.now());
+    }
+
+    private static long hapiParses(final SimpleMeterRegistry meterRegistry) {
+        final Timer timer = meterRegistry.find("techbd.fhir.bundle.parse").tag("parser", "hapi").timer();
+        return timer == null ? 0 : timer.count();
+    }
+
+    private static OrchestrationEngine newEngine() {
+        final CoreAppConfig appConfig = mock(CoreAppConfig.class);
+        final AppLogger appLogger = mock(AppLogger.class);
+        when(appLogger.getLogger(any())).thenReturn(new TemplateLogger(OrchestrationEngine.class, "benchmark"));
+        when(appConfig.getIgPackages()).thenReturn(igPackages());
+        return new OrchestrationEngine(appConfig, appLogger);
+    }
+
+    private static Map<String, FhirV4Config> igPackages() {
+        final FhirV4Config fhirV4Config = new FhirV4Config();
+        fhirV4Config.setBasePackages(Map.of(
+                "us-core", "ig-packages/fhir-v4/us-core/stu-7.0.0",
+                "sdoh", "ig-packages/fhir-v4/sdoh-clinicalcare/stu-2.2.0",
+                "uv-sdc", "ig-packages/fhir-v4/uv-sdc/stu-3.0.0"));
+        final Map<String, Map<String, String>> shinnyPackages = new HashMap<>();
+        shinnyPackages.put("shinny", Map.of(
+                "profile-base-url", "http://shinny.org/us/ny/hrsn",
+                "package-path", "ig-packages/shin-ny-ig/shinny/v1.6.3",
+                "ig-version", "1.6.3"));
+        fhirV4Config.setShinnyPackages(shinnyPackages);
+        return Map.of("fhir-v4", fhirV4Config);
+    }
+}
@@ -0,0 +1,85 @@
+package org.techbd.service.csv;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import org.techbd.config.CoreAppConfig.CsvConcurrency;
+import org.techbd.service.fhir.engine.ValidationExecutor.Mode;
+
+class CsvTaskExecutorTest {
+
+    private static final List<Integer> INPUTS = IntStream.range(0, 64).boxed().toList();
+
+    @Test
+    void runsOnTheCallerThreadByDefault() {
+        try (CsvTaskExecutor executor = CsvTaskExecutor.from("test", null)) {
+            final Thread caller = Thread.currentThread();
+
+            final List<Boolean> onCaller = executor.map(INPUTS, input -> Thread.currentThread() == caller);
+
+            assertThat(executor.isConcurrent()).isFalse();
+            assertThat(onCaller).hasSize(INPUTS.size()).containsOnly(true);
+        }
+    }
+
+    @Test
+    void returnsResultsInInputOrder() {
+        for (final Mode mode : List.of(Mode.VIRTUAL_THREADS, Mode.PLATFORM_POOL)) {
+            try (CsvTaskExecutor executor = CsvTaskExecutor.from("test", new CsvConcurrency(mode.name(), 8))) {
+                final List<String> results = executor.map(INPUTS, input -> {
+                    sleep(ThreadLocalRandom.current().nextInt(5));
+                    return "bundle-" + input;
+                });
+
+                assertThat(results).isEqualTo(INPUTS.stream().map(input -> "bundle-" + input).toList());
+            }
+        }
+    }
+
+    @Test
+    void neverRunsMoreThanMaxConcurrencyTasks() {
+        try (CsvTaskExecutor executor = new CsvTaskExecutor("test", Mode.VIRTUAL_THREADS, 4)) {
+            final AtomicInteger running = new AtomicInteger();
+            final AtomicInteger peak = new AtomicInteger();
+
+            executor.map(INPUTS, input -> {
+                peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                sleep(2);
+                return running.decrementAndGet();
+            });
+
+            assertThat(peak.get()).isBetween(2, 4);
+        }
+    }
+
+    @Test
+    void failsAfterEveryTaskHasFinished() {
+        try (CsvTaskExecutor executor = new CsvTaskExecutor("test", Mode.PLATFORM_POOL, 4)) {
+            final AtomicInteger finished = new AtomicInteger();
+
+            assertThatThrownBy(() -> executor.map(INPUTS, input -> {
+                if (input == 3) {
+                    throw new IllegalStateException("bundle 3 failed");
+                }
+                sleep(1);
+                return finished.incrementAndGet();
+            })).isInstanceOf(IllegalStateException.class).hasMessage("bundle 3 failed");
+
+            assertThat(finished.get()).isEqualTo(INPUTS.size() - 1);
+        }
+    }
+
+    private static void sleep(final long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package org.techbd.service.csv.engine;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class CsvRecordReaderTest {
+
+    @Test
+    void readsQuotedFieldsLikePythonsCsvReader() throws IOException {
+        final List<List<String>> records = read(
+                "A,B,C\r\n1,\"111 Care Ridge St, Plainview\",\"say \"\"hi\"\"\"\n2,\"two\nlines\",\n", true);
+
+        assertThat(records).containsExactly(
+                List.of("A", "B", "C"),
+                List.of("1", "111 Care Ridge St, Plainview", "say \"hi\""),
+                List.of("2", "two\nlines", ""));
+    }
+
+    @Test
+    void skipsSpacesAtTheStartOfFieldsWhenAsked() throws IOException {
+        assertThat(read("a,  b, \"c\" ,d ", true)).containsExactly(List.of("a", "b", "c ", "d "));
+        assertThat(read("a,  b", false)).containsExactly(List.of("a", "  b"));
+    }
+
+    @Test
+    void numbersRecordsAndReturnsEmptyLinesAsEmptyRecords() throws IOException {
+        try (CsvRecordReader reader = new CsvRecordReader(new StringReader("h\n\"x\ny\"\n\nz"), ',', true)) {
+            assertThat(reader.next()).containsExactly("h");
+            assertThat(reader.next()).containsExactly("x\ny");
+            assertThat(reader.getRecordNumber()).isEqualTo(2);
+            assertThat(reader.next()).isEmpty();
+            assertThat(reader.next()).containsExactly("z");
+            assertThat(reader.getRecordNumber()).isEqualTo(4);
+            assertThat(reader.next()).isNull();
+        }
+    }
+
+    private static List<List<String>> read(final String text, final boolean skipInitialSpace) throws IOException {
+        final List<List<String>> records = new ArrayList<>();
+        try (CsvRecordReader reader = new CsvRecordReader(new StringReader(text), ',', skipInitialSpace)) {
+            List<String> record;
+            while ((record = reader.next()) != null) {
+                records.add(record);
+            }
+        }
+        return records;
+    }
+}
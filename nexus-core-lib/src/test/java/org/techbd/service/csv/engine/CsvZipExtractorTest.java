@@ -0,0 +1,97 @@
+package org.techbd.service.csv.engine;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CsvZipExtractorTest {
+
+    private static final CsvZipExtractor.Limits LIMITS = CsvZipExtractor.Limits.of(null);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void extractsEntriesFlatteningDirectories() throws IOException {
+        final byte[] zip = zip(Map.of(
+                "nested/SDOH_PtInfo_group1.csv", "PATIENT_MR_ID_VALUE\n1\n".getBytes(StandardCharsets.UTF_8),
+                "SDOH_QEadmin_group1.csv", "PATIENT_MR_ID_VALUE\n1\n".getBytes(StandardCharsets.UTF_8),
+                "nested/", new byte[0]));
+
+        final CsvZipExtractor.Extraction extraction = CsvZipExtractor.extract(new ByteArrayInputStream(zip),
+                directory.resolve("ingress"), LIMITS);
+
+        assertThat(extraction.directory()).isEqualTo(directory.resolve("ingress"));
+        assertThat(extraction.files()).extracting(file -> file.getFileName().toString())
+                .containsExactlyInAnyOrder("SDOH_PtInfo_group1.csv", "SDOH_QEadmin_group1.csv");
+        assertThat(extraction.files()).allSatisfy(file -> assertThat(file.getParent())
+                .isEqualTo(directory.resolve("ingress")));
+        assertThat(Files.readString(directory.resolve("ingress/SDOH_PtInfo_group1.csv")))
+                .isEqualTo("PATIENT_MR_ID_VALUE\n1\n");
+        assertThat(extraction.uncompressedBytes()).isEqualTo(44);
+        assertThat(extraction.compressedBytes()).isPositive().isLessThanOrEqualTo(zip.length);
+    }
+
+    @Test
+    void keepsEntriesInsideTheTargetDirectory() throws IOException {
+        final byte[] zip = zip(Map.of("../../escape.csv", new byte[] { 'a' }, "..", new byte[] { 'b' }));
+
+        final CsvZipExtractor.Extraction extraction = CsvZipExtractor.extract(new ByteArrayInputStream(zip),
+                directory.resolve("ingress"), LIMITS);
+
+        assertThat(extraction.files()).containsExactly(directory.resolve("ingress/escape.csv"));
+        assertThat(directory.resolve("escape.csv")).doesNotExist();
+    }
+
+    @Test
+    void rejectsOversizedEntriesAndArchives() throws IOException {
+        final byte[] zip = zip(Map.of("a.csv", new byte[600], "b.csv", new byte[600]));
+
+        assertThatThrownBy(() -> CsvZipExtractor.extract(new ByteArrayInputStream(zip), directory,
+                new CsvZipExtractor.Limits(500, 10_000, 10, 100_000)))
+                .isInstanceOf(ZipException.class).hasMessageContaining("is larger than 500 bytes");
+        assertThatThrownBy(() -> CsvZipExtractor.extract(new ByteArrayInputStream(zip), directory,
+                new CsvZipExtractor.Limits(1_000, 1_000, 10, 100_000)))
+                .isInstanceOf(ZipException.class).hasMessageContaining("expands to more than 1000 bytes");
+        assertThatThrownBy(() -> CsvZipExtractor.extract(new ByteArrayInputStream(zip), directory,
+                new CsvZipExtractor.Limits(1_000, 10_000, 1, 100_000)))
+                .isInstanceOf(ZipException.class).hasMessageContaining("more than 1 entries");
+    }
+
+    @Test
+    void rejectsZipBombs() throws IOException {
+        // 8 MiB of zeros deflates to a few kilobytes
+        final byte[] zip = zip(Map.of("bomb.csv", new byte[8 * 1024 * 1024]));
+
+        assertThatThrownBy(() -> CsvZipExtractor.extract(new ByteArrayInputStream(zip), directory, LIMITS))
+                .isInstanceOf(ZipException.class).hasMessageContaining("expands more than 100 times");
+        assertThat(CsvZipExtractor.extract(new ByteArrayInputStream(zip), directory.resolve("lenient"),
+                new CsvZipExtractor.Limits(Long.MAX_VALUE, Long.MAX_VALUE, 10, 10_000)).uncompressedBytes())
+                .isEqualTo(8 * 1024 * 1024);
+    }
+
+    private static byte[] zip(final Map<String, byte[]> entries) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            for (final Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                zip.putNextEntry(new ZipEntry(entry.getKey()));
+                zip.write(entry.getValue());
+                zip.closeEntry();
+            }
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -182,4 +182,34 @@ class FileProcessorTest {
         assertTrue(groupedFiles.containsKey("_group1"), "File should be grouped in '_group1'");
         assertEquals(1, groupedFiles.get("_group1").size(), "There should be one file in the '_group1' group");
     }
-}
\ No newline at end of file
+
+    @Test
+    void testMemoryMappedScanKeepsMappingInsteadOfContent() throws IOException {
+        Path utf8File = createFile("SDOH_PtInfo_group1.csv", "PatientMRN,FirstName,LastName\n123,José,García");
+
+        Map<String, List<FileDetail>> groupedFiles = FileProcessor.processAndGroupFiles(List.of(utf8File.toString()),
+                true);
+
+        assertEquals(0, groupedFiles.get("filesNotProcessed").size());
+        FileDetail fileDetail = groupedFiles.get("_group1").get(0);
+        assertNotNull(fileDetail.mappedContent(), "The file should be memory-mapped.");
+        assertEquals(Files.size(utf8File), fileDetail.mappedContent().size());
+        assertEquals(Files.readString(utf8File), fileDetail.content());
+    }
+
+    @Test
+    void testMemoryMappedScanRejectsGroupWithNonUtf8File() throws IOException {
+        Files.write(demographicFile, "123,José".getBytes(java.nio.charset.StandardCharsets.ISO_8859_1));
+
+        Map<String, List<FileDetail>> groupedFiles = FileProcessor
+                .processAndGroupFiles(List.of(demographicFile.toString(), qeAdminFile.toString()), true);
+
+        assertTrue(!groupedFiles.containsKey("_group1"), "The group should not be processed.");
+        List<FileDetail> notProcessed = groupedFiles.get("filesNotProcessed");
+        assertEquals(2, notProcessed.size());
+        FileDetail nonUtf8 = notProcessed.stream().filter(fd -> !fd.utf8Encoded()).findFirst().orElseThrow();
+        assertEquals(demographicFile.toString(), nonUtf8.filePath());
+        assertTrue(nonUtf8.reason().contains("not UTF-8 encoded"), "Actual reason: " + nonUtf8.reason());
+        assertTrue(notProcessed.stream().allMatch(fd -> fd.mappedContent() == null));
+    }
+}
@@ -0,0 +1,90 @@
+package org.techbd.service.csv.engine;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.techbd.config.Configuration;
+
+/**
+ * Compares validating a large CSV group in the JVM with running
+ * {@code validate-nyher-fhir-ig-equivalent.py} on it. The group is the SHIN-NY
+ * example repeated for {@link #PATIENTS} patients, each with its own MRN,
+ * encounter and screening so that the unique, key and foreign key checks see
+ * distinct values. The Python side is skipped when {@code python3} cannot
+ * import frictionless.
+ *
+ * <pre>
+ * mvn -pl nexus-core-lib test -Dtest=NativeCsvValidationEngineBenchmarkTest -Dtechbd.benchmark=true
+ * </pre>
+ */
+@EnabledIfSystemProperty(named = "techbd.benchmark", matches = "true")
+class NativeCsvValidationEngineBenchmarkTest {
+
+    private static final int PATIENTS = 2_000;
+    private static final int ROUNDS = 5;
+    private static final List<String> KEY_COLUMNS = List.of("PATIENT_MR_ID_VALUE", "ENCOUNTER_ID",
+            "SCREENING_IDENTIFIER");
+
+    @TempDir
+    static Path group;
+
+    @BeforeAll
+    static void generateGroup() throws Exception {
+        for (final String fileName : NativeCsvValidationEngineTest.FILE_NAMES) {
+            final List<List<String>> example = NativeCsvValidationEngineTest
+                    .read(NativeCsvValidationEngineTest.EXAMPLE_DIR.resolve(fileName));
+            final List<String> header = example.get(0);
+            final List<Integer> keyColumns = KEY_COLUMNS.stream().map(header::indexOf)
+                    .filter(column -> column >= 0).toList();
+            final List<List<String>> rows = new ArrayList<>();
+            rows.add(header);
+            for (int patient = 0; patient < PATIENTS; patient++) {
+                for (final List<String> row : example.subList(1, example.size())) {
+                    final List<String> copy = new ArrayList<>(row);
+                    for (final int column : keyColumns) {
+                        copy.set(column, row.get(column) + "-" + patient);
+                    }
+                    rows.add(copy);
+                }
+            }
+            NativeCsvValidationEngineTest.write(group.resolve(fileName), rows);
+        }
+    }
+
+    @Test
+    void compareNativeAndPythonValidation() throws Exception {
+        final NativeCsvValidationEngine engine = NativeCsvValidationEngineTest.newEngine();
+        // warm up so class loading and JIT compilation are not measured
+        engine.validate(group, NativeCsvValidationEngineTest.FILE_NAMES);
+
+        long nativeNanos = Long.MAX_VALUE;
+        String report = null;
+        for (int round = 0; round < ROUNDS; round++) {
+            final long start = System.nanoTime();
+            report = engine.validate(group, NativeCsvValidationEngineTest.FILE_NAMES);
+            nativeNanos = Math.min(nativeNanos, System.nanoTime() - start);
+        }
+        assertThat(Configuration.objectMapper.readTree(report).path("report").path("valid").asBoolean()).isTrue();
+        System.out.printf("native: %d patients validated in %d ms (best of %d)%n", PATIENTS,
+                nativeNanos / 1_000_000, ROUNDS);
+
+        if (NativeCsvValidationEngineTest.frictionlessAvailable()) {
+            final long start = System.nanoTime();
+            final boolean valid = NativeCsvValidationEngineTest.runPython(group).path("report").path("valid")
+                    .asBoolean();
+            final long pythonNanos = System.nanoTime() - start;
+            assertThat(valid).isTrue();
+            System.out.printf("python: %d patients validated in %d ms (%.1fx the native engine)%n", PATIENTS,
+                    pythonNanos / 1_000_000, (double) pythonNanos / nativeNanos);
+        } else {
+            System.out.println("python: skipped, frictionless is not installed");
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package org.techbd.service.csv.engine;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.junit.jupiter.api.io.TempDir;
+import org.techbd.config.Configuration;
+import org.techbd.config.CoreAppConfig;
+import org.techbd.util.AppLogger;
+import org.techbd.util.TemplateLogger;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Validates the SHIN-NY example group, and copies of it with errors added,
+ * against the production data package. When {@code python3} can import
+ * frictionless, the same groups are also validated by
+ * {@code validate-nyher-fhir-ig-equivalent.py} and both reports must agree on
+ * which rows and fields are in error.
+ */
+class NativeCsvValidationEngineTest {
+
+    static final Path FLAT_FILE_DIR = Path.of("../support/specifications/flat-file");
+    static final Path PACKAGE = FLAT_FILE_DIR.resolve("datapackage-nyher-fhir-ig-equivalent.json");
+    static final Path PYTHON_SCRIPT = FLAT_FILE_DIR.resolve("validate-nyher-fhir-ig-equivalent.py");
+    static final Path EXAMPLE_DIR = Path.of("src/test/resources/org/techbd/csv/data/latestResources");
+    static final List<String> FILE_NAMES = List.of(
+            "SDOH_QEadmin_CareRidgeSCN_testcase1_20250312040214.csv",
+            "SDOH_ScreeningProf_CareRidgeSCN_testcase1_20250312040214.csv",
+            "SDOH_ScreeningObs_CareRidgeSCN_testcase1_20250312040214.csv",
+            "SDOH_PtInfo_CareRidgeSCN_testcase1_20250312040214.csv");
+
+    @TempDir
+    Path directory;
+
+    private NativeCsvValidationEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        engine = newEngine();
+    }
+
+    @Test
+    void acceptsTheExampleGroup() throws IOException {
+        copyExample(directory);
+
+        final JsonNode results = validate(directory);
+
+        assertThat(results.has("errorsSummary")).isFalse();
+        assertThat(results.path("report").path("valid").asBoolean()).isTrue();
+        assertThat(results.path("report").path("tasks")).extracting(task -> task.path("name").asText())
+                .containsExactlyElementsOf(NativeCsvValidationEngine.RESOURCE_NAMES);
+        assertThat(results.path("originalData").path("screening_observation_data").size())
+                .isEqualTo(results.path("report").path("tasks").get(2).path("stats").path("rows").asInt());
+    }
+
+    @Test
+    void reportsConstraintUniqueAndPrimaryKeyErrors() throws IOException {
+        copyExample(directory);
+        edit(directory.resolve(FILE_NAMES.get(0)), rows -> {
+            final List<String> duplicate = new ArrayList<>(rows.get(1));
+            duplicate.set(rows.get(0).indexOf("FACILITY_STATE"), "XX");
+            rows.add(duplicate);
+        });
+
+        final JsonNode task = task(validate(directory), 0);
+
+        assertThat(task.path("valid").asBoolean()).isFalse();
+        assertThat(errors(task)).containsExactly(
+                "constraint-error@3:FACILITY_STATE",
+                "unique-error@3:PATIENT_MR_ID_VALUE",
+                "primary-key@3:");
+        assertThat(task.path("errors").get(0).path("cell").asText()).isEqualTo("xx");
+        assertThat(task.path("errors").get(2).path("note").asText())
+                .isEqualTo("the same as in the row at position 2");
+    }
+
+    @Test
+    void reportsForeignKeyRequiredAndAnswerCodeErrors() throws IOException {
+        copyExample(directory);
+        edit(directory.resolve(FILE_NAMES.get(2)), rows -> {
+            final List<String> header = rows.get(0);
+            rows.get(1).set(header.indexOf("PATIENT_MR_ID_VALUE"), "unknown-patient");
+            rows.get(2).set(header.indexOf("ENCOUNTER_ID"), "");
+            final int question = header.indexOf("QUESTION_CODE");
+            for (int row = 1; row < rows.size(); row++) {
+                if (rows.get(row).get(question).equals("71802-3")) {
+                    rows.get(row).set(header.indexOf("ANSWER_CODE"), "LA6568-5");
+                    break;
+                }
+            }
+        });
+
+        final JsonNode task = task(validate(directory), 2);
+
+        assertThat(errors(task)).contains(
+                "foreign-key@2:",
+                "constraint-error@3:ENCOUNTER_ID",
+                "row-error@" + rowOf(task, "Invalid ANSWER_CODE") + ":");
+        assertThat(task.path("errors").get(0).path("note").asText()).isEqualTo(
+                "for \"PATIENT_MR_ID_VALUE\": values \"unknown-patient\" not found in the lookup table"
+                        + " \"qe_admin_data\" as \"PATIENT_MR_ID_VALUE\"");
+        assertThat(task.findValuesAsText("note"))
+                .contains("Invalid ANSWER_CODE 'la6568-5' for QUESTION_CODE '71802-3'");
+    }
+
+    @Test
+    void reportsLabelAndCellCountErrors() throws IOException {
+        copyExample(directory);
+        edit(directory.resolve(FILE_NAMES.get(3)), rows -> {
+            rows.get(0).set(1, rows.get(0).get(1) + "_TYPO");
+            rows.get(1).remove(rows.get(1).size() - 1);
+        });
+
+        final JsonNode task = task(validate(directory), 3);
+
+        assertThat(errors(task)).containsExactly(
+                "incorrect-label@:FACILITY_NAME",
+                "missing-cell@2:SEXUAL_ORIENTATION_LAST_UPDATED");
+    }
+
+    @Test
+    void reportsMissingFilesInTheErrorsSummary() throws IOException {
+        copyExample(directory);
+        Files.delete(directory.resolve(FILE_NAMES.get(3)));
+
+        final JsonNode results = validate(directory);
+
+        assertThat(results.path("report").isNull()).isTrue();
+        assertThat(results.path("errorsSummary")).hasSize(1);
+        assertThat(results.path("errorsSummary").get(0).path("type").asText()).isEqualTo("file-missing-error");
+        assertThat(results.path("errorsSummary").get(0).path("fieldName").asText()).isEqualTo("pt_info_data");
+    }
+
+    @Test
+    @EnabledIf("frictionlessAvailable")
+    void agreesWithThePythonValidator() throws Exception {
+        final Path valid = Files.createDirectory(directory.resolve("valid"));
+        copyExample(valid);
+        final Path invalid = Files.createDirectory(directory.resolve("invalid"));
+        copyExample(invalid);
+        edit(invalid.resolve(FILE_NAMES.get(0)), rows -> {
+            final List<String> duplicate = new ArrayList<>(rows.get(1));
+            duplicate.set(rows.get(0).indexOf("FACILITY_ZIP"), "1180");
+            rows.add(duplicate);
+        });
+        edit(invalid.resolve(FILE_NAMES.get(2)), rows -> {
+            rows.get(1).set(rows.get(0).indexOf("PATIENT_MR_ID_VALUE"), "unknown-patient");
+            rows.get(3).set(rows.get(0).indexOf("ANSWER_CODE"), "LA0000-0");
+            rows.get(4).set(rows.get(0).indexOf("OBSERVATION_CATEGORY_SDOH_CODE"), "");
+        });
+        edit(invalid.resolve(FILE_NAMES.get(3)), rows -> rows.get(1).remove(rows.get(1).size() - 1));
+
+        for (final Path group : List.of(valid, invalid)) {
+            final JsonNode expected = runPython(group);
+            final JsonNode actual = validate(group);
+
+            assertThat(actual.path("report").path("valid").asBoolean())
+                    .isEqualTo(expected.path("report").path("valid").asBoolean());
+            for (int index = 0; index < FILE_NAMES.size(); index++) {
+                assertThat(errors(task(actual, index))).as("errors of task %s", index)
+                        .containsExactlyInAnyOrderElementsOf(errors(task(expected, index)));
+            }
+        }
+    }
+
+    static boolean frictionlessAvailable() {
+        try {
+            final Process process = new ProcessBuilder("python3", "-c", "import frictionless")
+                    .redirectErrorStream(true).start();
+            process.getInputStream().transferTo(java.io.OutputStream.nullOutputStream());
+            return process.waitFor(60, TimeUnit.SECONDS) && process.exitValue() == 0;
+        } catch (IOException | InterruptedException e) {
+            return false;
+        }
+    }
+
+    static JsonNode runPython(final Path group) throws IOException, InterruptedException {
+        final List<String> command = new ArrayList<>(List.of("python3", PYTHON_SCRIPT.toAbsolutePath().toString(),
+                PACKAGE.toAbsolutePath().toString()));
+        command.addAll(FILE_NAMES);
+        final Process process = new ProcessBuilder(command).directory(group.toFile()).start();
+        final byte[] output = process.getInputStream().readAllBytes();
+        process.waitFor();
+        return Configuration.objectMapper.readTree(output);
+    }
+
+    static NativeCsvValidationEngine newEngine() {
+        final CoreAppConfig coreAppConfig = mock(CoreAppConfig.class);
+        when(coreAppConfig.getCsvValidationEngine()).thenReturn(NativeCsvValidationEngine.ENGINE);
+        when(coreAppConfig.getCsv()).thenReturn(new CoreAppConfig.CsvValidation(new CoreAppConfig.CsvValidation.Validation(
+                PYTHON_SCRIPT.toString(), "python3", PACKAGE.toString(), null, null, null)));
+        final AppLogger appLogger = mock(AppLogger.class);
+        when(appLogger.getLogger(any())).thenReturn(mock(TemplateLogger.class));
+        final NativeCsvValidationEngine engine = new NativeCsvValidationEngine(coreAppConfig, appLogger);
+        assertThat(engine.isEnabled()).isTrue();
+        return engine;
+    }
+
+    static void copyExample(final Path target) throws IOException {
+        for (final String fileName : FILE_NAMES) {
+            Files.copy(EXAMPLE_DIR.resolve(fileName), target.resolve(fileName));
+        }
+    }
+
+    static List<List<String>> read(final Path file) throws IOException {
+        final List<List<String>> rows = new ArrayList<>();
+        try (CsvRecordReader reader = new CsvRecordReader(
+                new StringReader(Files.readString(file, StandardCharsets.UTF_8)), ',', false)) {
+            List<String> row;
+            while ((row = reader.next()) != null) {
+                if (!row.isEmpty()) {
+                    rows.add(row);
+                }
+            }
+        }
+        return rows;
+    }
+
+    static void write(final Path file, final List<List<String>> rows) throws IOException {
+        Files.writeString(file, rows.stream()
+                .map(row -> row.stream().map(NativeCsvValidationEngineTest::quote).collect(Collectors.joining(",")))
+                .collect(Collectors.joining("\r\n", "", "\r\n")), StandardCharsets.UTF_8);
+    }
+
+    private static String quote(final String value) {
+        return value.contains(",") || value.contains("\"") || value.contains("\n")
+                ? "\"" + value.replace("\"", "\"\"") + "\""
+                : value;
+    }
+
+    private static void edit(final Path file, final Consumer<List<List<String>>> change) throws IOException {
+        final List<List<String>> rows = read(file);
+        change.accept(rows);
+        write(file, rows);
+    }
+
+    private JsonNode validate(final Path group) throws IOException {
+        return Configuration.objectMapper.readTree(engine.validate(group, FILE_NAMES));
+    }
+
+    private static JsonNode task(final JsonNode results, final int index) {
+        return results.path("report").path("tasks").get(index);
+    }
+
+    /** A task's errors as {@code type@rowNumber:fieldName}. */
+    private static List<String> errors(final JsonNode task) {
+        final List<String> errors = new ArrayList<>();
+        for (final JsonNode error : task.path("errors")) {
+            errors.add(error.path("type").asText() + "@" + error.path("rowNumber").asText("") + ":"
+                    + error.path("fieldName").asText(""));
+        }
+        return errors;
+    }
+
+    private static long rowOf(final JsonNode task, final String notePrefix) {
+        for (final JsonNode error : task.path("errors")) {
+            if (error.path("note").asText().startsWith(notePrefix)) {
+                return error.path("rowNumber").asLong();
+            }
+        }
+        return -1;
+    }
+}
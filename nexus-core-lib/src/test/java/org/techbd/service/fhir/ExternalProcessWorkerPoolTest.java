@@ -0,0 +1,256 @@
+package org.techbd.service.fhir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.techbd.config.CoreAppConfig;
+import org.techbd.util.AppLogger;
+import org.techbd.util.TemplateLogger;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ExternalProcessWorkerPoolTest {
+
+    @TempDir
+    Path workerDirectory;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ExternalProcessWorkerPool pool;
+
+    @BeforeEach
+    void addRegistry() {
+        meterRegistry = new SimpleMeterRegistry();
+        Metrics.addRegistry(meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+        Metrics.removeRegistry(meterRegistry);
+    }
+
+    @Test
+    void isDisabledWithoutConfiguration() {
+        pool = pool(null);
+
+        assertThat(pool.isEnabled()).isFalse();
+        assertThatThrownBy(() -> pool.call(bytes("hello"), Duration.ofSeconds(1)))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void pipelinesRequestsAndMatchesResponsesInOrder() throws Exception {
+        pool = pool(new CoreAppConfig.PostStdinWorkerPool(true, echoWorker(), 1, 4));
+        final ExecutorService callers = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<String>> responses = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                final String request = "request-" + i;
+                responses.add(callers.submit(() -> text(pool.call(bytes(request), Duration.ofSeconds(30)))));
+            }
+            for (int i = 0; i < responses.size(); i++) {
+                assertThat(responses.get(i).get()).isEqualTo("echo:request-" + i);
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+        assertThat(meterRegistry.get("techbd.stdin.worker.request").tag("outcome", "success").timer().count())
+                .isEqualTo(32);
+    }
+
+    @Test
+    void restartsAWorkerThatExits() throws Exception {
+        pool = pool(new CoreAppConfig.PostStdinWorkerPool(true, echoWorker(), 1, 2));
+
+        assertThatThrownBy(() -> pool.call(bytes("crash"), Duration.ofSeconds(30))).isInstanceOf(IOException.class);
+
+        assertThat(text(pool.call(bytes("again"), Duration.ofSeconds(30)))).isEqualTo("echo:again");
+        assertThat(meterRegistry.get("techbd.stdin.worker.restarts").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void killsAndReplacesAWorkerThatMissesTheDeadline() throws Exception {
+        pool = pool(new CoreAppConfig.PostStdinWorkerPool(true, echoWorker(), 1, 2));
+        assertThat(text(pool.call(bytes("warm-up"), Duration.ofSeconds(30)))).isEqualTo("echo:warm-up");
+
+        assertThatThrownBy(() -> pool.call(bytes("hang"), Duration.ofMillis(500)))
+                .isInstanceOf(TimeoutException.class);
+
+        assertThat(text(pool.call(bytes("after"), Duration.ofSeconds(30)))).isEqualTo("echo:after");
+        assertThat(meterRegistry.get("techbd.stdin.worker.request").tag("outcome", "timeout").timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void failsOnlyTheRequestThatMissedItsDeadline() throws Exception {
+        pool = pool(new CoreAppConfig.PostStdinWorkerPool(true, echoWorker(), 1, 2));
+        assertThat(text(pool.call(bytes("warm-up"), Duration.ofSeconds(30)))).isEqualTo("echo:warm-up");
+        final ExecutorService callers = Executors.newSingleThreadExecutor();
+        try {
+            final Future<byte[]> slow = callers.submit(() -> pool.call(bytes("slow"), Duration.ofMillis(300)));
+            Thread.sleep(100);
+
+            assertThat(text(pool.call(bytes("behind"), Duration.ofSeconds(30)))).isEqualTo("echo:behind");
+            assertThatThrownBy(slow::get).hasCauseInstanceOf(TimeoutException.class);
+        } finally {
+            callers.shutdownNow();
+        }
+        assertThat(text(pool.call(bytes("after"), Duration.ofSeconds(30)))).isEqualTo("echo:after");
+        assertThat(meterRegistry.get("techbd.stdin.worker.request").tag("outcome", "success").timer().count())
+                .isEqualTo(3);
+    }
+
+    @Test
+    void killsAWorkerThatStopsReadingItsStdin() throws Exception {
+        pool = pool(new CoreAppConfig.PostStdinWorkerPool(true, echoWorker(), 1, 2));
+        final ExecutorService callers = Executors.newSingleThreadExecutor();
+        try {
+            final Future<byte[]> hung = callers.submit(() -> pool.call(bytes("hang"), Duration.ofSeconds(30)));
+            Thread.sleep(500);
+            // larger than any pipe buffer, so the write blocks while the worker is not reading
+            final byte[] large = new byte[4 * 1024 * 1024];
+
+            final long start = System.nanoTime();
+            assertThatThrownBy(() -> pool.call(large, Duration.ofMillis(500))).isInstanceOf(TimeoutException.class);
+            assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(10));
+            assertThatThrownBy(() -> hung.get(10, TimeUnit.SECONDS)).hasCauseInstanceOf(IOException.class);
+        } finally {
+            callers.shutdownNow();
+        }
+        assertThat(text(pool.call(bytes("after"), Duration.ofSeconds(30)))).isEqualTo("echo:after");
+        assertThat(meterRegistry.get("techbd.stdin.worker.restarts").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void retiresAWorkerAfterMaxJobs() throws Exception {
+        pool = new ExternalProcessWorkerPool(settings(3, null, null), appLogger());
+
+        for (int i = 0; i < 7; i++) {
+            assertThat(text(pool.call(bytes("job-" + i), Duration.ofSeconds(30)))).isEqualTo("echo:job-" + i);
+        }
+
+        assertThat(meterRegistry.get("techbd.stdin.worker.retired").tag("pool", "echo").counter().count())
+                .isEqualTo(2);
+        assertThat(meterRegistry.find("techbd.stdin.worker.restarts").counter()).isNull();
+    }
+
+    @Test
+    void replacesAWorkerThatFailsItsHealthCheck() throws Exception {
+        final AtomicBoolean healthy = new AtomicBoolean(true);
+        pool = new ExternalProcessWorkerPool(settings(0, bytes("ping"),
+                response -> healthy.get() && "echo:ping".equals(text(response))), appLogger());
+        assertThat(text(pool.call(bytes("warm-up"), Duration.ofSeconds(30)))).isEqualTo("echo:warm-up");
+
+        pool.checkHealth();
+        healthy.set(false);
+        pool.checkHealth();
+
+        assertThat(text(pool.call(bytes("after"), Duration.ofSeconds(30)))).isEqualTo("echo:after");
+        assertThat(meterRegistry.get("techbd.stdin.worker.health_check").tag("outcome", "healthy").counter().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get("techbd.stdin.worker.health_check").tag("outcome", "failure").counter().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get("techbd.stdin.worker.restarts").counter().count()).isEqualTo(1);
+    }
+
+    /**
+     * Framed echo worker run as a separate JVM: answers {@code crash} by
+     * exiting, {@code hang} by never answering, {@code slow} after a second
+     * and anything else with {@code echo:<request>}.
+     */
+    public static final class EchoWorker {
+
+        public static void main(final String[] args) throws Exception {
+            final DataInputStream in = new DataInputStream(System.in);
+            final DataOutputStream out = new DataOutputStream(System.out);
+            while (true) {
+                final byte[] request;
+                try {
+                    request = in.readNBytes(in.readInt());
+                } catch (EOFException e) {
+                    return;
+                }
+                final String text = text(request);
+                System.err.println("worker received " + text);
+                if ("crash".equals(text)) {
+                    System.exit(3);
+                }
+                if ("hang".equals(text)) {
+                    Thread.sleep(Long.MAX_VALUE);
+                }
+                if ("slow".equals(text)) {
+                    Thread.sleep(1000);
+                }
+                final byte[] response = bytes("echo:" + text);
+                out.writeInt(response.length);
+                out.write(response);
+                out.flush();
+            }
+        }
+    }
+
+    private String echoWorker() throws IOException {
+        final Path java = Paths.get(System.getProperty("java.home"), "bin", "java");
+        final Path script = workerDirectory.resolve("echo-worker.sh");
+        Files.writeString(script, "#!/bin/sh\nexec '" + java + "' -cp '" + System.getProperty("java.class.path")
+                + "' '" + EchoWorker.class.getName() + "'\n");
+        assertThat(script.toFile().setExecutable(true)).isTrue();
+        return script.toString();
+    }
+
+    private static byte[] bytes(final String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String text(final byte[] bytes) {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private ExternalProcessWorkerPool.Settings settings(final int maxJobsPerWorker, final byte[] healthCheckRequest,
+            final Predicate<byte[]> healthCheckResponse) throws IOException {
+        // health checks are run by the tests themselves, not on a schedule
+        return new ExternalProcessWorkerPool.Settings("echo", true, List.of(echoWorker()), 1, 2, maxJobsPerWorker,
+                healthCheckRequest, healthCheckResponse, Duration.ZERO, Duration.ofSeconds(30));
+    }
+
+    private static ExternalProcessWorkerPool pool(final CoreAppConfig.PostStdinWorkerPool config) {
+        final CoreAppConfig coreAppConfig = mock(CoreAppConfig.class);
+        when(coreAppConfig.getPostStdinWorkerPool()).thenReturn(config);
+        return new ExternalProcessWorkerPool(coreAppConfig, appLogger());
+    }
+
+    private static AppLogger appLogger() {
+        final AppLogger appLogger = mock(AppLogger.class);
+        when(appLogger.getLogger(any())).thenReturn(mock(TemplateLogger.class));
+        return appLogger;
+    }
+}
@@ -0,0 +1,61 @@
+package org.techbd.service.fhir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import org.techbd.service.fhir.engine.OrchestrationEngine;
+import org.techbd.service.fhir.engine.OrchestrationEngine.ValidationResult;
+
+class HapiValidationEngineConcurrencyTest extends BaseIgValidationTest {
+
+        private static final String SHINNY_PROFILE = "http://shinny.org/us/ny/hrsn/StructureDefinition/SHINNYBundleProfile";
+        private static final String TEST_SHINNY_PROFILE = "http://test.shinny.org/us/ny/hrsn/StructureDefinition/SHINNYBundleProfile";
+        private static final int VALIDATIONS = 400;
+        private static final int THREADS = 32;
+
+        private static String payload(String profileUrl) {
+                return "{ \"resourceType\": \"Bundle\", \"id\": \"AHCHRSNScreeningResponseExample\", \"meta\": { \"lastUpdated\": \"2024-02-23T00:00:00Z\", \"profile\": [\""
+                                + profileUrl + "\"] } }";
+        }
+
+        @Test
+        void resultsStayConsistentUnderContention() throws Exception {
+                OrchestrationEngine.ValidationEngine hapiEngine = engine
+                                .getValidationEngine(OrchestrationEngine.ValidationEngineIdentifier.HAPI);
+                CountDownLatch start = new CountDownLatch(1);
+                ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+                try {
+                        List<Future<ValidationResult>> futures = new ArrayList<>();
+                        List<String> expectedProfiles = new ArrayList<>();
+                        for (int i = 0; i < VALIDATIONS; i++) {
+                                String profileUrl = i % 2 == 0 ? SHINNY_PROFILE : TEST_SHINNY_PROFILE;
+                                String payload = payload(profileUrl);
+                                expectedProfiles.add(profileUrl);
+                                futures.add(executor.submit(() -> {
+                                        start.await();
+                                        return hapiEngine.validate(payload, UUID.randomUUID().toString(), null);
+                                }));
+                        }
+                        start.countDown();
+                        for (int i = 0; i < VALIDATIONS; i++) {
+                                ValidationResult result = futures.get(i).get();
+                                assertThat(result.getProfileUrl()).isEqualTo(expectedProfiles.get(i));
+                                assertThat(result.getIgVersion()).isEqualTo("1.6.3");
+                                assertThat(result.isValid()).isFalse();
+                                assertThat(result.getOperationOutcome()).contains("OperationOutcome");
+                                // results are immutable: reading again after other validations gives the same answer
+                                assertThat(result.getProfileUrl()).isEqualTo(expectedProfiles.get(i));
+                        }
+                } finally {
+                        executor.shutdownNow();
+                }
+        }
+}
@@ -0,0 +1,136 @@
+package org.techbd.service.fhir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.jooq.Configuration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.techbd.config.CoreAppConfig;
+import org.techbd.udi.auto.jooq.ingress.routines.RegisterInteractionFhirRequest;
+import org.techbd.util.AppLogger;
+import org.techbd.util.TemplateLogger;
+
+class InteractionJournalTest {
+
+    private final Configuration jooqCfg = mock(Configuration.class);
+    private InteractionJournal journal;
+
+    @AfterEach
+    void tearDown() {
+        journal.shutdown();
+    }
+
+    @Test
+    void writesThroughWhenWriteBehindIsDisabled() {
+        journal = journal(null);
+        final RegisterInteractionFhirRequest call = call();
+        final List<String> completed = new CopyOnWriteArrayList<>();
+
+        journal.register(jooqCfg, "i-1", call, (execResult, response, elapsedMillis) -> completed.add("i-1"));
+
+        verify(call).execute(jooqCfg);
+        assertThat(completed).containsExactly("i-1");
+    }
+
+    @Test
+    void queuesTransitionsAndFlushesThemBeforeReadYourWritesCalls() {
+        journal = journal(new CoreAppConfig.InteractionJournal(true, 50, 60_000, null, null, null));
+        final RegisterInteractionFhirRequest original = call();
+        final RegisterInteractionFhirRequest forward = call();
+        final RegisterInteractionFhirRequest complete = call();
+        final RegisterInteractionFhirRequest disposition = call();
+        final List<String> completed = new CopyOnWriteArrayList<>();
+
+        journal.register(jooqCfg, "i-1", original, (execResult, response, elapsedMillis) -> completed.add("original"));
+        journal.register(jooqCfg, "i-1", forward, (execResult, response, elapsedMillis) -> completed.add("forward"));
+        journal.register(jooqCfg, "i-1", complete, (execResult, response, elapsedMillis) -> completed.add("complete"));
+
+        verify(original, never()).execute(any(Configuration.class));
+        assertThat(completed).isEmpty();
+
+        journal.registerNow(jooqCfg, "i-1", disposition);
+
+        final InOrder inOrder = inOrder(original, forward, complete, disposition);
+        inOrder.verify(original).execute(jooqCfg);
+        inOrder.verify(forward).execute(jooqCfg);
+        inOrder.verify(complete).execute(jooqCfg);
+        inOrder.verify(disposition).execute(jooqCfg);
+        assertThat(completed).containsExactly("original", "forward", "complete");
+    }
+
+    @Test
+    void readYourWritesCallsOnlyFlushTheirOwnInteraction() {
+        journal = journal(new CoreAppConfig.InteractionJournal(true, 50, 60_000, null, null, null));
+        final RegisterInteractionFhirRequest mine = call();
+        final RegisterInteractionFhirRequest other = call();
+        final RegisterInteractionFhirRequest disposition = call();
+
+        journal.register(jooqCfg, "i-1", mine, (execResult, response, elapsedMillis) -> {
+        });
+        journal.register(jooqCfg, "i-2", other, (execResult, response, elapsedMillis) -> {
+        });
+        journal.registerNow(jooqCfg, "i-1", disposition);
+
+        final InOrder inOrder = inOrder(mine, disposition);
+        inOrder.verify(mine).execute(jooqCfg);
+        inOrder.verify(disposition).execute(jooqCfg);
+        verify(other, never()).execute(any(Configuration.class));
+
+        journal.flush();
+        verify(other).execute(jooqCfg);
+    }
+
+    @Test
+    void dropsTransitionsWhenFullUnderTheDropPolicy() {
+        journal = journal(new CoreAppConfig.InteractionJournal(true, 50, 60_000, 1, "DROP", null));
+        final RegisterInteractionFhirRequest queued = call();
+        final RegisterInteractionFhirRequest dropped = call();
+        final List<String> completed = new CopyOnWriteArrayList<>();
+
+        journal.register(jooqCfg, "i-1", queued, (execResult, response, elapsedMillis) -> completed.add("queued"));
+        journal.register(jooqCfg, "i-2", dropped, (execResult, response, elapsedMillis) -> completed.add("dropped"));
+        journal.flush();
+
+        verify(queued).execute(jooqCfg);
+        verify(dropped, never()).execute(any(Configuration.class));
+        assertThat(completed).containsExactly("queued");
+    }
+
+    @Test
+    void keepsWritingAfterAFailedCall() {
+        journal = journal(new CoreAppConfig.InteractionJournal(true, 50, 60_000, null, null, null));
+        final RegisterInteractionFhirRequest failing = call();
+        when(failing.execute(jooqCfg)).thenThrow(new IllegalStateException("db down"));
+        final RegisterInteractionFhirRequest next = call();
+        final List<String> completed = new CopyOnWriteArrayList<>();
+
+        journal.register(jooqCfg, "i-1", failing, (execResult, response, elapsedMillis) -> completed.add("failing"));
+        journal.register(jooqCfg, "i-1", next, (execResult, response, elapsedMillis) -> completed.add("next"));
+        journal.flush();
+
+        verify(next).execute(jooqCfg);
+        assertThat(completed).containsExactly("next");
+    }
+
+    private static RegisterInteractionFhirRequest call() {
+        return mock(RegisterInteractionFhirRequest.class);
+    }
+
+    private static InteractionJournal journal(final CoreAppConfig.InteractionJournal config) {
+        final CoreAppConfig coreAppConfig = mock(CoreAppConfig.class);
+        when(coreAppConfig.getInteractionJournal()).thenReturn(config);
+        final AppLogger appLogger = mock(AppLogger.class);
+        when(appLogger.getLogger(any())).thenReturn(mock(TemplateLogger.class));
+        return new InteractionJournal(coreAppConfig, appLogger);
+    }
+}
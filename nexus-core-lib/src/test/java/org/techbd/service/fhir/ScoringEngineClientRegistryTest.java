@@ -0,0 +1,91 @@
+package org.techbd.service.fhir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.techbd.config.CoreAppConfig;
+import org.techbd.config.CoreAppConfig.MTlsResources;
+import org.techbd.util.AppLogger;
+import org.techbd.util.TemplateLogger;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.handler.ssl.util.SelfSignedCertificate;
+
+class ScoringEngineClientRegistryTest {
+
+    @TempDir
+    Path certificateDirectory;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ScoringEngineClientRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        Metrics.addRegistry(meterRegistry);
+        final CoreAppConfig coreAppConfig = mock(CoreAppConfig.class);
+        final AppLogger appLogger = mock(AppLogger.class);
+        when(appLogger.getLogger(any())).thenReturn(mock(TemplateLogger.class));
+        registry = new ScoringEngineClientRegistry(coreAppConfig, appLogger);
+    }
+
+    @AfterEach
+    void tearDown() {
+        registry.shutdown();
+        Metrics.removeRegistry(meterRegistry);
+    }
+
+    @Test
+    void reusesClientPerBaseUrl() {
+        final WebClient first = registry.getClient("https://datalake.example.org/api");
+
+        assertThat(registry.getClient("https://datalake.example.org/api")).isSameAs(first);
+        assertThat(registry.getClient("https://other.example.org/api")).isNotSameAs(first);
+        assertThat(registry.size()).isEqualTo(2);
+    }
+
+    @Test
+    void loadsMtlsResourcesOnceAndKeysClientsByCredentialSource() throws Exception {
+        final SelfSignedCertificate certificate = new SelfSignedCertificate();
+        try {
+            final Path key = Files.copy(certificate.privateKey().toPath(), certificateDirectory.resolve("client.key"));
+            final Path cert = Files.copy(certificate.certificate().toPath(),
+                    certificateDirectory.resolve("client.pem"));
+            final MTlsResources resources = new MTlsResources(key.toString(), cert.toString());
+
+            final WebClient mtlsClient = registry.getClient("https://datalake.example.org/api", resources);
+
+            assertThat(registry.getClient("https://datalake.example.org/api",
+                    new MTlsResources(key.toString(), cert.toString()))).isSameAs(mtlsClient);
+            assertThat(registry.getClient("https://datalake.example.org/api")).isNotSameAs(mtlsClient);
+            assertThat(meterRegistry.get("techbd.scoring.client.credentials.load")
+                    .tag("strategy", FHIRService.MTlsStrategy.MTLS_RESOURCES.getValue())
+                    .tag("outcome", "success")
+                    .timer().count()).isEqualTo(1);
+        } finally {
+            certificate.delete();
+        }
+    }
+
+    @Test
+    void doesNotCacheClientsWhoseCredentialsFailToLoad() {
+        final MTlsResources missing = new MTlsResources(certificateDirectory.resolve("missing.key").toString(),
+                certificateDirectory.resolve("missing.pem").toString());
+
+        assertThatThrownBy(() -> registry.getClient("https://datalake.example.org/api", missing))
+                .isInstanceOf(RuntimeException.class);
+        assertThat(registry.size()).isZero();
+    }
+}
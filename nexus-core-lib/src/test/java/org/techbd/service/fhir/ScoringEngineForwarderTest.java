@@ -0,0 +1,223 @@
+package org.techbd.service.fhir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.techbd.config.Configuration;
+import org.techbd.config.CoreAppConfig;
+import org.techbd.service.fhir.ScoringEngineForwarder.ForwardJob;
+import org.techbd.util.AppLogger;
+import org.techbd.util.TemplateLogger;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+
+class ScoringEngineForwarderTest {
+
+    @TempDir
+    Path journalDirectory;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ScoringEngineForwarder forwarder;
+
+    @BeforeEach
+    void addRegistry() {
+        meterRegistry = new SimpleMeterRegistry();
+        Metrics.addRegistry(meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (forwarder != null) {
+            forwarder.shutdown();
+        }
+        Metrics.removeRegistry(meterRegistry);
+    }
+
+    @Test
+    void doesNotQueueWhenAsyncForwardingIsDisabled() {
+        forwarder = forwarder(null);
+        forwarder.start(job -> {
+        });
+
+        assertThat(forwarder.isAsync()).isFalse();
+        assertThat(forwarder.submit(job("i-1"))).isFalse();
+    }
+
+    @Test
+    void forwardsQueuedJobsOnWorkersAndClearsTheJournal() throws Exception {
+        forwarder = forwarder(new CoreAppConfig.ScoringEngineForwarding(true, 2, 10, journalDirectory.toString(),
+                0, null, null));
+        final List<String> forwarded = new CopyOnWriteArrayList<>();
+        final CountDownLatch done = new CountDownLatch(3);
+        forwarder.start(job -> {
+            assertThat(Thread.currentThread().getName()).startsWith("scoring-engine-forward-");
+            forwarded.add(job.interactionId());
+            done.countDown();
+        });
+
+        assertThat(forwarder.submit(job("i-1"))).isTrue();
+        assertThat(forwarder.submit(job("i-2"))).isTrue();
+        assertThat(forwarder.submit(job("i-3"))).isTrue();
+
+        assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+        forwarder.shutdown();
+        assertThat(forwarded).containsExactlyInAnyOrder("i-1", "i-2", "i-3");
+        assertThat(meterRegistry.get("techbd.scoring.forward.jobs").tag("outcome", "completed").counter().count())
+                .isEqualTo(3);
+        try (var files = Files.list(journalDirectory)) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    @Test
+    void keepsTheWorkerAndJournalUntilThePostCompletes() throws Exception {
+        forwarder = forwarder(new CoreAppConfig.ScoringEngineForwarding(true, 1, 10, journalDirectory.toString(),
+                0, null, null));
+        final List<Boolean> journaledDuringPost = new CopyOnWriteArrayList<>();
+        final CountDownLatch posted = new CountDownLatch(1);
+        forwarder.start(job -> forwarder.dispatch(Mono.delay(Duration.ofMillis(200))
+                .doOnNext(tick -> journaledDuringPost
+                        .add(Files.exists(journalDirectory.resolve(job.interactionId() + ".job.json"))))
+                .doFinally(signal -> posted.countDown())));
+
+        assertThat(forwarder.submit(job("i-1"))).isTrue();
+        assertThat(posted.await(10, TimeUnit.SECONDS)).isTrue();
+        forwarder.shutdown();
+
+        assertThat(journaledDuringPost).containsExactly(true);
+        assertThat(meterRegistry.get("techbd.scoring.forward.duration").timer().totalTime(TimeUnit.MILLISECONDS))
+                .isGreaterThanOrEqualTo(200);
+        try (var files = Files.list(journalDirectory)) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    @Test
+    void replaysJournaledJobsOnStart() throws Exception {
+        Configuration.objectMapper.writeValue(journalDirectory.resolve("i-9.job.json").toFile(), job("i-9"));
+        forwarder = forwarder(new CoreAppConfig.ScoringEngineForwarding(true, 1, 10, journalDirectory.toString(),
+                0, null, null));
+        final CountDownLatch done = new CountDownLatch(1);
+        final List<ForwardJob> replayed = new CopyOnWriteArrayList<>();
+        forwarder.start(job -> {
+            replayed.add(job);
+            done.countDown();
+        });
+
+        assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(replayed).singleElement().satisfies(job -> {
+            assertThat(job.interactionId()).isEqualTo("i-9");
+            assertThat(job.requestParameters()).containsEntry("k", "v");
+        });
+    }
+
+    @Test
+    void retriesTransientFailuresAndWritesDeadLetters() throws Exception {
+        forwarder = forwarder(new CoreAppConfig.ScoringEngineForwarding(true, 1, 10, journalDirectory.toString(),
+                2, 1, 5));
+        final AtomicInteger attempts = new AtomicInteger();
+        final Mono<String> post = Mono.defer(() -> {
+            attempts.incrementAndGet();
+            return Mono.error(WebClientResponseException.create(HttpStatus.BAD_GATEWAY.value(), "Bad Gateway",
+                    HttpHeaders.EMPTY, new byte[0], null));
+        });
+
+        assertThatThrownBy(() -> post.retryWhen(forwarder.retrySpec("i-1")).block(Duration.ofSeconds(10)))
+                .isInstanceOf(WebClientResponseException.class);
+        assertThat(attempts).hasValue(3);
+
+        attempts.set(0);
+        final Mono<String> rejected = Mono.defer(() -> {
+            attempts.incrementAndGet();
+            return Mono.error(WebClientResponseException.create(HttpStatus.BAD_REQUEST.value(), "Bad Request",
+                    HttpHeaders.EMPTY, new byte[0], null));
+        });
+        assertThatThrownBy(() -> rejected.retryWhen(forwarder.retrySpec("i-1")).block(Duration.ofSeconds(10)))
+                .isInstanceOf(WebClientResponseException.class);
+        assertThat(attempts).hasValue(1);
+
+        forwarder.deadLetter("i-1", "tenant", "bundle-1", "https://datalake.example.org", Map.of("id", "bundle-1"),
+                new IllegalStateException("boom"));
+        assertThat(journalDirectory.resolve("dead-letter").resolve("i-1.json")).exists();
+        assertThat(meterRegistry.get("techbd.scoring.forward.dead_letter").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void registersForwardOnceWhenThePostIsRetried() throws Exception {
+        forwarder = forwarder(new CoreAppConfig.ScoringEngineForwarding(true, 1, 10, null, 2, 1, 5));
+        final AtomicInteger attempts = new AtomicInteger();
+        final AtomicInteger filtered = new AtomicInteger();
+        final AtomicInteger forwardRegistrations = new AtomicInteger();
+        final List<String> responses = new CopyOnWriteArrayList<>();
+        final CountDownLatch posted = new CountDownLatch(1);
+        // shaped like FHIRService: FORWARD is registered before the post, the filter only logs
+        final WebClient webClient = WebClient.builder()
+                .baseUrl("https://datalake.example.org")
+                .filter(ExchangeFilterFunction.ofRequestProcessor(request -> {
+                    filtered.incrementAndGet();
+                    return Mono.just(request);
+                }))
+                .exchangeFunction(request -> Mono.just(attempts.incrementAndGet() == 1
+                        ? ClientResponse.create(HttpStatus.SERVICE_UNAVAILABLE).build()
+                        : ClientResponse.create(HttpStatus.OK).body("{\"status\": \"Success\"}").build()))
+                .build();
+        forwarder.start(job -> {
+            forwardRegistrations.incrementAndGet();
+            forwarder.dispatch(webClient.post()
+                    .uri("?processingAgent=" + job.tenantId())
+                    .retrieve()
+                    .bodyToMono(String.class)
+                    .retryWhen(forwarder.retrySpec(job.interactionId()))
+                    .doOnNext(responses::add)
+                    .doFinally(signal -> posted.countDown())
+                    .onErrorComplete());
+        });
+
+        assertThat(forwarder.submit(job("i-1"))).isTrue();
+        assertThat(posted.await(10, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(attempts).hasValue(2);
+        assertThat(filtered).hasValue(2);
+        assertThat(forwardRegistrations).hasValue(1);
+        assertThat(responses).containsExactly("{\"status\": \"Success\"}");
+        assertThat(meterRegistry.get("techbd.scoring.forward.retries").counter().count()).isEqualTo(1);
+    }
+
+    private static ForwardJob job(final String interactionId) {
+        return new ForwardJob(interactionId, "tenant", Map.of("k", "v"), "https://datalake.example.org", null,
+                "{\"resourceType\":\"Bundle\"}", null, "test", null, null, null, "FHIR", null, null, "bundle-1");
+    }
+
+    private static ScoringEngineForwarder forwarder(final CoreAppConfig.ScoringEngineForwarding config) {
+        final CoreAppConfig coreAppConfig = mock(CoreAppConfig.class);
+        when(coreAppConfig.getScoringEngineForwarding()).thenReturn(config);
+        final AppLogger appLogger = mock(AppLogger.class);
+        when(appLogger.getLogger(any())).thenReturn(mock(TemplateLogger.class));
+        return new ScoringEngineForwarder(coreAppConfig, appLogger);
+    }
+}
@@ -0,0 +1,144 @@
+package org.techbd.service.fhir.engine;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.techbd.config.CoreAppConfig;
+import org.techbd.config.CoreAppConfig.FhirV4Config;
+import org.techbd.config.CoreAppConfig.FhirValidationConcurrency;
+import org.techbd.util.AppLogger;
+import org.techbd.util.TemplateLogger;
+import org.techbd.util.fhir.CoreFHIRUtil;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Compares sequential validation with the concurrent validation executor on
+ * large bundles. Building the engines loads the IG packages twice and the
+ * bundles have 1,000 entries each, so the benchmark only runs when requested:
+ *
+ * <pre>
+ * mvn -pl nexus-core-lib test -Dtest=ConcurrentValidationBenchmarkTest -Dtechbd.benchmark=true
+ * </pre>
+ */
+@EnabledIfSystemProperty(named = "techbd.benchmark", matches = "true")
+class ConcurrentValidationBenchmarkTest {
+
+    private static final int BUNDLE_ENTRIES = 1_000;
+    private static final int SESSION_PAYLOADS = 4;
+    private static final String EXAMPLE_BUNDLE = "src/test/resources/org/techbd/ig-examples/shinny-examples/Bundle-AHCHRSNScreeningResponseExample.json";
+
+    private static String largeBundle;
+
+    @BeforeAll
+    static void buildLargeBundle() throws Exception {
+        CoreFHIRUtil.PROFILE_MAP = Map.of(CoreFHIRUtil.BUNDLE, "/StructureDefinition/SHINNYBundleProfile");
+        final ObjectMapper mapper = new ObjectMapper();
+        final ObjectNode bundle = (ObjectNode) mapper.readTree(Files.readString(Path.of(EXAMPLE_BUNDLE)));
+        final ArrayNode entries = (ArrayNode) bundle.get("entry");
+        final List<ObjectNode> observations = new ArrayList<>();
+        entries.forEach(entry -> {
+            if ("Observation".equals(entry.path("resource").path("resourceType").asText())) {
+                observations.add((ObjectNode) entry);
+            }
+        });
+        int copy = 0;
+        while (entries.size() < BUNDLE_ENTRIES) {
+            final ObjectNode template = observations.get(copy % observations.size());
+            final ObjectNode entry = template.deepCopy();
+            final String id = template.path("resource").path("id").asText() + "-copy" + copy;
+            ((ObjectNode) entry.get("resource")).put("id", id);
+            entry.put("fullUrl", template.path("fullUrl").asText() + "-copy" + copy);
+            entries.add(entry);
+            copy++;
+        }
+        largeBundle = mapper.writeValueAsString(bundle);
+    }
+
+    @Test
+    void compareSequentialAndConcurrentValidation() {
+        final OrchestrationEngine sequential = newEngine(null);
+        final OrchestrationEngine concurrent = newEngine(
+                new FhirValidationConcurrency("virtual-threads", 8, 600, true));
+        try {
+            // warm up both engines so class loading and snapshot generation are not measured
+            validate(sequential, List.of(largeBundle));
+            validate(concurrent, List.of(largeBundle));
+
+            final Duration sequentialSingle = validate(sequential, List.of(largeBundle));
+            final Duration concurrentSingle = validate(concurrent, List.of(largeBundle));
+            final List<String> payloads = Collections.nCopies(SESSION_PAYLOADS, largeBundle);
+            final Duration sequentialSession = validate(sequential, payloads);
+            final Duration concurrentSession = validate(concurrent, payloads);
+
+            System.out.printf("%d-entry bundle: sequential %d ms, concurrent %d ms%n", BUNDLE_ENTRIES,
+                    sequentialSingle.toMillis(), concurrentSingle.toMillis());
+            System.out.printf("%d x %d-entry session: sequential %d ms, concurrent %d ms%n", SESSION_PAYLOADS,
+                    BUNDLE_ENTRIES, sequentialSession.toMillis(), concurrentSession.toMillis());
+        } finally {
+            sequential.shutdown();
+            concurrent.shutdown();
+        }
+    }
+
+    private static Duration validate(final OrchestrationEngine engine, final List<String> payloads) {
+        final var session = engine.session()
+                .withPayloads(payloads)
+                .withSessionId(UUID.randomUUID().toString())
+                .withInteractionId(UUID.randomUUID().toString())
+                .addHapiValidationEngine()
+                .build();
+        final Instant start = Instant.now();
+        try {
+            engine.orchestrate(session);
+            final var results = engine.getSessions().get(session.getSessionId()).getValidationResults();
+            assertThat(results).hasSize(payloads.size());
+            results.forEach(result -> assertThat(result.getOperationOutcome()).isNotNull());
+            return Duration.between(start, Instant.now());
+        } finally {
+            engine.clear(session);
+        }
+    }
+
+    private static OrchestrationEngine newEngine(final FhirValidationConcurrency concurrency) {
+        final CoreAppConfig appConfig = mock(CoreAppConfig.class);
+        final AppLogger appLogger = mock(AppLogger.class);
+        when(appLogger.getLogger(any())).thenReturn(new TemplateLogger(OrchestrationEngine.class, "benchmark"));
+        when(appConfig.getIgPackages()).thenReturn(igPackages());
+        when(appConfig.getFhirValidationConcurrency()).thenReturn(concurrency);
+        return new OrchestrationEngine(appConfig, appLogger);
+    }
+
+    private static Map<String, FhirV4Config> igPackages() {
+        final FhirV4Config fhirV4Config = new FhirV4Config();
+        fhirV4Config.setBasePackages(Map.of(
+                "us-core", "ig-packages/fhir-v4/us-core/stu-7.0.0",
+                "sdoh", "ig-packages/fhir-v4/sdoh-clinicalcare/stu-2.2.0",
+                "uv-sdc", "ig-packages/fhir-v4/uv-sdc/stu-3.0.0"));
+        final Map<String, Map<String, String>> shinnyPackages = new HashMap<>();
+        shinnyPackages.put("shinny", Map.of(
+                "profile-base-url", "http://shinny.org/us/ny/hrsn",
+                "package-path", "ig-packages/shin-ny-ig/shinny/v1.6.3",
+                "ig-version", "1.6.3"));
+        fhirV4Config.setShinnyPackages(shinnyPackages);
+        return Map.of("fhir-v4", fhirV4Config);
+    }
+}
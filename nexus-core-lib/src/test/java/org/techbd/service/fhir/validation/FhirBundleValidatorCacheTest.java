@@ -0,0 +1,85 @@
+package org.techbd.service.fhir.validation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class FhirBundleValidatorCacheTest {
+
+    private static FhirBundleValidator validator(FhirBundleValidatorCache.Key key) {
+        return FhirBundleValidator.builder()
+                .packagePath(key.packagePath())
+                .igVersion(key.igVersion())
+                .baseFHIRUrl(key.profileBaseUrl())
+                .build();
+    }
+
+    @Test
+    void concurrentRequestsForSameVersionBuildOnce() throws Exception {
+        FhirBundleValidatorCache cache = new FhirBundleValidatorCache("test.single-flight", 4);
+        FhirBundleValidatorCache.Key key = new FhirBundleValidatorCache.Key(
+                "ig-packages/shin-ny-ig/shinny/v1.6.3", "1.6.3", "http://shinny.org/us/ny/hrsn");
+        AtomicInteger builds = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<FhirBundleValidator>> futures = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return cache.get(key, k -> {
+                        builds.incrementAndGet();
+                        try {
+                            Thread.sleep(100);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return validator(k);
+                    });
+                }));
+            }
+            start.countDown();
+            FhirBundleValidator first = futures.get(0).get();
+            for (Future<FhirBundleValidator> future : futures) {
+                assertThat(future.get()).isSameAs(first);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(builds).hasValue(1);
+        assertThat(cache.stats().missCount()).isEqualTo(1);
+        assertThat(cache.stats().hitCount()).isEqualTo(63);
+    }
+
+    @Test
+    void cacheIsBoundedByMaximumSize() {
+        FhirBundleValidatorCache cache = new FhirBundleValidatorCache("test.bounded", 2);
+        for (int i = 0; i < 10; i++) {
+            cache.get(new FhirBundleValidatorCache.Key("ig-packages/shin-ny-ig/shinny/v1." + i, "1." + i,
+                    "http://shinny.org/us/ny/hrsn"), FhirBundleValidatorCacheTest::validator);
+        }
+        cache.cleanUp();
+        assertThat(cache.size()).isLessThanOrEqualTo(2);
+        assertThat(cache.stats().evictionCount()).isGreaterThanOrEqualTo(8);
+    }
+
+    @Test
+    void failedBuildIsNotCached() {
+        FhirBundleValidatorCache cache = new FhirBundleValidatorCache("test.failure", 2);
+        FhirBundleValidatorCache.Key key = new FhirBundleValidatorCache.Key(
+                "ig-packages/shin-ny-ig/shinny/v0.0.0", "0.0.0", "http://shinny.org/us/ny/hrsn");
+        assertThatThrownBy(() -> cache.get(key, k -> {
+            throw new IllegalStateException("package not found");
+        })).isInstanceOf(IllegalStateException.class);
+        assertThat(cache.get(key, FhirBundleValidatorCacheTest::validator)).isNotNull();
+    }
+}
@@ -0,0 +1,96 @@
+package org.techbd.service.fhir.validation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.hl7.fhir.r4.model.ValueSet;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import ca.uhn.fhir.context.FhirContext;
+
+class TerminologyIndexTest {
+
+    private static final Path RESOURCES = Path.of("src/main/resources");
+    private static final String VALUE_SET = "ig-packages/vs/2.16.840.1.113762.1.4.1240.11.json";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void mapsTheSameCodesAsTheTextFiles() throws IOException {
+        final Path indexFile = directory.resolve("terminology.idx");
+        TerminologyIndex.compile(RESOURCES, indexFile);
+
+        final TerminologyIndex index = TerminologyIndex.map(indexFile);
+        final TerminologyStore parsed = TerminologyStore.loadFromClasspath(TerminologyStore.REFERENCE_CODE_SYSTEMS);
+
+        assertThat(index.terminologyStore().systems()).isEqualTo(parsed.systems());
+        for (String system : parsed.systems()) {
+            final TerminologyStore.CodeTable expected = parsed.codeTable(system);
+            final TerminologyStore.CodeTable mapped = index.terminologyStore().codeTable(system);
+            assertThat(mapped.size()).isEqualTo(expected.size());
+            assertThat(mapped.code(0)).isEqualTo(expected.code(0));
+            assertThat(mapped.code(mapped.size() - 1)).isEqualTo(expected.code(expected.size() - 1));
+            assertThat(mapped.contains(expected.code(expected.size() / 2))).isTrue();
+        }
+        assertThat(index.terminologyStore().contains(TerminologyStore.ICD10CM, "E11.9")).isTrue();
+        assertThat(index.sources()).contains("ig-packages/reference/snomed.psv", VALUE_SET);
+        assertThat(index.isCurrent(source -> Files.newInputStream(RESOURCES.resolve(source)))).isTrue();
+    }
+
+    @Test
+    void rebuildsValueSetsLikeTheJsonParser() throws IOException {
+        final Path indexFile = directory.resolve("terminology.idx");
+        TerminologyIndex.compile(RESOURCES, indexFile);
+
+        final ValueSet compiled = PrePopulateSupport
+                .toValueSet(TerminologyIndex.map(indexFile).valueSet(VALUE_SET).orElseThrow());
+        final ValueSet parsed = FhirContext.forR4Cached().newJsonParser().parseResource(ValueSet.class,
+                Files.readString(RESOURCES.resolve(VALUE_SET)));
+
+        assertThat(compiled.getUrl()).isEqualTo(parsed.getUrl());
+        assertThat(compiled.getVersion()).isEqualTo(parsed.getVersion());
+        assertThat(compiled.getStatus()).isEqualTo(parsed.getStatus());
+        assertThat(compiled.getCompose().getInclude()).extracting(include -> include.getValueSet().get(0).getValue())
+                .containsExactlyElementsOf(parsed.getCompose().getInclude().stream()
+                        .map(include -> include.getValueSet().get(0).getValue()).toList());
+        assertThat(compiled.getExpansion().getContains())
+                .extracting(ValueSet.ValueSetExpansionContainsComponent::getSystem,
+                        ValueSet.ValueSetExpansionContainsComponent::getCode,
+                        ValueSet.ValueSetExpansionContainsComponent::getDisplay)
+                .containsExactlyElementsOf(parsed.getExpansion().getContains().stream()
+                        .map(contains -> tuple(contains.getSystem(), contains.getCode(), contains.getDisplay()))
+                        .toList());
+    }
+
+    @Test
+    void detectsStaleAndTruncatedIndexes() throws IOException {
+        final Path root = directory.resolve("root");
+        for (String source : TerminologyStore.REFERENCE_CODE_SYSTEMS.values()) {
+            Files.createDirectories(root.resolve(source).getParent());
+            Files.writeString(root.resolve(source), "B\nA\nA\n");
+        }
+        final Path indexFile = root.resolve(TerminologyIndex.INDEX_RESOURCE);
+        TerminologyIndex.main(new String[] { root.toString() });
+
+        final TerminologyIndex index = TerminologyIndex.map(indexFile);
+        assertThat(index.terminologyStore().codeTable(TerminologyStore.LOINC).size()).isEqualTo(2);
+        assertThat(index.isCurrent(source -> Files.newInputStream(root.resolve(source)))).isTrue();
+
+        Files.writeString(root.resolve("ig-packages/reference/loinc.psv"), "A\nB\nC\n");
+        assertThat(index.isCurrent(source -> Files.newInputStream(root.resolve(source)))).isFalse();
+
+        final byte[] bytes = Files.readAllBytes(indexFile);
+        final Path truncated = Files.write(directory.resolve("truncated.idx"),
+                Arrays.copyOf(bytes, bytes.length - 3));
+        assertThatThrownBy(() -> TerminologyIndex.map(truncated)).isInstanceOf(IOException.class)
+                .hasMessageContaining("truncated");
+    }
+}
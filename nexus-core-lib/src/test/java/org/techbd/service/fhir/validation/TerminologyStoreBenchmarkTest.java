@@ -0,0 +1,81 @@
+package org.techbd.service.fhir.validation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hl7.fhir.r4.model.CodeSystem;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.techbd.util.fhir.FileUtils;
+
+/**
+ * Compares the heap held by the reference code systems as HAPI concept lists,
+ * which used to be built for every validator, with the shared
+ * {@link TerminologyStore}, and measures store lookup latency. Loading the
+ * concept lists for several validators needs a large heap, so the benchmark
+ * only runs when requested:
+ *
+ * <pre>
+ * mvn -pl nexus-core-lib test -Dtest=TerminologyStoreBenchmarkTest -Dtechbd.benchmark=true
+ * </pre>
+ */
+@EnabledIfSystemProperty(named = "techbd.benchmark", matches = "true")
+class TerminologyStoreBenchmarkTest {
+
+    private static final int VALIDATORS = 4;
+    private static final int LOOKUPS = 5_000_000;
+
+    @Test
+    void compareConceptListsWithSharedStore() {
+        final long baseline = usedHeap();
+        final List<List<CodeSystem.ConceptDefinitionComponent>> conceptLists = new ArrayList<>();
+        for (int validator = 0; validator < VALIDATORS; validator++) {
+            for (String file : TerminologyStore.REFERENCE_CODE_SYSTEMS.values()) {
+                final List<CodeSystem.ConceptDefinitionComponent> concepts = new ArrayList<>();
+                FileUtils.readFile(file).stream().distinct()
+                        .forEach(code -> concepts.add(new CodeSystem.ConceptDefinitionComponent().setCode(code)));
+                conceptLists.add(concepts);
+            }
+        }
+        final long conceptListBytes = (usedHeap() - baseline) / VALIDATORS;
+        conceptLists.clear();
+
+        final long storeBaseline = usedHeap();
+        final long loadStart = System.nanoTime();
+        final TerminologyStore store = TerminologyStore.loadFromClasspath(TerminologyStore.REFERENCE_CODE_SYSTEMS);
+        final long loadMillis = (System.nanoTime() - loadStart) / 1_000_000;
+        final long storeBytes = usedHeap() - storeBaseline;
+
+        final String[][] probes = {
+                { TerminologyStore.SNOMED, "10000006" }, { TerminologyStore.ICD10CM, "E11.9" },
+                { TerminologyStore.CPT, "99213" }, { TerminologyStore.HCPCS, "G0438" },
+                { TerminologyStore.LOINC, "100002-5" }, { TerminologyStore.LOINC, "0000-0" } };
+        int found = 0;
+        for (int warmup = 0; warmup < LOOKUPS; warmup++) {
+            found += store.contains(probes[warmup % probes.length][0], probes[warmup % probes.length][1]) ? 1 : 0;
+        }
+        final long lookupStart = System.nanoTime();
+        for (int lookup = 0; lookup < LOOKUPS; lookup++) {
+            found += store.contains(probes[lookup % probes.length][0], probes[lookup % probes.length][1]) ? 1 : 0;
+        }
+        final double nanosPerLookup = (System.nanoTime() - lookupStart) / (double) LOOKUPS;
+
+        System.out.printf("Reference codes: %,d%n", store.size());
+        System.out.printf("Heap per validator as concept lists: %,d KiB%n", conceptListBytes / 1024);
+        System.out.printf("Heap of the shared store (all validators): %,d KiB (%,d KiB packed), loaded in %d ms%n",
+                storeBytes / 1024, store.sizeInBytes() / 1024, loadMillis);
+        System.out.printf("Store lookup: %.1f ns%n", nanosPerLookup);
+        assertThat(found).isPositive();
+        assertThat(store.sizeInBytes()).isLessThan(conceptListBytes);
+    }
+
+    private static long usedHeap() {
+        final Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
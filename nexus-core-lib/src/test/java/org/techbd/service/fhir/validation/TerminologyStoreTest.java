@@ -0,0 +1,78 @@
+package org.techbd.service.fhir.validation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.context.support.ConceptValidationOptions;
+import ca.uhn.fhir.context.support.IValidationSupport;
+import ca.uhn.fhir.context.support.LookupCodeRequest;
+import ca.uhn.fhir.context.support.ValidationSupportContext;
+
+class TerminologyStoreTest {
+
+    @Test
+    void codeTableKeepsDistinctNonEmptyCodesInByteOrder() {
+        final TerminologyStore.CodeTable codeTable = TerminologyStore.CodeTable
+                .of(List.of("b", "a", "", "é", "b", "A1", "a"));
+
+        assertThat(codeTable.size()).isEqualTo(4);
+        assertThat(List.of(codeTable.code(0), codeTable.code(1), codeTable.code(2), codeTable.code(3)))
+                .containsExactly("A1", "a", "b", "é");
+        assertThat(codeTable.contains("é")).isTrue();
+        assertThat(codeTable.contains("A1")).isTrue();
+        assertThat(codeTable.contains("a1")).isFalse();
+        assertThat(codeTable.contains("")).isFalse();
+        assertThat(codeTable.contains(null)).isFalse();
+        assertThat(codeTable.indexOf("c")).isEqualTo(-4);
+        assertThat(codeTable.sizeInBytes()).isEqualTo(6 + 5 * Integer.BYTES);
+    }
+
+    @Test
+    void sharedStoreLoadsTheReferenceCodeSystemsOnce() {
+        final TerminologyStore store = TerminologyStore.shared();
+
+        assertThat(TerminologyStore.shared()).isSameAs(store);
+        assertThat(store.systems()).containsExactlyInAnyOrderElementsOf(
+                TerminologyStore.REFERENCE_CODE_SYSTEMS.keySet());
+        assertThat(store.contains(TerminologyStore.SNOMED, "10000006")).isTrue();
+        assertThat(store.contains(TerminologyStore.ICD10CM, "E11.9")).isTrue();
+        assertThat(store.contains(TerminologyStore.CPT, "99213")).isTrue();
+        assertThat(store.contains(TerminologyStore.HCPCS, "G0438")).isTrue();
+        assertThat(store.contains(TerminologyStore.LOINC, "100002-5")).isTrue();
+        assertThat(store.contains(TerminologyStore.LOINC, "10000006")).isFalse();
+        assertThat(store.contains("http://example.org/unknown", "10000006")).isFalse();
+    }
+
+    @Test
+    void validationSupportAnswersForStoredCodeSystemsOnly() {
+        final TerminologyStore store = TerminologyStore.of(Map.of(TerminologyStore.LOINC,
+                TerminologyStore.CodeTable.of(List.of("100002-5", "100003-3"))));
+        final TerminologyValidationSupport support = new TerminologyValidationSupport(FhirContext.forR4Cached(),
+                store);
+        final ValidationSupportContext context = new ValidationSupportContext(support);
+        final ConceptValidationOptions options = new ConceptValidationOptions();
+
+        assertThat(support.isCodeSystemSupported(context, TerminologyStore.LOINC)).isTrue();
+        assertThat(support.isCodeSystemSupported(context, TerminologyStore.SNOMED)).isFalse();
+        assertThat(support.validateCode(context, options, TerminologyStore.LOINC, "100003-3", null, null).isOk())
+                .isTrue();
+        final IValidationSupport.CodeValidationResult unknown = support.validateCode(context, options,
+                TerminologyStore.LOINC, "999-9", null, null);
+        assertThat(unknown.isOk()).isFalse();
+        assertThat(unknown.getMessage()).contains("999-9");
+        assertThat(support.validateCode(context, options, TerminologyStore.SNOMED, "10000006", null, null)).isNull();
+        assertThat(support.validateCode(context, options, TerminologyStore.LOINC, "100003-3", null,
+                "http://hl7.org/fhir/ValueSet/observation-codes")).isNull();
+        assertThat(support.lookupCode(context, new LookupCodeRequest(TerminologyStore.LOINC, "100002-5")).isFound())
+                .isTrue();
+        assertThat(support.lookupCode(context, new LookupCodeRequest(TerminologyStore.LOINC, "999-9")).isFound())
+                .isFalse();
+        assertThat(support.lookupCode(context, new LookupCodeRequest(TerminologyStore.SNOMED, "10000006")))
+                .isNull();
+    }
+}
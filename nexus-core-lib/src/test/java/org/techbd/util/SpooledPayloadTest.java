@@ -0,0 +1,59 @@
+package org.techbd.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SpooledPayloadTest {
+
+    @TempDir
+    Path spoolDirectory;
+
+    @Test
+    void keepsSmallPayloadsInMemory() throws Exception {
+        final byte[] bytes = "{\"resourceType\":\"Bundle\"}".getBytes(StandardCharsets.UTF_8);
+        try (SpooledPayload payload = SpooledPayload.spool(new ByteArrayInputStream(bytes), 1024, spoolDirectory)) {
+            assertThat(payload.isOnDisk()).isFalse();
+            assertThat(payload.size()).isEqualTo(bytes.length);
+            assertThat(payload.asString()).isEqualTo("{\"resourceType\":\"Bundle\"}");
+            try (InputStream in = payload.openStream()) {
+                assertThat(in.readAllBytes()).isEqualTo(bytes);
+            }
+        }
+        assertThat(Files.list(spoolDirectory)).isEmpty();
+    }
+
+    @Test
+    void spillsLargePayloadsToDiskAndDeletesThemOnClose() throws Exception {
+        final byte[] bytes = "é".repeat(10_000).getBytes(StandardCharsets.UTF_8);
+        final SpooledPayload payload = SpooledPayload.spool(new ByteArrayInputStream(bytes), 1000, spoolDirectory);
+        try (payload) {
+            assertThat(payload.isOnDisk()).isTrue();
+            assertThat(payload.size()).isEqualTo(bytes.length);
+            assertThat(Files.list(spoolDirectory)).hasSize(1);
+            // each stream starts from the beginning
+            for (int i = 0; i < 2; i++) {
+                try (InputStream in = payload.openStream()) {
+                    assertThat(in.readAllBytes()).isEqualTo(bytes);
+                }
+            }
+            assertThat(payload.asString()).isEqualTo("é".repeat(10_000));
+        }
+        assertThat(Files.list(spoolDirectory)).isEmpty();
+    }
+
+    @Test
+    void acceptsEmptyInput() throws Exception {
+        try (SpooledPayload payload = SpooledPayload.spool(InputStream.nullInputStream(), null, null)) {
+            assertThat(payload.size()).isZero();
+            assertThat(payload.asString()).isEmpty();
+        }
+    }
+}
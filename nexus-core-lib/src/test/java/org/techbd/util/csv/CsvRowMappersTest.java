@@ -0,0 +1,97 @@
+package org.techbd.util.csv;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.techbd.model.csv.DemographicData;
+import org.techbd.model.csv.QeAdminData;
+import org.techbd.model.csv.ScreeningObservationData;
+import org.techbd.model.csv.ScreeningProfileData;
+
+import com.opencsv.bean.CsvBindByName;
+
+class CsvRowMappersTest {
+
+    private static final Path EXAMPLE_DIR = Path.of("src/test/resources/org/techbd/csv/data/latestResources");
+
+    @Test
+    void mapsEveryAnnotatedColumnOfTheModelClasses() {
+        for (final CsvRowMapper<?> mapper : List.of(CsvRowMappers.DEMOGRAPHIC_DATA, CsvRowMappers.QE_ADMIN_DATA,
+                CsvRowMappers.SCREENING_PROFILE_DATA, CsvRowMappers.SCREENING_OBSERVATION_DATA)) {
+            final List<String> annotated = Arrays.stream(mapper.getType().getDeclaredFields())
+                    .map(field -> field.getAnnotation(CsvBindByName.class))
+                    .filter(annotation -> annotation != null)
+                    .map(CsvBindByName::column)
+                    .toList();
+            assertThat(mapper.getColumns()).as(mapper.getType().getSimpleName())
+                    .containsExactlyInAnyOrderElementsOf(annotated);
+        }
+    }
+
+    @Test
+    void mapsTheExampleFiles() throws IOException {
+        final Map<String, List<DemographicData>> demographicData = CsvConversionUtil.convertCsvToObjectMap(
+                reader("SDOH_PtInfo_CareRidgeSCN_testcase1_20250312040214.csv"), CsvRowMappers.DEMOGRAPHIC_DATA,
+                "test", "0.0.0");
+        final Map<String, List<QeAdminData>> qeAdminData = CsvConversionUtil.convertCsvToObjectMap(
+                reader("SDOH_QEadmin_CareRidgeSCN_testcase1_20250312040214.csv"), CsvRowMappers.QE_ADMIN_DATA,
+                "test", "0.0.0");
+        final Map<String, List<ScreeningProfileData>> screeningProfileData = CsvConversionUtil.convertCsvToObjectMap(
+                reader("SDOH_ScreeningProf_CareRidgeSCN_testcase1_20250312040214.csv"),
+                CsvRowMappers.SCREENING_PROFILE_DATA, "test", "0.0.0");
+        final Map<String, List<ScreeningObservationData>> screeningObservationData = CsvConversionUtil
+                .convertCsvToObjectMap(reader("SDOH_ScreeningObs_CareRidgeSCN_testcase1_20250312040214.csv"),
+                        CsvRowMappers.SCREENING_OBSERVATION_DATA, "test", "0.0.0");
+
+        assertThat(demographicData).containsOnlyKeys("11223344");
+        final DemographicData patient = demographicData.get("11223344").get(0);
+        assertThat(patient.getFamilyName()).isEqualTo("Doe");
+        assertThat(patient.getAddress1()).isEqualTo("115 Broadway Apt2");
+        assertThat(patient.getAddress2()).isEmpty();
+        assertThat(patient.getSexualOrientationLastUpdated()).isEqualTo("2024-02-23T00:00:00Z");
+        assertThat(qeAdminData).containsOnlyKeys("11223344");
+        assertThat(screeningProfileData).containsOnlyKeys("EncounterExample");
+        assertThat(screeningObservationData).containsOnlyKeys("EncounterExample");
+        assertThat(screeningObservationData.get("EncounterExample"))
+                .hasSize(Files.readAllLines(EXAMPLE_DIR.resolve(
+                        "SDOH_ScreeningObs_CareRidgeSCN_testcase1_20250312040214.csv")).size() - 1)
+                .allSatisfy(observation -> assertThat(observation.getPatientMrIdValue()).isEqualTo("11223344"));
+    }
+
+    @Test
+    void matchesHeadersIgnoringCaseAndByteOrderMarkAndSkipsMalformedRows() throws IOException {
+        final Map<String, List<QeAdminData>> grouped = CsvRowMappers.QE_ADMIN_DATA.readGrouped(
+                new StringReader("\uFEFFpatient_mr_id_value,Facility_Name,UNKNOWN\n"
+                        + "1,\"Care, Ridge\",x\n"
+                        + "2,only-two\n"
+                        + "\n"
+                        + "1, \"Second\",y\n"),
+                ',', "test", "0.0.0");
+
+        assertThat(grouped).containsOnlyKeys("1");
+        assertThat(grouped.get("1")).extracting(QeAdminData::getFacilityName)
+                .containsExactly("Care, Ridge", "Second");
+    }
+
+    @Test
+    void rejectsRowsWithoutAGroupKey() {
+        assertThatThrownBy(() -> CsvRowMappers.SCREENING_PROFILE_DATA.readGrouped(
+                new StringReader("FACILITY_ID\nfacility\n"), ',', "test", "0.0.0"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageStartingWith("Field 'encounterId' has a null value");
+    }
+
+    private static StringReader reader(final String fileName) throws IOException {
+        return new StringReader(Files.readString(EXAMPLE_DIR.resolve(fileName), StandardCharsets.UTF_8));
+    }
+}
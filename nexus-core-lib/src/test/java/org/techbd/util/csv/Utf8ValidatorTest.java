@@ -0,0 +1,65 @@
+package org.techbd.util.csv;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class Utf8ValidatorTest {
+
+    @Test
+    void acceptsWellFormedText() {
+        assertThat(Utf8Validator.firstMalformedOffset(bytes("PATIENT_MR_ID_VALUE,FACILITY_NAME\n1,CUMC"))).isEqualTo(-1);
+        assertThat(Utf8Validator.firstMalformedOffset(bytes("\uFEFFJosé García, 東京, \uD83D\uDE00"))).isEqualTo(-1);
+        assertThat(Utf8Validator.firstMalformedOffset(ByteBuffer.allocate(0))).isEqualTo(-1);
+    }
+
+    @Test
+    void reportsTheOffsetOfTheFirstMalformedSequence() {
+        assertThat(Utf8Validator.firstMalformedOffset(
+                ByteBuffer.wrap("123,José".getBytes(StandardCharsets.ISO_8859_1)))).isEqualTo(7);
+        // overlong encoding of '/', an encoded surrogate, a code point above U+10FFFF, a truncated sequence
+        assertThat(Utf8Validator.firstMalformedOffset(ByteBuffer.wrap(new byte[] { 'a', (byte) 0xC0, (byte) 0xAF })))
+                .isEqualTo(1);
+        assertThat(Utf8Validator.firstMalformedOffset(
+                ByteBuffer.wrap(new byte[] { (byte) 0xED, (byte) 0xA0, (byte) 0x80 }))).isEqualTo(0);
+        assertThat(Utf8Validator.firstMalformedOffset(
+                ByteBuffer.wrap(new byte[] { (byte) 0xF4, (byte) 0x90, (byte) 0x80, (byte) 0x80 }))).isEqualTo(0);
+        assertThat(Utf8Validator.firstMalformedOffset(
+                ByteBuffer.wrap(new byte[] { 'a', 'b', 'c', 'd', 'e', 'f', 'g', 'h', 'i', (byte) 0xE2, (byte) 0x82 })))
+                .isEqualTo(9);
+    }
+
+    @Test
+    void agreesWithTheJdkDecoder() {
+        final Random random = new Random(42);
+        for (int round = 0; round < 20_000; round++) {
+            final byte[] bytes = new byte[random.nextInt(24)];
+            for (int index = 0; index < bytes.length; index++) {
+                bytes[index] = (byte) (random.nextBoolean() ? random.nextInt(0x80) : 0x80 + random.nextInt(0x80));
+            }
+            assertThat(Utf8Validator.firstMalformedOffset(ByteBuffer.wrap(bytes)) < 0)
+                    .as("%s", java.util.HexFormat.of().formatHex(bytes))
+                    .isEqualTo(decodes(bytes));
+        }
+    }
+
+    private static ByteBuffer bytes(final String text) {
+        return ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static boolean decodes(final byte[] bytes) {
+        try {
+            StandardCharsets.UTF_8.newDecoder().onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT).decode(ByteBuffer.wrap(bytes));
+            return true;
+        } catch (CharacterCodingException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package org.techbd.util.fhir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.OperationOutcome;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.parser.IParser;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class FhirContextProviderTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeAll
+    static void buildContext() {
+        FhirContextProvider.shared().getContext();
+    }
+
+    @BeforeEach
+    void addRegistry() {
+        meterRegistry = new SimpleMeterRegistry();
+        Metrics.addRegistry(meterRegistry);
+    }
+
+    @AfterEach
+    void removeRegistry() {
+        Metrics.removeRegistry(meterRegistry);
+    }
+
+    @Test
+    void beanAndSharedProviderUseOneContext() {
+        final FhirContextProvider provider = new FhirContextProvider();
+        final FhirContext context = provider.getContext();
+
+        for (int i = 0; i < 100; i++) {
+            provider.encodeToJson(new OperationOutcome());
+        }
+
+        assertThat(FhirContextProvider.shared().getContext()).isSameAs(context);
+        final Counter created = meterRegistry.find("techbd.fhir.context.created").counter();
+        assertThat(created == null ? 0 : created.count()).isZero();
+    }
+
+    @Test
+    void reusesOneParserPerThread() throws Exception {
+        final FhirContextProvider provider = FhirContextProvider.shared();
+        final IParser parser = provider.jsonParser();
+
+        assertThat(provider.jsonParser()).isSameAs(parser);
+        assertThat(FhirContextProvider.jsonParser(provider.getContext())).isSameAs(parser);
+        assertThat(CompletableFuture.supplyAsync(provider::jsonParser).get()).isNotSameAs(parser);
+        assertThat(FhirContextProvider.jsonParser(FhirContext.forR4Cached())).isNotSameAs(parser);
+    }
+
+    @Test
+    void parsesWhatItEncodes() {
+        final FhirContextProvider provider = FhirContextProvider.shared();
+        final Bundle bundle = new Bundle();
+        bundle.setId("bundle-1");
+        bundle.setType(Bundle.BundleType.TRANSACTION);
+
+        final Bundle parsed = provider.parseJson(Bundle.class, provider.encodeToJson(bundle));
+
+        assertThat(parsed.getIdElement().getIdPart()).isEqualTo("bundle-1");
+        assertThat(parsed.getType()).isEqualTo(Bundle.BundleType.TRANSACTION);
+    }
+
+    @Test
+    void toleratesUnknownElementsLikeTheValidationEngine() {
+        final Bundle parsed = FhirContextProvider.shared().parseJson(Bundle.class,
+                "{\"resourceType\":\"Bundle\",\"id\":\"b\",\"type\":\"transaction\",\"notAnElement\":true}");
+
+        assertThat(parsed.getIdElement().getIdPart()).isEqualTo("b");
+    }
+}
@@ -0,0 +1,182 @@
+package org.techbd.util.fhir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.hl7.fhir.r4.model.Bundle;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.techbd.util.SpooledPayload;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.parser.DataFormatException;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ParsedBundleTest {
+
+    private static final String BUNDLE = """
+            {
+              "resourceType": "Bundle",
+              "id": "bundle-1",
+              "meta": { "profile": [ "http://shinny.org/us/ny/hrsn/StructureDefinition/SHINNYBundleProfile", "http://example.org/other" ] },
+              "type": "transaction",
+              "entry": [ { "resource": { "resourceType": "Patient", "id": "p1" } } ]
+            }
+            """;
+
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void addRegistry() {
+        registry = new SimpleMeterRegistry();
+        Metrics.addRegistry(registry);
+    }
+
+    @AfterEach
+    void removeRegistry() {
+        Metrics.removeRegistry(registry);
+    }
+
+    @Test
+    void parsesPayloadOnceForAllDerivedValues() throws Exception {
+        final ParsedBundle parsedBundle = ParsedBundle.of(BUNDLE);
+
+        assertThat(parsedBundle.isJson()).isTrue();
+        assertThat(parsedBundle.getBundleId()).isEqualTo("bundle-1");
+        assertThat(parsedBundle.getProfileUrls()).hasSize(2);
+        assertThat(parsedBundle.getProfileUrl())
+                .isEqualTo("http://shinny.org/us/ny/hrsn/StructureDefinition/SHINNYBundleProfile");
+        assertThat(parsedBundle.toMap()).containsEntry("id", "bundle-1");
+        parsedBundle.requireBundle();
+
+        assertThat(registry.get("techbd.fhir.bundle.parse").tag("parser", "jackson").timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void toMapReturnsIndependentCopies() throws Exception {
+        final ParsedBundle parsedBundle = ParsedBundle.of(BUNDLE);
+        parsedBundle.toMap().put("id", "changed");
+        assertThat(parsedBundle.toMap()).containsEntry("id", "bundle-1");
+    }
+
+    @Test
+    void keepsHapiBundlePerContext() {
+        final ParsedBundle parsedBundle = ParsedBundle.of(BUNDLE);
+        final FhirContext fhirContext = FhirContext.forR4Cached();
+
+        assertThat(parsedBundle.getBundle(fhirContext)).isSameAs(parsedBundle.getBundle(fhirContext));
+        assertThat(parsedBundle.getBundle(fhirContext).getEntry()).hasSize(1);
+        assertThat(registry.get("techbd.fhir.bundle.parse").tag("parser", "hapi").timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void builtBundleIsValidatedAsIsAndOnlyParsedForTheTree() throws Exception {
+        final FhirContext fhirContext = FhirContextProvider.shared().getContext();
+        final Bundle bundle = FhirContextProvider.shared().parseJson(Bundle.class, BUNDLE);
+        final ParsedBundle parsedBundle = ParsedBundle.of(bundle, fhirContext,
+                FhirContextProvider.shared().encodeToJson(bundle));
+
+        assertThat(parsedBundle.isJson()).isTrue();
+        assertThat(parsedBundle.getBundleId()).isEqualTo("bundle-1");
+        assertThat(parsedBundle.getProfileUrls()).containsExactly(
+                "http://shinny.org/us/ny/hrsn/StructureDefinition/SHINNYBundleProfile", "http://example.org/other");
+        parsedBundle.requireBundle();
+        assertThat(parsedBundle.hasBundle(fhirContext)).isTrue();
+        assertThat(parsedBundle.getBundle(fhirContext)).isSameAs(bundle);
+        assertThat(registry.find("techbd.fhir.bundle.parse").timers()).isEmpty();
+
+        assertThat(parsedBundle.getJsonNode().path("entry").get(0).path("resource").path("id").asText())
+                .isEqualTo("p1");
+        assertThat(parsedBundle.getBundleId()).isEqualTo("bundle-1");
+        assertThat(registry.get("techbd.fhir.bundle.parse").tag("parser", "jackson").timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void builtBundleWithoutIdMatchesTheEncodedPayload() {
+        final Bundle bundle = new Bundle();
+        bundle.setType(Bundle.BundleType.TRANSACTION);
+        final String payload = FhirContextProvider.shared().encodeToJson(bundle);
+
+        final ParsedBundle built = ParsedBundle.of(bundle, FhirContextProvider.shared().getContext(), payload);
+
+        assertThat(built.getBundleId()).isEqualTo(ParsedBundle.of(payload).getBundleId())
+                .isEqualTo(ParsedBundle.BUNDLE_ID_NOT_PROVIDED);
+        assertThat(built.getProfileUrls()).isEqualTo(ParsedBundle.of(payload).getProfileUrls()).isEmpty();
+    }
+
+    @Test
+    void matchesExtractBundleIdForInvalidAndNonBundlePayloads() {
+        final String invalid = "{ not json";
+        final String patient = "{\"resourceType\":\"Patient\",\"id\":\"p1\"}";
+        final String noId = "{\"resourceType\":\"Bundle\"}";
+
+        assertThat(ParsedBundle.of(invalid).getBundleId()).isEqualTo(CoreFHIRUtil.extractBundleId(invalid, "i"));
+        assertThat(ParsedBundle.of(patient).getBundleId()).isEqualTo(CoreFHIRUtil.extractBundleId(patient, "i"));
+        assertThat(ParsedBundle.of(noId).getBundleId()).isEqualTo(CoreFHIRUtil.extractBundleId(noId, "i"));
+    }
+
+    @Test
+    void reportsParseFailuresToEveryCaller() {
+        final ParsedBundle parsedBundle = ParsedBundle.of("{ not json");
+
+        assertThat(parsedBundle.isJson()).isFalse();
+        assertThat(parsedBundle.getProfileUrls()).isEmpty();
+        assertThatThrownBy(parsedBundle::getJsonNode).isInstanceOf(JsonProcessingException.class);
+        assertThatThrownBy(parsedBundle::toMap).isInstanceOf(JsonProcessingException.class);
+        assertThatThrownBy(parsedBundle::requireBundle).isInstanceOf(DataFormatException.class);
+        assertThatThrownBy(ParsedBundle.of("{\"resourceType\":\"Patient\"}")::requireBundle)
+                .isInstanceOf(DataFormatException.class);
+    }
+
+    @Test
+    void spooledPayloadAnswersHeaderQuestionsWithoutBuildingTheTree() throws Exception {
+        try (SpooledPayload spooled = SpooledPayload.of(BUNDLE.getBytes(StandardCharsets.UTF_8))) {
+            final ParsedBundle parsedBundle = ParsedBundle.of(spooled);
+
+            assertThat(parsedBundle.isJson()).isTrue();
+            assertThat(parsedBundle.getBundleId()).isEqualTo("bundle-1");
+            assertThat(parsedBundle.getProfileUrls()).isEqualTo(ParsedBundle.of(BUNDLE).getProfileUrls());
+            parsedBundle.requireBundle();
+
+            assertThat(registry.get("techbd.fhir.bundle.parse").tag("parser", "streaming").timer().count())
+                    .isEqualTo(1);
+            assertThat(registry.find("techbd.fhir.bundle.parse").tag("parser", "jackson").timer()).isNull();
+
+            assertThat(parsedBundle.toMap()).containsEntry("id", "bundle-1");
+            assertThat(parsedBundle.getBundle(FhirContext.forR4Cached()).getEntry()).hasSize(1);
+            assertThat(parsedBundle.getPayload()).isEqualTo(BUNDLE);
+        }
+    }
+
+    @Test
+    void spooledPayloadMatchesStringPayloadForEdgeCases() throws Exception {
+        final List<String> payloads = List.of(
+                "{ not json",
+                "{\"resourceType\":\"Patient\",\"id\":\"p1\"}",
+                "{\"resourceType\":\"Bundle\"}",
+                "{\"id\":\"late\",\"entry\":[{\"id\":\"nested\"}],\"resourceType\":\"Bundle\"}",
+                "{\"resourceType\":\"Bundle\",\"meta\":{\"profile\":\"not-an-array\"}}",
+                "{\"resourceType\":\"Bundle\",\"id\":\"b\",\"meta\":{\"profile\":[\"a\",null]}} trailing",
+                "[]");
+        for (final String payload : payloads) {
+            final ParsedBundle expected = ParsedBundle.of(payload);
+            try (SpooledPayload spooled = SpooledPayload.of(payload.getBytes(StandardCharsets.UTF_8))) {
+                final ParsedBundle actual = ParsedBundle.of(spooled);
+                assertThat(actual.isJson()).as(payload).isEqualTo(expected.isJson());
+                assertThat(actual.getResourceType()).as(payload).isEqualTo(expected.getResourceType());
+                assertThat(actual.getBundleId()).as(payload).isEqualTo(expected.getBundleId());
+                assertThat(actual.getProfileUrls()).as(payload).isEqualTo(expected.getProfileUrls());
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+#!/usr/bin/env python3
+"""Long-running worker for the post-stdin-payload-to-nyec-datalake-external strategy.
+
+Speaks the framed protocol of ExternalProcessWorkerPool: every request and
+response is a 4-byte big-endian length followed by that many bytes of UTF-8
+JSON. Requests are answered in the order they arrive.
+
+  request:  {"processingAgent": "...", "url": "...", "payload": {...}}
+  response: {"exitCode": 0, "output": "<response body>", "error": ""}
+
+The mTLS key and certificate are fetched from AWS Secrets Manager once at
+startup instead of once per bundle. Set NYEC_MTLS_DISABLED=true to post
+without client certificates (sandbox). Diagnostics go to stderr only; stdout
+carries nothing but frames.
+"""
+
+import json
+import os
+import ssl
+import struct
+import subprocess
+import sys
+import tempfile
+import urllib.error
+import urllib.parse
+import urllib.request
+
+
+def log(message):
+    print(message, file=sys.stderr, flush=True)
+
+
+def fetch_secret(secret_id):
+    return subprocess.run(
+        ["aws", "secretsmanager", "get-secret-value", "--secret-id", secret_id,
+         "--query", "SecretString", "--output", "text"],
+        check=True, capture_output=True, text=True).stdout
+
+
+def ssl_context():
+    context = ssl.create_default_context()
+    if os.environ.get("NYEC_MTLS_DISABLED", "false").lower() == "true":
+        return context
+    os.environ.setdefault("AWS_DEFAULT_REGION", "us-east-1")
+    cert = fetch_secret(os.environ.get("NYEC_MTLS_CERT_SECRET", "techbd-qa-client-certificate"))
+    key = fetch_secret(os.environ.get("NYEC_MTLS_KEY_SECRET", "techbd-qa-client-key"))
+    with tempfile.TemporaryDirectory() as directory:
+        cert_file = os.path.join(directory, "client.pem")
+        key_file = os.path.join(directory, "client.key")
+        for path, content in ((cert_file, cert), (key_file, key)):
+            with open(path, "w", opener=lambda p, f: os.open(p, f, 0o600)) as handle:
+                handle.write(content)
+        context.load_cert_chain(cert_file, key_file)
+    return context
+
+
+def read_frame(stream):
+    header = stream.read(4)
+    if len(header) < 4:
+        return None
+    (length,) = struct.unpack(">i", header)
+    body = stream.read(length)
+    if len(body) < length:
+        return None
+    return body
+
+
+def write_frame(stream, document):
+    body = json.dumps(document).encode("utf-8")
+    stream.write(struct.pack(">i", len(body)))
+    stream.write(body)
+    stream.flush()
+
+
+def post(context, request):
+    url = request["url"] + "?" + urllib.parse.urlencode({"processingAgent": request["processingAgent"]})
+    data = json.dumps(request["payload"]).encode("utf-8")
+    http_request = urllib.request.Request(url, data=data, method="POST",
+                                          headers={"Content-Type": "application/json"})
+    try:
+        with urllib.request.urlopen(http_request, context=context) as response:
+            return {"exitCode": 0, "output": response.read().decode("utf-8"), "error": ""}
+    except urllib.error.HTTPError as error:
+        # curl without --fail exits 0 on HTTP errors; the caller inspects the body
+        return {"exitCode": 0, "output": error.read().decode("utf-8"), "error": str(error)}
+    except Exception as error:  # noqa: BLE001 - one bad request must not stop the worker
+        return {"exitCode": 1, "output": "", "error": str(error)}
+
+
+def main():
+    context = ssl_context()
+    stdin = sys.stdin.buffer
+    stdout = sys.stdout.buffer
+    log("post-stdin worker ready (pid %d)" % os.getpid())
+    while True:
+        frame = read_frame(stdin)
+        if frame is None:
+            return 0
+        try:
+            response = post(context, json.loads(frame))
+        except (ValueError, KeyError) as error:
+            response = {"exitCode": 2, "output": "", "error": "Invalid request: %s" % error}
+        write_frame(stdout, response)
+
+
+if __name__ == "__main__":
+    sys.exit(main())
@@ -0,0 +1,93 @@
+#!/usr/bin/env python3
+"""
+Long-running worker for validate-nyher-fhir-ig-equivalent.py.
+
+Used by the CSV validation worker pool (csvValidationWorkerPool in
+application.yml) so that the interpreter and frictionless are loaded once per
+worker instead of once per screening group.
+
+Usage: validate-nyher-fhir-ig-equivalent-worker.py <path to validate-nyher-fhir-ig-equivalent.py>
+
+Requests and responses are frames on stdin/stdout: a 4-byte big-endian length
+followed by that many bytes of UTF-8 JSON.
+
+  request:  {"directory": "...", "spec": "...", "files": [qe_admin, screening_profile, screening_observation, pt_info]}
+  response: {"output": "<what the script prints>", "error": "<traceback or empty>"}
+
+  request:  {"ping": true}
+  response: {"pong": true}
+
+Requests are answered one at a time, in the order they arrive. The worker
+exits when stdin is closed. Anything else written to stdout by the validator
+is captured into "output", so the framing on stdout is never corrupted.
+"""
+import contextlib
+import importlib.util
+import io
+import json
+import os
+import struct
+import sys
+import traceback
+
+
+def load_validator(path):
+    spec = importlib.util.spec_from_file_location("validate_nyher_fhir_ig_equivalent", path)
+    module = importlib.util.module_from_spec(spec)
+    spec.loader.exec_module(module)
+    return module
+
+
+def read_frame(stream):
+    header = stream.read(4)
+    if len(header) < 4:
+        return None
+    (length,) = struct.unpack(">I", header)
+    body = stream.read(length)
+    if len(body) < length:
+        return None
+    return body
+
+
+def write_frame(stream, message):
+    body = json.dumps(message, default=str).encode("utf-8")
+    stream.write(struct.pack(">I", len(body)))
+    stream.write(body)
+    stream.flush()
+
+
+def validate(validator, request):
+    # the validator resolves file names against the working directory, exactly
+    # as when it is run as a separate process in the group's directory
+    os.chdir(request["directory"])
+    output = io.StringIO()
+    with contextlib.redirect_stdout(output):
+        validator.validate_package(request["spec"], *request["files"], None)
+    return {"output": output.getvalue(), "error": ""}
+
+
+def main():
+    if len(sys.argv) != 2:
+        print("Usage: validate-nyher-fhir-ig-equivalent-worker.py <validator script>", file=sys.stderr)
+        sys.exit(2)
+    validator = load_validator(sys.argv[1])
+    requests = sys.stdin.buffer
+    responses = sys.stdout.buffer
+    while True:
+        frame = read_frame(requests)
+        if frame is None:
+            return
+        try:
+            request = json.loads(frame.decode("utf-8"))
+            if request.get("ping"):
+                response = {"pong": True}
+            else:
+                response = validate(validator, request)
+        except Exception:
+            traceback.print_exc(file=sys.stderr)
+            response = {"output": "", "error": traceback.format_exc()}
+        write_frame(responses, response)
+
+
+if __name__ == "__main__":
+    main()